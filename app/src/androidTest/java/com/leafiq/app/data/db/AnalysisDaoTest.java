@@ -12,6 +12,7 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.entity.CareItem;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.AnalysisSummary;
 import com.leafiq.app.data.model.AnalysisWithPlant;
 
 import org.junit.After;
@@ -176,6 +177,53 @@ public class AnalysisDaoTest {
 
     // ==================== Phase 5 tests ====================
 
+    @Test
+    public void getAnalysisSummariesForPlant_returnsListFieldsWithoutRawResponse() throws InterruptedException {
+        Analysis older = createTestAnalysis("1", "plant-1", 5, "Older");
+        older.createdAt = 1000L;
+        older.rawResponse = "{\"large\": \"json\"}";
+        older.photoPath = "/photos/1.jpg";
+        analysisDao.insertAnalysis(older);
+        Analysis newer = createTestAnalysis("2", "plant-1", 8, "Newer");
+        newer.createdAt = 2000L;
+        newer.parseStatus = "PARTIAL";
+        analysisDao.insertAnalysis(newer);
+
+        List<AnalysisSummary> summaries = LiveDataTestUtil.getValue(
+                analysisDao.getAnalysisSummariesForPlant("plant-1"));
+
+        assertThat(summaries).hasSize(2);
+        assertThat(summaries.get(0).id).isEqualTo("2");
+        assertThat(summaries.get(0).parseStatus).isEqualTo("PARTIAL");
+        assertThat(summaries.get(1).healthScore).isEqualTo(5);
+        assertThat(summaries.get(1).summary).isEqualTo("Older");
+        assertThat(summaries.get(1).photoPath).isEqualTo("/photos/1.jpg");
+        assertThat(summaries.get(1).createdAt).isEqualTo(1000L);
+    }
+
+    @Test
+    public void getRawResponseSync_returnsOnlyRawResponse() {
+        Analysis analysis = createTestAnalysis("1", "plant-1", 8, "Healthy");
+        analysis.rawResponse = "{\"identification\": {}}";
+        analysisDao.insertAnalysis(analysis);
+
+        assertThat(analysisDao.getRawResponseSync("1")).isEqualTo("{\"identification\": {}}");
+        assertThat(analysisDao.getRawResponseSync("missing")).isNull();
+    }
+
+    @Test
+    public void updateHealthScore_keepsRawResponse() {
+        Analysis analysis = createTestAnalysis("1", "plant-1", 8, "Healthy");
+        analysis.rawResponse = "{\"identification\": {}}";
+        analysisDao.insertAnalysis(analysis);
+
+        analysisDao.updateHealthScore("1", 3);
+
+        Analysis updated = analysisDao.getAnalysisById("1");
+        assertThat(updated.healthScore).isEqualTo(3);
+        assertThat(updated.rawResponse).isEqualTo("{\"identification\": {}}");
+    }
+
     @Test
     public void updateAnalysis_updatesFields() {
         Analysis analysis = createTestAnalysis("upd-1", "plant-1", 6, "Original summary");
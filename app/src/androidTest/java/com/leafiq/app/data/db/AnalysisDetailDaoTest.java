@@ -0,0 +1,146 @@
+package com.leafiq.app.data.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.entity.AnalysisAction;
+import com.leafiq.app.data.entity.AnalysisIssue;
+import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.AnalysisWithDetails;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class AnalysisDetailDaoTest {
+
+    private AppDatabase database;
+    private AnalysisDao analysisDao;
+    private AnalysisDetailDao analysisDetailDao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .allowMainThreadQueries()
+            .build();
+        analysisDao = database.analysisDao();
+        analysisDetailDao = database.analysisDetailDao();
+
+        // Insert a plant for foreign key constraint
+        Plant plant = new Plant();
+        plant.id = "plant-1";
+        plant.commonName = "Test Plant";
+        plant.createdAt = System.currentTimeMillis();
+        plant.updatedAt = System.currentTimeMillis();
+        database.plantDao().insertPlant(plant);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void replaceDetails_andGet_returnsDetailWithIssuesAndActions() {
+        analysisDao.insertAnalysis(createTestAnalysis("1", 1000L));
+        AnalysisWithDetails details = createTestDetails("1", 2, 1);
+        details.detail.commonName = "Monstera";
+        details.detail.wateringFrequency = "Weekly";
+
+        analysisDetailDao.replaceDetails(details);
+
+        AnalysisWithDetails retrieved = analysisDetailDao.getAnalysisWithDetailsSync("1");
+        assertThat(retrieved).isNotNull();
+        assertThat(retrieved.detail.commonName).isEqualTo("Monstera");
+        assertThat(retrieved.detail.wateringFrequency).isEqualTo("Weekly");
+        assertThat(retrieved.issues).hasSize(2);
+        assertThat(retrieved.actions).hasSize(1);
+    }
+
+    @Test
+    public void replaceDetails_twice_replacesChildRows() {
+        analysisDao.insertAnalysis(createTestAnalysis("1", 1000L));
+        analysisDetailDao.replaceDetails(createTestDetails("1", 3, 2));
+
+        analysisDetailDao.replaceDetails(createTestDetails("1", 1, 0));
+
+        AnalysisWithDetails retrieved = analysisDetailDao.getAnalysisWithDetailsSync("1");
+        assertThat(retrieved.issues).hasSize(1);
+        assertThat(retrieved.actions).isEmpty();
+    }
+
+    @Test
+    public void getAnalysisWithDetailsSync_notNormalised_returnsNull() {
+        analysisDao.insertAnalysis(createTestAnalysis("1", 1000L));
+
+        assertThat(analysisDetailDao.getAnalysisWithDetailsSync("1")).isNull();
+    }
+
+    @Test
+    public void getAnalysesWithoutDetails_returnsOnlyUnnormalised_oldestFirst() {
+        analysisDao.insertAnalysis(createTestAnalysis("new", 3000L));
+        analysisDao.insertAnalysis(createTestAnalysis("done", 2000L));
+        analysisDao.insertAnalysis(createTestAnalysis("old", 1000L));
+        analysisDetailDao.replaceDetails(createTestDetails("done", 0, 0));
+
+        List<Analysis> pending = analysisDetailDao.getAnalysesWithoutDetails(10);
+
+        assertThat(pending).hasSize(2);
+        assertThat(pending.get(0).id).isEqualTo("old");
+        assertThat(pending.get(1).id).isEqualTo("new");
+    }
+
+    @Test
+    public void deleteAnalysis_cascadesToNormalisedRows() {
+        analysisDao.insertAnalysis(createTestAnalysis("1", 1000L));
+        analysisDetailDao.replaceDetails(createTestDetails("1", 2, 2));
+
+        analysisDao.deleteAnalysisById("1");
+
+        assertThat(analysisDetailDao.getAnalysisWithDetailsSync("1")).isNull();
+        assertThat(analysisDetailDao.getAnalysesWithoutDetails(10)).isEmpty();
+    }
+
+    // Helper methods
+
+    private Analysis createTestAnalysis(String id, long createdAt) {
+        Analysis analysis = new Analysis();
+        analysis.id = id;
+        analysis.plantId = "plant-1";
+        analysis.healthScore = 7;
+        analysis.summary = "Test";
+        analysis.createdAt = createdAt;
+        return analysis;
+    }
+
+    private AnalysisWithDetails createTestDetails(String analysisId, int issueCount, int actionCount) {
+        AnalysisWithDetails details = new AnalysisWithDetails();
+        details.detail.analysisId = analysisId;
+        for (int i = 0; i < issueCount; i++) {
+            AnalysisIssue issue = new AnalysisIssue();
+            issue.analysisId = analysisId;
+            issue.position = i;
+            issue.name = "Issue " + i;
+            details.issues.add(issue);
+        }
+        for (int i = 0; i < actionCount; i++) {
+            AnalysisAction action = new AnalysisAction();
+            action.analysisId = analysisId;
+            action.position = i;
+            action.action = "Action " + i;
+            details.actions.add(action);
+        }
+        return details;
+    }
+}
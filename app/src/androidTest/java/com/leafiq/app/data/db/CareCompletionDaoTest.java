@@ -10,6 +10,7 @@ import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.leafiq.app.data.entity.CareCompletion;
+import com.leafiq.app.data.entity.CareCompletionMonthly;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
 
@@ -19,7 +20,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 @RunWith(AndroidJUnit4.class)
 public class CareCompletionDaoTest {
@@ -126,6 +131,18 @@ public class CareCompletionDaoTest {
         assertThat(completions.get(1).id).isEqualTo("c2");
     }
 
+    @Test
+    public void getRecentCompletionsForPlant_excludesSnoozes() throws Exception {
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", 1000000L, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", 2000000L, "snooze"));
+
+        List<CareCompletion> completions = LiveDataTestUtil.getValue(
+                careCompletionDao.getRecentCompletionsForPlant("plant-1", 10));
+
+        assertThat(completions).hasSize(1);
+        assertThat(completions.get(0).id).isEqualTo("c1");
+    }
+
     @Test
     public void getRecentCompletionsForPlant_emptyForNonexistentPlant() throws Exception {
         careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", 1000000L, "in_app"));
@@ -185,6 +202,173 @@ public class CareCompletionDaoTest {
         assertThat(last).isNull();
     }
 
+    // ==================== Compaction tests ====================
+
+    @Test
+    public void compactCompletionsBefore_rollsUpOldCompletionsByMonth() throws Exception {
+        long jan10 = localTime(2024, Calendar.JANUARY, 10);
+        long jan20 = localTime(2024, Calendar.JANUARY, 20);
+        long mar10 = localTime(2024, Calendar.MARCH, 10);
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", jan10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", jan20, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c3", "sched-1", jan20 + 1000L, "notification_action"));
+        careCompletionDao.insertCompletion(createCompletion("c4", "sched-1", mar10, "in_app"));
+
+        int compacted = careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        assertThat(compacted).isEqualTo(3);
+        List<CareCompletion> remaining = LiveDataTestUtil.getValue(
+                careCompletionDao.getAllCompletionsForPlant("plant-1"));
+        assertThat(remaining).hasSize(1);
+        assertThat(remaining.get(0).id).isEqualTo("c4");
+
+        List<CareCompletionMonthly> monthly = LiveDataTestUtil.getValue(
+                careCompletionDao.getMonthlyCompletionsForPlant("plant-1"));
+        assertThat(monthly).hasSize(2);
+        // Ordered by month, care type, then source DESC
+        assertThat(monthly.get(0).month).isEqualTo(monthKey(jan10));
+        assertThat(monthly.get(0).careType).isEqualTo("water");
+        assertThat(monthly.get(0).source).isEqualTo("notification_action");
+        assertThat(monthly.get(0).completionCount).isEqualTo(1);
+        assertThat(monthly.get(1).source).isEqualTo("in_app");
+        assertThat(monthly.get(1).completionCount).isEqualTo(2);
+    }
+
+    @Test
+    public void compactCompletionsBefore_keepsLatestCompletionOfEachSchedule() {
+        long jan10 = localTime(2024, Calendar.JANUARY, 10);
+        long jan20 = localTime(2024, Calendar.JANUARY, 20);
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", jan10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", jan20, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c3", "sched-2", jan10, "in_app"));
+
+        int compacted = careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        // Only c1 goes; c2 and c3 are their schedule's last completion
+        assertThat(compacted).isEqualTo(1);
+        assertThat(careCompletionDao.getLastCompletionForSchedule("sched-1").id).isEqualTo("c2");
+        assertThat(careCompletionDao.getLastCompletionForSchedule("sched-2").id).isEqualTo("c3");
+    }
+
+    @Test
+    public void compactCompletionsBefore_addsToExistingMonthlyCount() throws Exception {
+        long jan10 = localTime(2024, Calendar.JANUARY, 10);
+        long jan20 = localTime(2024, Calendar.JANUARY, 20);
+        long mar10 = localTime(2024, Calendar.MARCH, 10);
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", jan10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", jan20, "in_app"));
+        careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        // c2 was kept as the latest; once superseded it is rolled into the same month
+        careCompletionDao.insertCompletion(createCompletion("c3", "sched-1", mar10, "in_app"));
+        int compacted = careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        assertThat(compacted).isEqualTo(1);
+        List<CareCompletionMonthly> monthly = LiveDataTestUtil.getValue(
+                careCompletionDao.getMonthlyCompletionsForPlant("plant-1"));
+        assertThat(monthly).hasSize(1);
+        assertThat(monthly.get(0).completionCount).isEqualTo(2);
+    }
+
+    @Test
+    public void compactCompletionsBefore_nothingOlderThanCutoff_changesNothing() throws Exception {
+        long mar10 = localTime(2024, Calendar.MARCH, 10);
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", mar10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", mar10 + 1000L, "in_app"));
+
+        int compacted = careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        assertThat(compacted).isEqualTo(0);
+        assertThat(LiveDataTestUtil.getValue(
+                careCompletionDao.getMonthlyCompletionsForPlant("plant-1"))).isEmpty();
+    }
+
+    @Test
+    public void getCareCompletionCountForPlant_includesMonthlyCountsExceptSnoozes() throws Exception {
+        long jan10 = localTime(2024, Calendar.JANUARY, 10);
+        long mar10 = localTime(2024, Calendar.MARCH, 10);
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", jan10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", jan10 + 1000L, "snooze"));
+        careCompletionDao.insertCompletion(createCompletion("c3", "sched-1", jan10 + 2000L, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c4", "sched-1", mar10, "in_app"));
+
+        assertThat(LiveDataTestUtil.getValue(
+                careCompletionDao.getCareCompletionCountForPlant("plant-1"))).isEqualTo(3);
+
+        careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        // Same total: two rolled-up done completions plus c4 as detail
+        assertThat(LiveDataTestUtil.getValue(
+                careCompletionDao.getCareCompletionCountForPlant("plant-1"))).isEqualTo(3);
+        List<CareCompletionMonthly> monthly = LiveDataTestUtil.getValue(
+                careCompletionDao.getMonthlyCompletionsForPlant("plant-1"));
+        assertThat(monthly).hasSize(1);
+        assertThat(monthly.get(0).source).isEqualTo("in_app");
+    }
+
+    @Test
+    public void deletePlant_cascadeDeletesMonthlyCounts() throws Exception {
+        long jan10 = localTime(2024, Calendar.JANUARY, 10);
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", jan10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", jan10 + 1000L, "in_app"));
+        careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        plantDao.deletePlant(plantDao.getPlantByIdSync("plant-1"));
+
+        assertThat(LiveDataTestUtil.getValue(
+                careCompletionDao.getMonthlyCompletionsForPlant("plant-1"))).isEmpty();
+    }
+
+    @Test
+    public void deleteScheduleWithHistory_deletesItsMonthlyCounts() throws Exception {
+        long jan10 = localTime(2024, Calendar.JANUARY, 10);
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", jan10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", jan10 + 1000L, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c3", "sched-2", jan10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c4", "sched-2", jan10 + 1000L, "in_app"));
+        careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        careScheduleDao.deleteScheduleWithHistory(careScheduleDao.getScheduleById("sched-1"));
+
+        // Only the fertilize counts of sched-2 remain, and the count agrees with the history
+        List<CareCompletionMonthly> monthly = LiveDataTestUtil.getValue(
+                careCompletionDao.getMonthlyCompletionsForPlant("plant-1"));
+        assertThat(monthly).hasSize(1);
+        assertThat(monthly.get(0).careType).isEqualTo("fertilize");
+        assertThat(LiveDataTestUtil.getValue(
+                careCompletionDao.getCareCompletionCountForPlant("plant-1"))).isEqualTo(2);
+    }
+
+    @Test
+    public void deleteScheduleWithHistory_keepsCountsOfRemainingScheduleOfSameType() throws Exception {
+        insertSchedule("sched-3", "plant-1", "water", 14);
+        long jan10 = localTime(2024, Calendar.JANUARY, 10);
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", jan10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", jan10 + 1000L, "in_app"));
+        careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        careScheduleDao.deleteScheduleWithHistory(careScheduleDao.getScheduleById("sched-3"));
+
+        // Monthly rows are per care type, so another water schedule keeps them
+        assertThat(LiveDataTestUtil.getValue(
+                careCompletionDao.getMonthlyCompletionsForPlant("plant-1"))).hasSize(1);
+    }
+
+    @Test
+    public void deleteSchedulesWithHistoryForPlant_deletesMonthlyCounts() throws Exception {
+        long jan10 = localTime(2024, Calendar.JANUARY, 10);
+        careCompletionDao.insertCompletion(createCompletion("c1", "sched-1", jan10, "in_app"));
+        careCompletionDao.insertCompletion(createCompletion("c2", "sched-1", jan10 + 1000L, "in_app"));
+        careCompletionDao.compactCompletionsBefore(localTime(2024, Calendar.MARCH, 1));
+
+        careScheduleDao.deleteSchedulesWithHistoryForPlant("plant-1");
+
+        assertThat(LiveDataTestUtil.getValue(
+                careCompletionDao.getMonthlyCompletionsForPlant("plant-1"))).isEmpty();
+        assertThat(LiveDataTestUtil.getValue(
+                careCompletionDao.getCareCompletionCountForPlant("plant-1"))).isEqualTo(0);
+    }
+
     // ==================== Helpers ====================
 
     private void insertPlant(String id, String name) {
@@ -218,4 +402,15 @@ public class CareCompletionDaoTest {
         completion.source = source;
         return completion;
     }
+
+    private long localTime(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, 12, 0, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private String monthKey(long timestamp) {
+        return new SimpleDateFormat("yyyy-MM", Locale.US).format(new Date(timestamp));
+    }
 }
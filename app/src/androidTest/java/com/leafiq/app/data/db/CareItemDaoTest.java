@@ -0,0 +1,120 @@
+package com.leafiq.app.data.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.leafiq.app.data.entity.CareItem;
+import com.leafiq.app.data.entity.Plant;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class CareItemDaoTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private PlantDao plantDao;
+    private CareItemDao careItemDao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        plantDao = database.plantDao();
+        careItemDao = database.careItemDao();
+
+        insertPlant("plant-1");
+        insertPlant("plant-2");
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    // ==================== One item per (plant, type) ====================
+
+    @Test
+    public void insertCareItem_sameType_replacesPreviousRecommendation() throws Exception {
+        careItemDao.insertCareItem(createCareItem("c1", "plant-1", "water", 7, 5000L));
+        careItemDao.insertCareItem(createCareItem("c2", "plant-1", "water", 10, 9000L));
+
+        List<CareItem> items = LiveDataTestUtil.getValue(careItemDao.getCareItemsForPlant("plant-1"));
+
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).id).isEqualTo("c2");
+        assertThat(items.get(0).frequencyDays).isEqualTo(10);
+    }
+
+    @Test
+    public void insertCareItem_otherTypes_areKept() throws Exception {
+        careItemDao.insertCareItem(createCareItem("c1", "plant-1", "water", 7, 5000L));
+        careItemDao.insertCareItem(createCareItem("c2", "plant-1", "fertilize", 30, 5000L));
+        careItemDao.insertCareItem(createCareItem("c3", "plant-1", "water", 10, 9000L));
+
+        List<CareItem> items = LiveDataTestUtil.getValue(careItemDao.getCareItemsForPlant("plant-1"));
+
+        assertThat(items).hasSize(2);
+    }
+
+    @Test
+    public void insertCareItem_sameTypeOnOtherPlant_isKept() throws Exception {
+        careItemDao.insertCareItem(createCareItem("c1", "plant-1", "water", 7, 5000L));
+        careItemDao.insertCareItem(createCareItem("c2", "plant-2", "water", 7, 5000L));
+
+        assertThat(LiveDataTestUtil.getValue(careItemDao.getCareItemsForPlant("plant-1"))).hasSize(1);
+        assertThat(LiveDataTestUtil.getValue(careItemDao.getCareItemsForPlant("plant-2"))).hasSize(1);
+    }
+
+    @Test
+    public void getOverdueItems_returnsOneItemPerType_soonestFirst() throws Exception {
+        careItemDao.insertCareItem(createCareItem("c1", "plant-1", "water", 7, 1000L));
+        careItemDao.insertCareItem(createCareItem("c2", "plant-1", "water", 7, 2000L));
+        careItemDao.insertCareItem(createCareItem("c3", "plant-2", "fertilize", 30, 500L));
+        careItemDao.insertCareItem(createCareItem("c4", "plant-2", "repot", 365, 99000L));
+
+        List<CareItem> overdue = LiveDataTestUtil.getValue(careItemDao.getOverdueItems(50000L));
+
+        assertThat(overdue).hasSize(2);
+        assertThat(overdue.get(0).id).isEqualTo("c3");
+        assertThat(overdue.get(1).id).isEqualTo("c2");
+    }
+
+    // ==================== Helpers ====================
+
+    private void insertPlant(String id) {
+        Plant plant = new Plant();
+        plant.id = id;
+        plant.commonName = "Pothos";
+        plant.createdAt = System.currentTimeMillis();
+        plant.updatedAt = System.currentTimeMillis();
+        plantDao.insertPlant(plant);
+    }
+
+    private CareItem createCareItem(String id, String plantId, String type, int frequencyDays, long nextDue) {
+        CareItem item = new CareItem();
+        item.id = id;
+        item.plantId = plantId;
+        item.type = type;
+        item.frequencyDays = frequencyDays;
+        item.lastDone = nextDue - frequencyDays * 86400000L;
+        item.nextDue = nextDue;
+        return item;
+    }
+}
@@ -9,8 +9,12 @@ import androidx.room.Room;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.leafiq.app.data.entity.CareCompletion;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.ScheduleLastCompletion;
+import com.leafiq.app.data.model.ScheduleReconciliation;
+import com.leafiq.app.data.model.ScheduleWithPlant;
 
 import org.junit.After;
 import org.junit.Before;
@@ -18,6 +22,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
 import java.util.List;
 
 @RunWith(AndroidJUnit4.class)
@@ -167,6 +172,197 @@ public class CareScheduleDaoTest {
         assertThat(dueSchedules).isEmpty();
     }
 
+    // ==================== Agenda JOIN tests ====================
+
+    @Test
+    public void getEnabledSchedulesWithPlantDueBetween_filtersRangeAndSortsByDue() throws Exception {
+        CareSchedule later = createSchedule("s1", "plant-1", "water", 7);
+        later.nextDue = 3000L;
+        CareSchedule sooner = createSchedule("s2", "plant-2", "water", 5);
+        sooner.nextDue = 2000L;
+        CareSchedule outOfRange = createSchedule("s3", "plant-1", "fertilize", 30);
+        outOfRange.nextDue = 9000L;
+        CareSchedule disabled = createSchedule("s4", "plant-2", "repot", 365);
+        disabled.nextDue = 2500L;
+        disabled.isEnabled = false;
+
+        careScheduleDao.insertSchedule(later);
+        careScheduleDao.insertSchedule(sooner);
+        careScheduleDao.insertSchedule(outOfRange);
+        careScheduleDao.insertSchedule(disabled);
+
+        List<ScheduleWithPlant> agenda = LiveDataTestUtil.getValue(
+                careScheduleDao.getEnabledSchedulesWithPlantDueBetween(1000L, 5000L));
+
+        assertThat(agenda).hasSize(2);
+        assertThat(agenda.get(0).schedule.id).isEqualTo("s2");
+        assertThat(agenda.get(1).schedule.id).isEqualTo("s1");
+    }
+
+    @Test
+    public void getEnabledSchedulesWithPlantDueBetweenSync_includesPlantColumns() {
+        CareSchedule schedule = createSchedule("s1", "plant-1", "water", 7);
+        schedule.nextDue = 2000L;
+        careScheduleDao.insertSchedule(schedule);
+
+        List<ScheduleWithPlant> agenda =
+                careScheduleDao.getEnabledSchedulesWithPlantDueBetweenSync(Long.MIN_VALUE, 2000L);
+
+        assertThat(agenda).hasSize(1);
+        assertThat(agenda.get(0).schedule.plantId).isEqualTo("plant-1");
+        assertThat(agenda.get(0).schedule.careType).isEqualTo("water");
+        assertThat(agenda.get(0).plantCommonName).isEqualTo("Pothos");
+    }
+
+    // ==================== markSchedulesComplete tests ====================
+
+    @Test
+    public void markSchedulesComplete_recordsCompletionsAndAdvancesSchedules() {
+        CareSchedule water = createSchedule("s1", "plant-1", "water", 7);
+        water.snoozeCount = 2;
+        CareSchedule fertilize = createSchedule("s2", "plant-2", "fertilize", 30);
+        careScheduleDao.insertSchedule(water);
+        careScheduleDao.insertSchedule(fertilize);
+
+        long completedAt = 1_000_000L;
+        List<CareSchedule> completed = careScheduleDao.markSchedulesComplete(
+                Arrays.asList("s1", "s2", "missing"), "notification_action", completedAt);
+
+        assertThat(completed).hasSize(2);
+
+        CareSchedule updatedWater = careScheduleDao.getScheduleById("s1");
+        assertThat(updatedWater.snoozeCount).isEqualTo(0);
+        assertThat(updatedWater.nextDue).isEqualTo(completedAt + 7 * 24L * 60 * 60 * 1000);
+        assertThat(careScheduleDao.getScheduleById("s2").nextDue)
+                .isEqualTo(completedAt + 30 * 24L * 60 * 60 * 1000);
+
+        CareCompletion completion = database.careCompletionDao().getLastCompletionForSchedule("s1");
+        assertThat(completion).isNotNull();
+        assertThat(completion.completedAt).isEqualTo(completedAt);
+        assertThat(completion.source).isEqualTo("notification_action");
+        assertThat(database.careCompletionDao().getLastCompletionForSchedule("s2")).isNotNull();
+    }
+
+    // ==================== reconcileSchedules tests ====================
+
+    @Test
+    public void getLastCompletionTimesForPlant_returnsLatestPerSchedule() {
+        careScheduleDao.insertSchedule(createSchedule("s1", "plant-1", "water", 7));
+        careScheduleDao.insertSchedule(createSchedule("s2", "plant-1", "fertilize", 30));
+        careScheduleDao.insertSchedule(createSchedule("s3", "plant-2", "water", 5));
+        careScheduleDao.markSchedulesComplete(Arrays.asList("s1", "s3"), "in_app", 1000L);
+        careScheduleDao.markSchedulesComplete(Arrays.asList("s1"), "in_app", 2000L);
+
+        List<ScheduleLastCompletion> rows = careScheduleDao.getLastCompletionTimesForPlant("plant-1");
+
+        // s2 was never completed, s3 belongs to another plant
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).scheduleId).isEqualTo("s1");
+        assertThat(rows.get(0).lastCompletedAt).isEqualTo(2000L);
+    }
+
+    @Test
+    public void reconcileSchedules_passesStateToPlanner_andUpsertsWithoutLosingCompletions() {
+        careScheduleDao.insertSchedule(createSchedule("s1", "plant-1", "water", 7));
+        careScheduleDao.markSchedulesComplete(Arrays.asList("s1"), "in_app", 1000L);
+
+        ScheduleReconciliation result = careScheduleDao.reconcileSchedules("plant-1",
+                (existing, lastCompletedAt) -> {
+                    assertThat(existing).hasSize(1);
+                    assertThat(lastCompletedAt).containsExactly("s1", 1000L);
+
+                    ScheduleReconciliation plan = new ScheduleReconciliation();
+                    CareSchedule updated = existing.get(0);
+                    updated.frequencyDays = 3;
+                    plan.upserts.add(updated);
+                    plan.upserts.add(createSchedule("s2", "plant-1", "fertilize", 30));
+                    return plan;
+                });
+
+        assertThat(result.upserts).hasSize(2);
+        assertThat(careScheduleDao.getScheduleById("s1").frequencyDays).isEqualTo(3);
+        assertThat(careScheduleDao.getScheduleById("s2")).isNotNull();
+        // Upsert updates in place, so the cascading completion is still there
+        assertThat(database.careCompletionDao().getLastCompletionForSchedule("s1")).isNotNull();
+    }
+
+    // ==================== Set-based update tests ====================
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    @Test
+    public void setSchedulesEnabledForPlants_disable_keepsNextDue() {
+        CareSchedule water = createSchedule("s1", "plant-1", "water", 7);
+        water.nextDue = 5000L;
+        careScheduleDao.insertSchedule(water);
+        careScheduleDao.insertSchedule(createSchedule("s2", "plant-1", "fertilize", 30));
+        careScheduleDao.insertSchedule(createSchedule("s3", "plant-2", "water", 5));
+
+        int updated = careScheduleDao.setSchedulesEnabledForPlants(
+                Arrays.asList("plant-1"), false, 1_000_000L);
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(careScheduleDao.getScheduleById("s1").isEnabled).isFalse();
+        assertThat(careScheduleDao.getScheduleById("s1").nextDue).isEqualTo(5000L);
+        assertThat(careScheduleDao.getScheduleById("s2").isEnabled).isFalse();
+        assertThat(careScheduleDao.getScheduleById("s3").isEnabled).isTrue();
+    }
+
+    @Test
+    public void setSchedulesEnabledForPlants_enable_recomputesNextDueFromLastCompletion() {
+        careScheduleDao.insertSchedule(createSchedule("s1", "plant-1", "water", 7));
+        careScheduleDao.insertSchedule(createSchedule("s2", "plant-1", "fertilize", 30));
+        careScheduleDao.markSchedulesComplete(Arrays.asList("s1"), "in_app", 1000L);
+        careScheduleDao.markSchedulesComplete(Arrays.asList("s1"), "in_app", 2000L);
+        careScheduleDao.setSchedulesEnabledForPlants(Arrays.asList("plant-1"), false, 0L);
+
+        long now = 1_000_000L;
+        careScheduleDao.setSchedulesEnabledForPlants(Arrays.asList("plant-1"), true, now);
+
+        CareSchedule completed = careScheduleDao.getScheduleById("s1");
+        assertThat(completed.isEnabled).isTrue();
+        assertThat(completed.nextDue).isEqualTo(2000L + 7 * DAY_MS);
+        // Never completed: one frequency from now
+        assertThat(careScheduleDao.getScheduleById("s2").nextDue).isEqualTo(now + 30 * DAY_MS);
+    }
+
+    @Test
+    public void updateFrequency_marksCustom_andRecomputesNextDue() {
+        careScheduleDao.insertSchedule(createSchedule("s1", "plant-1", "water", 7));
+        careScheduleDao.markSchedulesComplete(Arrays.asList("s1"), "in_app", 5000L);
+
+        assertThat(careScheduleDao.updateFrequency("s1", 3, 1_000_000L)).isEqualTo(1);
+        assertThat(careScheduleDao.updateFrequency("missing", 3, 1_000_000L)).isEqualTo(0);
+
+        CareSchedule updated = careScheduleDao.getScheduleById("s1");
+        assertThat(updated.frequencyDays).isEqualTo(3);
+        assertThat(updated.isCustom).isTrue();
+        assertThat(updated.nextDue).isEqualTo(5000L + 3 * DAY_MS);
+    }
+
+    @Test
+    public void recalculateNextDue_noCompletionsLeft_resetsFromNow() {
+        careScheduleDao.insertSchedule(createSchedule("s1", "plant-1", "water", 7));
+        careScheduleDao.markSchedulesComplete(Arrays.asList("s1"), "in_app", 5000L);
+        CareCompletion completion = database.careCompletionDao().getLastCompletionForSchedule("s1");
+        database.careCompletionDao().deleteCareCompletionById(completion.id);
+
+        long now = 1_000_000L;
+        assertThat(careScheduleDao.recalculateNextDue("s1", now)).isEqualTo(1);
+
+        assertThat(careScheduleDao.getScheduleById("s1").nextDue).isEqualTo(now + 7 * DAY_MS);
+    }
+
+    @Test
+    public void getPlantIdsByLocation_matchesExactLocation() {
+        Plant balcony = plantDao.getPlantByIdSync("plant-1");
+        balcony.location = "Balcony";
+        plantDao.updatePlant(balcony);
+
+        assertThat(plantDao.getPlantIdsByLocationSync("Balcony")).containsExactly("plant-1");
+        assertThat(plantDao.getPlantIdsByLocationSync("Kitchen")).isEmpty();
+    }
+
     // ==================== getEnabledSchedulesForPlant tests ====================
 
     @Test
@@ -185,6 +381,31 @@ public class CareScheduleDaoTest {
         assertThat(allEnabled.get(0).id).isEqualTo("s1");
     }
 
+    // ==================== Next due tests ====================
+
+    @Test
+    public void getEarliestNextDue_ignoresDisabled() {
+        CareSchedule disabled = createSchedule("s1", "plant-1", "water", 7);
+        disabled.nextDue = 1000L;
+        disabled.isEnabled = false;
+        CareSchedule early = createSchedule("s2", "plant-1", "fertilize", 30);
+        early.nextDue = 2000L;
+        CareSchedule late = createSchedule("s3", "plant-2", "water", 5);
+        late.nextDue = 3000L;
+        careScheduleDao.insertSchedule(disabled);
+        careScheduleDao.insertSchedule(early);
+        careScheduleDao.insertSchedule(late);
+
+        assertThat(careScheduleDao.getEarliestNextDue()).isEqualTo(2000L);
+        assertThat(careScheduleDao.getNextDueAfter(2000L)).isEqualTo(3000L);
+        assertThat(careScheduleDao.getNextDueAfter(3000L)).isNull();
+    }
+
+    @Test
+    public void getEarliestNextDue_noSchedules_returnsNull() {
+        assertThat(careScheduleDao.getEarliestNextDue()).isNull();
+    }
+
     // ==================== Update tests ====================
 
     @Test
@@ -14,6 +14,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Instrumented tests for Room database migrations.
  *
@@ -191,6 +194,165 @@ public class MigrationTest {
         db.close();
     }
 
+    @Test
+    public void migrate4To5_createsEmptyAnalysisCache() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 4);
+        insertPlant(db, "p1");
+        db.execSQL("INSERT INTO analyses (id, plant_id, photo_path, raw_response, health_score, " +
+                "summary, created_at, parse_status) VALUES " +
+                "('a1', 'p1', '/photo.jpg', '{}', 8, 'Summary', 1000000000000, 'OK')");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 5, true, AppDatabase.MIGRATION_4_5);
+
+        assertThat(queryCount(db, "plants")).isEqualTo(1);
+        assertThat(queryCount(db, "analyses")).isEqualTo(1);
+        assertThat(queryCount(db, "analysis_cache")).isEqualTo(0);
+
+        db.close();
+    }
+
+    @Test
+    public void migrate5To6_createsEmptyNormalisedAnalysisTables() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 5);
+        insertPlant(db, "p1");
+        db.execSQL("INSERT INTO analyses (id, plant_id, photo_path, raw_response, health_score, " +
+                "summary, created_at, parse_status) VALUES " +
+                "('a1', 'p1', '/photo.jpg', '{}', 8, 'Summary', 1000000000000, 'OK')");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 6, true, AppDatabase.MIGRATION_5_6);
+
+        // Existing analyses are backfilled by ParseScanHelper, not by the migration
+        assertThat(queryCount(db, "analyses")).isEqualTo(1);
+        assertThat(queryCount(db, "analysis_details")).isEqualTo(0);
+        assertThat(queryCount(db, "analysis_issues")).isEqualTo(0);
+        assertThat(queryCount(db, "analysis_actions")).isEqualTo(0);
+
+        db.close();
+    }
+
+    @Test
+    public void migrate6To7_replacesSingleColumnIndexesWithComposites() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 6);
+        insertPlant(db, "p1");
+        db.execSQL("INSERT INTO care_schedules (id, plant_id, care_type, frequency_days, " +
+                "next_due, is_custom, is_enabled, snooze_count, notes) VALUES " +
+                "('cs1', 'p1', 'water', 7, 1000604800000, 0, 1, 0, NULL)");
+        db.execSQL("INSERT INTO care_completions (id, schedule_id, completed_at, source) VALUES " +
+                "('cc1', 'cs1', 1000000000000, 'in_app')");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 7, true, AppDatabase.MIGRATION_6_7);
+
+        assertThat(queryCount(db, "care_completions")).isEqualTo(1);
+        assertThat(indexExists(db, "index_analyses_plant_id")).isFalse();
+        assertThat(indexExists(db, "index_analyses_plant_id_created_at")).isTrue();
+        assertThat(indexExists(db, "index_care_completions_schedule_id")).isFalse();
+        assertThat(indexExists(db, "index_care_completions_schedule_id_completed_at")).isTrue();
+
+        db.close();
+    }
+
+    @Test
+    public void migrate7To8_createsEmptyMonthlyCompletionTable() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 7);
+        insertPlant(db, "p1");
+        db.execSQL("INSERT INTO care_schedules (id, plant_id, care_type, frequency_days, " +
+                "next_due, is_custom, is_enabled, snooze_count, notes) VALUES " +
+                "('cs1', 'p1', 'water', 7, 1000604800000, 0, 1, 0, NULL)");
+        db.execSQL("INSERT INTO care_completions (id, schedule_id, completed_at, source) VALUES " +
+                "('cc1', 'cs1', 1000000000000, 'in_app')");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 8, true, AppDatabase.MIGRATION_7_8);
+
+        // Completions are rolled up by CareHistoryCompactor, not by the migration
+        assertThat(queryCount(db, "care_completions")).isEqualTo(1);
+        assertThat(queryCount(db, "care_completion_monthly")).isEqualTo(0);
+
+        db.close();
+    }
+
+    @Test
+    public void migrate8To9_keepsNewestCareItemPerPlantAndType() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 8);
+        insertPlant(db, "p1");
+        insertPlant(db, "p2");
+
+        // Different last_done: the later one survives, whatever the insert order
+        insertCareItem(db, "water-new", "p1", "water", 2000000000000L);
+        insertCareItem(db, "water-old", "p1", "water", 1000000000000L);
+        // Equal last_done: the later insert survives
+        insertCareItem(db, "fert-first", "p1", "fertilize", 1500000000000L);
+        insertCareItem(db, "fert-second", "p1", "fertilize", 1500000000000L);
+        // Same type on another plant and a unique type are untouched
+        insertCareItem(db, "water-p2", "p2", "water", 1000000000000L);
+        insertCareItem(db, "repot", "p1", "repot", 1000000000000L);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 9, true, AppDatabase.MIGRATION_8_9);
+
+        Cursor cursor = db.query("SELECT id FROM care_items ORDER BY id");
+        List<String> ids = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            ids.add(cursor.getString(0));
+        }
+        cursor.close();
+        assertThat(ids).containsExactly("fert-second", "repot", "water-new", "water-p2").inOrder();
+        assertThat(indexExists(db, "index_care_items_plant_id")).isFalse();
+        assertThat(indexExists(db, "index_care_items_plant_id_type")).isTrue();
+
+        db.close();
+    }
+
+    @Test
+    public void migrate9To10_existingAnalysesHaveNoProviderAndPromptOnlyMode() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 9);
+        insertPlant(db, "p1");
+        db.execSQL("INSERT INTO analyses (id, plant_id, photo_path, raw_response, health_score, " +
+                "summary, created_at, parse_status) VALUES " +
+                "('a1', 'p1', '/photo.jpg', '{}', 8, 'Summary', 1000000000000, 'PARTIAL')");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 10, true, AppDatabase.MIGRATION_9_10);
+
+        Cursor cursor = db.query("SELECT provider, structured_output, parse_status FROM analyses");
+        assertThat(cursor.moveToFirst()).isTrue();
+        assertThat(cursor.isNull(0)).isTrue();
+        assertThat(cursor.getInt(1)).isEqualTo(0);
+        assertThat(cursor.getString(2)).isEqualTo("PARTIAL");
+        cursor.close();
+
+        db.close();
+    }
+
+    /**
+     * Inserts a plant row with the columns every version since 3 has.
+     */
+    private void insertPlant(SupportSQLiteDatabase db, String id) {
+        db.execSQL("INSERT INTO plants (id, common_name, scientific_name, nickname, location, " +
+                "thumbnail_path, medium_thumbnail_path, high_res_thumbnail_path, " +
+                "latest_health_score, created_at, updated_at) VALUES " +
+                "('" + id + "', 'Plant', 'Scientific', NULL, NULL, NULL, NULL, NULL, " +
+                "7, 1000000000000, 1000000000000)");
+    }
+
+    private void insertCareItem(SupportSQLiteDatabase db, String id, String plantId, String type,
+                                long lastDone) {
+        db.execSQL("INSERT INTO care_items (id, plant_id, type, frequency_days, last_done, " +
+                "next_due, notes) VALUES (?, ?, ?, 7, ?, ?, NULL)",
+                new Object[]{id, plantId, type, lastDone, lastDone + 604800000L});
+    }
+
+    private boolean indexExists(SupportSQLiteDatabase db, String indexName) {
+        Cursor cursor = db.query("SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = ?",
+                new Object[]{indexName});
+        boolean exists = cursor.moveToFirst();
+        cursor.close();
+        return exists;
+    }
+
     /**
      * Helper method to count rows in a table.
      */
@@ -0,0 +1,312 @@
+package com.leafiq.app.data.db;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.paging.PagingSource;
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.leafiq.app.data.model.AnalysisWithPlant;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import kotlin.coroutines.EmptyCoroutineContext;
+import kotlinx.coroutines.BuildersKt;
+
+/**
+ * Query-plan regression tests for the hot DAOs.
+ * <p>
+ * Every @Query method of AnalysisDao, CareItemDao, CareScheduleDao and CareCompletionDao is
+ * executed with a query callback that records the SQL Room actually runs, then each statement
+ * is fed to EXPLAIN QUERY PLAN. A plan that scans a table without an index or sorts in a temp B-tree
+ * fails the test, so dropping an index or adding an unindexed query is caught here.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private AnalysisDao analysisDao;
+    private CareItemDao careItemDao;
+    private CareScheduleDao careScheduleDao;
+    private CareCompletionDao careCompletionDao;
+
+    private final List<CapturedQuery> captured = new CopyOnWriteArrayList<>();
+
+    private static class CapturedQuery {
+        final String sql;
+        final Object[] bindArgs;
+
+        CapturedQuery(String sql, List<Object> bindArgs) {
+            this.sql = sql;
+            this.bindArgs = bindArgs.toArray();
+        }
+    }
+
+    private interface DaoCall {
+        void run() throws Exception;
+    }
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .setQueryCallback((sql, bindArgs) -> captured.add(new CapturedQuery(sql, bindArgs)),
+                        Runnable::run)
+                .build();
+        analysisDao = database.analysisDao();
+        careItemDao = database.careItemDao();
+        careScheduleDao = database.careScheduleDao();
+        careCompletionDao = database.careCompletionDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    // ==================== AnalysisDao ====================
+
+    @Test
+    public void analysisDao_queriesUseIndexes() throws Exception {
+        assertIndexed("getAnalysisSummariesForPlant",
+                () -> LiveDataTestUtil.getValue(analysisDao.getAnalysisSummariesForPlant("p1")));
+        assertIndexed("getAnalysesForPlant",
+                () -> LiveDataTestUtil.getValue(analysisDao.getAnalysesForPlant("p1")));
+        assertIndexed("getRecentAnalysesSync", () -> analysisDao.getRecentAnalysesSync("p1"));
+        assertIndexed("getLatestForPlantSync", () -> analysisDao.getLatestForPlantSync("p1"));
+        assertIndexed("getLatestPhotoPathSync", () -> analysisDao.getLatestPhotoPathSync("p1"));
+        assertIndexed("getAnalysisById", () -> analysisDao.getAnalysisById("a1"));
+        assertIndexed("getRawResponseSync", () -> analysisDao.getRawResponseSync("a1"));
+        assertIndexed("updateHealthScore", () -> analysisDao.updateHealthScore("a1", 5));
+        assertIndexed("deleteAnalysisById", () -> analysisDao.deleteAnalysisById("a1"));
+        assertIndexed("getPhotoPathsForPlantSync", () -> analysisDao.getPhotoPathsForPlantSync("p1"));
+        assertIndexed("getAllAnalysesWithPlant",
+                () -> LiveDataTestUtil.getValue(analysisDao.getAllAnalysesWithPlant()));
+        assertIndexed("getAnalysesWithPlantPaged", () -> loadFirstPage(
+                analysisDao.getAnalysesWithPlantPaged(4, 6)));
+        assertIndexed("getAnalysesWithPlantForPlant",
+                () -> LiveDataTestUtil.getValue(analysisDao.getAnalysesWithPlantForPlant("p1")));
+        assertIndexed("updateParseStatus", () -> analysisDao.updateParseStatus("a1", "FAILED"));
+        assertIndexed("getAnalysisCountForPlant",
+                () -> LiveDataTestUtil.getValue(analysisDao.getAnalysisCountForPlant("p1")));
+    }
+
+    /**
+     * The saved parse_status breakdown aggregates every analysis, so it reads the whole table
+     * and groups in a temp B-tree by design. It runs once per launch on a background thread;
+     * any other table it touches must still go through an index.
+     */
+    @Test
+    public void analysisDao_parseStatusCounts_scansOnlyAnalyses() throws Exception {
+        assertScansOnly("getParseStatusCounts", "analyses", () -> analysisDao.getParseStatusCounts());
+    }
+
+    // ==================== CareItemDao ====================
+
+    @Test
+    public void careItemDao_queriesUseIndexes() throws Exception {
+        assertIndexed("getCareItemsForPlant",
+                () -> LiveDataTestUtil.getValue(careItemDao.getCareItemsForPlant("p1")));
+        assertIndexed("getOverdueItems",
+                () -> LiveDataTestUtil.getValue(careItemDao.getOverdueItems(1000L)));
+    }
+
+    // ==================== CareScheduleDao ====================
+
+    @Test
+    public void careScheduleDao_queriesUseIndexes() throws Exception {
+        assertIndexed("getSchedulesForPlant",
+                () -> LiveDataTestUtil.getValue(careScheduleDao.getSchedulesForPlant("p1")));
+        assertIndexed("getEnabledSchedulesForPlant",
+                () -> LiveDataTestUtil.getValue(careScheduleDao.getEnabledSchedulesForPlant("p1")));
+        assertIndexed("getAllEnabledSchedules", () -> careScheduleDao.getAllEnabledSchedules());
+        assertIndexed("getSchedulesByPlantIdSync", () -> careScheduleDao.getSchedulesByPlantIdSync("p1"));
+        assertIndexed("getScheduleById", () -> careScheduleDao.getScheduleById("s1"));
+        assertIndexed("getSchedulesByIds",
+                () -> careScheduleDao.getSchedulesByIds(Arrays.asList("s1", "s2")));
+        assertIndexed("getDueSchedules", () -> careScheduleDao.getDueSchedules(1000L));
+        assertIndexed("getEarliestNextDue", () -> careScheduleDao.getEarliestNextDue());
+        assertIndexed("getNextDueAfter", () -> careScheduleDao.getNextDueAfter(1000L));
+        assertIndexed("getEnabledSchedulesWithPlantDueBetween", () -> LiveDataTestUtil.getValue(
+                careScheduleDao.getEnabledSchedulesWithPlantDueBetween(0L, 1000L)));
+        assertIndexed("getEnabledSchedulesWithPlantDueBetweenSync",
+                () -> careScheduleDao.getEnabledSchedulesWithPlantDueBetweenSync(0L, 1000L));
+        assertIndexed("getLastCompletionTimesForPlant",
+                () -> careScheduleDao.getLastCompletionTimesForPlant("p1"));
+        assertIndexed("disableSchedulesForPlants",
+                () -> careScheduleDao.disableSchedulesForPlants(Arrays.asList("p1", "p2")));
+        assertIndexed("enableSchedulesForPlants",
+                () -> careScheduleDao.enableSchedulesForPlants(Arrays.asList("p1", "p2"), 1000L));
+        assertIndexed("updateFrequency", () -> careScheduleDao.updateFrequency("s1", 3, 1000L));
+        assertIndexed("recalculateNextDue", () -> careScheduleDao.recalculateNextDue("s1", 1000L));
+        assertIndexed("deleteSchedulesForPlant", () -> careScheduleDao.deleteSchedulesForPlant("p1"));
+        assertIndexed("deleteOrphanedMonthlyCounts",
+                () -> careScheduleDao.deleteOrphanedMonthlyCounts("p1", "water"));
+        assertIndexed("deleteMonthlyCountsForPlant",
+                () -> careScheduleDao.deleteMonthlyCountsForPlant("p1"));
+    }
+
+    // ==================== CareCompletionDao ====================
+
+    @Test
+    public void careCompletionDao_queriesUseIndexes() throws Exception {
+        assertIndexed("getLastCompletionForSchedule",
+                () -> careCompletionDao.getLastCompletionForSchedule("s1"));
+        assertIndexed("deleteCompletionsForSchedule",
+                () -> careCompletionDao.deleteCompletionsForSchedule("s1"));
+        assertIndexed("getRecentCompletions", () -> careCompletionDao.getRecentCompletions(1000L, 20));
+        assertIndexed("getCareCompletionCountForPlant",
+                () -> LiveDataTestUtil.getValue(careCompletionDao.getCareCompletionCountForPlant("p1")));
+        assertIndexed("deleteCareCompletionById", () -> careCompletionDao.deleteCareCompletionById("c1"));
+        assertIndexed("getMonthlyCompletionsForPlant",
+                () -> LiveDataTestUtil.getValue(careCompletionDao.getMonthlyCompletionsForPlant("p1")));
+        assertIndexed("addToMonthlyCount",
+                () -> careCompletionDao.addToMonthlyCount("p1", "2024-01", "water", "in_app", 2));
+        assertIndexed("deleteCompactableCompletions",
+                () -> careCompletionDao.deleteCompactableCompletions(1000L));
+    }
+
+    /**
+     * Compaction groups the completions older than the cutoff by plant and month, which no
+     * index orders, so it sorts. The sort input is only the rows being compacted, found via
+     * the completed_at index, and each is deleted afterwards, so it stays bounded by one
+     * horizon's worth of new completions.
+     */
+    @Test
+    public void careCompletionDao_compaction_usesIndexes_withCompactedRowsBoundedSort() throws Exception {
+        assertIndexedWithBoundedSort("getCompactableMonthlyCounts",
+                () -> careCompletionDao.getCompactableMonthlyCounts(1000L));
+    }
+
+    /**
+     * Per-plant completion history joins through the plant's schedules (one per care type), so
+     * rows come back grouped by schedule and have to be merged by completed_at. The sort input
+     * is bounded to that one plant's completions and every table is still searched by index;
+     * removing the sort would mean denormalising plant_id onto care_completions.
+     */
+    @Test
+    public void careCompletionDao_perPlantHistory_usesIndexes_withPlantBoundedSort() throws Exception {
+        assertIndexedWithBoundedSort("getRecentCompletionsForPlant",
+                () -> LiveDataTestUtil.getValue(careCompletionDao.getRecentCompletionsForPlant("p1", 5)));
+        assertIndexedWithBoundedSort("getLimitedCompletionsForPlant",
+                () -> LiveDataTestUtil.getValue(careCompletionDao.getLimitedCompletionsForPlant("p1", 5)));
+        assertIndexedWithBoundedSort("getAllCompletionsForPlant",
+                () -> LiveDataTestUtil.getValue(careCompletionDao.getAllCompletionsForPlant("p1")));
+    }
+
+    @Test
+    public void planCheck_detectsUnindexedQuery() throws Exception {
+        // Guards the guard: a filter on an unindexed column must be reported as a full scan
+        List<String> plan = explain(new CapturedQuery(
+                "SELECT * FROM care_schedules WHERE care_type = ?", Arrays.<Object>asList("water")));
+
+        boolean fullScan = false;
+        for (String detail : plan) {
+            fullScan |= isFullTableScan(detail);
+        }
+        assertWithMessage(String.valueOf(plan)).that(fullScan).isTrue();
+    }
+
+    // ==================== Helpers ====================
+
+    private void assertIndexed(String label, DaoCall call) throws Exception {
+        checkPlans(label, call, false, null);
+    }
+
+    private void assertIndexedWithBoundedSort(String label, DaoCall call) throws Exception {
+        checkPlans(label, call, true, null);
+    }
+
+    private void assertScansOnly(String label, String table, DaoCall call) throws Exception {
+        checkPlans(label, call, true, table);
+    }
+
+    private void checkPlans(String label, DaoCall call, boolean allowSort, String scannedTable)
+            throws Exception {
+        captured.clear();
+        call.run();
+
+        List<CapturedQuery> statements = new ArrayList<>();
+        for (CapturedQuery query : captured) {
+            if (isDaoStatement(query.sql)) {
+                statements.add(query);
+            }
+        }
+        assertWithMessage(label + " ran no query").that(statements).isNotEmpty();
+
+        for (CapturedQuery query : statements) {
+            for (String detail : explain(query)) {
+                assertWithMessage(label + " scans a table: " + detail + "\n" + query.sql)
+                        .that(isFullTableScan(detail) && !isScanOf(detail, scannedTable)).isFalse();
+                if (!allowSort) {
+                    assertWithMessage(label + " sorts without an index: " + detail + "\n" + query.sql)
+                            .that(detail).doesNotContain("TEMP B-TREE");
+                }
+            }
+        }
+    }
+
+    private List<String> explain(CapturedQuery query) {
+        List<String> details = new ArrayList<>();
+        try (Cursor cursor = database.getOpenHelper().getReadableDatabase().query(
+                new SimpleSQLiteQuery("EXPLAIN QUERY PLAN " + query.sql, query.bindArgs))) {
+            int detailColumn = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailColumn));
+            }
+        }
+        return details;
+    }
+
+    /**
+     * Newer SQLite prints "SCAN analyses", older "SCAN TABLE analyses". Index-driven scans
+     * ("USING INDEX"), subquery/co-routine scans and constant rows are fine.
+     */
+    private static boolean isFullTableScan(String detail) {
+        return detail.startsWith("SCAN ")
+                && !detail.contains(" USING ")
+                && !detail.contains("SUBQUERY")
+                && !detail.startsWith("SCAN (")
+                && !detail.contains("CONSTANT ROW");
+    }
+
+    private static boolean isScanOf(String detail, String table) {
+        return table != null && (detail.equals("SCAN " + table) || detail.equals("SCAN TABLE " + table));
+    }
+
+    // Skips Room's own bookkeeping (transactions, invalidation tracker)
+    private static boolean isDaoStatement(String sql) {
+        String normalized = sql.trim().toUpperCase(Locale.US);
+        boolean isDml = normalized.startsWith("SELECT")
+                || normalized.startsWith("UPDATE")
+                || normalized.startsWith("DELETE");
+        return isDml && !normalized.contains("ROOM_TABLE_MODIFICATION_LOG");
+    }
+
+    private static void loadFirstPage(PagingSource<Integer, AnalysisWithPlant> source)
+            throws InterruptedException {
+        PagingSource.LoadParams<Integer> params = new PagingSource.LoadParams.Refresh<>(null, 30, false);
+        BuildersKt.runBlocking(EmptyCoroutineContext.INSTANCE,
+                (scope, continuation) -> source.load(params, continuation));
+    }
+}
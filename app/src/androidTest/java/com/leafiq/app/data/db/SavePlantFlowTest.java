@@ -13,6 +13,8 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.domain.service.ImagePipeline;
+import com.leafiq.app.domain.service.ImagePreprocessor;
 import com.leafiq.app.util.ImageUtils;
 
 import org.junit.After;
@@ -96,7 +98,9 @@ public class SavePlantFlowTest {
         plant.updatedAt = now;
 
         // Save thumbnail
-        String thumbnailPath = ImageUtils.saveThumbnail(context, testImageUri, plantId);
+        String thumbnailPath = new ImagePreprocessor(context)
+                .saveThumbnails(testImageUri, plantId)
+                .getPath(ImagePipeline.Output.THUMBNAIL);
         plant.thumbnailPath = thumbnailPath;
 
         plantDao.insertPlant(plant);
@@ -158,7 +162,9 @@ public class SavePlantFlowTest {
         plant.latestHealthScore = 9;
         plant.updatedAt = now;
 
-        String thumbnailPath = ImageUtils.saveThumbnail(context, testImageUri, plantId);
+        String thumbnailPath = new ImagePreprocessor(context)
+                .saveThumbnails(testImageUri, plantId)
+                .getPath(ImagePipeline.Output.THUMBNAIL);
         plant.thumbnailPath = thumbnailPath;
 
         plantDao.insertPlant(plant); // Uses REPLACE strategy
@@ -10,6 +10,8 @@ import android.net.Uri;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.leafiq.app.domain.service.ImagePipeline;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,6 +19,7 @@ import org.junit.runner.RunWith;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.EnumSet;
 
 @RunWith(AndroidJUnit4.class)
 public class ImageUtilsInstrumentedTest {
@@ -46,14 +49,23 @@ public class ImageUtilsInstrumentedTest {
         return Uri.fromFile(testFile);
     }
 
-    @Test
-    public void prepareForApi_withValidUri_returnsBase64String() throws IOException {
-        String base64 = ImageUtils.prepareForApi(context, testImageUri);
+    private String saveThumbnail(Uri uri, String plantId) throws IOException {
+        return new ImagePipeline(context)
+                .process(uri, plantId, EnumSet.of(ImagePipeline.Output.THUMBNAIL))
+                .getPath(ImagePipeline.Output.THUMBNAIL);
+    }
 
-        assertThat(base64).isNotNull();
-        assertThat(base64).isNotEmpty();
-        // Base64 strings only contain these characters
-        assertThat(base64).containsMatch("^[A-Za-z0-9+/=]+$");
+    @Test
+    public void pipelineApiJpeg_withValidUri_returnsJpegBytes() throws IOException {
+        byte[] jpeg = new ImagePipeline(context)
+                .process(testImageUri, null, EnumSet.of(ImagePipeline.Output.API_JPEG))
+                .getApiJpeg();
+
+        assertThat(jpeg).isNotNull();
+        assertThat(jpeg.length).isGreaterThan(2);
+        // JPEG start-of-image marker
+        assertThat(jpeg[0]).isEqualTo((byte) 0xFF);
+        assertThat(jpeg[1]).isEqualTo((byte) 0xD8);
     }
 
     @Test
@@ -72,10 +84,10 @@ public class ImageUtilsInstrumentedTest {
     }
 
     @Test
-    public void saveThumbnail_withValidUri_savesFile() throws IOException {
+    public void pipelineThumbnail_withValidUri_savesFile() throws IOException {
         String plantId = "test-plant-456";
 
-        String savedPath = ImageUtils.saveThumbnail(context, testImageUri, plantId);
+        String savedPath = saveThumbnail(testImageUri, plantId);
 
         assertThat(savedPath).isNotNull();
         File savedFile = new File(savedPath);
@@ -95,9 +107,9 @@ public class ImageUtilsInstrumentedTest {
     }
 
     @Test(expected = IOException.class)
-    public void prepareForApi_withInvalidUri_throwsIOException() throws IOException {
+    public void pipelineApiJpeg_withInvalidUri_throwsIOException() throws IOException {
         Uri invalidUri = Uri.parse("file:///nonexistent/path/image.jpg");
-        ImageUtils.prepareForApi(context, invalidUri);
+        new ImagePipeline(context).process(invalidUri, null, EnumSet.of(ImagePipeline.Output.API_JPEG));
     }
 
     @Test(expected = IOException.class)
@@ -107,9 +119,9 @@ public class ImageUtilsInstrumentedTest {
     }
 
     @Test(expected = IOException.class)
-    public void saveThumbnail_withInvalidUri_throwsIOException() throws IOException {
+    public void pipelineThumbnail_withInvalidUri_throwsIOException() throws IOException {
         Uri invalidUri = Uri.parse("file:///nonexistent/path/image.jpg");
-        ImageUtils.saveThumbnail(context, invalidUri, "test-id");
+        saveThumbnail(invalidUri, "test-id");
     }
 
     @Test
@@ -134,7 +146,7 @@ public class ImageUtilsInstrumentedTest {
     }
 
     @Test
-    public void saveThumbnail_createsDirectoryIfNotExists() throws IOException {
+    public void pipelineThumbnail_createsDirectoryIfNotExists() throws IOException {
         // Delete the directory first if it exists
         File dir = new File(context.getFilesDir(), "thumbnails");
         if (dir.exists()) {
@@ -145,7 +157,7 @@ public class ImageUtilsInstrumentedTest {
         }
 
         String plantId = "new-plant";
-        String savedPath = ImageUtils.saveThumbnail(context, testImageUri, plantId);
+        String savedPath = saveThumbnail(testImageUri, plantId);
 
         assertThat(savedPath).isNotNull();
         assertThat(new File(savedPath).exists()).isTrue();
@@ -121,4 +121,25 @@ public class KeystoreHelperTest {
         // Claude key should remain
         assertThat(keystoreHelper.hasApiKeyForProvider(KeystoreHelper.PROVIDER_CLAUDE)).isTrue();
     }
+
+    @Test
+    public void cacheMatchDistance_savedValueIsClampedTo64Bits() {
+        keystoreHelper.saveCacheMatchDistance(3);
+        assertThat(keystoreHelper.getCacheMatchDistance()).isEqualTo(3);
+
+        keystoreHelper.saveCacheMatchDistance(100);
+        assertThat(keystoreHelper.getCacheMatchDistance()).isEqualTo(64);
+
+        // Restore default
+        keystoreHelper.saveCacheMatchDistance(6);
+    }
+
+    @Test
+    public void cacheWindowMinutes_roundTrips() {
+        keystoreHelper.saveCacheWindowMinutes(15);
+        assertThat(keystoreHelper.getCacheWindowMinutes()).isEqualTo(15);
+
+        // Restore default
+        keystoreHelper.saveCacheWindowMinutes(60);
+    }
 }
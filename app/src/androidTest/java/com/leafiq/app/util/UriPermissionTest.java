@@ -9,6 +9,8 @@ import android.net.Uri;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.leafiq.app.domain.service.ImagePipeline;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -18,6 +20,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.EnumSet;
 
 /**
  * Tests for URI permission handling.
@@ -50,6 +53,12 @@ public class UriPermissionTest {
         return Uri.fromFile(testFile);
     }
 
+    private byte[] prepareApiJpeg(Uri uri) throws IOException {
+        return new ImagePipeline(context)
+                .process(uri, null, EnumSet.of(ImagePipeline.Output.API_JPEG))
+                .getApiJpeg();
+    }
+
     @Test
     public void copyImageToLocal_createsValidCopy() throws IOException {
         // Simulate the copy process that AnalysisActivity does
@@ -78,9 +87,9 @@ public class UriPermissionTest {
         assertThat(localFile.length()).isGreaterThan(0);
 
         // Verify we can read from the local copy
-        String base64 = ImageUtils.prepareForApi(context, localImageUri);
-        assertThat(base64).isNotNull();
-        assertThat(base64).isNotEmpty();
+        byte[] jpeg = prepareApiJpeg(localImageUri);
+        assertThat(jpeg).isNotNull();
+        assertThat(jpeg).isNotEmpty();
 
         // Cleanup
         localFile.delete();
@@ -107,7 +116,9 @@ public class UriPermissionTest {
         Uri localImageUri = Uri.fromFile(localFile);
 
         // Use local copy to create thumbnail
-        String thumbnailPath = ImageUtils.saveThumbnail(context, localImageUri, "test-plant");
+        String thumbnailPath = new ImagePipeline(context)
+                .process(localImageUri, "test-plant", EnumSet.of(ImagePipeline.Output.THUMBNAIL))
+                .getPath(ImagePipeline.Output.THUMBNAIL);
 
         assertThat(thumbnailPath).isNotNull();
         assertThat(new File(thumbnailPath).exists()).isTrue();
@@ -173,8 +184,8 @@ public class UriPermissionTest {
 
         // Local copy should still be accessible
         assertThat(localFile.exists()).isTrue();
-        String base64 = ImageUtils.prepareForApi(context, localImageUri);
-        assertThat(base64).isNotNull();
+        byte[] jpeg = prepareApiJpeg(localImageUri);
+        assertThat(jpeg).isNotNull();
 
         // Cleanup
         localFile.delete();
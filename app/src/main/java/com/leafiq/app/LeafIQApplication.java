@@ -5,17 +5,23 @@ import android.app.AlertDialog;
 import android.app.Application;
 import android.util.Log;
 
+import com.leafiq.app.ai.CallCanceller;
+import com.leafiq.app.ai.ProviderLatencyStats;
+import com.leafiq.app.care.CareHistoryCompactor;
 import com.leafiq.app.care.CareScheduleManager;
 import com.leafiq.app.care.NotificationHelper;
 import com.leafiq.app.data.db.AppDatabase;
 import com.leafiq.app.data.repository.PlantRepository;
+import com.leafiq.app.domain.service.AnalysisResultCache;
 import com.leafiq.app.util.AppExecutors;
 import com.leafiq.app.util.FileCleanupUtils;
 import com.leafiq.app.util.KeystoreHelper;
 import com.leafiq.app.util.ParseScanHelper;
+import com.leafiq.app.util.PriorityExecutor;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Interceptor;
@@ -31,6 +37,7 @@ import okhttp3.Response;
  * - AppExecutors (thread pools for background work)
  * - PlantRepository (data access layer)
  * - CareScheduleManager (care reminder scheduling)
+ * - AnalysisResultCache (persisted results for near-duplicate photos)
  * <p>
  * Activities and ViewModels can access these via:
  * <pre>
@@ -44,6 +51,8 @@ public class LeafIQApplication extends Application {
     private OkHttpClient httpClient;
     private PlantRepository plantRepository;
     private CareScheduleManager careScheduleManager;
+    private AnalysisResultCache analysisResultCache;
+    private ProviderLatencyStats providerLatencyStats;
     private boolean migrationFailed = false;
     private String migrationError;
 
@@ -55,7 +64,7 @@ public class LeafIQApplication extends Application {
         appExecutors = new AppExecutors();
 
         // Background cleanup sweep for orphaned temp files (runs regardless of DB state)
-        appExecutors.io().execute(() -> {
+        runInBackground(() -> {
             File thumbnailDir = new File(getFilesDir(), "thumbnails");
             FileCleanupUtils.cleanupOldFiles(thumbnailDir, FileCleanupUtils.ONE_HOUR_MS);
             File photoDir = new File(getFilesDir(), "plant_photos");
@@ -69,8 +78,12 @@ public class LeafIQApplication extends Application {
             .writeTimeout(10, TimeUnit.SECONDS)
             .callTimeout(90, TimeUnit.SECONDS)  // Hard timeout for total request duration - OkHttp cancels the request properly
             .addInterceptor(createLoggingInterceptor())
+            .addInterceptor(CallCanceller.threadInterceptor())  // Lets an analysis handle cancel its in-flight call
             .build();
 
+        // Per-provider latency samples driving the hedged analysis delay
+        providerLatencyStats = new ProviderLatencyStats(this);
+
         // Initialize repository with database DAOs
         AppDatabase db;
         try {
@@ -86,25 +99,48 @@ public class LeafIQApplication extends Application {
         plantRepository = new PlantRepository(
                 db.plantDao(),
                 db.analysisDao(),
+                db.analysisDetailDao(),
                 db.careItemDao(),
                 db.careScheduleDao(),
                 db.careCompletionDao(),
                 appExecutors.io()
         );
 
-        // Background parse scan: incrementally classify existing analyses
-        appExecutors.io().execute(() -> {
+        // Background parse scan: normalise analyses saved before the structured tables existed
+        runInBackground(() -> {
             try {
-                ParseScanHelper.scanOnLaunch(db.analysisDao());
+                ParseScanHelper.scanOnLaunch(db.analysisDao(), db.analysisDetailDao());
             } catch (Exception e) {
                 Log.w("AnalysisParser", "Background parse scan failed: " + e.getMessage());
             }
         });
 
+        // Background care history compaction: roll completions past the horizon into monthly counts
+        runInBackground(() -> {
+            try {
+                int horizonMonths = new KeystoreHelper(this).getCareHistoryHorizonMonths();
+                CareHistoryCompactor.compactOnLaunch(plantRepository, horizonMonths);
+            } catch (Exception e) {
+                Log.w("CareSystem", "Care history compaction failed: " + e.getMessage());
+            }
+        });
+
         // Create notification channel for care reminders
         NotificationHelper.createNotificationChannel(this);
     }
 
+    /**
+     * Runs launch housekeeping as BACKGROUND IO work. A saturated pool rejects it; it is
+     * skipped then and runs again on the next launch.
+     */
+    private void runInBackground(Runnable task) {
+        try {
+            appExecutors.io().execute(PriorityExecutor.Priority.BACKGROUND, task);
+        } catch (RejectedExecutionException e) {
+            Log.w("LeafIQApplication", "Skipped background task: " + e.getMessage());
+        }
+    }
+
     /**
      * Gets the application-wide AppExecutors instance.
      * Provides IO, network, and main thread executors.
@@ -122,6 +158,14 @@ public class LeafIQApplication extends Application {
         return httpClient;
     }
 
+    /**
+     * Gets the application-wide ProviderLatencyStats instance.
+     * Shared so every hedged analysis learns from the latencies of earlier ones.
+     */
+    public ProviderLatencyStats getProviderLatencyStats() {
+        return providerLatencyStats;
+    }
+
     /**
      * Gets the application-wide PlantRepository instance.
      * Used by ViewModels for data access.
@@ -130,6 +174,24 @@ public class LeafIQApplication extends Application {
         return plantRepository;
     }
 
+    /**
+     * Gets the application-wide AnalysisResultCache instance.
+     * Shared so hit/miss statistics cover every analysis screen.
+     * Lazy initialization on first access; the match distance and window come from
+     * KeystoreHelper. Null if database migration failed.
+     */
+    public AnalysisResultCache getAnalysisResultCache() {
+        if (analysisResultCache == null && !migrationFailed) {
+            KeystoreHelper keystoreHelper = new KeystoreHelper(this);
+            analysisResultCache = new AnalysisResultCache(
+                    AppDatabase.getInstance(this).analysisCacheDao(),
+                    AnalysisResultCache.DEFAULT_MAX_ENTRIES,
+                    keystoreHelper.getCacheMatchDistance(),
+                    TimeUnit.MINUTES.toMillis(keystoreHelper.getCacheWindowMinutes()));
+        }
+        return analysisResultCache;
+    }
+
     /**
      * Gets the application-wide CareScheduleManager instance.
      * Lazy initialization on first access.
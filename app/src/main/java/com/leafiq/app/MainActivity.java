@@ -181,7 +181,8 @@ public class MainActivity extends AppCompatActivity {
 
         try {
             OkHttpClient client = ((LeafIQApplication) getApplication()).getHttpClient();
-            AIProvider provider = AIProviderFactory.create(providerName, apiKey, client);
+            AIProvider provider = AIProviderFactory.create(providerName, apiKey, client,
+                    keystoreHelper.isStructuredOutputEnabled());
             if (!provider.supportsVision()) {
                 Toast.makeText(this, R.string.quick_diagnosis_provider_required, Toast.LENGTH_LONG).show();
                 return;
@@ -3,7 +3,30 @@ package com.leafiq.app.ai;
 import com.leafiq.app.data.model.PlantAnalysisResult;
 
 public interface AIProvider {
-    PlantAnalysisResult analyzePhoto(String imageBase64, String prompt) throws AIProviderException;
+    /**
+     * Analyzes a plant photo. Callers wrap the image in an {@link ImagePayload} in whichever
+     * form they hold it (bytes, file or base64). Implementations stream the image into the
+     * request body (see {@link StreamingImageRequestBody}) rather than building it in memory,
+     * and send the prompt's static prefix where the provider's prompt cache can reuse it.
+     * A plain String prompt goes through {@link AnalysisPrompt#of(String)}.
+     */
+    PlantAnalysisResult analyzePhoto(ImagePayload image, AnalysisPrompt prompt) throws AIProviderException;
+
+    /**
+     * Streaming variant: the provider requests a server-sent event stream and reports
+     * partial results (identification first, then health, then care plan) as each section
+     * of the analysis JSON arrives. Returns the same final result as
+     * {@link #analyzePhoto(ImagePayload, AnalysisPrompt)}.
+     * <p>
+     * Providers without streaming support fall back to the blocking call and report no
+     * partial results.
+     */
+    default PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                      PartialResultListener listener)
+            throws AIProviderException {
+        return analyzePhoto(image, prompt);
+    }
+
     boolean isConfigured();
     String getDisplayName();
     boolean supportsVision();
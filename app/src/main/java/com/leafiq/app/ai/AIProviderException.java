@@ -2,23 +2,42 @@ package com.leafiq.app.ai;
 
 public class AIProviderException extends Exception {
     private final int httpStatusCode;
+    private final long retryAfterMs;
 
     public AIProviderException(String message) {
         super(message);
         this.httpStatusCode = 0;
+        this.retryAfterMs = -1;
     }
 
     public AIProviderException(String message, Throwable cause) {
         super(message, cause);
         this.httpStatusCode = 0;
+        this.retryAfterMs = -1;
     }
 
     public AIProviderException(String message, Throwable cause, int httpStatusCode) {
+        this(message, cause, httpStatusCode, -1);
+    }
+
+    /**
+     * @param retryAfterMs Delay requested by the server's Retry-After header, -1 if none
+     */
+    public AIProviderException(String message, Throwable cause, int httpStatusCode, long retryAfterMs) {
         super(message, cause);
         this.httpStatusCode = httpStatusCode;
+        this.retryAfterMs = retryAfterMs;
     }
 
     public int getHttpStatusCode() {
         return httpStatusCode;
     }
+
+    /**
+     * Gets the delay the server asked for before retrying (429/503 Retry-After), or -1 if
+     * the response carried no usable Retry-After header.
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
 }
@@ -1,5 +1,10 @@
 package com.leafiq.app.ai;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 import okhttp3.OkHttpClient;
 
 /**
@@ -12,9 +17,10 @@ import okhttp3.OkHttpClient;
  * String provider = keystoreHelper.getProvider();
  * String apiKey = keystoreHelper.getApiKey();
  * OkHttpClient client = ((LeafIQApplication) getApplication()).getHttpClient();
- * AIProvider aiProvider = AIProviderFactory.create(provider, apiKey, client);
+ * AIProvider aiProvider = AIProviderFactory.create(provider, apiKey, client,
+ *         keystoreHelper.isStructuredOutputEnabled());
  * if (aiProvider.isConfigured() && aiProvider.supportsVision()) {
- *     PlantAnalysisResult result = aiProvider.analyzePhoto(imageBase64, prompt);
+ *     PlantAnalysisResult result = aiProvider.analyzePhoto(ImagePayload.ofBytes(jpegBytes), prompt);
  * }
  * </pre>
  */
@@ -33,10 +39,13 @@ public class AIProviderFactory {
      * @param providerName One of: "gemini", "claude", "openai" (case-insensitive)
      * @param apiKey The API key for the provider
      * @param client The shared OkHttpClient instance (from LeafIQApplication)
+     * @param structuredOutput Send {@link AnalysisSchema} natively (tool input, json_schema,
+     *                         responseSchema) for analysis prompts instead of relying on the template
      * @return Configured AIProvider instance
      * @throws IllegalArgumentException if providerName, apiKey, or client is null, or if provider is unknown
      */
-    public static AIProvider create(String providerName, String apiKey, OkHttpClient client) {
+    public static AIProvider create(String providerName, String apiKey, OkHttpClient client,
+                                    boolean structuredOutput) {
         if (providerName == null) {
             throw new IllegalArgumentException("Provider name cannot be null");
         }
@@ -49,11 +58,11 @@ public class AIProviderFactory {
 
         switch (providerName.toLowerCase()) {
             case "gemini":
-                return new GeminiProvider(apiKey, client);
+                return new GeminiProvider(apiKey, client, structuredOutput);
             case "claude":
-                return new ClaudeProvider(apiKey, client);
+                return new ClaudeProvider(apiKey, client, structuredOutput);
             case "openai":
-                return new OpenAIProvider(apiKey, client);
+                return new OpenAIProvider(apiKey, client, structuredOutput);
             default:
                 throw new IllegalArgumentException(
                     "Unknown provider: " + providerName +
@@ -61,4 +70,52 @@ public class AIProviderFactory {
                 );
         }
     }
+
+    /**
+     * Creates a hedging provider over every provider that has an API key.
+     * <p>
+     * The primary provider is tried first; the others hedge it when it is slow and take over
+     * when it fails (see {@link HedgedAIProvider}). With only one key configured there is
+     * nothing to hedge with, so the plain provider is returned.
+     *
+     * @param primaryName Provider the user selected (e.g. keystoreHelper.getProvider())
+     * @param apiKeys API key per provider name; providers with a null or blank key are skipped
+     * @param client The shared OkHttpClient instance (from LeafIQApplication)
+     * @param stats Persisted latency stats driving the hedge delay
+     * @param executor Executor the hedged legs run on, separate from the caller's pool
+     * @param structuredOutput Create every provider in structured-output mode (see
+     *                         {@link #create(String, String, OkHttpClient, boolean)})
+     * @return HedgedAIProvider, or a single provider if fewer than two are configured
+     * @throws IllegalArgumentException if no provider has a key, or a provider name is unknown
+     */
+    public static AIProvider createHedged(String primaryName, Map<String, String> apiKeys,
+                                          OkHttpClient client, ProviderLatencyStats stats,
+                                          Executor executor, boolean structuredOutput) {
+        List<String> ordered = new ArrayList<>();
+        if (primaryName != null && isUsableKey(apiKeys.get(primaryName))) {
+            ordered.add(primaryName);
+        }
+        for (Map.Entry<String, String> entry : apiKeys.entrySet()) {
+            if (!entry.getKey().equals(primaryName) && isUsableKey(entry.getValue())) {
+                ordered.add(entry.getKey());
+            }
+        }
+        if (ordered.isEmpty()) {
+            throw new IllegalArgumentException("No provider has an API key");
+        }
+        if (ordered.size() == 1) {
+            return create(ordered.get(0), apiKeys.get(ordered.get(0)), client, structuredOutput);
+        }
+
+        List<HedgedAIProvider.ProviderFactory> factories = new ArrayList<>();
+        for (String name : ordered) {
+            String apiKey = apiKeys.get(name);
+            factories.add(legClient -> create(name, apiKey, legClient, structuredOutput));
+        }
+        return new HedgedAIProvider(factories, client, stats, executor);
+    }
+
+    private static boolean isUsableKey(String apiKey) {
+        return apiKey != null && !apiKey.trim().isEmpty();
+    }
 }
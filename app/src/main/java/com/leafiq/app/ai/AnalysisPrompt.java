@@ -0,0 +1,79 @@
+package com.leafiq.app.ai;
+
+/**
+ * Prompt split into a static prefix and a dynamic suffix.
+ * <p>
+ * The static prefix (role, response format, JSON template) is byte-for-byte identical across
+ * requests, so providers send it first - as a Claude system block with cache_control, an
+ * OpenAI system message or a Gemini systemInstruction - where their prompt caches can reuse
+ * it. The dynamic suffix carries the per-plant context and follows the cached prefix.
+ * <p>
+ * Prompts whose answer is a full {@link AnalysisSchema} result say so, letting providers in
+ * structured-output mode send the schema natively instead of relying on the template text.
+ */
+public final class AnalysisPrompt {
+
+    private final String staticPrefix;
+    private final String dynamicSuffix;
+    private final boolean expectsAnalysisSchema;
+
+    public AnalysisPrompt(String staticPrefix, String dynamicSuffix) {
+        this(staticPrefix, dynamicSuffix, false);
+    }
+
+    /**
+     * @param expectsAnalysisSchema true if the answer follows {@link AnalysisSchema}
+     */
+    public AnalysisPrompt(String staticPrefix, String dynamicSuffix, boolean expectsAnalysisSchema) {
+        this.staticPrefix = staticPrefix != null ? staticPrefix : "";
+        this.dynamicSuffix = dynamicSuffix != null ? dynamicSuffix : "";
+        this.expectsAnalysisSchema = expectsAnalysisSchema;
+    }
+
+    /**
+     * Wraps a plain prompt with no cacheable prefix; providers send it exactly as before.
+     */
+    public static AnalysisPrompt of(String prompt) {
+        return new AnalysisPrompt("", prompt);
+    }
+
+    /**
+     * @return Static instructions shared by every request (empty if there are none)
+     */
+    public String getStaticPrefix() {
+        return staticPrefix;
+    }
+
+    /**
+     * @return Request-specific context (empty if there is none)
+     */
+    public String getDynamicSuffix() {
+        return dynamicSuffix;
+    }
+
+    public boolean expectsAnalysisSchema() {
+        return expectsAnalysisSchema;
+    }
+
+    public boolean hasStaticPrefix() {
+        return !staticPrefix.isEmpty();
+    }
+
+    /**
+     * Gets the whole prompt as one string, e.g. for cache keys or single-message providers.
+     */
+    public String getFullText() {
+        if (staticPrefix.isEmpty()) {
+            return dynamicSuffix;
+        }
+        if (dynamicSuffix.isEmpty()) {
+            return staticPrefix;
+        }
+        return staticPrefix + "\n\n" + dynamicSuffix;
+    }
+
+    @Override
+    public String toString() {
+        return getFullText();
+    }
+}
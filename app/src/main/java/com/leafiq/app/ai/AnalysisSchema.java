@@ -0,0 +1,142 @@
+package com.leafiq.app.ai;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Response schema for {@link com.leafiq.app.data.model.PlantAnalysisResult}, in the
+ * dialects the providers' structured-output modes accept.
+ * <p>
+ * Mirrors the JSON template in {@link PromptBuilder}: every field is required, properties
+ * are listed in template order (identification first, so streamed partial results keep
+ * their order) and "string or null" fields are nullable.
+ * <ul>
+ *   <li>{@link #jsonSchema()} - JSON Schema for OpenAI response_format json_schema (strict
+ *       mode: additionalProperties false, all properties required) and Claude tool input.</li>
+ *   <li>{@link #geminiSchema()} - OpenAPI-style Schema for Gemini responseSchema (upper-case
+ *       types, nullable flag, propertyOrdering).</li>
+ * </ul>
+ */
+public final class AnalysisSchema {
+
+    /** Schema / tool name sent to the providers */
+    public static final String NAME = "plant_analysis";
+
+    private enum Dialect { JSON_SCHEMA, GEMINI }
+
+    private AnalysisSchema() {
+        throw new AssertionError("Utility class - do not instantiate");
+    }
+
+    public static JSONObject jsonSchema() throws JSONException {
+        return build(Dialect.JSON_SCHEMA);
+    }
+
+    public static JSONObject geminiSchema() throws JSONException {
+        return build(Dialect.GEMINI);
+    }
+
+    private static JSONObject build(Dialect d) throws JSONException {
+        return object(d,
+            "identification", object(d,
+                "commonName", string(d),
+                "scientificName", string(d),
+                "confidence", enumOf(d, "high", "medium", "low"),
+                "notes", string(d)),
+            "healthAssessment", object(d,
+                "score", integer(d),
+                "summary", string(d),
+                "issues", array(d, object(d,
+                    "name", string(d),
+                    "severity", enumOf(d, "low", "medium", "high"),
+                    "description", string(d),
+                    "affectedArea", string(d)))),
+            "immediateActions", array(d, object(d,
+                "action", string(d),
+                "priority", enumOf(d, "urgent", "soon", "when_convenient"),
+                "detail", string(d))),
+            "carePlan", object(d,
+                "watering", object(d,
+                    "frequency", string(d),
+                    "amount", string(d),
+                    "notes", string(d)),
+                "light", object(d,
+                    "ideal", string(d),
+                    "current", string(d),
+                    "adjustment", nullableString(d)),
+                "fertilizer", object(d,
+                    "type", string(d),
+                    "frequency", string(d),
+                    "nextApplication", string(d)),
+                "pruning", object(d,
+                    "needed", bool(d),
+                    "instructions", string(d),
+                    "when", string(d)),
+                "repotting", object(d,
+                    "needed", bool(d),
+                    "signs", string(d),
+                    "recommendedPotSize", nullableString(d)),
+                "seasonal", string(d)),
+            "funFact", string(d));
+    }
+
+    // ==================== Schema nodes ====================
+
+    private static JSONObject type(Dialect d, String type) throws JSONException {
+        return new JSONObject().put("type", d == Dialect.GEMINI ? type.toUpperCase() : type);
+    }
+
+    private static JSONObject string(Dialect d) throws JSONException {
+        return type(d, "string");
+    }
+
+    private static JSONObject nullableString(Dialect d) throws JSONException {
+        if (d == Dialect.GEMINI) {
+            return type(d, "string").put("nullable", true);
+        }
+        return new JSONObject().put("type", new JSONArray().put("string").put("null"));
+    }
+
+    private static JSONObject integer(Dialect d) throws JSONException {
+        return type(d, "integer");
+    }
+
+    private static JSONObject bool(Dialect d) throws JSONException {
+        return type(d, "boolean");
+    }
+
+    private static JSONObject enumOf(Dialect d, String... values) throws JSONException {
+        JSONArray options = new JSONArray();
+        for (String value : values) {
+            options.put(value);
+        }
+        return type(d, "string").put("enum", options);
+    }
+
+    private static JSONObject array(Dialect d, JSONObject items) throws JSONException {
+        return type(d, "array").put("items", items);
+    }
+
+    /**
+     * @param members Alternating property name and property schema, in output order
+     */
+    private static JSONObject object(Dialect d, Object... members) throws JSONException {
+        JSONObject properties = new JSONObject();
+        JSONArray names = new JSONArray();
+        for (int i = 0; i < members.length; i += 2) {
+            properties.put((String) members[i], members[i + 1]);
+            names.put(members[i]);
+        }
+        JSONObject schema = type(d, "object")
+            .put("properties", properties)
+            .put("required", names);
+        if (d == Dialect.GEMINI) {
+            // Gemini orders output properties alphabetically unless told otherwise
+            schema.put("propertyOrdering", names);
+        } else {
+            schema.put("additionalProperties", false);
+        }
+        return schema;
+    }
+}
@@ -0,0 +1,123 @@
+package com.leafiq.app.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+
+/**
+ * Cancels every OkHttp call made through a wrapped client.
+ * <p>
+ * Providers create their {@link Call}s internally, so the canceller hands them a client
+ * ({@link #wrap(OkHttpClient)}) whose interceptor records each call as it starts.
+ * {@link #cancel()} then cancels them all, including one still streaming its body, and any
+ * call started afterwards is cancelled before it is sent. The wrapped client shares the
+ * original's connection pool and dispatcher, so wrapping is cheap.
+ * <p>
+ * When the provider was created elsewhere (e.g. by the ViewModel, before the analysis
+ * started), the canceller can instead be bound to the thread making the call
+ * ({@link #bind()}): the app client's {@link #threadInterceptor()} registers every call made
+ * on a bound thread. Synchronous OkHttp calls run their interceptors on the calling thread.
+ */
+public class CallCanceller {
+
+    private static final ThreadLocal<CallCanceller> CURRENT = new ThreadLocal<>();
+
+    private final List<Call> calls = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * Restores the previously bound canceller when closed.
+     */
+    public static final class Binding implements AutoCloseable {
+        private final CallCanceller previous;
+
+        private Binding(CallCanceller previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Interceptor for the shared app client: registers each call with the canceller bound
+     * to the calling thread, if any.
+     */
+    public static Interceptor threadInterceptor() {
+        return chain -> {
+            CallCanceller canceller = CURRENT.get();
+            if (canceller != null) {
+                canceller.register(chain.call());
+            }
+            return chain.proceed(chain.request());
+        };
+    }
+
+    /**
+     * Gets the canceller bound to the current thread, or null.
+     */
+    public static CallCanceller current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds this canceller to the current thread until the returned binding is closed.
+     * Use with try-with-resources.
+     */
+    public Binding bind() {
+        Binding binding = new Binding(CURRENT.get());
+        CURRENT.set(this);
+        return binding;
+    }
+
+    /**
+     * Returns a client whose calls are tracked by this canceller.
+     *
+     * @param client Shared client (from LeafIQApplication)
+     */
+    public OkHttpClient wrap(OkHttpClient client) {
+        return client.newBuilder()
+            .addInterceptor(chain -> {
+                register(chain.call());
+                return chain.proceed(chain.request());
+            })
+            .build();
+    }
+
+    private synchronized void register(Call call) {
+        if (cancelled) {
+            // proceed() on a cancelled call throws IOException("Canceled")
+            call.cancel();
+        } else {
+            calls.add(call);
+        }
+    }
+
+    /**
+     * Cancels all tracked calls and every call started from now on. Idempotent.
+     */
+    public void cancel() {
+        List<Call> toCancel;
+        synchronized (this) {
+            cancelled = true;
+            toCancel = new ArrayList<>(calls);
+            calls.clear();
+        }
+        for (Call call : toCancel) {
+            call.cancel();
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
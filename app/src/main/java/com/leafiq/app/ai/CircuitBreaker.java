@@ -0,0 +1,126 @@
+package com.leafiq.app.ai;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-provider circuit breaker.
+ * <p>
+ * CLOSED: calls go through; FAILURE_THRESHOLD consecutive transient failures open the circuit.
+ * OPEN: calls fail fast with {@link CircuitBreakerOpenException} for OPEN_DURATION_MS.
+ * HALF_OPEN: after the cool-down a single trial call is let through; success closes the
+ * circuit, failure opens it again for another cool-down.
+ * <p>
+ * Providers are created per analysis, so breakers live in a process-wide registry keyed by
+ * provider display name ({@link #forProvider(String)}) and outlive any one provider instance.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,     // Normal operation
+        OPEN,       // Failing fast until the cool-down ends
+        HALF_OPEN   // One trial call in flight
+    }
+
+    static final int FAILURE_THRESHOLD = 5;
+    static final long OPEN_DURATION_MS = 30_000;
+
+    private static final Map<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMs;
+    private boolean trialInFlight;
+
+    /**
+     * Gets the shared breaker for a provider, creating it on first use.
+     *
+     * @param providerName Provider display name (e.g. "Claude (Anthropic)")
+     */
+    public static CircuitBreaker forProvider(String providerName) {
+        return BREAKERS.computeIfAbsent(providerName, name ->
+            new CircuitBreaker(FAILURE_THRESHOLD, OPEN_DURATION_MS, System::currentTimeMillis));
+    }
+
+    // Package-private constructor for testing with a fake clock
+    CircuitBreaker(int failureThreshold, long openDurationMs, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Asks permission to make a call. An OPEN breaker whose cool-down has ended moves to
+     * HALF_OPEN and grants exactly one trial; every granted call must be followed by
+     * {@link #recordSuccess()} or {@link #recordFailure()}.
+     *
+     * @return true if the call may proceed, false to fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAtMs < openDurationMs) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * Records a call that reached the provider and got an answer (including non-transient
+     * errors such as 401, which say nothing about availability). Closes the circuit.
+     */
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a transient failure (5xx, 429, refused connection). Opens the circuit once the
+     * threshold is reached, or immediately if the HALF_OPEN trial failed.
+     */
+    public synchronized void recordFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtMs = clock.getAsLong();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Gets how long an OPEN circuit will keep failing fast, 0 if it is not open.
+     */
+    public synchronized long getRemainingOpenMs() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openedAtMs + openDurationMs - clock.getAsLong());
+    }
+
+    // Visible for testing: forget all breaker state between tests
+    static void resetAll() {
+        BREAKERS.clear();
+    }
+}
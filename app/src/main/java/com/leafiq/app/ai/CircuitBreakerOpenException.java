@@ -0,0 +1,12 @@
+package com.leafiq.app.ai;
+
+/**
+ * Thrown without contacting the provider while its {@link CircuitBreaker} is open.
+ * Carries HTTP 503 so callers that only look at the status code treat it as a service outage.
+ */
+public class CircuitBreakerOpenException extends AIProviderException {
+
+    public CircuitBreakerOpenException(String providerName, long retryAfterMs) {
+        super(providerName + " is temporarily unavailable (circuit open)", null, 503, retryAfterMs);
+    }
+}
@@ -1,7 +1,6 @@
 package com.leafiq.app.ai;
 
 import com.leafiq.app.data.model.PlantAnalysisResult;
-import com.leafiq.app.util.JsonParser;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -9,7 +8,6 @@ import org.json.JSONObject;
 
 import java.io.IOException;
 
-import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
@@ -22,101 +20,210 @@ public class ClaudeProvider implements AIProvider {
     private final String apiKey;
     private final String apiUrl;
     private final OkHttpClient client;
+    private final boolean structuredOutput;
 
     public ClaudeProvider(String apiKey, OkHttpClient client) {
-        this.apiKey = apiKey;
-        this.apiUrl = DEFAULT_API_URL;
-        this.client = client;
+        this(apiKey, DEFAULT_API_URL, client, false);
+    }
+
+    /**
+     * @param structuredOutput Send the analysis schema natively for prompts that expect it
+     */
+    public ClaudeProvider(String apiKey, OkHttpClient client, boolean structuredOutput) {
+        this(apiKey, DEFAULT_API_URL, client, structuredOutput);
     }
 
-    // Package-private constructor for testing with MockWebServer
+    // Package-private constructors for testing with MockWebServer
     ClaudeProvider(String apiKey, String apiUrl, OkHttpClient client) {
+        this(apiKey, apiUrl, client, false);
+    }
+
+    ClaudeProvider(String apiKey, String apiUrl, OkHttpClient client, boolean structuredOutput) {
         this.apiKey = apiKey;
         this.apiUrl = apiUrl;
         this.client = client;
+        this.structuredOutput = structuredOutput;
     }
 
     @Override
-    public PlantAnalysisResult analyzePhoto(String imageBase64, String prompt)
+    public PlantAnalysisResult analyzePhoto(ImagePayload image, AnalysisPrompt prompt)
             throws AIProviderException {
-        try {
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("model", MODEL);
-            requestBody.put("max_tokens", 2048);
-
-            JSONArray messages = new JSONArray();
-            JSONObject userMessage = new JSONObject();
-            userMessage.put("role", "user");
-
-            JSONArray content = new JSONArray();
-
-            // Image block
-            JSONObject imageBlock = new JSONObject();
-            imageBlock.put("type", "image");
-            JSONObject source = new JSONObject();
-            source.put("type", "base64");
-            source.put("media_type", "image/jpeg");
-            source.put("data", imageBase64);
-            imageBlock.put("source", source);
-            content.put(imageBlock);
-
-            // Text block
-            JSONObject textBlock = new JSONObject();
-            textBlock.put("type", "text");
-            textBlock.put("text", prompt);
-            content.put(textBlock);
+        boolean structured = usesSchema(prompt);
+        boolean decoding = false;
+        try (Response response = client.newCall(buildRequest(image, prompt, false, structured)).execute()) {
+            if (!response.isSuccessful()) {
+                throw NetworkUtils.httpError(response);
+            }
+            decoding = true;
+
+            // Decode straight off the socket: walks the envelope to the AI text and
+            // parses the embedded analysis JSON without buffering the body as a String
+            // In structured mode the analysis is the forced tool call's input object
+            PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                response.body().source(),
+                structured ? StreamingResponseDecoder.CLAUDE_TOOL_INPUT_PATH
+                    : StreamingResponseDecoder.CLAUDE_TEXT_PATH,
+                structured, StreamingResponseDecoder.USAGE_FIELD,
+                usage -> TokenUsageStats.record(getDisplayName(), TokenUsage.fromClaude(usage)));
+            return tag(result, structured);
+        } catch (JSONException | IOException e) {
+            if (decoding) {
+                ParseOutcomeStats.record(getDisplayName(), structured, false);
+            }
+            throw new AIProviderException("Analysis failed: " + e.getMessage(), e, 0);
+        }
+    }
 
-            userMessage.put("content", content);
-            messages.put(userMessage);
-            requestBody.put("messages", messages);
-
-            RequestBody body = RequestBody.create(
-                requestBody.toString(),
-                MediaType.parse("application/json")
-            );
-
-            Request request = new Request.Builder()
-                .url(apiUrl)
-                .addHeader("x-api-key", apiKey)
-                .addHeader("anthropic-version", API_VERSION)
-                .addHeader("content-type", "application/json")
-                .post(body)
-                .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    throw new AIProviderException(
-                        "API error: " + response.code() + " " + response.message(), null, response.code());
+    @Override
+    public PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                     PartialResultListener listener)
+            throws AIProviderException {
+        boolean structured = usesSchema(prompt);
+        boolean decoding = false;
+        try (Response response = client.newCall(buildRequest(image, prompt, true, structured)).execute()) {
+            if (!response.isSuccessful()) {
+                throw NetworkUtils.httpError(response);
+            }
+            decoding = true;
+
+            // Text (or, in structured mode, tool input JSON) arrives in content_block_delta
+            // events; error events abort the stream.
+            // Input usage comes with message_start, the final output count with message_delta.
+            TokenUsage[] usage = new TokenUsage[1];
+            PlantAnalysisResult result = ServerSentEventReader.readAnalysis(response.body().source(), event -> {
+                String type = event.optString("type");
+                if ("message_start".equals(type)) {
+                    JSONObject message = event.optJSONObject("message");
+                    JSONObject start = message != null ? message.optJSONObject("usage") : null;
+                    if (start != null) {
+                        usage[0] = TokenUsage.fromClaude(start);
+                    }
+                    return null;
                 }
-
-                String responseBody = response.body().string();
-                JSONObject json = new JSONObject(responseBody);
-                JSONArray contentArray = json.getJSONArray("content");
-                String aiText = contentArray.getJSONObject(0).getString("text");
-
-                // Defensive: strip markdown backticks if AI wrapped the JSON
-                aiText = aiText.trim();
-                if (aiText.startsWith("```")) {
-                    aiText = aiText.replaceAll("^```json?\\s*", "")
-                                   .replaceAll("\\s*```$", "");
+                if ("message_delta".equals(type)) {
+                    JSONObject delta = event.optJSONObject("usage");
+                    if (delta != null && usage[0] != null) {
+                        usage[0] = usage[0].withOutputTokens(delta.optLong("output_tokens"));
+                    }
+                    return null;
                 }
-
-                // Find first { and last } to handle any extra text
-                int start = aiText.indexOf('{');
-                int end = aiText.lastIndexOf('}');
-                if (start >= 0 && end > start) {
-                    aiText = aiText.substring(start, end + 1);
+                if ("content_block_delta".equals(type)) {
+                    JSONObject delta = event.getJSONObject("delta");
+                    String deltaType = delta.optString("type");
+                    if ("text_delta".equals(deltaType)) {
+                        return delta.getString("text");
+                    }
+                    return "input_json_delta".equals(deltaType) ? delta.getString("partial_json") : null;
                 }
-
-                PlantAnalysisResult result = JsonParser.parsePlantAnalysis(aiText);
-                result.rawResponse = aiText;
-                return result;
-            }
+                if ("error".equals(type)) {
+                    JSONObject error = event.optJSONObject("error");
+                    throw new AIProviderException("API error: "
+                        + (error != null ? error.optString("message") : "stream error"));
+                }
+                return null;
+            }, listener, structured);
+            TokenUsageStats.record(getDisplayName(), usage[0]);
+            return tag(result, structured);
         } catch (JSONException | IOException e) {
+            if (decoding) {
+                ParseOutcomeStats.record(getDisplayName(), structured, false);
+            }
             throw new AIProviderException("Analysis failed: " + e.getMessage(), e, 0);
         }
     }
 
+    private Request buildRequest(ImagePayload image, AnalysisPrompt prompt, boolean stream,
+                                 boolean structured)
+            throws JSONException {
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("model", MODEL);
+        requestBody.put("max_tokens", 2048);
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+
+        // Static instructions go first as a cacheable system block; later requests read the
+        // prefix from Anthropic's prompt cache (reported as cache_read_input_tokens)
+        if (prompt.hasStaticPrefix()) {
+            JSONObject systemBlock = new JSONObject();
+            systemBlock.put("type", "text");
+            systemBlock.put("text", prompt.getStaticPrefix());
+            JSONObject cacheControl = new JSONObject();
+            cacheControl.put("type", "ephemeral");
+            systemBlock.put("cache_control", cacheControl);
+            requestBody.put("system", new JSONArray().put(systemBlock));
+        }
+
+        JSONArray messages = new JSONArray();
+        JSONObject userMessage = new JSONObject();
+        userMessage.put("role", "user");
+
+        JSONArray content = new JSONArray();
+
+        // Image block
+        JSONObject imageBlock = new JSONObject();
+        imageBlock.put("type", "image");
+        JSONObject source = new JSONObject();
+        source.put("type", "base64");
+        source.put("media_type", "image/jpeg");
+        source.put("data", StreamingImageRequestBody.IMAGE_PLACEHOLDER);
+        imageBlock.put("source", source);
+        content.put(imageBlock);
+
+        // Text block (request-specific context; the API rejects empty text blocks)
+        if (!prompt.getDynamicSuffix().isEmpty()) {
+            JSONObject textBlock = new JSONObject();
+            textBlock.put("type", "text");
+            textBlock.put("text", prompt.getDynamicSuffix());
+            content.put(textBlock);
+        }
+
+        userMessage.put("content", content);
+        messages.put(userMessage);
+        requestBody.put("messages", messages);
+
+        // Structured mode: a single tool whose input schema is the analysis, and the model is
+        // forced to call it, so the answer arrives as schema-conforming tool input
+        if (structured) {
+            JSONObject tool = new JSONObject();
+            tool.put("name", AnalysisSchema.NAME);
+            tool.put("description", "Record the plant analysis");
+            tool.put("input_schema", AnalysisSchema.jsonSchema());
+            requestBody.put("tools", new JSONArray().put(tool));
+            JSONObject toolChoice = new JSONObject();
+            toolChoice.put("type", "tool");
+            toolChoice.put("name", AnalysisSchema.NAME);
+            requestBody.put("tool_choice", toolChoice);
+        }
+
+        // Envelope is small; image bytes are base64-encoded straight into the sink
+        RequestBody body = new StreamingImageRequestBody(
+            requestBody.toString(), "", image);
+
+        return new Request.Builder()
+            .url(apiUrl)
+            .addHeader("x-api-key", apiKey)
+            .addHeader("anthropic-version", API_VERSION)
+            .addHeader("content-type", "application/json")
+            .post(body)
+            .build();
+    }
+
+    private boolean usesSchema(AnalysisPrompt prompt) {
+        return structuredOutput && prompt.expectsAnalysisSchema();
+    }
+
+    /**
+     * Records which provider and output mode produced the result (stored with the analysis
+     * so parse_status can be broken down per provider) and counts the response as decoded.
+     */
+    private PlantAnalysisResult tag(PlantAnalysisResult result, boolean structured) {
+        result.provider = getDisplayName();
+        result.structuredOutput = structured;
+        ParseOutcomeStats.record(getDisplayName(), structured, true);
+        return result;
+    }
+
     @Override
     public boolean isConfigured() {
         return apiKey != null && !apiKey.trim().isEmpty();
@@ -1,7 +1,6 @@
 package com.leafiq.app.ai;
 
 import com.leafiq.app.data.model.PlantAnalysisResult;
-import com.leafiq.app.util.JsonParser;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -9,7 +8,6 @@ import org.json.JSONObject;
 
 import java.io.IOException;
 
-import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
@@ -20,104 +18,185 @@ public class GeminiProvider implements AIProvider {
     private final String apiKey;
     private final String apiUrl;
     private final OkHttpClient client;
+    private final boolean structuredOutput;
 
     public GeminiProvider(String apiKey, OkHttpClient client) {
-        this.apiKey = apiKey;
-        this.apiUrl = DEFAULT_API_URL;
-        this.client = client;
+        this(apiKey, DEFAULT_API_URL, client, false);
     }
 
-    // Package-private constructor for testing with MockWebServer
+    /**
+     * @param structuredOutput Send the analysis schema natively for prompts that expect it
+     */
+    public GeminiProvider(String apiKey, OkHttpClient client, boolean structuredOutput) {
+        this(apiKey, DEFAULT_API_URL, client, structuredOutput);
+    }
+
+    // Package-private constructors for testing with MockWebServer
     GeminiProvider(String apiKey, String apiUrl, OkHttpClient client) {
+        this(apiKey, apiUrl, client, false);
+    }
+
+    GeminiProvider(String apiKey, String apiUrl, OkHttpClient client, boolean structuredOutput) {
         this.apiKey = apiKey;
         this.apiUrl = apiUrl;
         this.client = client;
+        this.structuredOutput = structuredOutput;
+    }
+
+    @Override
+    public PlantAnalysisResult analyzePhoto(ImagePayload image, AnalysisPrompt prompt)
+            throws AIProviderException {
+        boolean structured = usesSchema(prompt);
+        boolean decoding = false;
+        try (Response response = client.newCall(buildRequest(image, prompt, false, structured)).execute()) {
+            if (!response.isSuccessful()) {
+                throw NetworkUtils.httpError(response);
+            }
+            decoding = true;
+
+            // Decode straight off the socket: walks the envelope to the AI text and
+            // parses the embedded analysis JSON without buffering the body as a String
+            PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                response.body().source(), StreamingResponseDecoder.GEMINI_TEXT_PATH,
+                structured, StreamingResponseDecoder.GEMINI_USAGE_FIELD,
+                usage -> TokenUsageStats.record(getDisplayName(), TokenUsage.fromGemini(usage)));
+            return tag(result, structured);
+        } catch (JSONException | IOException e) {
+            if (decoding) {
+                ParseOutcomeStats.record(getDisplayName(), structured, false);
+            }
+            throw new AIProviderException("Analysis failed: " + e.getMessage(), e, 0);
+        }
     }
 
     @Override
-    public PlantAnalysisResult analyzePhoto(String imageBase64, String prompt)
+    public PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                     PartialResultListener listener)
             throws AIProviderException {
-        try {
-            JSONObject requestBody = new JSONObject();
+        boolean structured = usesSchema(prompt);
+        boolean decoding = false;
+        try (Response response = client.newCall(buildRequest(image, prompt, true, structured)).execute()) {
+            if (!response.isSuccessful()) {
+                throw NetworkUtils.httpError(response);
+            }
+            decoding = true;
+
+            // Each event is a partial GenerateContentResponse; its parts carry the next text chunk
+            // and its usageMetadata the running token counts (the last one is final)
+            TokenUsage[] usage = new TokenUsage[1];
+            PlantAnalysisResult result = ServerSentEventReader.readAnalysis(response.body().source(), event -> {
+                JSONObject error = event.optJSONObject("error");
+                if (error != null) {
+                    throw new AIProviderException("API error: " + error.optString("message"));
+                }
+                JSONObject usageMetadata = event.optJSONObject("usageMetadata");
+                if (usageMetadata != null) {
+                    usage[0] = TokenUsage.fromGemini(usageMetadata);
+                }
+                JSONArray candidates = event.optJSONArray("candidates");
+                if (candidates == null || candidates.length() == 0) {
+                    return null;
+                }
+                JSONObject content = candidates.getJSONObject(0).optJSONObject("content");
+                JSONArray parts = content != null ? content.optJSONArray("parts") : null;
+                if (parts == null) {
+                    return null;
+                }
+                StringBuilder text = new StringBuilder();
+                for (int i = 0; i < parts.length(); i++) {
+                    text.append(parts.getJSONObject(i).optString("text"));
+                }
+                return text.toString();
+            }, listener, structured);
+            TokenUsageStats.record(getDisplayName(), usage[0]);
+            return tag(result, structured);
+        } catch (JSONException | IOException e) {
+            if (decoding) {
+                ParseOutcomeStats.record(getDisplayName(), structured, false);
+            }
+            throw new AIProviderException("Analysis failed: " + e.getMessage(), e, 0);
+        }
+    }
+
+    private Request buildRequest(ImagePayload image, AnalysisPrompt prompt, boolean stream,
+                                 boolean structured)
+            throws JSONException {
+        JSONObject requestBody = new JSONObject();
+
+        // Gemini 2.5 caches repeated request prefixes implicitly, so the static instructions
+        // lead as the system instruction (hits are reported as cachedContentTokenCount)
+        if (prompt.hasStaticPrefix()) {
+            JSONObject systemInstruction = new JSONObject();
+            JSONObject systemPart = new JSONObject();
+            systemPart.put("text", prompt.getStaticPrefix());
+            systemInstruction.put("parts", new JSONArray().put(systemPart));
+            requestBody.put("systemInstruction", systemInstruction);
+        }
 
-            JSONArray contents = new JSONArray();
-            JSONObject content = new JSONObject();
+        JSONArray contents = new JSONArray();
+        JSONObject content = new JSONObject();
 
-            JSONArray parts = new JSONArray();
+        JSONArray parts = new JSONArray();
 
-            // Text part
+        // Text part (request-specific context only)
+        if (!prompt.getDynamicSuffix().isEmpty()) {
             JSONObject textPart = new JSONObject();
-            textPart.put("text", prompt);
+            textPart.put("text", prompt.getDynamicSuffix());
             parts.put(textPart);
+        }
 
-            // Image part
-            JSONObject imagePart = new JSONObject();
-            JSONObject inlineData = new JSONObject();
-            inlineData.put("mimeType", "image/jpeg");
-            inlineData.put("data", imageBase64);
-            imagePart.put("inlineData", inlineData);
-            parts.put(imagePart);
-
-            content.put("parts", parts);
-            contents.put(content);
-            requestBody.put("contents", contents);
-
-            // Generation config
-            JSONObject generationConfig = new JSONObject();
-            generationConfig.put("maxOutputTokens", 2048);
-            generationConfig.put("temperature", 0.4);
-            requestBody.put("generationConfig", generationConfig);
-
-            RequestBody body = RequestBody.create(
-                requestBody.toString(),
-                MediaType.parse("application/json")
-            );
-
-            String url = apiUrl + "?key=" + apiKey;
-
-            Request request = new Request.Builder()
-                .url(url)
-                .addHeader("Content-Type", "application/json")
-                .post(body)
-                .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    throw new AIProviderException(
-                        "API error: " + response.code() + " " + response.message(), null, response.code());
-                }
-
-                String responseBody = response.body().string();
-                JSONObject json = new JSONObject(responseBody);
-
-                // Extract text from Gemini response
-                JSONArray candidates = json.getJSONArray("candidates");
-                JSONObject candidate = candidates.getJSONObject(0);
-                JSONObject contentObj = candidate.getJSONObject("content");
-                JSONArray partsArray = contentObj.getJSONArray("parts");
-                String aiText = partsArray.getJSONObject(0).getString("text");
-
-                // Defensive: strip markdown backticks if AI wrapped the JSON
-                aiText = aiText.trim();
-                if (aiText.startsWith("```")) {
-                    aiText = aiText.replaceAll("^```json?\\s*", "")
-                                   .replaceAll("\\s*```$", "");
-                }
+        // Image part
+        JSONObject imagePart = new JSONObject();
+        JSONObject inlineData = new JSONObject();
+        inlineData.put("mimeType", "image/jpeg");
+        inlineData.put("data", StreamingImageRequestBody.IMAGE_PLACEHOLDER);
+        imagePart.put("inlineData", inlineData);
+        parts.put(imagePart);
+
+        content.put("parts", parts);
+        contents.put(content);
+        requestBody.put("contents", contents);
+
+        // Generation config
+        JSONObject generationConfig = new JSONObject();
+        generationConfig.put("maxOutputTokens", 2048);
+        generationConfig.put("temperature", 0.4);
+        if (structured) {
+            // Constrained decoding: the text part is exactly one schema-conforming JSON object
+            generationConfig.put("responseMimeType", "application/json");
+            generationConfig.put("responseSchema", AnalysisSchema.geminiSchema());
+        }
+        requestBody.put("generationConfig", generationConfig);
+
+        // Envelope is small; image bytes are base64-encoded straight into the sink
+        RequestBody body = new StreamingImageRequestBody(
+            requestBody.toString(), "", image);
+
+        // Streaming uses the streamGenerateContent method with SSE framing
+        String url = stream
+            ? apiUrl.replace(":generateContent", ":streamGenerateContent") + "?alt=sse&key=" + apiKey
+            : apiUrl + "?key=" + apiKey;
+
+        return new Request.Builder()
+            .url(url)
+            .addHeader("Content-Type", "application/json")
+            .post(body)
+            .build();
+    }
 
-                // Find first { and last } to handle any extra text
-                int start = aiText.indexOf('{');
-                int end = aiText.lastIndexOf('}');
-                if (start >= 0 && end > start) {
-                    aiText = aiText.substring(start, end + 1);
-                }
+    private boolean usesSchema(AnalysisPrompt prompt) {
+        return structuredOutput && prompt.expectsAnalysisSchema();
+    }
 
-                PlantAnalysisResult result = JsonParser.parsePlantAnalysis(aiText);
-                result.rawResponse = aiText;
-                return result;
-            }
-        } catch (JSONException | IOException e) {
-            throw new AIProviderException("Analysis failed: " + e.getMessage(), e, 0);
-        }
+    /**
+     * Records which provider and output mode produced the result (stored with the analysis
+     * so parse_status can be broken down per provider) and counts the response as decoded.
+     */
+    private PlantAnalysisResult tag(PlantAnalysisResult result, boolean structured) {
+        result.provider = getDisplayName();
+        result.structuredOutput = structured;
+        ParseOutcomeStats.record(getDisplayName(), structured, true);
+        return result;
     }
 
     @Override
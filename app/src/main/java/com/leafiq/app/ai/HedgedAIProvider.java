@@ -0,0 +1,356 @@
+package com.leafiq.app.ai;
+
+import android.util.Log;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Composite AIProvider that hedges a slow provider and fails over from a broken one.
+ * <p>
+ * Legs are tried in order (the user's selected provider first). The first leg is started
+ * straight away; if it has not answered after its hedge delay (p95 latency from
+ * {@link ProviderLatencyStats}), the next leg is started alongside it. The first valid
+ * result wins and the other leg's OkHttp call is cancelled through its {@link CallCanceller}.
+ * A leg that fails (any error, or a result with neither identification nor health
+ * assessment) is replaced by the next leg immediately, without waiting for the hedge delay.
+ * At most two legs are in flight at once.
+ * <p>
+ * Each leg goes through its provider's shared {@link CircuitBreaker} but is not retried:
+ * failing over to another provider is faster than backing off. Winning latencies are
+ * recorded so the hedge delay adapts.
+ * <p>
+ * Streaming: partial results are forwarded from one leg at a time, starting with whichever
+ * leg streams first, so sections from different providers never mix on screen. If that leg
+ * fails, the next running leg's latest partial replaces its sections; if another leg wins,
+ * the winning result is forwarded as a final partial before it is returned.
+ */
+public class HedgedAIProvider implements AIProvider {
+
+    private static final String TAG = "HedgedAIProvider";
+
+    /**
+     * Creates a provider that sends its requests through the given client.
+     */
+    public interface ProviderFactory {
+        AIProvider create(OkHttpClient client);
+    }
+
+    private interface LegCall {
+        PlantAnalysisResult run(AIProvider provider, PartialResultListener listener)
+                throws AIProviderException;
+    }
+
+    /**
+     * Forwards partial results from the leg currently on screen and switches the screen to
+     * another leg when that one fails or loses. Partials are full snapshots, so forwarding
+     * one leg's latest partial replaces everything the previous leg streamed.
+     */
+    private static final class PartialRelay {
+        private final PartialResultListener listener;
+        private final PlantAnalysisResult[] latest;
+        private int shown = -1;
+        private boolean owned;
+        private boolean closed;
+
+        PartialRelay(PartialResultListener listener, int legCount) {
+            this.listener = listener;
+            this.latest = new PlantAnalysisResult[legCount];
+        }
+
+        synchronized void onPartial(int leg, PlantAnalysisResult partial) {
+            if (closed) {
+                return;
+            }
+            latest[leg] = partial;
+            if (!owned || shown == leg) {
+                owned = true;
+                show(leg, partial);
+            }
+        }
+
+        /**
+         * The leg stopped without winning: hand the screen to a running leg that has streamed.
+         * If none has, the failed leg's sections stay until the next leg's first partial.
+         */
+        synchronized void onLegFailed(int leg) {
+            latest[leg] = null;
+            if (closed || shown != leg) {
+                return;
+            }
+            owned = false;
+            for (int i = 0; i < latest.length; i++) {
+                if (latest[i] != null) {
+                    owned = true;
+                    show(i, latest[i]);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Stops forwarding. If another leg's sections are on screen, replaces them with the
+         * result about to be returned.
+         */
+        synchronized void close(int winner, PlantAnalysisResult result) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (shown != -1 && shown != winner && result != null) {
+                listener.onPartialResult(asPartial(result));
+            }
+        }
+
+        private void show(int leg, PlantAnalysisResult partial) {
+            shown = leg;
+            listener.onPartialResult(partial);
+        }
+
+        private static PlantAnalysisResult asPartial(PlantAnalysisResult result) {
+            PlantAnalysisResult partial = new PlantAnalysisResult();
+            partial.identification = result.identification;
+            partial.healthAssessment = result.healthAssessment;
+            partial.immediateActions = result.immediateActions;
+            partial.carePlan = result.carePlan;
+            partial.funFact = result.funFact;
+            partial.provider = result.provider;
+            partial.structuredOutput = result.structuredOutput;
+            return partial;
+        }
+    }
+
+    private static final class Outcome {
+        final int leg;
+        final PlantAnalysisResult result;
+        final AIProviderException error;
+        final long latencyMs;
+
+        Outcome(int leg, PlantAnalysisResult result, AIProviderException error, long latencyMs) {
+            this.leg = leg;
+            this.result = result;
+            this.error = error;
+            this.latencyMs = latencyMs;
+        }
+    }
+
+    private final List<ProviderFactory> factories;
+    private final List<String> names = new ArrayList<>();
+    private final OkHttpClient client;
+    private final ProviderLatencyStats stats;
+    private final ToLongFunction<String> hedgeDelay;
+    private final Executor executor;
+
+    private volatile String lastWinner;
+
+    /**
+     * @param factories One factory per configured provider, primary first
+     * @param client Shared OkHttpClient; each leg gets a wrapped copy so it can be cancelled
+     * @param stats Persisted latency stats (hedge delay source, updated on success)
+     * @param executor Runs the legs; the calling thread only waits, so this must not be the
+     *                 pool the caller runs on (queued legs could wait forever behind it)
+     */
+    public HedgedAIProvider(List<ProviderFactory> factories, OkHttpClient client,
+                            ProviderLatencyStats stats, Executor executor) {
+        this(factories, client, stats, stats::getHedgeDelayMs, executor);
+    }
+
+    // Package-private constructor for testing with a fixed hedge delay
+    HedgedAIProvider(List<ProviderFactory> factories, OkHttpClient client,
+                     ProviderLatencyStats stats, ToLongFunction<String> hedgeDelay, Executor executor) {
+        if (factories.isEmpty()) {
+            throw new IllegalArgumentException("At least one provider is required");
+        }
+        this.factories = new ArrayList<>(factories);
+        this.client = client;
+        this.stats = stats;
+        this.hedgeDelay = hedgeDelay;
+        this.executor = executor;
+        for (ProviderFactory factory : factories) {
+            names.add(factory.create(client).getDisplayName());
+        }
+    }
+
+    @Override
+    public PlantAnalysisResult analyzePhoto(ImagePayload image, AnalysisPrompt prompt)
+            throws AIProviderException {
+        return hedge((provider, partials) -> provider.analyzePhoto(image, prompt), null);
+    }
+
+    @Override
+    public PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                     PartialResultListener listener)
+            throws AIProviderException {
+        return hedge((provider, partials) -> provider.analyzePhotoStreaming(image, prompt, partials),
+                listener);
+    }
+
+    private PlantAnalysisResult hedge(LegCall call, PartialResultListener listener)
+            throws AIProviderException {
+        BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+        List<CallCanceller> cancellers = new ArrayList<>();
+        PartialRelay relay = listener != null ? new PartialRelay(listener, factories.size()) : null;
+
+        int next = 0;
+        int inFlight = 0;
+        long hedgeAtMs = 0;
+        AIProviderException lastError = null;
+        PlantAnalysisResult fallback = null;
+        int fallbackLeg = -1;
+
+        try {
+            startLeg(next, call, relay, outcomes, cancellers);
+            hedgeAtMs = nowMs() + hedgeDelay.applyAsLong(names.get(next));
+            next++;
+            inFlight++;
+
+            while (true) {
+                Outcome outcome;
+                if (inFlight == 1 && next < factories.size()) {
+                    // One leg running and another available: wait only until the hedge delay
+                    long waitMs = hedgeAtMs - nowMs();
+                    outcome = waitMs > 0 ? outcomes.poll(waitMs, TimeUnit.MILLISECONDS) : outcomes.poll();
+                    if (outcome == null) {
+                        Log.i(TAG, String.format("hedge: started=%s after waiting on %s",
+                                names.get(next), names.get(next - 1)));
+                        startLeg(next, call, relay, outcomes, cancellers);
+                        next++;
+                        inFlight++;
+                        continue;
+                    }
+                } else {
+                    outcome = outcomes.take();
+                }
+                inFlight--;
+
+                if (outcome.error == null && isValid(outcome.result)) {
+                    if (relay != null) {
+                        relay.close(outcome.leg, outcome.result);
+                    }
+                    stats.recordSuccess(names.get(outcome.leg), outcome.latencyMs);
+                    lastWinner = names.get(outcome.leg);
+                    Log.i(TAG, String.format("winner: provider=%s latencyMs=%d legsStarted=%d",
+                            lastWinner, outcome.latencyMs, next));
+                    return outcome.result;
+                }
+                if (outcome.error != null) {
+                    lastError = outcome.error;
+                } else {
+                    fallback = outcome.result;
+                    fallbackLeg = outcome.leg;
+                }
+                if (relay != null) {
+                    relay.onLegFailed(outcome.leg);
+                }
+                Log.w(TAG, String.format("leg failed: provider=%s status=%d",
+                        names.get(outcome.leg), outcome.error != null ? outcome.error.getHttpStatusCode() : 0));
+
+                // Fail over straight away; the new leg gets its own hedge delay if it runs alone
+                if (next < factories.size()) {
+                    startLeg(next, call, relay, outcomes, cancellers);
+                    hedgeAtMs = nowMs() + hedgeDelay.applyAsLong(names.get(next));
+                    next++;
+                    inFlight++;
+                } else if (inFlight == 0) {
+                    if (fallback != null) {
+                        if (relay != null) {
+                            relay.close(fallbackLeg, fallback);
+                        }
+                        return fallback;
+                    }
+                    throw lastError;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AIProviderException("Analysis interrupted", e);
+        } finally {
+            // Cancels the losing leg's call; a no-op for legs that already finished
+            if (relay != null) {
+                relay.close(-1, null);
+            }
+            for (CallCanceller canceller : cancellers) {
+                canceller.cancel();
+            }
+        }
+    }
+
+    private void startLeg(int index, LegCall call, PartialRelay relay,
+                          BlockingQueue<Outcome> outcomes, List<CallCanceller> cancellers) {
+        CallCanceller canceller = new CallCanceller();
+        cancellers.add(canceller);
+        AIProvider provider = new ResilientAIProvider(
+                factories.get(index).create(canceller.wrap(client)),
+                CircuitBreaker.forProvider(names.get(index)), null, 1, new Random(), Thread::sleep);
+        PartialResultListener legListener = partial -> {
+            if (relay != null) {
+                relay.onPartial(index, partial);
+            }
+        };
+
+        // Legs run on other threads: carry over the caller's canceller so cancelling the
+        // analysis also reaches calls made by the legs
+        CallCanceller callerCanceller = CallCanceller.current();
+        long startMs = nowMs();
+        try {
+            executor.execute(() -> {
+                try (CallCanceller.Binding ignored = callerCanceller != null ? callerCanceller.bind() : null) {
+                    PlantAnalysisResult result = call.run(provider, legListener);
+                    outcomes.add(new Outcome(index, result, null, nowMs() - startMs));
+                } catch (AIProviderException e) {
+                    outcomes.add(new Outcome(index, null, e, nowMs() - startMs));
+                } catch (RuntimeException e) {
+                    outcomes.add(new Outcome(index, null,
+                            new AIProviderException("Analysis failed: " + e.getMessage(), e), nowMs() - startMs));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            outcomes.add(new Outcome(index, null,
+                    new AIProviderException("Analysis could not be scheduled", e), 0));
+        }
+    }
+
+    /**
+     * A result is usable if at least identification or the health assessment was parsed.
+     */
+    private static boolean isValid(PlantAnalysisResult result) {
+        return result != null && (result.identification != null || result.healthAssessment != null);
+    }
+
+    private static long nowMs() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    /**
+     * Gets the display name of the provider that won the most recent call, null before any win.
+     */
+    public String getLastWinner() {
+        return lastWinner;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return true;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return names.get(0) + " (hedged)";
+    }
+
+    @Override
+    public boolean supportsVision() {
+        return true;
+    }
+}
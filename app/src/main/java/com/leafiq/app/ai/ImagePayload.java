@@ -0,0 +1,112 @@
+package com.leafiq.app.ai;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Image data handed to an AIProvider, in whichever form the caller already holds it.
+ * <p>
+ * Raw JPEG bytes and files are base64-encoded on the fly while the request body is
+ * written, so the encoded String never has to exist on the heap. A pre-encoded base64
+ * String is still accepted for callers that have one.
+ */
+public final class ImagePayload {
+
+    private final String base64;
+    private final byte[] bytes;
+    private final File file;
+
+    private ImagePayload(String base64, byte[] bytes, File file) {
+        this.base64 = base64;
+        this.bytes = bytes;
+        this.file = file;
+    }
+
+    /**
+     * @param imageBase64 Already base64-encoded JPEG (NO_WRAP)
+     */
+    public static ImagePayload ofBase64(String imageBase64) {
+        if (imageBase64 == null) {
+            throw new IllegalArgumentException("Image data cannot be null");
+        }
+        return new ImagePayload(imageBase64, null, null);
+    }
+
+    /**
+     * @param jpegBytes Raw JPEG bytes
+     */
+    public static ImagePayload ofBytes(byte[] jpegBytes) {
+        if (jpegBytes == null) {
+            throw new IllegalArgumentException("Image data cannot be null");
+        }
+        return new ImagePayload(null, jpegBytes, null);
+    }
+
+    /**
+     * @param jpegFile JPEG file on disk; read each time the body is written
+     */
+    public static ImagePayload ofFile(File jpegFile) {
+        if (jpegFile == null) {
+            throw new IllegalArgumentException("Image file cannot be null");
+        }
+        return new ImagePayload(null, null, jpegFile);
+    }
+
+    /**
+     * Length in bytes of the base64 form (no line wrapping, with padding).
+     */
+    public long base64Length() {
+        if (base64 != null) {
+            return base64.length();
+        }
+        long rawLength = bytes != null ? bytes.length : file.length();
+        return 4 * ((rawLength + 2) / 3);
+    }
+
+    /**
+     * Writes the base64 form to out. Does not close out.
+     */
+    public void writeBase64(OutputStream out) throws IOException {
+        if (base64 != null) {
+            out.write(base64.getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+
+        // Closing the encoder flushes the final quantum and padding; shield the sink from close()
+        try (OutputStream encoder = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+            if (bytes != null) {
+                encoder.write(bytes);
+            } else {
+                try (InputStream in = new FileInputStream(file)) {
+                    byte[] buf = new byte[8192];
+                    int len;
+                    while ((len = in.read(buf)) > 0) {
+                        encoder.write(buf, 0, len);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.leafiq.app.ai;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Builds a PlantAnalysisResult from AI text that arrives in fragments.
+ * <p>
+ * Tracks brace depth as text is appended. Each time a top-level member of the analysis
+ * object finishes (a ',' or the closing '}' at depth 1), the completed prefix is closed
+ * with '}' and decoded, and the partial result is passed to the listener. The UI can show
+ * identification as soon as that section is done instead of waiting for the care plan.
+ * <p>
+ * Leading prose or markdown fences before the first '{' are ignored, matching
+ * {@link StreamingResponseDecoder#decodeAnalysisText}, unless the parser is strict (structured
+ * output), in which case the final decode uses
+ * {@link StreamingResponseDecoder#decodeStructuredText}.
+ */
+public class IncrementalAnalysisParser {
+
+    private final PartialResultListener listener;
+    private final boolean strict;
+    private final StringBuilder text = new StringBuilder(4096);
+
+    private int scanned;
+    private int objectStart = -1;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private boolean complete;
+    private int completedMembers;
+
+    /**
+     * @param listener Receives a partial result each time a top-level section completes (may be null)
+     */
+    public IncrementalAnalysisParser(PartialResultListener listener) {
+        this(listener, false);
+    }
+
+    /**
+     * @param strict true if the text is structured output that must be exactly one JSON object
+     */
+    public IncrementalAnalysisParser(PartialResultListener listener, boolean strict) {
+        this.listener = listener;
+        this.strict = strict;
+    }
+
+    /**
+     * Appends the next fragment of AI text and emits a partial result if it completed a section.
+     */
+    public void append(CharSequence fragment) {
+        if (fragment == null || fragment.length() == 0) {
+            return;
+        }
+        text.append(fragment);
+
+        int sectionEnd = -1;
+        for (; scanned < text.length() && !complete; scanned++) {
+            char c = text.charAt(scanned);
+            if (objectStart < 0) {
+                if (c == '{') {
+                    objectStart = scanned;
+                    depth = 1;
+                }
+                continue;
+            }
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    inString = true;
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    if (depth == 0) {
+                        complete = true;
+                        sectionEnd = scanned;
+                        completedMembers++;
+                    }
+                    break;
+                case ',':
+                    if (depth == 1) {
+                        sectionEnd = scanned;
+                        completedMembers++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (sectionEnd >= 0) {
+            emitPartial(sectionEnd);
+        }
+    }
+
+    /**
+     * @return Number of top-level members completed so far
+     */
+    public int getCompletedSectionCount() {
+        return completedMembers;
+    }
+
+    /**
+     * Decodes the full accumulated text.
+     *
+     * @return Final result with rawResponse set to the extracted analysis JSON
+     * @throws IOException if the text holds no complete analysis JSON object
+     */
+    public PlantAnalysisResult finish() throws IOException {
+        StringReader full = new StringReader(text.toString());
+        return strict
+            ? StreamingResponseDecoder.decodeStructuredText(full)
+            : StreamingResponseDecoder.decodeAnalysisText(full);
+    }
+
+    private void emitPartial(int sectionEnd) {
+        if (listener == null) {
+            return;
+        }
+        // Members [objectStart, sectionEnd) are complete; close the object to make it valid JSON
+        String prefix = text.substring(objectStart, sectionEnd) + "}";
+        try {
+            PlantAnalysisResult partial = StreamingResponseDecoder.decodeAnalysisText(new StringReader(prefix));
+            partial.rawResponse = null;
+            listener.onPartialResult(partial);
+        } catch (IOException e) {
+            // Malformed so far - the final decode will report it; just skip this update
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.leafiq.app.ai;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull-style JSON tokenizer over a {@link Reader}.
+ * <p>
+ * API mirrors android.util.JsonReader (beginObject/nextName/nextString/skipValue...) but is
+ * plain Java, so the same decoding code runs in JVM unit tests. Adds two things the
+ * platform reader lacks:
+ * <ul>
+ *   <li>{@link #openString()} - exposes a string value as a Reader of its unescaped
+ *       contents, so JSON embedded inside a JSON string can be parsed without first
+ *       materialising the outer string.</li>
+ *   <li>{@link #startCapture()}/{@link #stopCapture()} - records the exact source text
+ *       consumed between two points (used to keep rawResponse verbatim).</li>
+ * </ul>
+ * Strict: no comments, unquoted names or trailing commas. Errors surface as IOException.
+ */
+public class JsonTokenReader implements Closeable {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL,
+        END_DOCUMENT
+    }
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[2048];
+    private int pos;
+    private int limit;
+
+    private int[] stack = new int[16];
+    private int stackSize;
+
+    private Token peeked;
+    private char peekedLiteral;
+
+    private StringBuilder capture;
+
+    public JsonTokenReader(Reader in) {
+        this.in = in;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    // ==================== Structure ====================
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    /**
+     * @return true if the current object or array has another element
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+
+        int scope = stack[stackSize - 1];
+        int c;
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace(true);
+                if (c == ']') return peeked = Token.END_ARRAY;
+                unread();
+                return peeked = readValueToken();
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace(true);
+                if (c == ']') return peeked = Token.END_ARRAY;
+                if (c != ',') throw syntaxError("Expected ',' or ']'");
+                return peeked = readValueToken();
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                stack[stackSize - 1] = DANGLING_NAME;
+                c = nextNonWhitespace(true);
+                if (c == '}') return peeked = Token.END_OBJECT;
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') throw syntaxError("Expected ',' or '}'");
+                    c = nextNonWhitespace(true);
+                }
+                if (c != '"') throw syntaxError("Expected name");
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                c = nextNonWhitespace(true);
+                if (c != ':') throw syntaxError("Expected ':'");
+                return peeked = readValueToken();
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return peeked = readValueToken();
+            default:
+                c = nextNonWhitespace(false);
+                if (c == -1) return peeked = Token.END_DOCUMENT;
+                unread();
+                throw syntaxError("Expected end of document");
+        }
+    }
+
+    // ==================== Values ====================
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return readQuoted();
+    }
+
+    /**
+     * Returns a string value. Numbers and booleans are returned as their literal text.
+     */
+    public String nextString() throws IOException {
+        Token token = peek();
+        switch (token) {
+            case STRING:
+                peeked = null;
+                return readQuoted();
+            case NUMBER:
+                peeked = null;
+                return readNumberLiteral();
+            case BOOLEAN:
+                return String.valueOf(nextBoolean());
+            default:
+                throw syntaxError("Expected string but was " + token);
+        }
+    }
+
+    /**
+     * Returns a numeric value as int, truncating decimals. Numeric strings are accepted.
+     */
+    public int nextInt() throws IOException {
+        String literal = nextString();
+        try {
+            return (int) Double.parseDouble(literal.trim());
+        } catch (NumberFormatException e) {
+            throw syntaxError("Expected number but was \"" + literal + "\"");
+        }
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        if (peekedLiteral == 't') {
+            consumeLiteral("rue");
+            return true;
+        }
+        consumeLiteral("alse");
+        return false;
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        consumeLiteral("ull");
+    }
+
+    /**
+     * Skips the next value, including nested objects and arrays.
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case STRING:
+                case NUMBER:
+                case BOOLEAN:
+                    nextString();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of document");
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Opens the next string value as a Reader over its unescaped contents.
+     * The string is decoded lazily as the returned Reader is read. This reader must not be
+     * used again until the returned Reader has been read to its end or closed.
+     */
+    public Reader openString() throws IOException {
+        expect(Token.STRING);
+        return new StringValueReader();
+    }
+
+    // ==================== Embedded JSON support ====================
+
+    /**
+     * Skips any leading text (prose, markdown fences) up to the first '{'.
+     * Only valid before the first token has been read.
+     *
+     * @return true if a '{' was found
+     */
+    public boolean skipToObjectStart() throws IOException {
+        if (peeked != null || stack[stackSize - 1] != EMPTY_DOCUMENT) {
+            throw new IllegalStateException("skipToObjectStart must be called before reading");
+        }
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '{') {
+                unread();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts recording every character consumed from the source from this point on.
+     */
+    public void startCapture() {
+        capture = new StringBuilder(4096);
+    }
+
+    /**
+     * Stops recording and returns the captured text.
+     */
+    public String stopCapture() {
+        String captured = capture != null ? capture.toString() : "";
+        capture = null;
+        return captured;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ==================== Internals ====================
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] grown = new int[stack.length * 2];
+            System.arraycopy(stack, 0, grown, 0, stackSize);
+            stack = grown;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private Token readValueToken() throws IOException {
+        int c = nextNonWhitespace(true);
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                peekedLiteral = (char) c;
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    unread();
+                    return Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private String readQuoted() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = readStringChar()) != -1) {
+            sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads one unescaped character of the current string value, or -1 at the closing quote.
+     */
+    private int readStringChar() throws IOException {
+        int c = read();
+        if (c == -1) throw syntaxError("Unterminated string");
+        if (c == '"') return -1;
+        if (c != '\\') return c;
+
+        int escaped = read();
+        switch (escaped) {
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'r': return '\r';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case '"':
+            case '\\':
+            case '/':
+                return escaped;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = read();
+                    int digit = Character.digit(h, 16);
+                    if (h == -1 || digit < 0) throw syntaxError("Invalid unicode escape");
+                    value = (value << 4) | digit;
+                }
+                return value;
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    private String readNumberLiteral() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = read()) != -1) {
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                sb.append((char) c);
+            } else {
+                unread();
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private void consumeLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) throw syntaxError("Invalid literal");
+        }
+    }
+
+    private int nextNonWhitespace(boolean required) throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+        if (required) throw syntaxError("Unexpected end of input");
+        return -1;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[pos++];
+        if (capture != null) capture.append(c);
+        return c;
+    }
+
+    /**
+     * Pushes back the character just returned by read(). Always valid immediately after a
+     * successful read, since that character is still in the buffer.
+     */
+    private void unread() {
+        pos--;
+        if (capture != null) capture.setLength(capture.length() - 1);
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+
+    /**
+     * Reader over the remaining contents of the string value being read.
+     */
+    private class StringValueReader extends Reader {
+        private boolean done;
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (done) return -1;
+            int n = 0;
+            while (n < len) {
+                int c = readStringChar();
+                if (c == -1) {
+                    done = true;
+                    break;
+                }
+                cbuf[off + n++] = (char) c;
+            }
+            return n == 0 && done ? -1 : n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Drain so the enclosing reader is positioned after the closing quote
+            while (!done) {
+                if (readStringChar() == -1) done = true;
+            }
+        }
+    }
+}
@@ -8,6 +8,13 @@ import android.net.NetworkCapabilities;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import okhttp3.Response;
 
 /**
  * Utility class for network connectivity checks and exception classification.
@@ -15,6 +22,8 @@ import java.net.UnknownHostException;
  * Provides:
  * - Pre-check for internet connectivity before making network requests
  * - Classification of network exceptions into user-friendly error messages
+ * - Conversion of non-2xx responses into AIProviderException (with Retry-After) and
+ *   classification of which failures are worth retrying
  */
 public class NetworkUtils {
 
@@ -57,6 +66,7 @@ public class NetworkUtils {
      * Classifies an exception into a user-friendly error message.
      * <p>
      * Classification order (specific before general):
+     * 0. CircuitBreakerOpenException -> "The AI service is having problems"
      * 1. SocketTimeoutException -> "Analysis timed out"
      * 2. UnknownHostException/ConnectException -> "No internet connection"
      * 3. HTTP 401/403 -> "Invalid API key" with Settings hint
@@ -71,6 +81,10 @@ public class NetworkUtils {
      */
     public static String classifyException(Exception e, int httpStatusCode) {
         // Check exception type first (most specific)
+        if (e instanceof CircuitBreakerOpenException) {
+            return "The AI service is having problems. Please try again in a minute.";
+        }
+
         if (e instanceof SocketTimeoutException) {
             return "Analysis timed out. Please try again.";
         }
@@ -99,4 +113,76 @@ public class NetworkUtils {
         // Default fallback
         return "Analysis failed: " + e.getMessage();
     }
+
+    /**
+     * Builds the exception for a non-2xx provider response, carrying the status code and
+     * any Retry-After delay so the retry layer can honour it.
+     *
+     * @param response Unsuccessful response (body is not read)
+     * @return Exception to throw
+     */
+    public static AIProviderException httpError(Response response) {
+        return new AIProviderException(
+            "API error: " + response.code() + " " + response.message(), null, response.code(),
+            parseRetryAfterMs(response.header("Retry-After"), System.currentTimeMillis()));
+    }
+
+    /**
+     * Parses a Retry-After header value. Both forms from RFC 9110 are accepted:
+     * delay-seconds ("120") and an HTTP-date ("Wed, 21 Oct 2015 07:28:00 GMT").
+     *
+     * @param header Header value (may be null)
+     * @param nowMs Current wall-clock time, used to turn an HTTP-date into a delay
+     * @return Delay in milliseconds (0 if the date is in the past), or -1 if absent or unparseable
+     */
+    public static long parseRetryAfterMs(String header, long nowMs) {
+        if (header == null || header.trim().isEmpty()) {
+            return -1;
+        }
+        String value = header.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds >= 0 ? seconds * 1000 : -1;
+        } catch (NumberFormatException ignored) {
+            // Not delay-seconds; try HTTP-date
+        }
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            Date date = format.parse(value);
+            return date != null ? Math.max(0, date.getTime() - nowMs) : -1;
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Checks whether a failed analysis call is safe and worthwhile to repeat.
+     * <p>
+     * An analysis request has no server-side effects, so repeating it is idempotent; only
+     * transient failures are retried: 408, 429, 500, 502, 503, 504 and refused connections.
+     * Auth and other 4xx errors, parse failures and timeouts (the call already used its
+     * full 90 s budget) are not.
+     *
+     * @param e Failure from an AIProvider call
+     * @return true if the call may be retried
+     */
+    public static boolean isRetryable(AIProviderException e) {
+        if (e instanceof CircuitBreakerOpenException) {
+            return false;
+        }
+        switch (e.getHttpStatusCode()) {
+            case 408:
+            case 429:
+            case 500:
+            case 502:
+            case 503:
+            case 504:
+                return true;
+            case 0:
+                return e.getCause() instanceof ConnectException;
+            default:
+                return false;
+        }
+    }
 }
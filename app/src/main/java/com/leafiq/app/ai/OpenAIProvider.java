@@ -1,7 +1,6 @@
 package com.leafiq.app.ai;
 
 import com.leafiq.app.data.model.PlantAnalysisResult;
-import com.leafiq.app.util.JsonParser;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -9,7 +8,6 @@ import org.json.JSONObject;
 
 import java.io.IOException;
 
-import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
@@ -21,98 +19,188 @@ public class OpenAIProvider implements AIProvider {
     private final String apiKey;
     private final String apiUrl;
     private final OkHttpClient client;
+    private final boolean structuredOutput;
 
     public OpenAIProvider(String apiKey, OkHttpClient client) {
-        this.apiKey = apiKey;
-        this.apiUrl = DEFAULT_API_URL;
-        this.client = client;
+        this(apiKey, DEFAULT_API_URL, client, false);
+    }
+
+    /**
+     * @param structuredOutput Send the analysis schema natively for prompts that expect it
+     */
+    public OpenAIProvider(String apiKey, OkHttpClient client, boolean structuredOutput) {
+        this(apiKey, DEFAULT_API_URL, client, structuredOutput);
     }
 
-    // Package-private constructor for testing with MockWebServer
+    // Package-private constructors for testing with MockWebServer
     OpenAIProvider(String apiKey, String apiUrl, OkHttpClient client) {
+        this(apiKey, apiUrl, client, false);
+    }
+
+    OpenAIProvider(String apiKey, String apiUrl, OkHttpClient client, boolean structuredOutput) {
         this.apiKey = apiKey;
         this.apiUrl = apiUrl;
         this.client = client;
+        this.structuredOutput = structuredOutput;
     }
 
     @Override
-    public PlantAnalysisResult analyzePhoto(String imageBase64, String prompt)
+    public PlantAnalysisResult analyzePhoto(ImagePayload image, AnalysisPrompt prompt)
             throws AIProviderException {
-        try {
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("model", MODEL);
-            requestBody.put("max_tokens", 2048);
+        boolean structured = usesSchema(prompt);
+        boolean decoding = false;
+        try (Response response = client.newCall(buildRequest(image, prompt, false, structured)).execute()) {
+            if (!response.isSuccessful()) {
+                throw NetworkUtils.httpError(response);
+            }
+            decoding = true;
+
+            // Decode straight off the socket: walks the envelope to the AI text and
+            // parses the embedded analysis JSON without buffering the body as a String
+            PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                response.body().source(), StreamingResponseDecoder.OPENAI_TEXT_PATH,
+                structured, StreamingResponseDecoder.USAGE_FIELD,
+                usage -> TokenUsageStats.record(getDisplayName(), TokenUsage.fromOpenAI(usage)));
+            return tag(result, structured);
+        } catch (JSONException | IOException e) {
+            if (decoding) {
+                ParseOutcomeStats.record(getDisplayName(), structured, false);
+            }
+            throw new AIProviderException("Analysis failed: " + e.getMessage(), e, 0);
+        }
+    }
+
+    @Override
+    public PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                     PartialResultListener listener)
+            throws AIProviderException {
+        boolean structured = usesSchema(prompt);
+        boolean decoding = false;
+        try (Response response = client.newCall(buildRequest(image, prompt, true, structured)).execute()) {
+            if (!response.isSuccessful()) {
+                throw NetworkUtils.httpError(response);
+            }
+            decoding = true;
+
+            // Text arrives in choices[0].delta.content chunks, terminated by "data: [DONE]";
+            // the chunk before [DONE] has empty choices and carries the usage
+            TokenUsage[] usage = new TokenUsage[1];
+            PlantAnalysisResult result = ServerSentEventReader.readAnalysis(response.body().source(), event -> {
+                JSONObject error = event.optJSONObject("error");
+                if (error != null) {
+                    throw new AIProviderException("API error: " + error.optString("message"));
+                }
+                JSONObject chunkUsage = event.optJSONObject("usage");
+                if (chunkUsage != null) {
+                    usage[0] = TokenUsage.fromOpenAI(chunkUsage);
+                }
+                JSONArray choices = event.optJSONArray("choices");
+                if (choices == null || choices.length() == 0) {
+                    return null;
+                }
+                JSONObject delta = choices.getJSONObject(0).optJSONObject("delta");
+                if (delta == null || !delta.has("content") || delta.isNull("content")) {
+                    return null;
+                }
+                return delta.getString("content");
+            }, listener, structured);
+            TokenUsageStats.record(getDisplayName(), usage[0]);
+            return tag(result, structured);
+        } catch (JSONException | IOException e) {
+            if (decoding) {
+                ParseOutcomeStats.record(getDisplayName(), structured, false);
+            }
+            throw new AIProviderException("Analysis failed: " + e.getMessage(), e, 0);
+        }
+    }
 
-            JSONArray messages = new JSONArray();
-            JSONObject userMessage = new JSONObject();
-            userMessage.put("role", "user");
+    private Request buildRequest(ImagePayload image, AnalysisPrompt prompt, boolean stream,
+                                 boolean structured)
+            throws JSONException {
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("model", MODEL);
+        requestBody.put("max_tokens", 2048);
+        if (stream) {
+            requestBody.put("stream", true);
+            JSONObject streamOptions = new JSONObject();
+            streamOptions.put("include_usage", true);
+            requestBody.put("stream_options", streamOptions);
+        }
 
-            JSONArray content = new JSONArray();
+        JSONArray messages = new JSONArray();
 
-            // Text block first for OpenAI
+        // OpenAI caches identical prompt prefixes automatically, so the static instructions
+        // lead as a system message (hits are reported as prompt_tokens_details.cached_tokens)
+        if (prompt.hasStaticPrefix()) {
+            JSONObject systemMessage = new JSONObject();
+            systemMessage.put("role", "system");
+            systemMessage.put("content", prompt.getStaticPrefix());
+            messages.put(systemMessage);
+        }
+
+        JSONObject userMessage = new JSONObject();
+        userMessage.put("role", "user");
+
+        JSONArray content = new JSONArray();
+
+        // Text block first for OpenAI (request-specific context only)
+        if (!prompt.getDynamicSuffix().isEmpty()) {
             JSONObject textBlock = new JSONObject();
             textBlock.put("type", "text");
-            textBlock.put("text", prompt);
+            textBlock.put("text", prompt.getDynamicSuffix());
             content.put(textBlock);
+        }
 
-            // Image block
-            JSONObject imageBlock = new JSONObject();
-            imageBlock.put("type", "image_url");
-            JSONObject imageUrl = new JSONObject();
-            imageUrl.put("url", "data:image/jpeg;base64," + imageBase64);
-            imageBlock.put("image_url", imageUrl);
-            content.put(imageBlock);
-
-            userMessage.put("content", content);
-            messages.put(userMessage);
-            requestBody.put("messages", messages);
-
-            RequestBody body = RequestBody.create(
-                requestBody.toString(),
-                MediaType.parse("application/json")
-            );
-
-            Request request = new Request.Builder()
-                .url(apiUrl)
-                .addHeader("Authorization", "Bearer " + apiKey)
-                .addHeader("Content-Type", "application/json")
-                .post(body)
-                .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    throw new AIProviderException(
-                        "API error: " + response.code() + " " + response.message(), null, response.code());
-                }
+        // Image block
+        JSONObject imageBlock = new JSONObject();
+        imageBlock.put("type", "image_url");
+        JSONObject imageUrl = new JSONObject();
+        imageUrl.put("url", StreamingImageRequestBody.IMAGE_PLACEHOLDER);
+        imageBlock.put("image_url", imageUrl);
+        content.put(imageBlock);
+
+        userMessage.put("content", content);
+        messages.put(userMessage);
+        requestBody.put("messages", messages);
+
+        // Structured mode: strict json_schema response format, so content is exactly one
+        // analysis object (a refusal leaves content null and fails the decode)
+        if (structured) {
+            JSONObject jsonSchema = new JSONObject();
+            jsonSchema.put("name", AnalysisSchema.NAME);
+            jsonSchema.put("strict", true);
+            jsonSchema.put("schema", AnalysisSchema.jsonSchema());
+            JSONObject responseFormat = new JSONObject();
+            responseFormat.put("type", "json_schema");
+            responseFormat.put("json_schema", jsonSchema);
+            requestBody.put("response_format", responseFormat);
+        }
 
-                String responseBody = response.body().string();
-                JSONObject json = new JSONObject(responseBody);
-                JSONArray choices = json.getJSONArray("choices");
-                String aiText = choices.getJSONObject(0)
-                    .getJSONObject("message")
-                    .getString("content");
-
-                // Defensive: strip markdown backticks if AI wrapped the JSON
-                aiText = aiText.trim();
-                if (aiText.startsWith("```")) {
-                    aiText = aiText.replaceAll("^```json?\\s*", "")
-                                   .replaceAll("\\s*```$", "");
-                }
+        // Envelope is small; image bytes are base64-encoded straight into the sink
+        RequestBody body = new StreamingImageRequestBody(
+            requestBody.toString(), "data:image/jpeg;base64,", image);
 
-                // Find first { and last } to handle any extra text
-                int start = aiText.indexOf('{');
-                int end = aiText.lastIndexOf('}');
-                if (start >= 0 && end > start) {
-                    aiText = aiText.substring(start, end + 1);
-                }
+        return new Request.Builder()
+            .url(apiUrl)
+            .addHeader("Authorization", "Bearer " + apiKey)
+            .addHeader("Content-Type", "application/json")
+            .post(body)
+            .build();
+    }
 
-                PlantAnalysisResult result = JsonParser.parsePlantAnalysis(aiText);
-                result.rawResponse = aiText;
-                return result;
-            }
-        } catch (JSONException | IOException e) {
-            throw new AIProviderException("Analysis failed: " + e.getMessage(), e, 0);
-        }
+    private boolean usesSchema(AnalysisPrompt prompt) {
+        return structuredOutput && prompt.expectsAnalysisSchema();
+    }
+
+    /**
+     * Records which provider and output mode produced the result (stored with the analysis
+     * so parse_status can be broken down per provider) and counts the response as decoded.
+     */
+    private PlantAnalysisResult tag(PlantAnalysisResult result, boolean structured) {
+        result.provider = getDisplayName();
+        result.structuredOutput = structured;
+        ParseOutcomeStats.record(getDisplayName(), structured, true);
+        return result;
     }
 
     @Override
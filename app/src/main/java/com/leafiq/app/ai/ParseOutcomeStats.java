@@ -0,0 +1,88 @@
+package com.leafiq.app.ai;
+
+import android.util.Log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running per-provider, per-output-mode counts of responses that decoded and that didn't.
+ * <p>
+ * Providers record every successful HTTP response when its body has been decoded into an
+ * analysis or failed to decode, so the failure rate covers every response, not only the
+ * analyses the user went on to save. Each record is logged (tag "ParseOutcome") together with
+ * the running totals. Like {@link TokenUsageStats}, counts live in a process-wide registry
+ * because providers are created per analysis.
+ */
+public final class ParseOutcomeStats {
+
+    private static final String TAG = "ParseOutcome";
+
+    private static final Map<String, Counts> COUNTS = new ConcurrentHashMap<>();
+
+    /**
+     * Decode outcomes for one provider and output mode.
+     */
+    public static final class Counts {
+        private long decoded;
+        private long failed;
+
+        public synchronized long getDecoded() {
+            return decoded;
+        }
+
+        public synchronized long getFailed() {
+            return failed;
+        }
+
+        private synchronized void add(boolean success) {
+            if (success) {
+                decoded++;
+            } else {
+                failed++;
+            }
+        }
+
+        private synchronized double getFailedFraction() {
+            long total = decoded + failed;
+            return total > 0 ? (double) failed / total : 0;
+        }
+    }
+
+    private ParseOutcomeStats() {
+        throw new AssertionError("Utility class - do not instantiate");
+    }
+
+    /**
+     * Records the outcome of decoding one response body.
+     *
+     * @param providerName Provider display name (e.g. "Claude (Anthropic)")
+     * @param structured Whether the response was requested in structured output mode
+     * @param success Whether the body decoded into an analysis
+     */
+    public static void record(String providerName, boolean structured, boolean success) {
+        String key = key(providerName, structured);
+        Counts counts = COUNTS.computeIfAbsent(key, k -> new Counts());
+        counts.add(success);
+        Log.i(TAG, String.format("parse_outcome: %s success=%b | total decoded=%d failed=%d "
+                        + "failedPct=%.1f",
+                key, success, counts.getDecoded(), counts.getFailed(),
+                counts.getFailedFraction() * 100));
+    }
+
+    /**
+     * @return Counts for the provider and mode, or null if it has not recorded any response
+     */
+    public static Counts getCounts(String providerName, boolean structured) {
+        return COUNTS.get(key(providerName, structured));
+    }
+
+    private static String key(String providerName, boolean structured) {
+        return "provider=" + providerName + " mode=" + (structured ? "structured" : "prompt");
+    }
+
+    // Visible for testing
+    static void resetAll() {
+        COUNTS.clear();
+    }
+}
@@ -0,0 +1,15 @@
+package com.leafiq.app.ai;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+/**
+ * Receives incremental results while a streaming analysis is in progress.
+ * <p>
+ * Each update is a fresh PlantAnalysisResult holding every top-level section
+ * (identification, healthAssessment, immediateActions, carePlan, funFact) completed so far,
+ * in the order the model wrote them. rawResponse is null on partial results.
+ * Called on the thread reading the response, never after the final result is returned.
+ */
+public interface PartialResultListener {
+    void onPartialResult(PlantAnalysisResult partial);
+}
@@ -9,15 +9,25 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
+/**
+ * Builds analysis prompts as {@link AnalysisPrompt}s.
+ * <p>
+ * Everything that does not depend on the plant - role, response format and the JSON
+ * template - goes into the static prefix, which is shared by the analysis and correction
+ * prompts so one cached prefix serves both. Plant name, location, history and user
+ * corrections go into the dynamic suffix.
+ */
 public class PromptBuilder {
 
-    public static String buildAnalysisPrompt(
+    private static final String ANALYSIS_PREFIX = buildAnalysisPrefix();
+    private static final String QUICK_DIAGNOSIS_PREFIX = buildQuickDiagnosisPrefix();
+
+    public static AnalysisPrompt buildAnalysisPrompt(
             @Nullable String knownPlantName,
             @Nullable List<Analysis> previousAnalyses,
             @Nullable String location) {
 
         StringBuilder sb = new StringBuilder();
-        sb.append("You are an expert botanist and plant care specialist. ");
         sb.append("Analyze this plant photo and provide a detailed assessment.\n\n");
 
         if (knownPlantName != null) {
@@ -43,25 +53,15 @@ public class PromptBuilder {
             sb.append("and note any improvements or deterioration.\n");
         }
 
-        sb.append("\nRespond ONLY with valid JSON in this exact format ");
-        sb.append("(no markdown, no backticks, no explanatory text before or after):\n");
-        sb.append(getJsonTemplate());
-
-        sb.append("\n\nBe specific and actionable. ");
-        sb.append("If you can see the pot, soil, or surroundings, ");
-        sb.append("factor those into your assessment. ");
-        sb.append("If you're unsure about something, say so rather than guessing.");
-
-        return sb.toString();
+        return new AnalysisPrompt(ANALYSIS_PREFIX, sb.toString(), true);
     }
 
-    public static String buildCorrectionPrompt(
+    public static AnalysisPrompt buildCorrectionPrompt(
             @Nullable String correctedName,
             @Nullable String additionalContext,
             @Nullable List<Analysis> previousAnalyses,
             @Nullable String location) {
         StringBuilder sb = new StringBuilder();
-        sb.append("You are an expert botanist and plant care specialist. ");
         sb.append("The user has provided corrections to a previous analysis. ");
         sb.append("Please re-analyze based on the updated information.\n\n");
 
@@ -89,14 +89,30 @@ public class PromptBuilder {
             }
         }
 
-        sb.append("\nRespond ONLY with valid JSON in this exact format ");
-        sb.append("(no markdown, no backticks, no explanatory text before or after):\n");
-        sb.append(getJsonTemplate());
-        sb.append("\n\nBe specific and actionable.");
-        return sb.toString();
+        return new AnalysisPrompt(ANALYSIS_PREFIX, sb.toString(), true);
+    }
+
+    /**
+     * Quick diagnosis has no per-plant context, so the whole prompt is the static prefix.
+     * Its answer is a subset of the analysis schema, so it is not sent as structured output.
+     */
+    public static AnalysisPrompt buildQuickDiagnosisPrompt() {
+        return new AnalysisPrompt(QUICK_DIAGNOSIS_PREFIX, "");
+    }
+
+    private static String buildAnalysisPrefix() {
+        return "You are an expert botanist and plant care specialist. "
+            + "You analyze plant photos and provide detailed assessments.\n\n"
+            + "Respond ONLY with valid JSON in this exact format "
+            + "(no markdown, no backticks, no explanatory text before or after):\n"
+            + getJsonTemplate()
+            + "\n\nBe specific and actionable. "
+            + "If you can see the pot, soil, or surroundings, "
+            + "factor those into your assessment. "
+            + "If you're unsure about something, say so rather than guessing.";
     }
 
-    public static String buildQuickDiagnosisPrompt() {
+    private static String buildQuickDiagnosisPrefix() {
       return "You are an expert botanist. " +
           "Quickly assess this plant's health from the photo. " +
           "DO NOT identify the plant species — focus ONLY on health assessment.\n\n" +
@@ -0,0 +1,127 @@
+package com.leafiq.app.ai;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persisted per-provider latency samples that drive the hedge delay of {@link HedgedAIProvider}.
+ * <p>
+ * Keeps the last MAX_SAMPLES successful analysis latencies per provider (keyed by display
+ * name) and stores them as a comma-separated list, so the delay adapts across launches.
+ * The hedge delay is the p95 latency clamped to [MIN_HEDGE_DELAY_MS, MAX_HEDGE_DELAY_MS];
+ * with fewer than MIN_SAMPLES samples DEFAULT_HEDGE_DELAY_MS is used.
+ */
+public class ProviderLatencyStats {
+
+    private static final String PREFS_NAME = "provider_latency_stats";
+    private static final String KEY_PREFIX = "latency:";
+
+    static final int MAX_SAMPLES = 50;
+    static final int MIN_SAMPLES = 5;
+    static final long DEFAULT_HEDGE_DELAY_MS = 20_000;
+    static final long MIN_HEDGE_DELAY_MS = 3_000;
+    static final long MAX_HEDGE_DELAY_MS = 45_000;
+
+    private final SharedPreferences prefs;
+    private final Map<String, ArrayDeque<Long>> samples = new HashMap<>();
+
+    /**
+     * Constructor for production use.
+     * @param context Application context
+     */
+    public ProviderLatencyStats(Context context) {
+        this(context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    /**
+     * Package-private constructor for testing.
+     * Allows tests to inject in-memory SharedPreferences.
+     * @param prefs SharedPreferences instance
+     */
+    ProviderLatencyStats(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    /**
+     * Records the latency of a successful analysis and persists the updated window.
+     *
+     * @param providerName Provider display name
+     * @param latencyMs Time from request start to parsed result
+     */
+    public synchronized void recordSuccess(String providerName, long latencyMs) {
+        ArrayDeque<Long> window = load(providerName);
+        window.addLast(latencyMs);
+        while (window.size() > MAX_SAMPLES) {
+            window.removeFirst();
+        }
+        StringBuilder encoded = new StringBuilder();
+        for (Long sample : window) {
+            if (encoded.length() > 0) {
+                encoded.append(',');
+            }
+            encoded.append(sample);
+        }
+        prefs.edit().putString(KEY_PREFIX + providerName, encoded.toString()).apply();
+    }
+
+    /**
+     * @return Number of latency samples held for the provider
+     */
+    public synchronized int getSampleCount(String providerName) {
+        return load(providerName).size();
+    }
+
+    /**
+     * Gets a latency percentile (nearest-rank) for the provider.
+     *
+     * @param percentile Percentile in (0, 100]
+     * @return Latency in ms, or -1 if there are no samples
+     */
+    public synchronized long getPercentileMs(String providerName, double percentile) {
+        List<Long> sorted = new ArrayList<>(load(providerName));
+        if (sorted.isEmpty()) {
+            return -1;
+        }
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+
+    /**
+     * Gets how long to wait on the provider before starting a hedge request.
+     */
+    public synchronized long getHedgeDelayMs(String providerName) {
+        if (load(providerName).size() < MIN_SAMPLES) {
+            return DEFAULT_HEDGE_DELAY_MS;
+        }
+        long p95 = getPercentileMs(providerName, 95);
+        return Math.max(MIN_HEDGE_DELAY_MS, Math.min(MAX_HEDGE_DELAY_MS, p95));
+    }
+
+    private ArrayDeque<Long> load(String providerName) {
+        ArrayDeque<Long> window = samples.get(providerName);
+        if (window != null) {
+            return window;
+        }
+        window = new ArrayDeque<>();
+        String stored = prefs.getString(KEY_PREFIX + providerName, null);
+        if (stored != null && !stored.isEmpty()) {
+            for (String part : stored.split(",")) {
+                try {
+                    window.addLast(Long.parseLong(part.trim()));
+                } catch (NumberFormatException ignored) {
+                    // Skip a corrupt sample rather than losing the whole window
+                }
+            }
+        }
+        samples.put(providerName, window);
+        return window;
+    }
+}
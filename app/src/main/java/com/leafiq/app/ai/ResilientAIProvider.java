@@ -0,0 +1,187 @@
+package com.leafiq.app.ai;
+
+import android.util.Log;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import java.util.Random;
+
+/**
+ * AIProvider decorator that retries transient failures and fails fast while the provider is down.
+ * <p>
+ * Retries: failures accepted by {@link NetworkUtils#isRetryable} are retried up to
+ * maxAttempts in total. The wait before attempt n is the server's Retry-After if it sent one,
+ * otherwise exponential backoff with jitter: half of min(MAX_BACKOFF_MS, BASE_BACKOFF_MS * 2^(n-2))
+ * plus a random amount up to the other half. A Retry-After longer than MAX_RETRY_AFTER_MS is
+ * not waited out; the error goes straight to the user.
+ * <p>
+ * A streaming call is only retried if no partial result has been delivered yet, so the
+ * screen never shows sections from two different responses. Nothing is retried once the
+ * {@link CallCanceller} bound to the calling thread has been cancelled.
+ * <p>
+ * Circuit breaker: every attempt goes through the provider's shared {@link CircuitBreaker}.
+ * While it is open, calls throw {@link CircuitBreakerOpenException} without a request.
+ */
+public class ResilientAIProvider implements AIProvider {
+
+    private static final String TAG = "ResilientAIProvider";
+
+    static final int DEFAULT_MAX_ATTEMPTS = 3;
+    static final long BASE_BACKOFF_MS = 1000;
+    static final long MAX_BACKOFF_MS = 8000;
+    static final long MAX_RETRY_AFTER_MS = 20_000;
+
+    /**
+     * Observes retries, e.g. to show "retrying (attempt 2 of 3)" in the UI.
+     * Called on the calling (network) thread before the backoff wait.
+     */
+    public interface RetryListener {
+        void onRetry(int nextAttempt, int maxAttempts, long delayMs, CircuitBreaker.State breakerState);
+    }
+
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private interface Attempt {
+        PlantAnalysisResult run() throws AIProviderException;
+    }
+
+    private final AIProvider delegate;
+    private final CircuitBreaker breaker;
+    private final RetryListener retryListener;
+    private final int maxAttempts;
+    private final Random random;
+    private final Sleeper sleeper;
+
+    private volatile int lastAttemptCount;
+
+    /**
+     * Wraps a provider with the default retry policy and its shared circuit breaker.
+     *
+     * @param delegate Provider to call (from AIProviderFactory)
+     * @param retryListener Notified before each retry (may be null)
+     */
+    public ResilientAIProvider(AIProvider delegate, RetryListener retryListener) {
+        this(delegate, CircuitBreaker.forProvider(delegate.getDisplayName()), retryListener,
+            DEFAULT_MAX_ATTEMPTS, new Random(), Thread::sleep);
+    }
+
+    // Package-private constructor for testing with a private breaker and no real sleeps
+    ResilientAIProvider(AIProvider delegate, CircuitBreaker breaker, RetryListener retryListener,
+                        int maxAttempts, Random random, Sleeper sleeper) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.retryListener = retryListener;
+        this.maxAttempts = maxAttempts;
+        this.random = random;
+        this.sleeper = sleeper;
+    }
+
+    @Override
+    public PlantAnalysisResult analyzePhoto(ImagePayload image, AnalysisPrompt prompt)
+            throws AIProviderException {
+        return callWithRetry(() -> delegate.analyzePhoto(image, prompt), null);
+    }
+
+    @Override
+    public PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                     PartialResultListener listener)
+            throws AIProviderException {
+        boolean[] streamed = new boolean[1];
+        PartialResultListener tracking = partial -> {
+            streamed[0] = true;
+            if (listener != null) {
+                listener.onPartialResult(partial);
+            }
+        };
+        return callWithRetry(() -> delegate.analyzePhotoStreaming(image, prompt, tracking), streamed);
+    }
+
+    private PlantAnalysisResult callWithRetry(Attempt attempt, boolean[] streamed)
+            throws AIProviderException {
+        for (int n = 1; ; n++) {
+            lastAttemptCount = n;
+            if (!breaker.tryAcquire()) {
+                throw new CircuitBreakerOpenException(delegate.getDisplayName(), breaker.getRemainingOpenMs());
+            }
+
+            AIProviderException failure;
+            try {
+                PlantAnalysisResult result = attempt.run();
+                breaker.recordSuccess();
+                return result;
+            } catch (AIProviderException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                breaker.recordFailure();
+                throw e;
+            }
+
+            if (!NetworkUtils.isRetryable(failure)) {
+                // The provider answered; a bad key or unparseable body says nothing about availability
+                breaker.recordSuccess();
+                throw failure;
+            }
+            breaker.recordFailure();
+
+            long delayMs = failure.getRetryAfterMs() >= 0 ? failure.getRetryAfterMs() : backoffMs(n + 1);
+            boolean partialDelivered = streamed != null && streamed[0];
+            CallCanceller canceller = CallCanceller.current();
+            boolean cancelled = canceller != null && canceller.isCancelled();
+            if (n >= maxAttempts || partialDelivered || cancelled || delayMs > MAX_RETRY_AFTER_MS
+                    || breaker.getState() == CircuitBreaker.State.OPEN) {
+                Log.w(TAG, String.format("giving up: provider=%s attempts=%d status=%d breaker=%s",
+                    delegate.getDisplayName(), n, failure.getHttpStatusCode(), breaker.getState()));
+                throw failure;
+            }
+
+            Log.i(TAG, String.format("retry: provider=%s nextAttempt=%d/%d status=%d delayMs=%d",
+                delegate.getDisplayName(), n + 1, maxAttempts, failure.getHttpStatusCode(), delayMs));
+            if (retryListener != null) {
+                retryListener.onRetry(n + 1, maxAttempts, delayMs, breaker.getState());
+            }
+            try {
+                sleeper.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Jittered exponential backoff before the given attempt (2 = first retry).
+     */
+    long backoffMs(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 2, 20));
+        long half = ceiling / 2;
+        return half + (long) (random.nextDouble() * (ceiling - half));
+    }
+
+    /**
+     * Gets how many attempts the most recent call made (1 if it succeeded or failed first time).
+     */
+    public int getLastAttemptCount() {
+        return lastAttemptCount;
+    }
+
+    public CircuitBreaker.State getBreakerState() {
+        return breaker.getState();
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+
+    @Override
+    public String getDisplayName() {
+        return delegate.getDisplayName();
+    }
+
+    @Override
+    public boolean supportsVision() {
+        return delegate.supportsVision();
+    }
+}
@@ -0,0 +1,115 @@
+package com.leafiq.app.ai;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+import okio.BufferedSource;
+
+/**
+ * Minimal text/event-stream reader for streaming provider responses.
+ * <p>
+ * Reads events line by line as they arrive on the socket (multi-line data fields are
+ * joined with '\n'; comments, event names and ids are ignored) and hands each event's
+ * JSON to a provider-specific {@link TextDeltaExtractor}. Text deltas feed an
+ * {@link IncrementalAnalysisParser}, which emits partial results as sections complete.
+ */
+public class ServerSentEventReader {
+
+    /** OpenAI terminates its stream with this data payload instead of JSON. */
+    static final String DONE_SENTINEL = "[DONE]";
+
+    /**
+     * Pulls the AI text fragment out of one provider event.
+     */
+    public interface TextDeltaExtractor {
+        /**
+         * @param event Parsed data payload of one SSE event
+         * @return Text fragment carried by the event, or null if it carries none
+         * @throws AIProviderException if the event reports an API error
+         */
+        String textDelta(JSONObject event) throws JSONException, AIProviderException;
+    }
+
+    private final BufferedSource source;
+
+    public ServerSentEventReader(BufferedSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Reads the next event's data.
+     *
+     * @return Event data, or null when the stream ends
+     */
+    public String nextEventData() throws IOException {
+        StringBuilder data = null;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                // Blank line dispatches the event; skip blanks between events
+                if (data != null) {
+                    return data.toString();
+                }
+                continue;
+            }
+            if (line.startsWith("data:")) {
+                String value = line.substring(5);
+                if (value.startsWith(" ")) {
+                    value = value.substring(1);
+                }
+                if (data == null) {
+                    data = new StringBuilder(value);
+                } else {
+                    data.append('\n').append(value);
+                }
+            }
+            // "event:", "id:", "retry:" and ":" comment lines carry nothing we need
+        }
+        return data != null ? data.toString() : null;
+    }
+
+    /**
+     * Reads a whole streamed analysis.
+     *
+     * @param source Response body source
+     * @param extractor Provider-specific text delta extraction
+     * @param listener Receives partial results as sections complete (may be null)
+     * @return Final result decoded from the full streamed text
+     */
+    public static PlantAnalysisResult readAnalysis(BufferedSource source,
+                                                   TextDeltaExtractor extractor,
+                                                   PartialResultListener listener)
+            throws IOException, JSONException, AIProviderException {
+        return readAnalysis(source, extractor, listener, false);
+    }
+
+    /**
+     * Reads a whole streamed analysis, optionally decoding it as strict structured output.
+     *
+     * @param structured true if the response was requested with a response schema
+     */
+    public static PlantAnalysisResult readAnalysis(BufferedSource source,
+                                                   TextDeltaExtractor extractor,
+                                                   PartialResultListener listener,
+                                                   boolean structured)
+            throws IOException, JSONException, AIProviderException {
+        ServerSentEventReader events = new ServerSentEventReader(source);
+        IncrementalAnalysisParser parser = new IncrementalAnalysisParser(listener, structured);
+
+        String data;
+        while ((data = events.nextEventData()) != null) {
+            if (DONE_SENTINEL.equals(data)) {
+                break;
+            }
+            String delta = extractor.textDelta(new JSONObject(data));
+            if (delta != null) {
+                parser.append(delta);
+            }
+        }
+        return parser.finish();
+    }
+}
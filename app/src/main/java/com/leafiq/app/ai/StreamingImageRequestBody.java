@@ -0,0 +1,69 @@
+package com.leafiq.app.ai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * JSON request body that streams base64 image data straight into the OkHttp sink.
+ * <p>
+ * Providers build their (small) JSON envelope as usual with a placeholder string where
+ * the image data goes. The envelope is split around the placeholder once, and on write
+ * the image is base64-encoded directly into the {@link BufferedSink}. This avoids the
+ * base64 String, the JSONObject copy of it, and the toString() copy of the whole body.
+ * <p>
+ * Content length is known up front and the body can be written more than once
+ * (OkHttp retries/redirects), since the image source is re-read on each write.
+ */
+public class StreamingImageRequestBody extends RequestBody {
+
+    /** Value providers put in the envelope where base64 image data belongs. */
+    public static final String IMAGE_PLACEHOLDER = "__LEAFIQ_IMAGE_DATA__";
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private final byte[] prefix;
+    private final byte[] dataPrefix;
+    private final byte[] suffix;
+    private final ImagePayload image;
+
+    /**
+     * @param envelopeJson Serialized request JSON containing IMAGE_PLACEHOLDER as a string value exactly once
+     * @param dataPrefix Text written before the base64 data inside the string (e.g. a data: URL scheme), or ""
+     * @param image Image to encode into the placeholder's position
+     */
+    public StreamingImageRequestBody(String envelopeJson, String dataPrefix, ImagePayload image) {
+        String quotedPlaceholder = "\"" + IMAGE_PLACEHOLDER + "\"";
+        int index = envelopeJson.indexOf(quotedPlaceholder);
+        if (index < 0) {
+            throw new IllegalArgumentException("Envelope does not contain image placeholder");
+        }
+        // Keep the opening and closing quotes of the string value in prefix/suffix
+        this.prefix = envelopeJson.substring(0, index + 1).getBytes(StandardCharsets.UTF_8);
+        this.suffix = envelopeJson.substring(index + quotedPlaceholder.length() - 1)
+                .getBytes(StandardCharsets.UTF_8);
+        this.dataPrefix = dataPrefix.getBytes(StandardCharsets.UTF_8);
+        this.image = image;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return prefix.length + dataPrefix.length + image.base64Length() + suffix.length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        sink.write(prefix);
+        sink.write(dataPrefix);
+        image.writeBase64(sink.outputStream());
+        sink.write(suffix);
+    }
+}
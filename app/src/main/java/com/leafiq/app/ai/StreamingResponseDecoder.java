@@ -0,0 +1,610 @@
+package com.leafiq.app.ai;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import okio.BufferedSource;
+
+/**
+ * Shared, single-pass decoder for provider responses.
+ * <p>
+ * Walks the provider envelope token by token to the AI text field, then parses the
+ * PlantAnalysisResult JSON embedded in that string directly from the unescaped character
+ * stream. No response body String, envelope JSONObject, AI text String or second
+ * JSONObject tree is built; only the extracted analysis JSON is kept (as rawResponse).
+ * <p>
+ * Leading prose or markdown fences before the first '{' are skipped, and anything after
+ * the matching '}' is never read, which replaces the fence/brace stripping each provider
+ * used to carry.
+ * <p>
+ * Structured-output responses take a strict path instead: the AI text must be exactly one
+ * analysis object, or - for a Claude tool call - the analysis is the tool input object itself.
+ * <p>
+ * When a usage field is requested, the rest of the envelope is walked after the analysis so
+ * the provider's token usage (which follows the content) can be reported.
+ * <p>
+ * Field defaults match {@link com.leafiq.app.util.JsonParser} so results are identical.
+ */
+public final class StreamingResponseDecoder {
+
+    /** Claude Messages API: content[0].text */
+    public static final Object[] CLAUDE_TEXT_PATH = {"content", 0, "text"};
+    /** OpenAI Chat Completions: choices[0].message.content */
+    public static final Object[] OPENAI_TEXT_PATH = {"choices", 0, "message", "content"};
+    /** Gemini generateContent: candidates[0].content.parts[0].text */
+    public static final Object[] GEMINI_TEXT_PATH = {"candidates", 0, "content", "parts", 0, "text"};
+
+    /** Claude forced tool call: content[0].input (the analysis as a JSON object, not text) */
+    public static final Object[] CLAUDE_TOOL_INPUT_PATH = {"content", 0, "input"};
+
+    /** Claude and OpenAI report token usage in a top-level "usage" object */
+    public static final String USAGE_FIELD = "usage";
+    /** Gemini reports token usage in a top-level "usageMetadata" object */
+    public static final String GEMINI_USAGE_FIELD = "usageMetadata";
+
+    /**
+     * Receives the provider's token usage object from the response envelope.
+     */
+    public interface UsageHandler {
+        void onUsage(JSONObject usage) throws JSONException;
+    }
+
+    private StreamingResponseDecoder() {
+        throw new AssertionError("Utility class - do not instantiate");
+    }
+
+    /**
+     * Decodes a provider response body.
+     *
+     * @param body Response body source (consumed, not closed)
+     * @param textPath Path to the AI text string: String elements are object keys,
+     *                 Integer elements are array indices
+     * @return Parsed result with rawResponse set to the extracted analysis JSON
+     * @throws IOException if the body is malformed or the text field is missing
+     */
+    public static PlantAnalysisResult decode(BufferedSource body, Object[] textPath)
+            throws IOException {
+        return decode(new InputStreamReader(body.inputStream(), StandardCharsets.UTF_8), textPath);
+    }
+
+    /**
+     * Reader variant of {@link #decode(BufferedSource, Object[])}.
+     */
+    public static PlantAnalysisResult decode(Reader body, Object[] textPath) throws IOException {
+        JsonTokenReader envelope = new JsonTokenReader(body);
+        descend(envelope, textPath, 0);
+        if (envelope.peek() != JsonTokenReader.Token.STRING) {
+            throw new IOException("Response field " + describe(textPath) + " is not text");
+        }
+        return decodeAnalysisText(envelope.openString());
+    }
+
+    /**
+     * Parses AI output text (optionally wrapped in prose or markdown fences) into a result.
+     *
+     * @param text Reader over the AI text
+     * @return Parsed result with rawResponse set to the extracted analysis JSON
+     * @throws IOException if no JSON object is found or it is malformed
+     */
+    public static PlantAnalysisResult decodeAnalysisText(Reader text) throws IOException {
+        JsonTokenReader reader = new JsonTokenReader(text);
+        if (!reader.skipToObjectStart()) {
+            throw new IOException("No JSON object in AI response");
+        }
+        reader.startCapture();
+        PlantAnalysisResult result = readResult(reader);
+        result.rawResponse = reader.stopCapture();
+        return result;
+    }
+
+    /**
+     * Decodes a provider response body and reports its token usage.
+     *
+     * @param usageField Top-level envelope field holding the usage object
+     * @param usageHandler Called with the usage object if the envelope has one
+     */
+    public static PlantAnalysisResult decode(BufferedSource body, Object[] textPath,
+                                             String usageField, UsageHandler usageHandler)
+            throws IOException {
+        return decode(body, textPath, false, usageField, usageHandler);
+    }
+
+    /**
+     * Decodes a provider response body, optionally on the strict structured-output path.
+     *
+     * @param structured true if the response was requested with a response schema
+     */
+    public static PlantAnalysisResult decode(BufferedSource body, Object[] textPath, boolean structured,
+                                             String usageField, UsageHandler usageHandler)
+            throws IOException {
+        return decode(new InputStreamReader(body.inputStream(), StandardCharsets.UTF_8),
+                textPath, structured, usageField, usageHandler);
+    }
+
+    /**
+     * Reader variant of {@link #decode(BufferedSource, Object[], boolean, String, UsageHandler)}.
+     */
+    public static PlantAnalysisResult decode(Reader body, Object[] textPath, boolean structured,
+                                             String usageField, UsageHandler usageHandler)
+            throws IOException {
+        JsonTokenReader envelope = new JsonTokenReader(body);
+        if (envelope.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+            throw missing(textPath);
+        }
+        PlantAnalysisResult result = null;
+        envelope.beginObject();
+        while (envelope.hasNext()) {
+            String name = envelope.nextName();
+            if (result == null && name.equals(textPath[0])) {
+                result = decodeAndFinish(envelope, textPath, 1, structured);
+            } else if (name.equals(usageField) && envelope.peek() == JsonTokenReader.Token.BEGIN_OBJECT) {
+                try {
+                    usageHandler.onUsage(readObject(envelope));
+                } catch (JSONException e) {
+                    throw new IOException("Malformed usage: " + e.getMessage(), e);
+                }
+            } else {
+                envelope.skipValue();
+            }
+        }
+        envelope.endObject();
+        if (result == null) {
+            throw missing(textPath);
+        }
+        return result;
+    }
+
+    /**
+     * Strict variant of {@link #decodeAnalysisText(Reader)} for structured-output responses:
+     * the text must be exactly one analysis object. Nothing is skipped before it and anything
+     * after it is an error, so a response that breaks the schema fails here instead of being
+     * salvaged into a partial result.
+     *
+     * @throws IOException if the text is not a single JSON object
+     */
+    public static PlantAnalysisResult decodeStructuredText(Reader text) throws IOException {
+        JsonTokenReader reader = new JsonTokenReader(text);
+        reader.startCapture();
+        if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+            throw new IOException("Structured output is not a JSON object");
+        }
+        PlantAnalysisResult result = readResult(reader);
+        result.rawResponse = reader.stopCapture().trim();
+        reader.peek();  // Throws unless only whitespace follows the object
+        return result;
+    }
+
+    // ==================== Envelope navigation ====================
+
+    /**
+     * Like {@link #descend}, but decodes the text at the end of the path and then reads past
+     * the rest of every enclosing container, leaving the reader after the path's first value.
+     */
+    private static PlantAnalysisResult decodeAndFinish(JsonTokenReader reader, Object[] path,
+                                                       int depth, boolean structured) throws IOException {
+        if (depth == path.length) {
+            if (structured && reader.peek() == JsonTokenReader.Token.BEGIN_OBJECT) {
+                // Tool input: the analysis is part of the envelope. peek() has consumed the '{'
+                reader.startCapture();
+                PlantAnalysisResult result = readResult(reader);
+                result.rawResponse = "{" + reader.stopCapture();
+                return result;
+            }
+            if (reader.peek() != JsonTokenReader.Token.STRING) {
+                throw new IOException("Response field " + describe(path) + " is not text");
+            }
+            // Closing drains whatever follows the analysis JSON inside the string
+            try (Reader text = reader.openString()) {
+                return structured ? decodeStructuredText(text) : decodeAnalysisText(text);
+            }
+        }
+
+        PlantAnalysisResult result = null;
+        Object step = path[depth];
+        if (step instanceof Integer) {
+            if (reader.peek() != JsonTokenReader.Token.BEGIN_ARRAY) {
+                throw missing(path);
+            }
+            reader.beginArray();
+            for (int i = 0; reader.hasNext(); i++) {
+                if (i == (Integer) step) {
+                    result = decodeAndFinish(reader, path, depth + 1, structured);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+        } else {
+            if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+                throw missing(path);
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (result == null && step.equals(name)) {
+                    result = decodeAndFinish(reader, path, depth + 1, structured);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        if (result == null) {
+            throw missing(path);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a small JSON object (the usage block) into a JSONObject.
+     */
+    private static JSONObject readObject(JsonTokenReader r) throws IOException, JSONException {
+        JSONObject object = new JSONObject();
+        r.beginObject();
+        while (r.hasNext()) {
+            String name = r.nextName();
+            object.put(name, readValue(r));
+        }
+        r.endObject();
+        return object;
+    }
+
+    private static Object readValue(JsonTokenReader r) throws IOException, JSONException {
+        switch (r.peek()) {
+            case BEGIN_OBJECT:
+                return readObject(r);
+            case BEGIN_ARRAY:
+                JSONArray array = new JSONArray();
+                r.beginArray();
+                while (r.hasNext()) {
+                    array.put(readValue(r));
+                }
+                r.endArray();
+                return array;
+            case NUMBER:
+                String literal = r.nextString();
+                try {
+                    return Long.parseLong(literal);
+                } catch (NumberFormatException e) {
+                    return Double.parseDouble(literal);
+                }
+            case BOOLEAN:
+                return r.nextBoolean();
+            case NULL:
+                r.nextNull();
+                return JSONObject.NULL;
+            default:
+                return r.nextString();
+        }
+    }
+
+    private static void descend(JsonTokenReader reader, Object[] path, int depth) throws IOException {
+        if (depth == path.length) {
+            return;
+        }
+        Object step = path[depth];
+        if (step instanceof Integer) {
+            if (reader.peek() != JsonTokenReader.Token.BEGIN_ARRAY) {
+                throw missing(path);
+            }
+            reader.beginArray();
+            for (int i = 0; i < (Integer) step; i++) {
+                if (!reader.hasNext()) throw missing(path);
+                reader.skipValue();
+            }
+            if (!reader.hasNext()) throw missing(path);
+            descend(reader, path, depth + 1);
+            return;
+        }
+
+        if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+            throw missing(path);
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (step.equals(reader.nextName())) {
+                descend(reader, path, depth + 1);
+                return;
+            }
+            reader.skipValue();
+        }
+        throw missing(path);
+    }
+
+    private static IOException missing(Object[] path) {
+        return new IOException("Response missing " + describe(path));
+    }
+
+    private static String describe(Object[] path) {
+        StringBuilder sb = new StringBuilder();
+        for (Object step : path) {
+            if (step instanceof Integer) {
+                sb.append('[').append(step).append(']');
+            } else {
+                if (sb.length() > 0) sb.append('.');
+                sb.append(step);
+            }
+        }
+        return sb.toString();
+    }
+
+    // ==================== PlantAnalysisResult ====================
+
+    private static PlantAnalysisResult readResult(JsonTokenReader r) throws IOException {
+        PlantAnalysisResult result = new PlantAnalysisResult();
+        result.immediateActions = new ArrayList<>();
+        result.funFact = "";
+
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "identification":
+                    result.identification = readIdentification(r);
+                    break;
+                case "healthAssessment":
+                    result.healthAssessment = readHealthAssessment(r);
+                    break;
+                case "immediateActions":
+                    result.immediateActions = readImmediateActions(r);
+                    break;
+                case "carePlan":
+                    result.carePlan = readCarePlan(r);
+                    break;
+                case "funFact":
+                    result.funFact = optString(r, "");
+                    break;
+                default:
+                    r.skipValue();
+            }
+        }
+        r.endObject();
+        return result;
+    }
+
+    private static PlantAnalysisResult.Identification readIdentification(JsonTokenReader r)
+            throws IOException {
+        PlantAnalysisResult.Identification id = new PlantAnalysisResult.Identification();
+        id.commonName = "Unknown";
+        id.scientificName = "";
+        id.confidence = "low";
+        id.notes = "";
+
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "commonName": id.commonName = optString(r, "Unknown"); break;
+                case "scientificName": id.scientificName = optString(r, ""); break;
+                case "confidence": id.confidence = optString(r, "low"); break;
+                case "notes": id.notes = optString(r, ""); break;
+                default: r.skipValue();
+            }
+        }
+        r.endObject();
+        return id;
+    }
+
+    private static PlantAnalysisResult.HealthAssessment readHealthAssessment(JsonTokenReader r)
+            throws IOException {
+        PlantAnalysisResult.HealthAssessment health = new PlantAnalysisResult.HealthAssessment();
+        health.score = 5;
+        health.summary = "";
+        health.issues = new ArrayList<>();
+
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "score": health.score = optInt(r, 5); break;
+                case "summary": health.summary = optString(r, ""); break;
+                case "issues": health.issues = readIssues(r); break;
+                default: r.skipValue();
+            }
+        }
+        r.endObject();
+        return health;
+    }
+
+    private static List<PlantAnalysisResult.HealthAssessment.Issue> readIssues(JsonTokenReader r)
+            throws IOException {
+        List<PlantAnalysisResult.HealthAssessment.Issue> issues = new ArrayList<>();
+        r.beginArray();
+        while (r.hasNext()) {
+            PlantAnalysisResult.HealthAssessment.Issue issue =
+                    new PlantAnalysisResult.HealthAssessment.Issue();
+            issue.name = "";
+            issue.severity = "low";
+            issue.description = "";
+            issue.affectedArea = "";
+
+            r.beginObject();
+            while (r.hasNext()) {
+                switch (r.nextName()) {
+                    case "name": issue.name = optString(r, ""); break;
+                    case "severity": issue.severity = optString(r, "low"); break;
+                    case "description": issue.description = optString(r, ""); break;
+                    case "affectedArea": issue.affectedArea = optString(r, ""); break;
+                    default: r.skipValue();
+                }
+            }
+            r.endObject();
+            issues.add(issue);
+        }
+        r.endArray();
+        return issues;
+    }
+
+    private static List<PlantAnalysisResult.ImmediateAction> readImmediateActions(JsonTokenReader r)
+            throws IOException {
+        List<PlantAnalysisResult.ImmediateAction> actions = new ArrayList<>();
+        r.beginArray();
+        while (r.hasNext()) {
+            PlantAnalysisResult.ImmediateAction action = new PlantAnalysisResult.ImmediateAction();
+            action.action = "";
+            action.priority = "when_convenient";
+            action.detail = "";
+
+            r.beginObject();
+            while (r.hasNext()) {
+                switch (r.nextName()) {
+                    case "action": action.action = optString(r, ""); break;
+                    case "priority": action.priority = optString(r, "when_convenient"); break;
+                    case "detail": action.detail = optString(r, ""); break;
+                    default: r.skipValue();
+                }
+            }
+            r.endObject();
+            actions.add(action);
+        }
+        r.endArray();
+        return actions;
+    }
+
+    private static PlantAnalysisResult.CarePlan readCarePlan(JsonTokenReader r) throws IOException {
+        PlantAnalysisResult.CarePlan plan = new PlantAnalysisResult.CarePlan();
+        plan.seasonal = "";
+
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "watering":
+                    plan.watering = new PlantAnalysisResult.CarePlan.Watering();
+                    plan.watering.frequency = "";
+                    plan.watering.amount = "";
+                    plan.watering.notes = "";
+                    r.beginObject();
+                    while (r.hasNext()) {
+                        switch (r.nextName()) {
+                            case "frequency": plan.watering.frequency = optString(r, ""); break;
+                            case "amount": plan.watering.amount = optString(r, ""); break;
+                            case "notes": plan.watering.notes = optString(r, ""); break;
+                            default: r.skipValue();
+                        }
+                    }
+                    r.endObject();
+                    break;
+                case "light":
+                    plan.light = new PlantAnalysisResult.CarePlan.Light();
+                    plan.light.ideal = "";
+                    plan.light.current = "";
+                    r.beginObject();
+                    while (r.hasNext()) {
+                        switch (r.nextName()) {
+                            case "ideal": plan.light.ideal = optString(r, ""); break;
+                            case "current": plan.light.current = optString(r, ""); break;
+                            case "adjustment": plan.light.adjustment = optString(r, null); break;
+                            default: r.skipValue();
+                        }
+                    }
+                    r.endObject();
+                    break;
+                case "fertilizer":
+                    plan.fertilizer = new PlantAnalysisResult.CarePlan.Fertilizer();
+                    plan.fertilizer.type = "";
+                    plan.fertilizer.frequency = "";
+                    plan.fertilizer.nextApplication = "";
+                    r.beginObject();
+                    while (r.hasNext()) {
+                        switch (r.nextName()) {
+                            case "type": plan.fertilizer.type = optString(r, ""); break;
+                            case "frequency": plan.fertilizer.frequency = optString(r, ""); break;
+                            case "nextApplication": plan.fertilizer.nextApplication = optString(r, ""); break;
+                            default: r.skipValue();
+                        }
+                    }
+                    r.endObject();
+                    break;
+                case "pruning":
+                    plan.pruning = new PlantAnalysisResult.CarePlan.Pruning();
+                    plan.pruning.instructions = "";
+                    plan.pruning.when = "";
+                    r.beginObject();
+                    while (r.hasNext()) {
+                        switch (r.nextName()) {
+                            case "needed": plan.pruning.needed = optBoolean(r, false); break;
+                            case "instructions": plan.pruning.instructions = optString(r, ""); break;
+                            case "when": plan.pruning.when = optString(r, ""); break;
+                            default: r.skipValue();
+                        }
+                    }
+                    r.endObject();
+                    break;
+                case "repotting":
+                    plan.repotting = new PlantAnalysisResult.CarePlan.Repotting();
+                    plan.repotting.signs = "";
+                    r.beginObject();
+                    while (r.hasNext()) {
+                        switch (r.nextName()) {
+                            case "needed": plan.repotting.needed = optBoolean(r, false); break;
+                            case "signs": plan.repotting.signs = optString(r, ""); break;
+                            case "recommendedPotSize": plan.repotting.recommendedPotSize = optString(r, null); break;
+                            default: r.skipValue();
+                        }
+                    }
+                    r.endObject();
+                    break;
+                case "seasonal":
+                    plan.seasonal = optString(r, "");
+                    break;
+                default:
+                    r.skipValue();
+            }
+        }
+        r.endObject();
+        return plan;
+    }
+
+    // ==================== Lenient scalar reads (JSONObject.optX semantics) ====================
+
+    private static String optString(JsonTokenReader r, String fallback) throws IOException {
+        switch (r.peek()) {
+            case STRING:
+            case NUMBER:
+            case BOOLEAN:
+                return r.nextString();
+            default:
+                r.skipValue();
+                return fallback;
+        }
+    }
+
+    private static int optInt(JsonTokenReader r, int fallback) throws IOException {
+        switch (r.peek()) {
+            case NUMBER:
+                return r.nextInt();
+            case STRING:
+                String literal = r.nextString();
+                try {
+                    return (int) Double.parseDouble(literal.trim());
+                } catch (NumberFormatException e) {
+                    return fallback;
+                }
+            default:
+                r.skipValue();
+                return fallback;
+        }
+    }
+
+    private static boolean optBoolean(JsonTokenReader r, boolean fallback) throws IOException {
+        switch (r.peek()) {
+            case BOOLEAN:
+                return r.nextBoolean();
+            case STRING:
+                String literal = r.nextString();
+                if ("true".equalsIgnoreCase(literal)) return true;
+                if ("false".equalsIgnoreCase(literal)) return false;
+                return fallback;
+            default:
+                r.skipValue();
+                return fallback;
+        }
+    }
+}
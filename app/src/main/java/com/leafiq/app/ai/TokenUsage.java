@@ -0,0 +1,102 @@
+package com.leafiq.app.ai;
+
+import org.json.JSONObject;
+
+/**
+ * Token counts reported by a provider for one request, normalised across providers.
+ * <p>
+ * inputTokens is the whole prompt (image included), of which cachedInputTokens were read
+ * from the provider's prompt cache and cacheWriteTokens were written to it (Claude only;
+ * OpenAI and Gemini cache implicitly and do not report writes).
+ */
+public final class TokenUsage {
+
+    public static final TokenUsage EMPTY = new TokenUsage(0, 0, 0, 0);
+
+    private final long inputTokens;
+    private final long cachedInputTokens;
+    private final long cacheWriteTokens;
+    private final long outputTokens;
+
+    public TokenUsage(long inputTokens, long cachedInputTokens, long cacheWriteTokens,
+                      long outputTokens) {
+        this.inputTokens = inputTokens;
+        this.cachedInputTokens = cachedInputTokens;
+        this.cacheWriteTokens = cacheWriteTokens;
+        this.outputTokens = outputTokens;
+    }
+
+    /**
+     * Claude Messages API usage. input_tokens excludes cache reads and writes, so they are
+     * added back to get the whole prompt.
+     */
+    public static TokenUsage fromClaude(JSONObject usage) {
+        long uncached = usage.optLong("input_tokens");
+        long cacheRead = usage.optLong("cache_read_input_tokens");
+        long cacheWrite = usage.optLong("cache_creation_input_tokens");
+        return new TokenUsage(uncached + cacheRead + cacheWrite, cacheRead, cacheWrite,
+                usage.optLong("output_tokens"));
+    }
+
+    /**
+     * OpenAI Chat Completions usage; prompt_tokens already includes cached tokens.
+     */
+    public static TokenUsage fromOpenAI(JSONObject usage) {
+        JSONObject details = usage.optJSONObject("prompt_tokens_details");
+        return new TokenUsage(usage.optLong("prompt_tokens"),
+                details != null ? details.optLong("cached_tokens") : 0, 0,
+                usage.optLong("completion_tokens"));
+    }
+
+    /**
+     * Gemini usageMetadata; promptTokenCount already includes cached tokens.
+     */
+    public static TokenUsage fromGemini(JSONObject usageMetadata) {
+        return new TokenUsage(usageMetadata.optLong("promptTokenCount"),
+                usageMetadata.optLong("cachedContentTokenCount"), 0,
+                usageMetadata.optLong("candidatesTokenCount"));
+    }
+
+    public long getInputTokens() {
+        return inputTokens;
+    }
+
+    public long getCachedInputTokens() {
+        return cachedInputTokens;
+    }
+
+    public long getCacheWriteTokens() {
+        return cacheWriteTokens;
+    }
+
+    public long getOutputTokens() {
+        return outputTokens;
+    }
+
+    /**
+     * Returns a copy with a different output count (streams report it after the input counts).
+     */
+    public TokenUsage withOutputTokens(long outputTokens) {
+        return new TokenUsage(inputTokens, cachedInputTokens, cacheWriteTokens, outputTokens);
+    }
+
+    public TokenUsage plus(TokenUsage other) {
+        return new TokenUsage(inputTokens + other.inputTokens,
+                cachedInputTokens + other.cachedInputTokens,
+                cacheWriteTokens + other.cacheWriteTokens,
+                outputTokens + other.outputTokens);
+    }
+
+    /**
+     * @return Share of input tokens served from the prompt cache, 0 if there were none
+     */
+    public double getCachedFraction() {
+        return inputTokens > 0 ? (double) cachedInputTokens / inputTokens : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "input=" + inputTokens + " cached=" + cachedInputTokens
+                + " cacheWrite=" + cacheWriteTokens + " output=" + outputTokens;
+    }
+}
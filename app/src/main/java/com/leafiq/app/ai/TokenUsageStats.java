@@ -0,0 +1,77 @@
+package com.leafiq.app.ai;
+
+import android.util.Log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running per-provider token usage, so prompt-cache savings can be measured.
+ * <p>
+ * Providers record the usage their API reports for every successful request; each record is
+ * logged (tag "TokenUsage") together with the provider's running totals and cached share.
+ * Like {@link CircuitBreaker}, totals live in a process-wide registry keyed by provider
+ * display name because providers are created per analysis.
+ */
+public final class TokenUsageStats {
+
+    private static final String TAG = "TokenUsage";
+
+    private static final Map<String, Totals> TOTALS = new ConcurrentHashMap<>();
+
+    /**
+     * Accumulated usage for one provider.
+     */
+    public static final class Totals {
+        private long requests;
+        private TokenUsage usage = TokenUsage.EMPTY;
+
+        public synchronized long getRequests() {
+            return requests;
+        }
+
+        public synchronized TokenUsage getUsage() {
+            return usage;
+        }
+
+        private synchronized void add(TokenUsage request) {
+            requests++;
+            usage = usage.plus(request);
+        }
+    }
+
+    private TokenUsageStats() {
+        throw new AssertionError("Utility class - do not instantiate");
+    }
+
+    /**
+     * Records the usage of one request. Null usage (the response carried none) is ignored.
+     *
+     * @param providerName Provider display name (e.g. "Claude (Anthropic)")
+     */
+    public static void record(String providerName, TokenUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        Totals totals = TOTALS.computeIfAbsent(providerName, name -> new Totals());
+        totals.add(usage);
+        TokenUsage sum = totals.getUsage();
+        Log.i(TAG, String.format("token_usage: provider=%s %s | total requests=%d input=%d "
+                        + "cached=%d cacheWrite=%d output=%d cachedPct=%.1f",
+                providerName, usage, totals.getRequests(), sum.getInputTokens(),
+                sum.getCachedInputTokens(), sum.getCacheWriteTokens(), sum.getOutputTokens(),
+                sum.getCachedFraction() * 100));
+    }
+
+    /**
+     * @return Totals for the provider, or null if it has not recorded any usage
+     */
+    public static Totals getTotals(String providerName) {
+        return TOTALS.get(providerName);
+    }
+
+    // Visible for testing
+    static void resetAll() {
+        TOTALS.clear();
+    }
+}
@@ -6,13 +6,11 @@ import android.content.Intent;
 import android.util.Log;
 
 import com.leafiq.app.LeafIQApplication;
-import com.leafiq.app.data.entity.CareSchedule;
-import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.ScheduleWithPlant;
 import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.util.KeystoreHelper;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 
 /**
@@ -28,36 +26,29 @@ public class BootReceiver extends BroadcastReceiver {
         if (Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
             LeafIQApplication app = (LeafIQApplication) context.getApplicationContext();
             CareScheduleManager scheduleManager = app.getCareScheduleManager();
-            scheduleManager.rescheduleAllAlarms();
 
-            // Re-create notifications for currently overdue schedules
             app.getAppExecutors().io().execute(() -> {
+                // Re-arm the reminder alarm (reads next due time from the database)
+                scheduleManager.rescheduleAllAlarms();
+
                 PlantRepository repository = app.getPlantRepository();
                 KeystoreHelper keystoreHelper = new KeystoreHelper(context);
 
-                // Trigger same logic as daily alarm to show overdue notifications
-                if (!keystoreHelper.areRemindersPaused()) {
-                    Calendar calendar = Calendar.getInstance();
-                    calendar.set(Calendar.HOUR_OF_DAY, 23);
-                    calendar.set(Calendar.MINUTE, 59);
-                    calendar.set(Calendar.SECOND, 59);
-                    calendar.set(Calendar.MILLISECOND, 999);
-                    long endOfToday = calendar.getTimeInMillis();
+                // Notifications don't survive a reboot, so nothing is posted anymore
+                new NotificationStateStore(context).clear();
 
-                    List<CareSchedule> dueSchedules = repository.getDueSchedules(endOfToday);
+                // Trigger same logic as the reminder alarm to show overdue notifications
+                if (!keystoreHelper.areRemindersPaused()) {
+                    List<ScheduleWithPlant> dueRows =
+                            repository.getDueSchedulesWithPlantSync(System.currentTimeMillis());
 
-                    if (!dueSchedules.isEmpty()) {
-                        List<NotificationHelper.DueScheduleInfo> dueInfoList = new ArrayList<>();
-                        for (CareSchedule schedule : dueSchedules) {
-                            Plant plant = repository.getPlantByIdSync(schedule.plantId);
-                            if (plant != null) {
-                                dueInfoList.add(new NotificationHelper.DueScheduleInfo(schedule, plant));
-                            }
-                        }
-                        if (!dueInfoList.isEmpty()) {
-                            NotificationHelper.buildGroupedNotification(context, dueInfoList);
-                            Log.i("CareSystem", "Recreated " + dueInfoList.size() + " overdue notifications after boot");
+                    if (!dueRows.isEmpty()) {
+                        List<NotificationHelper.DueScheduleInfo> dueInfoList = new ArrayList<>(dueRows.size());
+                        for (ScheduleWithPlant row : dueRows) {
+                            dueInfoList.add(new NotificationHelper.DueScheduleInfo(row));
                         }
+                        NotificationHelper.buildGroupedNotification(context, dueInfoList);
+                        Log.i("CareSystem", "Recreated " + dueInfoList.size() + " overdue notifications after boot");
                     }
                 }
             });
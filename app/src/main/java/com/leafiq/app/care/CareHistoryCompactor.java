@@ -0,0 +1,57 @@
+package com.leafiq.app.care;
+
+import android.util.Log;
+
+import com.leafiq.app.data.repository.PlantRepository;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Keeps care history storage bounded.
+ * On app launch, completions older than the history horizon are rolled up into
+ * care_completion_monthly and their detail rows deleted, so care_completions only holds
+ * the current month plus the last few full months however long the app has been used.
+ * History screens show the recent detail followed by the monthly counts.
+ */
+public class CareHistoryCompactor {
+
+    private static final String TAG = "CareSystem";
+
+    /**
+     * Smallest horizon honoured; the current month is never compacted.
+     */
+    static final int MIN_HORIZON_MONTHS = 1;
+
+    /**
+     * Compacts completions from before the start of the month horizonMonths ago.
+     * Must be called on a background thread.
+     *
+     * @param repository Repository for care completion operations
+     * @param horizonMonths Full months of history kept as detail
+     * @return Number of completions compacted
+     */
+    public static int compactOnLaunch(PlantRepository repository, int horizonMonths) {
+        long cutoff = horizonCutoff(System.currentTimeMillis(), horizonMonths, TimeZone.getDefault());
+        int compacted = repository.compactCareHistorySync(cutoff);
+        Log.i(TAG, "Care history compaction: " + compacted + " completions rolled up before " + cutoff);
+        return compacted;
+    }
+
+    /**
+     * Start of the local month horizonMonths before the one containing now. Cutting at a
+     * month boundary keeps every month either fully detailed or fully rolled up (apart
+     * from each schedule's latest completion, which is never compacted).
+     */
+    static long horizonCutoff(long now, int horizonMonths, TimeZone timeZone) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.MONTH, -Math.max(horizonMonths, MIN_HORIZON_MONTHS));
+        return calendar.getTimeInMillis();
+    }
+}
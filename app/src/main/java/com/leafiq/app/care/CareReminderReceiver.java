@@ -1,26 +1,27 @@
 package com.leafiq.app.care;
 
-import android.app.NotificationManager;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.leafiq.app.LeafIQApplication;
 import com.leafiq.app.data.entity.CareSchedule;
-import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.ScheduleWithPlant;
 import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.util.KeystoreHelper;
+import com.leafiq.app.util.PriorityExecutor;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * BroadcastReceiver for care reminder alarm triggers and notification actions.
  * <p>
  * Handles three types of events:
- * 1. Daily alarm trigger (no action) - checks due schedules and fires notifications
+ * 1. Reminder alarm trigger (no action) - notifies schedules now due and re-arms for the next event
  * 2. ACTION_DONE - marks care as complete and dismisses notification
  * 3. ACTION_SNOOZE - snoozes reminder and updates schedule
  */
@@ -39,6 +40,11 @@ public class CareReminderReceiver extends BroadcastReceiver {
 
     private static final String SUGGEST_ADJUST_MARKER = "[SUGGEST_ADJUST]";
 
+    /**
+     * Time the system allows a goAsync() broadcast before it is treated as an ANR.
+     */
+    static final long BROADCAST_BUDGET_MS = 10_000;
+
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
@@ -51,12 +57,12 @@ public class CareReminderReceiver extends BroadcastReceiver {
         CareScheduleManager scheduleManager = app.getCareScheduleManager();
         KeystoreHelper keystoreHelper = new KeystoreHelper(context);
 
-        // Run on background thread
-        app.getAppExecutors().io().execute(() -> {
+        // Run on background thread, ahead of queued background work: goAsync() only allows ~10s
+        app.getAppExecutors().io().execute(PriorityExecutor.Priority.USER_VISIBLE, () -> {
             try {
                 if (action == null) {
-                    // Daily alarm trigger - check due schedules
-                    handleDailyAlarm(context, repository, scheduleManager, keystoreHelper);
+                    // Reminder alarm trigger - check due schedules
+                    handleReminderAlarm(context, repository, scheduleManager, keystoreHelper);
                 } else if (ACTION_DONE.equals(action)) {
                     // Mark care as complete
                     String scheduleId = intent.getStringExtra(EXTRA_SCHEDULE_ID);
@@ -81,10 +87,13 @@ public class CareReminderReceiver extends BroadcastReceiver {
     }
 
     /**
-     * Handles daily alarm trigger.
-     * Checks for due schedules and fires grouped notifications.
+     * Handles the reminder alarm trigger.
+     * The alarm is armed for the next care event, so everything due up to now is notified:
+     * due schedules and their plants come from one query and fire grouped notifications.
+     * Then the alarm is re-armed for the following event, logging how much of the broadcast
+     * budget each phase used.
      */
-    private void handleDailyAlarm(Context context, PlantRepository repository,
+    private void handleReminderAlarm(Context context, PlantRepository repository,
                                    CareScheduleManager scheduleManager, KeystoreHelper keystoreHelper) {
         // Check if reminders are paused
         if (keystoreHelper.areRemindersPaused()) {
@@ -92,39 +101,43 @@ public class CareReminderReceiver extends BroadcastReceiver {
             return;
         }
 
-        // Get end of today for due schedule check
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(Calendar.HOUR_OF_DAY, 23);
-        calendar.set(Calendar.MINUTE, 59);
-        calendar.set(Calendar.SECOND, 59);
-        calendar.set(Calendar.MILLISECOND, 999);
-        long endOfToday = calendar.getTimeInMillis();
+        long startedAt = SystemClock.elapsedRealtime();
 
-        // Get all due schedules
-        List<CareSchedule> dueSchedules = repository.getDueSchedules(endOfToday);
+        // Get all due schedules with plant info (single JOIN, sorted by due time)
+        List<ScheduleWithPlant> dueRows =
+                repository.getDueSchedulesWithPlantSync(System.currentTimeMillis());
+        long queriedAt = SystemClock.elapsedRealtime();
 
-        if (dueSchedules.isEmpty()) {
-            // No due schedules, just reschedule for tomorrow
-            scheduleManager.scheduleNextAlarm();
-            return;
+        List<NotificationHelper.DueScheduleInfo> dueScheduleInfoList = new ArrayList<>(dueRows.size());
+        for (ScheduleWithPlant row : dueRows) {
+            dueScheduleInfoList.add(new NotificationHelper.DueScheduleInfo(row));
         }
 
-        // Build list of DueScheduleInfo objects (schedule + plant)
-        List<NotificationHelper.DueScheduleInfo> dueScheduleInfoList = new ArrayList<>();
-        for (CareSchedule schedule : dueSchedules) {
-            Plant plant = repository.getPlantByIdSync(schedule.plantId);
-            if (plant != null) {
-                dueScheduleInfoList.add(new NotificationHelper.DueScheduleInfo(schedule, plant));
-            }
-        }
+        // Sync grouped notifications: posts new/changed, cancels ones no longer due
+        NotificationHelper.buildGroupedNotification(context, dueScheduleInfoList);
+        long notifiedAt = SystemClock.elapsedRealtime();
 
-        // Build and show grouped notifications
-        if (!dueScheduleInfoList.isEmpty()) {
-            NotificationHelper.buildGroupedNotification(context, dueScheduleInfoList);
+        // Re-arm for the next care event
+        scheduleManager.scheduleNextAlarm();
+        long finishedAt = SystemClock.elapsedRealtime();
+
+        String timing = "Reminder alarm: " + dueRows.size() + " due, query " + (queriedAt - startedAt)
+                + " ms, notify " + (notifiedAt - queriedAt) + " ms, reschedule "
+                + (finishedAt - notifiedAt) + " ms, " + formatBudgetUsage(finishedAt - startedAt);
+        if (finishedAt - startedAt > BROADCAST_BUDGET_MS / 2) {
+            Log.w("CareSystem", timing);
+        } else {
+            Log.i("CareSystem", timing);
         }
+    }
 
-        // Reschedule for tomorrow
-        scheduleManager.scheduleNextAlarm();
+    /**
+     * Formats elapsed time as a share of the broadcast budget, e.g.
+     * "total 420 ms (4.2% of 10000 ms budget)".
+     */
+    static String formatBudgetUsage(long elapsedMs) {
+        return String.format(Locale.US, "total %d ms (%.1f%% of %d ms budget)",
+                elapsedMs, elapsedMs * 100.0 / BROADCAST_BUDGET_MS, BROADCAST_BUDGET_MS);
     }
 
     /**
@@ -222,7 +235,8 @@ public class CareReminderReceiver extends BroadcastReceiver {
 
     /**
      * Handles notification dismissed by user swipe.
-     * Checks if summary should be dismissed or updated.
+     * Forgets the child so it is re-posted on the next alarm while still due, and checks
+     * if summary should be dismissed or updated.
      */
     private void handleNotificationDismissed(Context context, String scheduleId) {
         if (scheduleId == null) {
@@ -232,14 +246,13 @@ public class CareReminderReceiver extends BroadcastReceiver {
         Log.i("CareSystem", "Notification dismissed by user: " + scheduleId);
 
         // The child notification is already gone (DeleteIntent fires AFTER dismiss)
-        // Check and update summary
-        NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        NotificationHelper.checkAndUpdateSummary(context, nm);
+        NotificationHelper.onNotificationDismissed(context, scheduleId);
     }
 
     /**
      * Handles "Mark All Done" action from summary notification.
-     * Records individual completion for each schedule.
+     * Records individual completions for every schedule in one batch, then dismisses
+     * the batch's notifications in one pass.
      */
     private void handleMarkAllDone(Context context, PlantRepository repository,
                                     CareScheduleManager scheduleManager, String scheduleIdsStr) {
@@ -247,29 +260,40 @@ public class CareReminderReceiver extends BroadcastReceiver {
             return;
         }
 
-        String[] scheduleIds = scheduleIdsStr.split(",");
-        Log.i("CareSystem", "Marking all done: " + scheduleIds.length + " schedules");
+        List<String> scheduleIds = parseScheduleIds(scheduleIdsStr);
+        Log.i("CareSystem", "Marking all done: " + scheduleIds.size() + " schedules");
 
-        // Mark each schedule complete
-        for (String scheduleId : scheduleIds) {
-            repository.markCareComplete(scheduleId.trim(), "notification_action", new PlantRepository.RepositoryCallback<Void>() {
-                @Override
-                public void onSuccess(Void result) {
-                    Log.i("CareSystem", "Marked complete: " + scheduleId.trim());
-                }
+        repository.markCareCompleteBatch(scheduleIds, "notification_action", new PlantRepository.RepositoryCallback<Integer>() {
+            @Override
+            public void onSuccess(Integer completedCount) {
+                Log.i("CareSystem", "Marked complete: " + completedCount + " schedules");
 
-                @Override
-                public void onError(Exception e) {
-                    Log.e("CareSystem", "Failed to mark complete: " + scheduleId.trim(), e);
-                }
-            });
-        }
+                // Dismiss the batch's notifications
+                NotificationHelper.dismissNotifications(context, scheduleIds);
 
-        // Dismiss all notifications
-        NotificationHelper.dismissAllNotifications(context);
+                // Reschedule alarm
+                scheduleManager.scheduleNextAlarm();
+            }
 
-        // Reschedule alarm
-        scheduleManager.scheduleNextAlarm();
+            @Override
+            public void onError(Exception e) {
+                Log.e("CareSystem", "Failed to mark all complete", e);
+            }
+        });
+    }
+
+    /**
+     * Splits the comma-separated schedule_ids extra, trimming blanks.
+     */
+    static List<String> parseScheduleIds(String scheduleIdsStr) {
+        List<String> scheduleIds = new ArrayList<>();
+        for (String scheduleId : scheduleIdsStr.split(",")) {
+            String trimmed = scheduleId.trim();
+            if (!trimmed.isEmpty()) {
+                scheduleIds.add(trimmed);
+            }
+        }
+        return scheduleIds;
     }
 
     /**
@@ -4,33 +4,46 @@ import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.util.Log;
 
-import com.leafiq.app.data.entity.CareCompletion;
 import com.leafiq.app.data.entity.CareItem;
 import com.leafiq.app.data.entity.CareSchedule;
+import com.leafiq.app.data.model.ScheduleReconciliation;
 import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.util.KeystoreHelper;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
 import java.util.UUID;
 
 /**
  * Central manager for care schedule operations.
  * Handles schedule creation from CareItems, alarm scheduling via AlarmManager,
- * and schedule lifecycle management.
+ * and schedule lifecycle management. A single alarm is armed for the next care event
+ * rather than a fixed daily poll.
  */
 public class CareScheduleManager {
 
-    private static final int DAILY_ALARM_REQUEST_CODE = 0;
+    private static final int REMINDER_ALARM_REQUEST_CODE = 0;
     private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    private static final long NO_ALARM = -1;
 
     private final Context context;
     private final PlantRepository repository;
     private final KeystoreHelper keystoreHelper;
     private final AlarmManager alarmManager;
 
+    // Time of the currently armed alarm, so unchanged re-arms skip AlarmManager. Held in
+    // memory: the skip relies on everyone using the one application-scoped instance
+    // (LeafIQApplication#getCareScheduleManager). After process death the first re-arm sets
+    // the alarm again, which is harmless - FLAG_UPDATE_CURRENT replaces the pending one.
+    private long armedAlarmTime = NO_ALARM;
+
     /**
      * Creates a CareScheduleManager.
      *
@@ -53,17 +66,50 @@ public class CareScheduleManager {
      * - If schedule exists and isCustom=true: DOES NOT update (preserves user customization)
      * - If schedule doesn't exist: creates new schedule
      * <p>
-     * After processing all items, schedules the next daily alarm.
+     * Runs as one database transaction: existing schedules and their latest completions are
+     * read together, the diff is computed in memory and written as one upsert batch.
+     * After processing all items, re-arms the reminder alarm.
+     * MUST be called from background thread.
      *
      * @param plantId Plant ID to create schedules for
      * @param careItems List of CareItems from AI analysis
      * @return List of schedules that need user prompt (isCustom=true with different AI frequency)
      */
     public List<CareSchedule> createSchedulesFromCareItems(String plantId, List<CareItem> careItems) {
-        List<CareSchedule> needsPrompt = new ArrayList<>();
+        List<CareSchedule> needsPrompt;
+        try {
+            ScheduleReconciliation reconciliation = repository.reconcileSchedulesSync(plantId,
+                    (existing, lastCompletedAt) -> planReconciliation(
+                            plantId, careItems, existing, lastCompletedAt, System.currentTimeMillis()));
+            Log.i("CareSystem", "Reconciled schedules for " + plantId + ": "
+                    + reconciliation.upserts.size() + " written, "
+                    + reconciliation.needsPrompt.size() + " need prompt");
+            needsPrompt = reconciliation.needsPrompt;
+        } catch (RuntimeException e) {
+            Log.e("CareSystem", "Failed to reconcile schedules for " + plantId, e);
+            needsPrompt = new ArrayList<>();
+        }
 
-        // Get existing schedules for this plant
-        List<CareSchedule> existingSchedules = repository.getSchedulesByPlantIdSync(plantId);
+        // Schedule next alarm after processing all items
+        scheduleNextAlarm();
+
+        return needsPrompt;
+    }
+
+    /**
+     * Computes the schedule diff for createSchedulesFromCareItems. Pure: no I/O.
+     *
+     * @param plantId Plant the schedules belong to
+     * @param careItems CareItems from AI analysis
+     * @param existing Plant's current schedules
+     * @param lastCompletedAt Latest completion time per schedule ID
+     * @param now Current time, base for schedules without completions
+     */
+    static ScheduleReconciliation planReconciliation(String plantId, List<CareItem> careItems,
+                                                     List<CareSchedule> existing,
+                                                     Map<String, Long> lastCompletedAt, long now) {
+        ScheduleReconciliation reconciliation = new ScheduleReconciliation();
+        List<CareSchedule> known = new ArrayList<>(existing);
 
         for (CareItem item : careItems) {
             // Only process water, fertilize, repot (NOT prune per user decision)
@@ -72,7 +118,7 @@ public class CareScheduleManager {
             }
 
             // Check if schedule already exists for this care type
-            CareSchedule existingSchedule = findScheduleByType(existingSchedules, item.type);
+            CareSchedule existingSchedule = findScheduleByType(known, item.type);
 
             if (existingSchedule != null) {
                 if (!existingSchedule.isCustom) {
@@ -81,24 +127,13 @@ public class CareScheduleManager {
                     existingSchedule.notes = item.notes;
 
                     // Recalculate nextDue from last completion (or now if no completion)
-                    CareCompletion lastCompletion = repository.getLastCompletionForScheduleSync(existingSchedule.id);
-                    if (lastCompletion != null) {
-                        existingSchedule.nextDue = lastCompletion.completedAt + (item.frequencyDays * MILLIS_PER_DAY);
-                    } else {
-                        existingSchedule.nextDue = System.currentTimeMillis() + (item.frequencyDays * MILLIS_PER_DAY);
-                    }
+                    Long lastCompletion = lastCompletedAt.get(existingSchedule.id);
+                    long base = lastCompletion != null ? lastCompletion : now;
+                    existingSchedule.nextDue = base + (item.frequencyDays * MILLIS_PER_DAY);
 
-                    repository.updateSchedule(existingSchedule, new PlantRepository.RepositoryCallback<Void>() {
-                        @Override
-                        public void onSuccess(Void result) {
-                            // Updated successfully
-                        }
-
-                        @Override
-                        public void onError(Exception e) {
-                            // Log error silently
-                        }
-                    });
+                    if (!reconciliation.upserts.contains(existingSchedule)) {
+                        reconciliation.upserts.add(existingSchedule);
+                    }
                 } else {
                     // User-customized schedule: DO NOT update, flag for prompt
                     if (existingSchedule.frequencyDays != item.frequencyDays) {
@@ -106,7 +141,9 @@ public class CareScheduleManager {
                         // Format: "AI_RECOMMENDED:X|original_notes"
                         existingSchedule.notes = "AI_RECOMMENDED:" + item.frequencyDays + "|" +
                                 (item.notes != null ? item.notes : "");
-                        needsPrompt.add(existingSchedule);
+                        if (!reconciliation.needsPrompt.contains(existingSchedule)) {
+                            reconciliation.needsPrompt.add(existingSchedule);
+                        }
                     }
                 }
             } else {
@@ -116,72 +153,147 @@ public class CareScheduleManager {
                 newSchedule.plantId = plantId;
                 newSchedule.careType = item.type;
                 newSchedule.frequencyDays = item.frequencyDays;
-                newSchedule.nextDue = System.currentTimeMillis() + (item.frequencyDays * MILLIS_PER_DAY);
+                newSchedule.nextDue = now + (item.frequencyDays * MILLIS_PER_DAY);
                 newSchedule.isCustom = false;
                 newSchedule.isEnabled = true;
                 newSchedule.snoozeCount = 0;
                 newSchedule.notes = item.notes;
 
-                repository.insertSchedule(newSchedule, new PlantRepository.RepositoryCallback<Void>() {
-                    @Override
-                    public void onSuccess(Void result) {
-                        // Inserted successfully
-                    }
-
-                    @Override
-                    public void onError(Exception e) {
-                        // Log error silently
-                    }
-                });
+                known.add(newSchedule);
+                reconciliation.upserts.add(newSchedule);
             }
         }
-
-        // Schedule next alarm after processing all items
-        scheduleNextAlarm();
-
-        return needsPrompt;
+        return reconciliation;
     }
 
     /**
-     * Schedules the next daily alarm for reminder checking.
+     * Arms the reminder alarm for the next real event.
      * <p>
-     * If reminders are paused, cancels any existing alarm and returns.
-     * Otherwise, schedules an alarm for the user's preferred reminder time
-     * (today if not yet passed, otherwise tomorrow).
+     * If reminders are paused, cancels any existing alarm and returns. Otherwise two
+     * candidates go into a priority queue: the earliest nextDue still in the future
+     * (indexed MIN query), and - only while some schedule is already overdue - the next
+     * preferred reminder time, so outstanding tasks are re-notified once a day. The
+     * earliest candidate is armed: with quiet hours on it fires at the event itself unless that
+     * falls in quiet hours; with quiet hours off (the default) it moves to the next preferred
+     * reminder time at or after the event, as the daily reminder always did. With no
+     * candidates the alarm is cancelled and the device is not woken at all.
+     * <p>
+     * Cheap enough to call after every schedule change: two index seeks, and AlarmManager
+     * is only touched when the computed time differs from the armed one.
+     * MUST be called from background thread.
      */
-    public void scheduleNextAlarm() {
+    public synchronized void scheduleNextAlarm() {
         if (keystoreHelper.areRemindersPaused()) {
             cancelAlarm();
             return;
         }
 
-        // Get preferred reminder time
+        long now = System.currentTimeMillis();
         int[] preferredTime = keystoreHelper.getPreferredReminderTime();
-        int hourOfDay = preferredTime[0];
-        int minute = preferredTime[1];
+        // Equal bounds mean no quiet hours
+        int quietStartMinutes = 0;
+        int quietEndMinutes = 0;
+        if (keystoreHelper.areQuietHoursEnabled()) {
+            int[] quietStart = keystoreHelper.getQuietHoursStart();
+            int[] quietEnd = keystoreHelper.getQuietHoursEnd();
+            quietStartMinutes = quietStart[0] * 60 + quietStart[1];
+            quietEndMinutes = quietEnd[0] * 60 + quietEnd[1];
+        }
+
+        Long alarmTimeMillis = computeNextAlarmTime(now,
+                repository.getEarliestNextDueSync(),
+                repository.getNextDueAfterSync(now),
+                preferredTime[0] * 60 + preferredTime[1],
+                quietStartMinutes, quietEndMinutes,
+                TimeZone.getDefault());
+
+        if (alarmTimeMillis == null) {
+            cancelAlarm();
+            Log.i("CareSystem", "No upcoming care events, reminder alarm cleared");
+            return;
+        }
+        if (alarmTimeMillis == armedAlarmTime) {
+            return;
+        }
+
+        armAlarm(alarmTimeMillis);
+        armedAlarmTime = alarmTimeMillis;
+        Log.i("CareSystem", "Reminder alarm armed in " + ((alarmTimeMillis - now) / 60000) + " min");
+    }
+
+    /**
+     * Picks the next alarm time. Pure: no I/O.
+     *
+     * @param now Current time
+     * @param earliestDue Earliest nextDue among enabled schedules (null = none)
+     * @param nextDueAfterNow Earliest nextDue later than now (null = none)
+     * @param preferredMinutes Preferred reminder time, minutes since midnight
+     * @param quietStartMinutes Quiet hours start, minutes since midnight
+     * @param quietEndMinutes Quiet hours end, minutes since midnight (equal to start = quiet
+     *                        hours off: every alarm is moved to the preferred time)
+     * @param timeZone Zone the minute-of-day settings are in
+     * @return Alarm time, or null when nothing needs a reminder
+     */
+    static Long computeNextAlarmTime(long now, Long earliestDue, Long nextDueAfterNow,
+                                     int preferredMinutes, int quietStartMinutes,
+                                     int quietEndMinutes, TimeZone timeZone) {
+        PriorityQueue<Long> candidates = new PriorityQueue<>();
+        if (nextDueAfterNow != null) {
+            candidates.add(nextDueAfterNow);
+        }
+        if (earliestDue != null && earliestDue <= now) {
+            // Something is overdue: remind again at the next preferred time
+            candidates.add(nextTimeOfDay(now, preferredMinutes, timeZone));
+        }
+
+        Long next = candidates.poll();
+        if (next == null) {
+            return null;
+        }
+        if (quietStartMinutes == quietEndMinutes) {
+            // No quiet hours: reminders only ever go out at the preferred time of day
+            return nextTimeOfDay(next - 1, preferredMinutes, timeZone);
+        }
+        return clampOutOfQuietHours(next, quietStartMinutes, quietEndMinutes, timeZone);
+    }
+
+    /**
+     * Moves a time inside quiet hours [quietStartMinutes, quietEndMinutes) to the end of
+     * quiet hours. The window may wrap midnight; equal bounds mean no quiet hours.
+     */
+    static long clampOutOfQuietHours(long time, int quietStartMinutes, int quietEndMinutes,
+                                     TimeZone timeZone) {
+        if (quietStartMinutes == quietEndMinutes) {
+            return time;
+        }
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(time);
+        int minuteOfDay = calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+
+        boolean quiet = quietStartMinutes < quietEndMinutes
+                ? minuteOfDay >= quietStartMinutes && minuteOfDay < quietEndMinutes
+                : minuteOfDay >= quietStartMinutes || minuteOfDay < quietEndMinutes;
+        return quiet ? nextTimeOfDay(time, quietEndMinutes, timeZone) : time;
+    }
 
-        // Calculate next alarm time
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(Calendar.HOUR_OF_DAY, hourOfDay);
-        calendar.set(Calendar.MINUTE, minute);
+    /**
+     * @return The first moment strictly after {@code after} whose local time is minuteOfDay
+     */
+    static long nextTimeOfDay(long after, int minuteOfDay, TimeZone timeZone) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(after);
+        calendar.set(Calendar.HOUR_OF_DAY, minuteOfDay / 60);
+        calendar.set(Calendar.MINUTE, minuteOfDay % 60);
         calendar.set(Calendar.SECOND, 0);
         calendar.set(Calendar.MILLISECOND, 0);
-
-        // If time has passed today, schedule for tomorrow
-        if (calendar.getTimeInMillis() <= System.currentTimeMillis()) {
+        if (calendar.getTimeInMillis() <= after) {
             calendar.add(Calendar.DAY_OF_MONTH, 1);
         }
+        return calendar.getTimeInMillis();
+    }
 
-        long alarmTimeMillis = calendar.getTimeInMillis();
-
-        // Create PendingIntent for CareReminderReceiver
-        Intent intent = new Intent(context, CareReminderReceiver.class);
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                DAILY_ALARM_REQUEST_CODE,
-                intent,
-                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
-        );
+    private void armAlarm(long alarmTimeMillis) {
+        PendingIntent pendingIntent = createAlarmPendingIntent();
 
         // Schedule exact alarm
         if (alarmManager != null) {
@@ -212,28 +324,33 @@ public class CareScheduleManager {
         }
     }
 
-    /**
-     * Cancels the daily alarm.
-     */
-    public void cancelAlarm() {
+    private PendingIntent createAlarmPendingIntent() {
         Intent intent = new Intent(context, CareReminderReceiver.class);
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+        return PendingIntent.getBroadcast(
                 context,
-                DAILY_ALARM_REQUEST_CODE,
+                REMINDER_ALARM_REQUEST_CODE,
                 intent,
                 PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
         );
+    }
 
+    /**
+     * Cancels the reminder alarm.
+     */
+    public synchronized void cancelAlarm() {
         if (alarmManager != null) {
-            alarmManager.cancel(pendingIntent);
+            alarmManager.cancel(createAlarmPendingIntent());
         }
+        armedAlarmTime = NO_ALARM;
     }
 
     /**
      * Reschedules all alarms.
-     * Called by BootReceiver after device reboot.
+     * Called by BootReceiver after device reboot. MUST be called from background thread.
      */
     public void rescheduleAllAlarms() {
+        // AlarmManager forgot the alarm on reboot
+        armedAlarmTime = NO_ALARM;
         if (!keystoreHelper.areRemindersPaused()) {
             scheduleNextAlarm();
         }
@@ -241,76 +358,50 @@ public class CareScheduleManager {
 
     /**
      * Toggles reminders for a specific plant.
-     * Updates all schedules for the plant and recalculates nextDue when re-enabling.
+     * Updates all schedules for the plant in one set-based UPDATE; enabling recomputes each nextDue from its last completion
+     * (or now + frequency if never completed) in SQL.
+     * MUST be called from background thread.
      *
      * @param plantId Plant ID
      * @param enabled True to enable reminders, false to disable
      */
     public void toggleRemindersForPlant(String plantId, boolean enabled) {
-        List<CareSchedule> schedules = repository.getSchedulesByPlantIdSync(plantId);
+        int updated = repository.setRemindersEnabledForPlantsSync(Collections.singletonList(plantId), enabled);
+        Log.i("CareSystem", (enabled ? "Enabled " : "Disabled ") + updated + " schedules for " + plantId);
 
-        for (CareSchedule schedule : schedules) {
-            schedule.isEnabled = enabled;
-
-            if (enabled) {
-                // Recalculate nextDue from last completion
-                CareCompletion lastCompletion = repository.getLastCompletionForScheduleSync(schedule.id);
-                if (lastCompletion != null) {
-                    schedule.nextDue = lastCompletion.completedAt + (schedule.frequencyDays * MILLIS_PER_DAY);
-                } else {
-                    schedule.nextDue = System.currentTimeMillis() + (schedule.frequencyDays * MILLIS_PER_DAY);
-                }
-            }
+        // Reschedule alarm
+        scheduleNextAlarm();
+    }
 
-            repository.updateSchedule(schedule, new PlantRepository.RepositoryCallback<Void>() {
-                @Override
-                public void onSuccess(Void result) {
-                    // Updated successfully
-                }
+    /**
+     * Pauses or resumes reminders for every plant in a location, on the same set-based
+     * path as toggleRemindersForPlant. MUST be called from background thread.
+     *
+     * @param location Exact location name
+     * @param enabled true to resume reminders, false to pause them
+     * @return Number of schedules updated
+     */
+    public int setRemindersEnabledForLocation(String location, boolean enabled) {
+        int updated = repository.setRemindersEnabledForLocationSync(location, enabled);
+        Log.i("CareSystem", (enabled ? "Enabled " : "Disabled ") + updated
+                + " schedules in location " + location);
 
-                @Override
-                public void onError(Exception e) {
-                    // Log error silently
-                }
-            });
+        if (updated > 0) {
+            scheduleNextAlarm();
         }
-
-        // Reschedule alarm
-        scheduleNextAlarm();
+        return updated;
     }
 
     /**
      * Updates the frequency of a care schedule and marks it as custom.
+     * Recalculates nextDue from the last completion (or now + frequency) in the same UPDATE.
+     * MUST be called from background thread.
      *
      * @param scheduleId Schedule ID to update
      * @param newFrequencyDays New frequency in days
      */
     public void updateScheduleFrequency(String scheduleId, int newFrequencyDays) {
-        CareSchedule schedule = repository.getScheduleByIdSync(scheduleId);
-        if (schedule != null) {
-            schedule.frequencyDays = newFrequencyDays;
-            schedule.isCustom = true;
-
-            // Recalculate nextDue from last completion (or now if no completion)
-            CareCompletion lastCompletion = repository.getLastCompletionForScheduleSync(scheduleId);
-            if (lastCompletion != null) {
-                schedule.nextDue = lastCompletion.completedAt + (newFrequencyDays * MILLIS_PER_DAY);
-            } else {
-                schedule.nextDue = System.currentTimeMillis() + (newFrequencyDays * MILLIS_PER_DAY);
-            }
-
-            repository.updateSchedule(schedule, new PlantRepository.RepositoryCallback<Void>() {
-                @Override
-                public void onSuccess(Void result) {
-                    // Updated successfully
-                }
-
-                @Override
-                public void onError(Exception e) {
-                    // Log error silently
-                }
-            });
-
+        if (repository.updateScheduleFrequencySync(scheduleId, newFrequencyDays)) {
             // Reschedule alarm
             scheduleNextAlarm();
         }
@@ -318,42 +409,14 @@ public class CareScheduleManager {
 
     /**
      * Recalculates the nextDue date for a schedule based on its last completion.
-     * Called after deleting a care completion to update the schedule timing.
+     * Called after deleting a care completion to update the schedule timing. Runs as one
+     * UPDATE; with no completions left nextDue resets to now + frequency.
+     * MUST be called from background thread.
      *
      * @param scheduleId Schedule ID to recalculate
      */
     public void recalculateNextDue(String scheduleId) {
-        CareSchedule schedule = repository.getScheduleByIdSync(scheduleId);
-        if (schedule == null) {
-            return;
-        }
-
-        // Find the last remaining completion for this schedule
-        CareCompletion lastCompletion = repository.getLastCompletionForScheduleSync(scheduleId);
-
-        if (lastCompletion != null) {
-            // Calculate nextDue from last completion
-            schedule.nextDue = lastCompletion.completedAt + (schedule.frequencyDays * MILLIS_PER_DAY);
-        } else {
-            // No completions remaining - reset to current time + frequency
-            schedule.nextDue = System.currentTimeMillis() + (schedule.frequencyDays * MILLIS_PER_DAY);
-        }
-
-        // Update schedule in database
-        repository.updateSchedule(schedule, new PlantRepository.RepositoryCallback<Void>() {
-            @Override
-            public void onSuccess(Void result) {
-                // Updated successfully
-            }
-
-            @Override
-            public void onError(Exception e) {
-                // Log error silently
-            }
-        });
-
-        // Reschedule alarm if schedule is enabled
-        if (schedule.isEnabled) {
+        if (repository.recalculateNextDueSync(scheduleId)) {
             scheduleNextAlarm();
         }
     }
@@ -361,7 +424,7 @@ public class CareScheduleManager {
     /**
      * Helper method to find existing schedule by care type.
      */
-    private CareSchedule findScheduleByType(List<CareSchedule> schedules, String careType) {
+    private static CareSchedule findScheduleByType(List<CareSchedule> schedules, String careType) {
         for (CareSchedule schedule : schedules) {
             if (schedule.careType.equals(careType)) {
                 return schedule;
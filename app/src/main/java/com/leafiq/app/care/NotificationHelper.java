@@ -1,5 +1,6 @@
 package com.leafiq.app.care;
 
+import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
@@ -13,12 +14,22 @@ import androidx.core.app.NotificationCompat;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.bitmap.CircleCrop;
+import com.bumptech.glide.request.FutureTarget;
 import com.leafiq.app.R;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.ui.care.CareOverviewActivity;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.ScheduleWithPlant;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for notification channel creation and notification building.
@@ -33,6 +44,16 @@ public class NotificationHelper {
     public static final String GROUP_KEY = "com.leafiq.app.CARE_REMINDERS";
 
     private static final int MAX_VISIBLE_ITEMS = 5;
+    private static final int THUMBNAIL_SIZE_PX = 48;
+
+    /**
+     * Total time all thumbnail loads may take together. Keeps the daily alarm well inside
+     * the receiver's goAsync() window; notifications that miss it are posted without an icon.
+     */
+    static final long THUMBNAIL_BUDGET_MS = 2000;
+
+    // Serializes read-diff-write passes over NotificationStateStore across receivers
+    private static final Object STATE_LOCK = new Object();
 
     /**
      * Simple POJO to pair a care schedule with its plant.
@@ -45,6 +66,19 @@ public class NotificationHelper {
             this.schedule = schedule;
             this.plant = plant;
         }
+
+        /**
+         * Builds from a due-schedule JOIN row. The plant carries only the columns
+         * notifications display (id, names, thumbnail).
+         */
+        public DueScheduleInfo(ScheduleWithPlant row) {
+            this.schedule = row.schedule;
+            this.plant = new Plant();
+            this.plant.id = row.schedule.plantId;
+            this.plant.commonName = row.plantCommonName;
+            this.plant.nickname = row.plantNickname;
+            this.plant.thumbnailPath = row.plantThumbnailPath;
+        }
     }
 
     /**
@@ -69,15 +103,43 @@ public class NotificationHelper {
     }
 
     /**
-     * Builds and displays grouped notifications for due plant care schedules.
-     * Creates child notifications for each schedule and a summary notification.
+     * Result of diffing the wanted child notifications against the posted ones.
+     */
+    static class NotificationDiff {
+        /** New or changed children, in display order */
+        final List<DueScheduleInfo> toPost;
+        /** Schedule IDs of posted children that are no longer wanted */
+        final List<String> toCancel;
+        /** Children already posted with the same content */
+        final int unchanged;
+
+        NotificationDiff(List<DueScheduleInfo> toPost, List<String> toCancel, int unchanged) {
+            this.toPost = toPost;
+            this.toCancel = toCancel;
+            this.unchanged = unchanged;
+        }
+    }
+
+    /**
+     * Brings the posted care notifications in line with the due schedules.
+     * <p>
+     * Up to MAX_VISIBLE_ITEMS schedules get a child notification. Each child's content
+     * hash is compared with the record in NotificationStateStore: only new or changed
+     * children are built and posted, children no longer due are cancelled, and the summary
+     * is re-posted only when its content changed. Unchanged notifications cause no
+     * NotificationManager calls (and no re-alert). Children the user swiped away are
+     * forgotten on dismissal, so they come back on the next pass while still due.
+     * An empty list cancels everything that is still posted.
+     * <p>
+     * Thumbnails for the children being posted are requested up front and collected
+     * against one shared deadline. MUST be called from background thread.
      *
      * @param context Application context
      * @param dueSchedules List of schedules due with their associated plants
      */
     public static void buildGroupedNotification(Context context, List<DueScheduleInfo> dueSchedules) {
-        if (dueSchedules == null || dueSchedules.isEmpty()) {
-            return;
+        if (dueSchedules == null) {
+            dueSchedules = new ArrayList<>();
         }
 
         NotificationManager notificationManager =
@@ -86,52 +148,132 @@ public class NotificationHelper {
             return;
         }
 
-        // Build child notifications (up to MAX_VISIBLE_ITEMS)
-        int itemCount = Math.min(dueSchedules.size(), MAX_VISIBLE_ITEMS);
-        for (int i = 0; i < itemCount; i++) {
-            DueScheduleInfo info = dueSchedules.get(i);
-            CareSchedule schedule = info.schedule;
-            Plant plant = info.plant;
+        synchronized (STATE_LOCK) {
+            NotificationStateStore store = new NotificationStateStore(context);
 
-            String careEmoji = getCareEmoji(schedule.careType);
-            String careVerb = getCareVerb(schedule.careType);
-            String displayName = getPlantDisplayName(plant);
+            int itemCount = Math.min(dueSchedules.size(), MAX_VISIBLE_ITEMS);
+            List<DueScheduleInfo> visible = dueSchedules.subList(0, itemCount);
+            NotificationDiff diff = diffNotifications(store.getPostedChildren(), visible);
 
-            // Load circular plant thumbnail (sync load on background thread)
-            Bitmap circularThumbnail = null;
-            if (plant.thumbnailPath != null && !plant.thumbnailPath.isEmpty()) {
-                try {
-                    circularThumbnail = Glide.with(context)
-                            .asBitmap()
-                            .load(plant.thumbnailPath)
-                            .transform(new CircleCrop())
-                            .submit(48, 48)
-                            .get();
-                } catch (Exception e) {
-                    // If thumbnail loading fails, continue without it
-                    android.util.Log.w("NotificationHelper", "Failed to load thumbnail for " + displayName, e);
+            for (String scheduleId : diff.toCancel) {
+                notificationManager.cancel(scheduleId.hashCode());
+            }
+
+            // Build and post only new or changed children
+            List<Bitmap> thumbnails = loadThumbnails(context, diff.toPost);
+            Map<String, Integer> posted = new HashMap<>();
+            for (int i = 0; i < diff.toPost.size(); i++) {
+                DueScheduleInfo info = diff.toPost.get(i);
+                Notification child = buildChildNotification(context, info, thumbnails.get(i));
+                // Notify with unique ID per schedule
+                notificationManager.notify(info.schedule.id.hashCode(), child);
+                posted.put(info.schedule.id, contentHash(info));
+            }
+
+            Integer summaryHash = null;
+            if (dueSchedules.isEmpty()) {
+                if (store.getSummaryHash() == null && diff.toCancel.isEmpty()) {
+                    return;
+                }
+                notificationManager.cancel(SUMMARY_NOTIFICATION_ID);
+            } else {
+                summaryHash = summaryHash(dueSchedules);
+                if (!summaryHash.equals(store.getSummaryHash())) {
+                    notificationManager.notify(SUMMARY_NOTIFICATION_ID,
+                            buildSummaryNotification(context, dueSchedules));
+                } else if (diff.toPost.isEmpty() && diff.toCancel.isEmpty()) {
+                    Log.i("CareSystem", "Care notifications unchanged (" + diff.unchanged + ")");
+                    return;
                 }
             }
 
-            // Build child notification
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
-                    .setSmallIcon(R.drawable.ic_notification)
-                    .setContentTitle(careEmoji + " " + displayName)
-                    .setContentText(context.getString(R.string.time_to_care, careVerb.toLowerCase()))
-                    .setGroup(GROUP_KEY)
-                    .setDeleteIntent(createDeleteIntent(context, schedule.id))
-                    .addAction(R.drawable.ic_check, "Done", createDonePendingIntent(context, schedule.id))
-                    .addAction(R.drawable.ic_snooze, "Snooze", createSnoozePendingIntent(context, schedule.id))
-                    .setAutoCancel(false)
-                    .setContentIntent(createCareOverviewPendingIntent(context));
-
-            if (circularThumbnail != null) {
-                builder.setLargeIcon(circularThumbnail);
+            store.update(posted, diff.toCancel, summaryHash);
+            Log.i("CareSystem", "Care notifications: " + diff.toPost.size() + " posted, "
+                    + diff.toCancel.size() + " cancelled, " + diff.unchanged + " unchanged");
+        }
+    }
+
+    /**
+     * Compares wanted children with the posted record. Pure: no I/O.
+     *
+     * @param posted Content hash per posted schedule ID
+     * @param visible Schedules that should have a child notification, in display order
+     */
+    static NotificationDiff diffNotifications(Map<String, Integer> posted, List<DueScheduleInfo> visible) {
+        List<DueScheduleInfo> toPost = new ArrayList<>();
+        Set<String> wanted = new HashSet<>();
+        int unchanged = 0;
+        for (DueScheduleInfo info : visible) {
+            wanted.add(info.schedule.id);
+            Integer postedHash = posted.get(info.schedule.id);
+            if (postedHash != null && postedHash == contentHash(info)) {
+                unchanged++;
+            } else {
+                toPost.add(info);
             }
+        }
+
+        List<String> toCancel = new ArrayList<>();
+        for (String scheduleId : posted.keySet()) {
+            if (!wanted.contains(scheduleId)) {
+                toCancel.add(scheduleId);
+            }
+        }
+        return new NotificationDiff(toPost, toCancel, unchanged);
+    }
+
+    /**
+     * Hash of everything a child notification displays. Its actions only depend on the
+     * schedule ID, which is the notification's key.
+     */
+    static int contentHash(DueScheduleInfo info) {
+        return Objects.hash(info.schedule.careType, getPlantDisplayName(info.plant),
+                info.plant.thumbnailPath);
+    }
 
-            // Notify with unique ID per schedule
-            notificationManager.notify(schedule.id.hashCode(), builder.build());
+    /**
+     * Hash of the summary: the total count, every ID in the mark-all-done action and the
+     * content of the visible lines.
+     */
+    static int summaryHash(List<DueScheduleInfo> dueSchedules) {
+        int hash = dueSchedules.size();
+        for (int i = 0; i < dueSchedules.size(); i++) {
+            DueScheduleInfo info = dueSchedules.get(i);
+            hash = 31 * hash + info.schedule.id.hashCode();
+            if (i < MAX_VISIBLE_ITEMS) {
+                hash = 31 * hash + contentHash(info);
+            }
         }
+        return hash;
+    }
+
+    private static Notification buildChildNotification(Context context, DueScheduleInfo info,
+                                                       Bitmap circularThumbnail) {
+        CareSchedule schedule = info.schedule;
+
+        String careEmoji = getCareEmoji(schedule.careType);
+        String careVerb = getCareVerb(schedule.careType);
+        String displayName = getPlantDisplayName(info.plant);
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentTitle(careEmoji + " " + displayName)
+                .setContentText(context.getString(R.string.time_to_care, careVerb.toLowerCase()))
+                .setGroup(GROUP_KEY)
+                .setDeleteIntent(createDeleteIntent(context, schedule.id))
+                .addAction(R.drawable.ic_check, "Done", createDonePendingIntent(context, schedule.id))
+                .addAction(R.drawable.ic_snooze, "Snooze", createSnoozePendingIntent(context, schedule.id))
+                .setAutoCancel(false)
+                .setContentIntent(createCareOverviewPendingIntent(context));
+
+        if (circularThumbnail != null) {
+            builder.setLargeIcon(circularThumbnail);
+        }
+        return builder.build();
+    }
+
+    private static Notification buildSummaryNotification(Context context, List<DueScheduleInfo> dueSchedules) {
+        int itemCount = Math.min(dueSchedules.size(), MAX_VISIBLE_ITEMS);
 
         // Build summary notification with InboxStyle
         NotificationCompat.InboxStyle inboxStyle = new NotificationCompat.InboxStyle();
@@ -152,18 +294,58 @@ public class NotificationHelper {
         inboxStyle.setBigContentTitle(context.getString(R.string.n_plants_need_care, dueSchedules.size()));
         inboxStyle.setSummaryText(context.getString(R.string.tap_to_view_all));
 
-        NotificationCompat.Builder summaryBuilder = new NotificationCompat.Builder(context, CHANNEL_ID)
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
                 .setSmallIcon(R.drawable.ic_notification)
                 .setStyle(inboxStyle)
                 .setGroup(GROUP_KEY)
                 .setGroupSummary(true)
                 .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
                 .addAction(R.drawable.ic_check, "Mark All Done", createMarkAllDoneIntent(context, dueSchedules))
-                .setContentIntent(createCareOverviewPendingIntent(context));
+                .setContentIntent(createCareOverviewPendingIntent(context))
+                .build();
+    }
 
-        notificationManager.notify(SUMMARY_NOTIFICATION_ID, summaryBuilder.build());
+    /**
+     * Loads circular plant thumbnails concurrently. All Glide requests are submitted before
+     * any is awaited, and together they may take at most THUMBNAIL_BUDGET_MS; slow or failed
+     * loads come back as null and are cancelled.
+     *
+     * @return One entry per item, null where no thumbnail is available
+     */
+    private static List<Bitmap> loadThumbnails(Context context, List<DueScheduleInfo> items) {
+        List<FutureTarget<Bitmap>> requests = new ArrayList<>(items.size());
+        for (DueScheduleInfo info : items) {
+            String path = info.plant.thumbnailPath;
+            if (path != null && !path.isEmpty()) {
+                requests.add(Glide.with(context)
+                        .asBitmap()
+                        .load(path)
+                        .transform(new CircleCrop())
+                        .submit(THUMBNAIL_SIZE_PX, THUMBNAIL_SIZE_PX));
+            } else {
+                requests.add(null);
+            }
+        }
 
-        Log.i("CareSystem", "Built " + itemCount + " care notifications with summary");
+        long deadline = System.currentTimeMillis() + THUMBNAIL_BUDGET_MS;
+        List<Bitmap> thumbnails = new ArrayList<>(items.size());
+        for (int i = 0; i < requests.size(); i++) {
+            FutureTarget<Bitmap> request = requests.get(i);
+            Bitmap bitmap = null;
+            if (request != null) {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                try {
+                    bitmap = request.get(remaining, TimeUnit.MILLISECONDS);
+                } catch (Exception e) {
+                    // If thumbnail loading fails or runs out of time, continue without it
+                    request.cancel(true);
+                    Log.w("NotificationHelper", "No thumbnail for "
+                            + getPlantDisplayName(items.get(i).plant) + ": " + e);
+                }
+            }
+            thumbnails.add(bitmap);
+        }
+        return thumbnails;
     }
 
     /**
@@ -174,21 +356,53 @@ public class NotificationHelper {
      * @param scheduleId Schedule ID to dismiss
      */
     public static void dismissNotification(Context context, String scheduleId) {
+        dismissNotifications(context, Collections.singletonList(scheduleId));
+    }
+
+    /**
+     * Dismisses the notifications for several schedules, then updates or dismisses the
+     * summary once for the whole batch.
+     *
+     * @param context Application context
+     * @param scheduleIds Schedule IDs to dismiss
+     */
+    public static void dismissNotifications(Context context, List<String> scheduleIds) {
         NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
         if (nm == null) {
             return;
         }
 
-        // Cancel the child notification
-        nm.cancel(scheduleId.hashCode());
-        Log.i("CareSystem", "Dismissed notification for schedule: " + scheduleId);
+        for (String scheduleId : scheduleIds) {
+            nm.cancel(scheduleId.hashCode());
+        }
+        Log.i("CareSystem", "Dismissed notifications for " + scheduleIds.size() + " schedules");
+
+        forgetAndUpdateSummary(context, nm, scheduleIds);
+    }
+
+    /**
+     * Records that the user swiped away a child notification, then updates or dismisses
+     * the summary. The child is already gone (DeleteIntent fires after dismissal).
+     *
+     * @param context Application context
+     * @param scheduleId Schedule ID of the dismissed child
+     */
+    public static void onNotificationDismissed(Context context, String scheduleId) {
+        NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        forgetAndUpdateSummary(context, nm, Collections.singletonList(scheduleId));
+    }
 
-        // Check remaining children in same group
-        checkAndUpdateSummary(context, nm);
+    private static void forgetAndUpdateSummary(Context context, NotificationManager nm,
+                                               List<String> scheduleIds) {
+        synchronized (STATE_LOCK) {
+            new NotificationStateStore(context).removeChildren(scheduleIds);
+            checkAndUpdateSummary(context, nm);
+        }
     }
 
     /**
-     * Checks remaining child notifications and updates or dismisses summary.
+     * Updates or dismisses the summary from the number of children still recorded as
+     * posted. Reads the persisted record, not NotificationManager's active list.
      *
      * @param context Application context
      * @param nm NotificationManager instance
@@ -198,14 +412,7 @@ public class NotificationHelper {
             return;
         }
 
-        StatusBarNotification[] active = nm.getActiveNotifications();
-        int childCount = 0;
-        for (StatusBarNotification sbn : active) {
-            if (GROUP_KEY.equals(sbn.getNotification().getGroup())
-                && sbn.getId() != SUMMARY_NOTIFICATION_ID) {
-                childCount++;
-            }
-        }
+        int childCount = new NotificationStateStore(context).getPostedChildCount();
 
         if (childCount == 0) {
             nm.cancel(SUMMARY_NOTIFICATION_ID);
@@ -252,6 +459,9 @@ public class NotificationHelper {
                 nm.cancel(sbn.getId());
             }
         }
+        synchronized (STATE_LOCK) {
+            new NotificationStateStore(context).clear();
+        }
         Log.i("CareSystem", "Dismissed all care notifications");
     }
 
@@ -0,0 +1,123 @@
+package com.leafiq.app.care;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persisted record of the care notifications currently posted.
+ * <p>
+ * Keeps one content hash per posted child notification (keyed by schedule ID) plus the
+ * hash of the summary, so NotificationHelper can diff a new set of due schedules against
+ * what is already on screen and only post, cancel or re-count what changed - without
+ * asking NotificationManager for its active notifications.
+ * <p>
+ * Notifications don't survive a reboot, so the record must be cleared on boot.
+ * Writes use commit(); call off the main thread.
+ */
+public class NotificationStateStore {
+
+    private static final String PREFS_NAME = "care_notification_state";
+    private static final String KEY_CHILD_PREFIX = "child:";
+    private static final String KEY_SUMMARY = "summary";
+
+    private final SharedPreferences prefs;
+
+    /**
+     * Constructor for production use.
+     * @param context Application context
+     */
+    public NotificationStateStore(Context context) {
+        this(context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    /**
+     * Package-private constructor for testing.
+     * Allows tests to inject in-memory SharedPreferences.
+     * @param prefs SharedPreferences instance
+     */
+    NotificationStateStore(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    /**
+     * @return Content hash of each posted child notification, keyed by schedule ID
+     */
+    public Map<String, Integer> getPostedChildren() {
+        Map<String, Integer> posted = new HashMap<>();
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getKey().startsWith(KEY_CHILD_PREFIX) && entry.getValue() instanceof Integer) {
+                posted.put(entry.getKey().substring(KEY_CHILD_PREFIX.length()), (Integer) entry.getValue());
+            }
+        }
+        return posted;
+    }
+
+    /**
+     * @return Number of posted child notifications
+     */
+    public int getPostedChildCount() {
+        int count = 0;
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(KEY_CHILD_PREFIX)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Content hash of the posted summary, or null if none is recorded
+     */
+    public Integer getSummaryHash() {
+        return prefs.contains(KEY_SUMMARY) ? prefs.getInt(KEY_SUMMARY, 0) : null;
+    }
+
+    /**
+     * Records one notification pass in a single write.
+     *
+     * @param posted Children posted in this pass with their content hashes
+     * @param cancelled Schedule IDs whose children were cancelled
+     * @param summaryHash Hash of the posted summary, or null if no summary is showing
+     */
+    public void update(Map<String, Integer> posted, Collection<String> cancelled, Integer summaryHash) {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String scheduleId : cancelled) {
+            editor.remove(KEY_CHILD_PREFIX + scheduleId);
+        }
+        for (Map.Entry<String, Integer> entry : posted.entrySet()) {
+            editor.putInt(KEY_CHILD_PREFIX + entry.getKey(), entry.getValue());
+        }
+        if (summaryHash != null) {
+            editor.putInt(KEY_SUMMARY, summaryHash);
+        } else {
+            editor.remove(KEY_SUMMARY);
+        }
+        editor.commit();
+    }
+
+    /**
+     * Forgets dismissed children. The summary hash is dropped too, since the summary is
+     * rewritten with the remaining count and no longer matches a full pass.
+     *
+     * @param scheduleIds Schedule IDs whose children are gone
+     */
+    public void removeChildren(Collection<String> scheduleIds) {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String scheduleId : scheduleIds) {
+            editor.remove(KEY_CHILD_PREFIX + scheduleId);
+        }
+        editor.remove(KEY_SUMMARY);
+        editor.commit();
+    }
+
+    /**
+     * Forgets every posted notification.
+     */
+    public void clear() {
+        prefs.edit().clear().commit();
+    }
+}
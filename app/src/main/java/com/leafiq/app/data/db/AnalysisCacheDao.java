@@ -0,0 +1,40 @@
+package com.leafiq.app.data.db;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.leafiq.app.data.entity.AnalysisCacheEntry;
+
+import java.util.List;
+
+@Dao
+public interface AnalysisCacheDao {
+    @Query("SELECT * FROM analysis_cache " +
+           "WHERE provider = :provider AND prompt_hash = :promptHash AND created_at >= :createdAfter " +
+           "ORDER BY last_accessed_at DESC")
+    List<AnalysisCacheEntry> getCandidates(String provider, String promptHash, long createdAfter);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(AnalysisCacheEntry entry);
+
+    @Query("UPDATE analysis_cache SET last_accessed_at = :accessedAt, hit_count = hit_count + 1 WHERE id = :id")
+    void recordHit(String id, long accessedAt);
+
+    @Query("DELETE FROM analysis_cache WHERE id = :id")
+    void deleteById(String id);
+
+    @Query("DELETE FROM analysis_cache WHERE created_at < :cutoff")
+    int deleteCreatedBefore(long cutoff);
+
+    /**
+     * LRU eviction: keeps the most recently used entries up to maxEntries.
+     */
+    @Query("DELETE FROM analysis_cache WHERE id NOT IN " +
+           "(SELECT id FROM analysis_cache ORDER BY last_accessed_at DESC LIMIT :maxEntries)")
+    int trimToSize(int maxEntries);
+
+    @Query("SELECT COUNT(*) FROM analysis_cache")
+    int count();
+}
@@ -1,18 +1,30 @@
 package com.leafiq.app.data.db;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
 import androidx.room.Update;
 
 import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.model.AnalysisSummary;
 import com.leafiq.app.data.model.AnalysisWithPlant;
+import com.leafiq.app.data.model.ParseStatusCount;
 
 import java.util.List;
 
 @Dao
 public interface AnalysisDao {
+    /**
+     * Columns of {@link AnalysisSummary}: everything list screens show, without raw_response.
+     */
+    String SUMMARY_COLUMNS = "analyses.id, analyses.plant_id, analyses.photo_path, " +
+            "analyses.health_score, analyses.summary, analyses.created_at, analyses.parse_status";
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM analyses WHERE plant_id = :plantId ORDER BY created_at DESC")
+    LiveData<List<AnalysisSummary>> getAnalysisSummariesForPlant(String plantId);
+
     @Query("SELECT * FROM analyses WHERE plant_id = :plantId ORDER BY created_at DESC")
     LiveData<List<Analysis>> getAnalysesForPlant(String plantId);
 
@@ -22,9 +34,18 @@ public interface AnalysisDao {
     @Query("SELECT * FROM analyses WHERE plant_id = :plantId ORDER BY created_at DESC LIMIT 1")
     Analysis getLatestForPlantSync(String plantId);
 
+    @Query("SELECT photo_path FROM analyses WHERE plant_id = :plantId ORDER BY created_at DESC LIMIT 1")
+    String getLatestPhotoPathSync(String plantId);
+
     @Query("SELECT * FROM analyses WHERE id = :id")
     Analysis getAnalysisById(String id);
 
+    @Query("SELECT raw_response FROM analyses WHERE id = :id")
+    String getRawResponseSync(String id);
+
+    @Query("UPDATE analyses SET health_score = :healthScore WHERE id = :id")
+    void updateHealthScore(String id, int healthScore);
+
     @Insert
     void insertAnalysis(Analysis analysis);
 
@@ -37,7 +58,7 @@ public interface AnalysisDao {
     @Query("SELECT photo_path FROM analyses WHERE plant_id = :plantId AND photo_path IS NOT NULL")
     List<String> getPhotoPathsForPlantSync(String plantId);
 
-    @Query("SELECT analyses.*, " +
+    @Query("SELECT " + SUMMARY_COLUMNS + ", " +
             "plants.common_name AS plant_common_name, " +
             "plants.thumbnail_path AS plant_thumbnail_path, " +
             "plants.nickname AS plant_nickname, " +
@@ -48,7 +69,23 @@ public interface AnalysisDao {
             "ORDER BY analyses.created_at DESC")
     LiveData<List<AnalysisWithPlant>> getAllAnalysesWithPlant();
 
-    @Query("SELECT analyses.*, " +
+    /**
+     * Timeline page source, newest first, filtered to a health score range in SQL so
+     * only matching rows are ever loaded. Room invalidates it when either table changes.
+     */
+    @Query("SELECT " + SUMMARY_COLUMNS + ", " +
+            "plants.common_name AS plant_common_name, " +
+            "plants.thumbnail_path AS plant_thumbnail_path, " +
+            "plants.nickname AS plant_nickname, " +
+            "plants.scientific_name AS plant_scientific_name, " +
+            "plants.latest_health_score AS plant_latest_health_score " +
+            "FROM analyses " +
+            "INNER JOIN plants ON analyses.plant_id = plants.id " +
+            "WHERE analyses.health_score BETWEEN :minScore AND :maxScore " +
+            "ORDER BY analyses.created_at DESC")
+    PagingSource<Integer, AnalysisWithPlant> getAnalysesWithPlantPaged(int minScore, int maxScore);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + ", " +
             "plants.common_name AS plant_common_name, " +
             "plants.thumbnail_path AS plant_thumbnail_path, " +
             "plants.nickname AS plant_nickname, " +
@@ -60,12 +97,13 @@ public interface AnalysisDao {
             "ORDER BY analyses.created_at DESC")
     LiveData<List<AnalysisWithPlant>> getAnalysesWithPlantForPlant(String plantId);
 
-    @Query("SELECT * FROM analyses WHERE parse_status = 'OK' ORDER BY created_at DESC LIMIT :limit")
-    List<Analysis> getAnalysesNeedingScan(int limit);
-
     @Query("UPDATE analyses SET parse_status = :status WHERE id = :id")
     void updateParseStatus(String id, String status);
 
+    @Query("SELECT provider, structured_output, parse_status, COUNT(*) AS count FROM analyses " +
+            "GROUP BY provider, structured_output, parse_status")
+    List<ParseStatusCount> getParseStatusCounts();
+
     @Query("SELECT COUNT(*) FROM analyses WHERE plant_id = :plantId")
     LiveData<Integer> getAnalysisCountForPlant(String plantId);
 }
@@ -0,0 +1,60 @@
+package com.leafiq.app.data.db;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.entity.AnalysisAction;
+import com.leafiq.app.data.entity.AnalysisDetail;
+import com.leafiq.app.data.entity.AnalysisIssue;
+import com.leafiq.app.data.model.AnalysisWithDetails;
+
+import java.util.List;
+
+@Dao
+public interface AnalysisDetailDao {
+    @Transaction
+    @Query("SELECT * FROM analysis_details WHERE analysis_id = :analysisId")
+    AnalysisWithDetails getAnalysisWithDetailsSync(String analysisId);
+
+    /**
+     * Analyses saved before normalisation existed, oldest first, for the launch backfill.
+     */
+    @Query("SELECT analyses.* FROM analyses " +
+           "LEFT JOIN analysis_details ON analysis_details.analysis_id = analyses.id " +
+           "WHERE analysis_details.analysis_id IS NULL " +
+           "ORDER BY analyses.created_at LIMIT :limit")
+    List<Analysis> getAnalysesWithoutDetails(int limit);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertDetail(AnalysisDetail detail);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertIssues(List<AnalysisIssue> issues);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertActions(List<AnalysisAction> actions);
+
+    @Query("DELETE FROM analysis_issues WHERE analysis_id = :analysisId")
+    void deleteIssuesForAnalysis(String analysisId);
+
+    @Query("DELETE FROM analysis_actions WHERE analysis_id = :analysisId")
+    void deleteActionsForAnalysis(String analysisId);
+
+    /**
+     * Replaces all normalised rows of one analysis atomically.
+     * The analysis row must already exist (foreign keys).
+     */
+    @Transaction
+    default void replaceDetails(AnalysisWithDetails details) {
+        String analysisId = details.detail.analysisId;
+        deleteIssuesForAnalysis(analysisId);
+        deleteActionsForAnalysis(analysisId);
+        insertDetail(details.detail);
+        insertIssues(details.issues);
+        insertActions(details.actions);
+    }
+}
@@ -11,12 +11,20 @@ import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.entity.AnalysisAction;
+import com.leafiq.app.data.entity.AnalysisCacheEntry;
+import com.leafiq.app.data.entity.AnalysisDetail;
+import com.leafiq.app.data.entity.AnalysisIssue;
 import com.leafiq.app.data.entity.CareCompletion;
+import com.leafiq.app.data.entity.CareCompletionMonthly;
 import com.leafiq.app.data.entity.CareItem;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
 
-@Database(entities = {Plant.class, Analysis.class, CareItem.class, CareSchedule.class, CareCompletion.class}, version = 4, exportSchema = true)
+@Database(entities = {Plant.class, Analysis.class, CareItem.class, CareSchedule.class, CareCompletion.class,
+        AnalysisCacheEntry.class, AnalysisDetail.class, AnalysisIssue.class, AnalysisAction.class,
+        CareCompletionMonthly.class},
+        version = 10, exportSchema = true)
 public abstract class AppDatabase extends RoomDatabase {
 
     static final Migration MIGRATION_1_2 = new Migration(1, 2) {
@@ -45,6 +53,123 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `analysis_cache` ("
+                    + "`id` TEXT NOT NULL, `image_hash` INTEGER NOT NULL, `prompt_hash` TEXT, "
+                    + "`provider` TEXT, `result_json` TEXT, `created_at` INTEGER NOT NULL, "
+                    + "`last_accessed_at` INTEGER NOT NULL, `hit_count` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`id`))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_analysis_cache_provider_prompt_hash` "
+                    + "ON `analysis_cache` (`provider`, `prompt_hash`)");
+            Log.i("AppDatabase", "Migration 4->5: created analysis_cache table");
+        }
+    };
+
+    // Tables start empty; ParseScanHelper backfills existing analyses on launch
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `analysis_details` ("
+                    + "`analysis_id` TEXT NOT NULL, `common_name` TEXT, `scientific_name` TEXT, "
+                    + "`confidence` TEXT, `identification_notes` TEXT, "
+                    + "`has_care_plan` INTEGER NOT NULL, `watering_frequency` TEXT, "
+                    + "`watering_amount` TEXT, `watering_notes` TEXT, `light_ideal` TEXT, "
+                    + "`light_current` TEXT, `light_adjustment` TEXT, `fertilizer_type` TEXT, "
+                    + "`fertilizer_frequency` TEXT, `fertilizer_next_application` TEXT, "
+                    + "`pruning_needed` INTEGER NOT NULL, `pruning_instructions` TEXT, "
+                    + "`pruning_when` TEXT, `repotting_needed` INTEGER NOT NULL, "
+                    + "`repotting_signs` TEXT, `repotting_pot_size` TEXT, `seasonal_notes` TEXT, "
+                    + "`fun_fact` TEXT, PRIMARY KEY(`analysis_id`), "
+                    + "FOREIGN KEY(`analysis_id`) REFERENCES `analyses`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `analysis_issues` ("
+                    + "`analysis_id` TEXT NOT NULL, `position` INTEGER NOT NULL, `name` TEXT, "
+                    + "`severity` TEXT, `description` TEXT, `affected_area` TEXT, "
+                    + "PRIMARY KEY(`analysis_id`, `position`), "
+                    + "FOREIGN KEY(`analysis_id`) REFERENCES `analyses`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_analysis_issues_name` "
+                    + "ON `analysis_issues` (`name`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `analysis_actions` ("
+                    + "`analysis_id` TEXT NOT NULL, `position` INTEGER NOT NULL, `action` TEXT, "
+                    + "`priority` TEXT, `detail` TEXT, "
+                    + "PRIMARY KEY(`analysis_id`, `position`), "
+                    + "FOREIGN KEY(`analysis_id`) REFERENCES `analyses`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            Log.i("AppDatabase", "Migration 5->6: created analysis_details, analysis_issues "
+                    + "and analysis_actions tables");
+        }
+    };
+
+    // Indexes match the hot queries' WHERE + ORDER BY so they neither scan nor sort;
+    // the plans are pinned by QueryPlanTest
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            // (plant_id, created_at) also serves plant_id lookups and the foreign key
+            database.execSQL("DROP INDEX IF EXISTS `index_analyses_plant_id`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_analyses_plant_id_created_at` "
+                    + "ON `analyses` (`plant_id`, `created_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_analyses_created_at` "
+                    + "ON `analyses` (`created_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_care_schedules_is_enabled_next_due` "
+                    + "ON `care_schedules` (`is_enabled`, `next_due`)");
+            database.execSQL("DROP INDEX IF EXISTS `index_care_completions_schedule_id`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_care_completions_schedule_id_completed_at` "
+                    + "ON `care_completions` (`schedule_id`, `completed_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_care_completions_completed_at` "
+                    + "ON `care_completions` (`completed_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_care_items_next_due` "
+                    + "ON `care_items` (`next_due`)");
+            Log.i("AppDatabase", "Migration 6->7: added composite indexes for analysis history, "
+                    + "due schedules and care completions");
+        }
+    };
+
+    // Table starts empty; CareHistoryCompactor rolls old completions into it on launch
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `care_completion_monthly` ("
+                    + "`plant_id` TEXT NOT NULL, `month` TEXT NOT NULL, `care_type` TEXT NOT NULL, "
+                    + "`source` TEXT NOT NULL, `completion_count` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`plant_id`, `month`, `care_type`, `source`), "
+                    + "FOREIGN KEY(`plant_id`) REFERENCES `plants`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            Log.i("AppDatabase", "Migration 7->8: created care_completion_monthly table");
+        }
+    };
+
+    // Each analysis used to add care items, so keep only the newest per (plant_id, type):
+    // highest last_done (set at analysis time), then the later insert
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("DELETE FROM `care_items` WHERE EXISTS (SELECT 1 FROM `care_items` AS newer "
+                    + "WHERE newer.`plant_id` = `care_items`.`plant_id` AND newer.`type` = `care_items`.`type` "
+                    + "AND (newer.`last_done` > `care_items`.`last_done` "
+                    + "OR (newer.`last_done` = `care_items`.`last_done` AND newer.rowid > `care_items`.rowid)))");
+            // (plant_id, type) also serves plant_id lookups and the foreign key
+            database.execSQL("DROP INDEX IF EXISTS `index_care_items_plant_id`");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_care_items_plant_id_type` "
+                    + "ON `care_items` (`plant_id`, `type`)");
+            Log.i("AppDatabase", "Migration 8->9: merged duplicate care items and added unique "
+                    + "(plant_id, type) index");
+        }
+    };
+
+    // Existing analyses keep a null provider and structured_output 0 (prompt-only)
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `analyses` ADD COLUMN `provider` TEXT");
+            database.execSQL("ALTER TABLE `analyses` ADD COLUMN `structured_output` INTEGER NOT NULL DEFAULT 0");
+            Log.i("AppDatabase", "Migration 9->10: added provider and structured_output to analyses");
+        }
+    };
+
     private static volatile AppDatabase INSTANCE;
 
     public abstract PlantDao plantDao();
@@ -52,6 +177,8 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract CareItemDao careItemDao();
     public abstract CareScheduleDao careScheduleDao();
     public abstract CareCompletionDao careCompletionDao();
+    public abstract AnalysisCacheDao analysisCacheDao();
+    public abstract AnalysisDetailDao analysisDetailDao();
 
     public static AppDatabase getInstance(Context context) {
         if (INSTANCE == null) {
@@ -62,7 +189,9 @@ public abstract class AppDatabase extends RoomDatabase {
                             AppDatabase.class,
                             "leafiq_database"
                     )
-                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)
+                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5,
+                            MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9,
+                            MIGRATION_9_10)
                     .addCallback(new Callback() {
                         @Override
                         public void onOpen(@NonNull SupportSQLiteDatabase db) {
@@ -4,17 +4,33 @@ import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
 import com.leafiq.app.data.entity.CareCompletion;
+import com.leafiq.app.data.entity.CareCompletionMonthly;
 import com.leafiq.app.data.model.CareCompletionWithPlantInfo;
 
 import java.util.List;
 
 @Dao
 public interface CareCompletionDao {
+    /**
+     * SQL selecting the completions a compaction before :cutoff rolls up: older than the
+     * cutoff and not the latest of their schedule, so next-due recalculation still sees
+     * each schedule's last completion. Served by the completed_at index plus one seek on
+     * (schedule_id, completed_at) per row.
+     */
+    String COMPACTABLE_BEFORE_CUTOFF = "care_completions.completed_at < :cutoff "
+            + "AND care_completions.completed_at < (SELECT MAX(latest.completed_at) "
+            + "FROM care_completions latest WHERE latest.schedule_id = care_completions.schedule_id)";
+
+    /**
+     * Newest completions of a plant (snoozes excluded), detail rows only. A plant's history
+     * is these plus getMonthlyCompletionsForPlant; getCareCompletionCountForPlant counts both.
+     */
     @Query("SELECT cc.* FROM care_completions cc " +
            "INNER JOIN care_schedules cs ON cc.schedule_id = cs.id " +
-           "WHERE cs.plant_id = :plantId " +
+           "WHERE cs.plant_id = :plantId AND cc.source != 'snooze' " +
            "ORDER BY cc.completed_at DESC LIMIT :limit")
     LiveData<List<CareCompletion>> getRecentCompletionsForPlant(String plantId, int limit);
 
@@ -39,11 +55,20 @@ public interface CareCompletionDao {
            "LIMIT :maxEntries")
     List<CareCompletionWithPlantInfo> getRecentCompletions(long afterTimestamp, int maxEntries);
 
-    @Query("SELECT COUNT(*) FROM care_completions cc " +
+    /**
+     * Completions of a plant (snoozes excluded): recent detail rows plus the compacted
+     * monthly counts.
+     */
+    @Query("SELECT (SELECT COUNT(*) FROM care_completions cc " +
            "INNER JOIN care_schedules cs ON cc.schedule_id = cs.id " +
-           "WHERE cs.plant_id = :plantId AND cc.source != 'snooze'")
+           "WHERE cs.plant_id = :plantId AND cc.source != 'snooze') " +
+           "+ (SELECT COALESCE(SUM(completion_count), 0) FROM care_completion_monthly " +
+           "WHERE plant_id = :plantId AND source != 'snooze')")
     LiveData<Integer> getCareCompletionCountForPlant(String plantId);
 
+    /**
+     * Same rows as getRecentCompletionsForPlant, for the inline history preview.
+     */
     @Query("SELECT cc.* FROM care_completions cc " +
            "INNER JOIN care_schedules cs ON cc.schedule_id = cs.id " +
            "WHERE cs.plant_id = :plantId AND cc.source != 'snooze' " +
@@ -58,4 +83,65 @@ public interface CareCompletionDao {
 
     @Query("DELETE FROM care_completions WHERE id = :completionId")
     void deleteCareCompletionById(String completionId);
+
+    /**
+     * Compacted monthly counts of a plant (snoozes excluded), newest month first.
+     * Several sources of the same month and care type come back as separate rows.
+     */
+    @Query("SELECT * FROM care_completion_monthly " +
+           "WHERE plant_id = :plantId AND source != 'snooze' " +
+           "ORDER BY month DESC, care_type DESC, source DESC")
+    LiveData<List<CareCompletionMonthly>> getMonthlyCompletionsForPlant(String plantId);
+
+    /**
+     * Counts of the completions compactable before the cutoff, grouped by plant, local
+     * month, care type and source.
+     */
+    @Query("SELECT cs.plant_id AS plant_id, " +
+           "strftime('%Y-%m', care_completions.completed_at / 1000, 'unixepoch', 'localtime') AS month, " +
+           "COALESCE(cs.care_type, 'unknown') AS care_type, " +
+           "COALESCE(care_completions.source, 'unknown') AS source, " +
+           "COUNT(*) AS completion_count " +
+           "FROM care_completions " +
+           "INNER JOIN care_schedules cs ON care_completions.schedule_id = cs.id " +
+           "WHERE " + COMPACTABLE_BEFORE_CUTOFF + " " +
+           "GROUP BY cs.plant_id, month, cs.care_type, care_completions.source")
+    List<CareCompletionMonthly> getCompactableMonthlyCounts(long cutoff);
+
+    /**
+     * Adds to an existing monthly count.
+     *
+     * @return Number of rows updated (0 if the month has no row yet)
+     */
+    @Query("UPDATE care_completion_monthly SET completion_count = completion_count + :count " +
+           "WHERE plant_id = :plantId AND month = :month AND care_type = :careType AND source = :source")
+    int addToMonthlyCount(String plantId, String month, String careType, String source, int count);
+
+    @Insert
+    void insertMonthlyCount(CareCompletionMonthly monthly);
+
+    /**
+     * @return Number of detail rows deleted
+     */
+    @Query("DELETE FROM care_completions WHERE " + COMPACTABLE_BEFORE_CUTOFF)
+    int deleteCompactableCompletions(long cutoff);
+
+    /**
+     * Rolls completions older than the cutoff into care_completion_monthly and deletes the
+     * detail rows, in one transaction so counts never include a completion twice or miss it.
+     * Each schedule's latest completion is kept as detail whatever its age.
+     *
+     * @param cutoff Completions before this timestamp are compacted
+     * @return Number of detail rows compacted
+     */
+    @Transaction
+    default int compactCompletionsBefore(long cutoff) {
+        for (CareCompletionMonthly monthly : getCompactableMonthlyCounts(cutoff)) {
+            if (addToMonthlyCount(monthly.plantId, monthly.month, monthly.careType,
+                    monthly.source, monthly.completionCount) == 0) {
+                insertMonthlyCount(monthly);
+            }
+        }
+        return deleteCompactableCompletions(cutoff);
+    }
 }
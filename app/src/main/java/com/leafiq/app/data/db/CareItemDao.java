@@ -18,6 +18,11 @@ public interface CareItemDao {
     @Query("SELECT * FROM care_items WHERE next_due < :timestamp ORDER BY next_due ASC")
     LiveData<List<CareItem>> getOverdueItems(long timestamp);
 
+    /**
+     * Writes a care item as the plant's current recommendation for its type. REPLACE on the
+     * unique (plant_id, type) index swaps out the previous item of that type, so a plant
+     * never holds more than one item per care type.
+     */
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertCareItem(CareItem item);
 }
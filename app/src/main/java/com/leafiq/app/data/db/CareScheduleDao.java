@@ -6,14 +6,38 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.room.Upsert;
 
+import com.leafiq.app.data.entity.CareCompletion;
 import com.leafiq.app.data.entity.CareSchedule;
+import com.leafiq.app.data.model.ScheduleLastCompletion;
+import com.leafiq.app.data.model.ScheduleReconciliation;
+import com.leafiq.app.data.model.ScheduleWithPlant;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Dao
 public interface CareScheduleDao {
+    /**
+     * Largest id list bound into one IN (...) query, well under SQLite's variable limit.
+     */
+    int MAX_IDS_PER_QUERY = 500;
+
+    /**
+     * SQL for a schedule's next due date: one frequency after its latest completion, or
+     * after :now when it was never completed. The latest completion is a single seek on
+     * the (schedule_id, completed_at) index.
+     */
+    String NEXT_DUE_FROM_LAST_COMPLETION = "COALESCE((SELECT MAX(care_completions.completed_at) "
+            + "FROM care_completions WHERE care_completions.schedule_id = care_schedules.id), :now) "
+            + "+ care_schedules.frequency_days * 86400000";
+
     @Query("SELECT * FROM care_schedules WHERE plant_id = :plantId")
     LiveData<List<CareSchedule>> getSchedulesForPlant(String plantId);
 
@@ -29,18 +53,235 @@ public interface CareScheduleDao {
     @Query("SELECT * FROM care_schedules WHERE id = :id")
     CareSchedule getScheduleById(String id);
 
+    @Query("SELECT * FROM care_schedules WHERE id IN (:ids)")
+    List<CareSchedule> getSchedulesByIds(List<String> ids);
+
     @Query("SELECT * FROM care_schedules WHERE is_enabled = 1 AND next_due <= :beforeTimestamp")
     List<CareSchedule> getDueSchedules(long beforeTimestamp);
 
+    /**
+     * Earliest next_due among enabled schedules, or null when there are none.
+     * A single seek on the (is_enabled, next_due) index.
+     */
+    @Query("SELECT MIN(next_due) FROM care_schedules WHERE is_enabled = 1")
+    Long getEarliestNextDue();
+
+    /**
+     * Earliest next_due after a timestamp among enabled schedules, or null when nothing
+     * is due later. A single seek on the (is_enabled, next_due) index.
+     */
+    @Query("SELECT MIN(next_due) FROM care_schedules WHERE is_enabled = 1 AND next_due > :afterTimestamp")
+    Long getNextDueAfter(long afterTimestamp);
+
+    /**
+     * Enabled schedules due within [fromTimestamp, toTimestamp] joined with their plant,
+     * soonest first. Served by the (is_enabled, next_due) index, so neither the range
+     * filter nor the ordering touches schedules outside the window.
+     */
+    @Query("SELECT care_schedules.*, " +
+            "plants.common_name AS plant_common_name, " +
+            "plants.nickname AS plant_nickname, " +
+            "plants.thumbnail_path AS plant_thumbnail_path " +
+            "FROM care_schedules " +
+            "INNER JOIN plants ON care_schedules.plant_id = plants.id " +
+            "WHERE care_schedules.is_enabled = 1 " +
+            "AND care_schedules.next_due BETWEEN :fromTimestamp AND :toTimestamp " +
+            "ORDER BY care_schedules.next_due ASC")
+    LiveData<List<ScheduleWithPlant>> getEnabledSchedulesWithPlantDueBetween(long fromTimestamp, long toTimestamp);
+
+    @Query("SELECT care_schedules.*, " +
+            "plants.common_name AS plant_common_name, " +
+            "plants.nickname AS plant_nickname, " +
+            "plants.thumbnail_path AS plant_thumbnail_path " +
+            "FROM care_schedules " +
+            "INNER JOIN plants ON care_schedules.plant_id = plants.id " +
+            "WHERE care_schedules.is_enabled = 1 " +
+            "AND care_schedules.next_due BETWEEN :fromTimestamp AND :toTimestamp " +
+            "ORDER BY care_schedules.next_due ASC")
+    List<ScheduleWithPlant> getEnabledSchedulesWithPlantDueBetweenSync(long fromTimestamp, long toTimestamp);
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertSchedule(CareSchedule schedule);
 
     @Update
     void updateSchedule(CareSchedule schedule);
 
+    @Update
+    void updateSchedules(List<CareSchedule> schedules);
+
+    @Insert
+    void insertCompletions(List<CareCompletion> completions);
+
+    /**
+     * Inserts new schedules and updates existing ones in place. Unlike REPLACE this never
+     * deletes the row, so completions (ON DELETE CASCADE) survive.
+     */
+    @Upsert
+    void upsertSchedules(List<CareSchedule> schedules);
+
+    /**
+     * Latest completion time of each of a plant's schedules, answered from the
+     * (schedule_id, completed_at) index.
+     */
+    @Query("SELECT schedule_id, MAX(completed_at) AS last_completed_at FROM care_completions " +
+            "WHERE schedule_id IN (SELECT id FROM care_schedules WHERE plant_id = :plantId) " +
+            "GROUP BY schedule_id")
+    List<ScheduleLastCompletion> getLastCompletionTimesForPlant(String plantId);
+
+    /**
+     * Reconciles a plant's schedules in one transaction: reads the schedules and their
+     * latest completions, lets the planner compute the diff in memory, then applies its
+     * upserts. Concurrent reconciliations for the same plant serialize instead of
+     * interleaving their reads and writes.
+     *
+     * @return The planner's result (upserts already written)
+     */
+    @Transaction
+    default ScheduleReconciliation reconcileSchedules(String plantId, ScheduleReconciliation.Planner planner) {
+        List<CareSchedule> existing = getSchedulesByPlantIdSync(plantId);
+
+        Map<String, Long> lastCompletedAt = new HashMap<>();
+        for (ScheduleLastCompletion row : getLastCompletionTimesForPlant(plantId)) {
+            lastCompletedAt.put(row.scheduleId, row.lastCompletedAt);
+        }
+
+        ScheduleReconciliation reconciliation = planner.plan(existing, lastCompletedAt);
+        if (!reconciliation.upserts.isEmpty()) {
+            upsertSchedules(reconciliation.upserts);
+        }
+        return reconciliation;
+    }
+
+    /**
+     * Records a completion for each existing schedule and advances it: snooze count reset,
+     * next due one frequency after completedAt. Runs as one transaction, so observers of
+     * care_schedules and care_completions are invalidated once for the whole batch.
+     * Unknown ids are skipped.
+     *
+     * @param scheduleIds Schedules to complete (no duplicates)
+     * @param source Completion source ("notification_action", "in_app")
+     * @param completedAt Completion timestamp
+     * @return Schedules that were completed, with their updated next due dates
+     */
+    @Transaction
+    default List<CareSchedule> markSchedulesComplete(List<String> scheduleIds, String source,
+                                                     long completedAt) {
+        List<CareSchedule> completed = new ArrayList<>();
+        for (int start = 0; start < scheduleIds.size(); start += MAX_IDS_PER_QUERY) {
+            int end = Math.min(start + MAX_IDS_PER_QUERY, scheduleIds.size());
+            completed.addAll(getSchedulesByIds(scheduleIds.subList(start, end)));
+        }
+
+        List<CareCompletion> completions = new ArrayList<>(completed.size());
+        for (CareSchedule schedule : completed) {
+            CareCompletion completion = new CareCompletion();
+            completion.id = UUID.randomUUID().toString();
+            completion.scheduleId = schedule.id;
+            completion.completedAt = completedAt;
+            completion.source = source;
+            completions.add(completion);
+
+            schedule.snoozeCount = 0;
+            schedule.nextDue = completedAt + (schedule.frequencyDays * 24L * 60 * 60 * 1000);
+        }
+
+        insertCompletions(completions);
+        updateSchedules(completed);
+        return completed;
+    }
+
+    /**
+     * Disables every schedule of the given plants. next_due is kept as is.
+     *
+     * @return Number of schedules updated
+     */
+    @Query("UPDATE care_schedules SET is_enabled = 0 WHERE plant_id IN (:plantIds)")
+    int disableSchedulesForPlants(List<String> plantIds);
+
+    /**
+     * Enables every schedule of the given plants and recomputes next_due from each
+     * schedule's latest completion.
+     *
+     * @return Number of schedules updated
+     */
+    @Query("UPDATE care_schedules SET is_enabled = 1, next_due = " + NEXT_DUE_FROM_LAST_COMPLETION
+            + " WHERE plant_id IN (:plantIds)")
+    int enableSchedulesForPlants(List<String> plantIds, long now);
+
+    /**
+     * Sets a user-chosen frequency (marking the schedule custom) and recomputes next_due
+     * from the latest completion with the new frequency.
+     *
+     * @return Number of schedules updated (0 if the id is unknown)
+     */
+    @Query("UPDATE care_schedules SET frequency_days = :frequencyDays, is_custom = 1, "
+            + "next_due = COALESCE((SELECT MAX(care_completions.completed_at) FROM care_completions "
+            + "WHERE care_completions.schedule_id = care_schedules.id), :now) + :frequencyDays * 86400000 "
+            + "WHERE id = :scheduleId")
+    int updateFrequency(String scheduleId, int frequencyDays, long now);
+
+    /**
+     * Recomputes next_due from the latest remaining completion, e.g. after one was deleted.
+     *
+     * @return Number of schedules updated (0 if the id is unknown)
+     */
+    @Query("UPDATE care_schedules SET next_due = " + NEXT_DUE_FROM_LAST_COMPLETION
+            + " WHERE id = :scheduleId")
+    int recalculateNextDue(String scheduleId, long now);
+
+    /**
+     * Enables or disables the schedules of many plants in one transaction, chunking the
+     * id list so it stays within SQLite's variable limit. Enabling recomputes next_due
+     * from each schedule's latest completion; disabling keeps it.
+     *
+     * @return Number of schedules updated
+     */
+    @Transaction
+    default int setSchedulesEnabledForPlants(List<String> plantIds, boolean enabled, long now) {
+        int updated = 0;
+        for (int start = 0; start < plantIds.size(); start += MAX_IDS_PER_QUERY) {
+            List<String> chunk = plantIds.subList(start, Math.min(start + MAX_IDS_PER_QUERY, plantIds.size()));
+            updated += enabled ? enableSchedulesForPlants(chunk, now) : disableSchedulesForPlants(chunk);
+        }
+        return updated;
+    }
+
     @Delete
     void deleteSchedule(CareSchedule schedule);
 
     @Query("DELETE FROM care_schedules WHERE plant_id = :plantId")
     void deleteSchedulesForPlant(String plantId);
+
+    /**
+     * Deletes a plant's monthly completion counts of one care type once the plant has no
+     * schedule of that type left. Care type null matches the 'unknown' rows compaction
+     * writes for it.
+     */
+    @Query("DELETE FROM care_completion_monthly " +
+           "WHERE plant_id = :plantId AND care_type = COALESCE(:careType, 'unknown') " +
+           "AND NOT EXISTS (SELECT 1 FROM care_schedules WHERE plant_id = :plantId " +
+           "AND COALESCE(care_type, 'unknown') = COALESCE(:careType, 'unknown'))")
+    void deleteOrphanedMonthlyCounts(String plantId, String careType);
+
+    @Query("DELETE FROM care_completion_monthly WHERE plant_id = :plantId")
+    void deleteMonthlyCountsForPlant(String plantId);
+
+    /**
+     * Deletes a schedule with its whole history: its completions go by FK cascade, and the
+     * monthly counts they were compacted into are deleted in the same transaction.
+     */
+    @Transaction
+    default void deleteScheduleWithHistory(CareSchedule schedule) {
+        deleteSchedule(schedule);
+        deleteOrphanedMonthlyCounts(schedule.plantId, schedule.careType);
+    }
+
+    /**
+     * Deletes all schedules of a plant with their completions and monthly counts.
+     */
+    @Transaction
+    default void deleteSchedulesWithHistoryForPlant(String plantId) {
+        deleteSchedulesForPlant(plantId);
+        deleteMonthlyCountsForPlant(plantId);
+    }
 }
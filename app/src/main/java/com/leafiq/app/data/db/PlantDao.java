@@ -34,4 +34,7 @@ public interface PlantDao {
 
     @Query("SELECT DISTINCT location FROM plants WHERE location IS NOT NULL AND location != '' ORDER BY location")
     List<String> getDistinctLocations();
+
+    @Query("SELECT id FROM plants WHERE location = :location")
+    List<String> getPlantIdsByLocationSync(String location);
 }
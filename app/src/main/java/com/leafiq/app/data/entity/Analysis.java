@@ -4,6 +4,7 @@ import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 @Entity(tableName = "analyses",
@@ -11,13 +12,14 @@ import androidx.room.PrimaryKey;
             entity = Plant.class,
             parentColumns = "id",
             childColumns = "plant_id",
-            onDelete = ForeignKey.CASCADE))
+            onDelete = ForeignKey.CASCADE),
+        indices = {@Index(value = {"plant_id", "created_at"}), @Index("created_at")})
 public class Analysis {
     @PrimaryKey
     @NonNull
     public String id;
 
-    @ColumnInfo(name = "plant_id", index = true)
+    @ColumnInfo(name = "plant_id")
     public String plantId;
 
     @ColumnInfo(name = "photo_path")
@@ -40,6 +42,13 @@ public class Analysis {
     @ColumnInfo(name = "re_analyzed_at")
     public Long reAnalyzedAt;
 
+    // Provider display name; null for analyses saved before it was recorded
+    public String provider;
+
+    // Whether the provider was sent the analysis schema natively
+    @ColumnInfo(name = "structured_output", defaultValue = "0")
+    public boolean structuredOutput;
+
     public Analysis() {
         this.id = "";
         this.parseStatus = "OK";
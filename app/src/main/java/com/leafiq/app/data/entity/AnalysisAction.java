@@ -0,0 +1,34 @@
+package com.leafiq.app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+/**
+ * An immediate action recommended by an analysis. Position keeps the AI's ordering.
+ */
+@Entity(tableName = "analysis_actions",
+        primaryKeys = {"analysis_id", "position"},
+        foreignKeys = @ForeignKey(
+            entity = Analysis.class,
+            parentColumns = "id",
+            childColumns = "analysis_id",
+            onDelete = ForeignKey.CASCADE))
+public class AnalysisAction {
+    @NonNull
+    @ColumnInfo(name = "analysis_id")
+    public String analysisId;
+
+    public int position;
+
+    public String action;
+
+    public String priority;         // "urgent", "soon", "when_convenient"
+
+    public String detail;
+
+    public AnalysisAction() {
+        this.analysisId = "";
+    }
+}
@@ -0,0 +1,43 @@
+package com.leafiq.app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Cached AI analysis keyed by image perceptual hash, prompt hash and provider.
+ * Lets near-identical re-shoots skip a provider round trip (see AnalysisResultCache).
+ */
+@Entity(tableName = "analysis_cache",
+        indices = {@Index(value = {"provider", "prompt_hash"})})
+public class AnalysisCacheEntry {
+    @PrimaryKey
+    @NonNull
+    public String id;
+
+    @ColumnInfo(name = "image_hash")
+    public long imageHash;          // 64-bit dHash of the API image
+
+    @ColumnInfo(name = "prompt_hash")
+    public String promptHash;       // SHA-256 hex of the full prompt
+
+    public String provider;         // Provider display name
+
+    @ColumnInfo(name = "result_json")
+    public String resultJson;       // Extracted analysis JSON (PlantAnalysisResult.rawResponse)
+
+    @ColumnInfo(name = "created_at")
+    public long createdAt;          // Unix timestamp ms
+
+    @ColumnInfo(name = "last_accessed_at")
+    public long lastAccessedAt;     // Unix timestamp ms, drives LRU eviction
+
+    @ColumnInfo(name = "hit_count")
+    public int hitCount;
+
+    public AnalysisCacheEntry() {
+        this.id = "";
+    }
+}
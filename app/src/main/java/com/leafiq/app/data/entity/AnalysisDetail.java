@@ -0,0 +1,95 @@
+package com.leafiq.app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+/**
+ * Identification and care plan fields of an analysis, normalised out of raw_response
+ * when the analysis is saved (or by the launch backfill for older rows).
+ * One row per analysis; issues and immediate actions live in their own tables.
+ * A row whose fields are all null marks an analysis whose response could not be parsed.
+ */
+@Entity(tableName = "analysis_details",
+        foreignKeys = @ForeignKey(
+            entity = Analysis.class,
+            parentColumns = "id",
+            childColumns = "analysis_id",
+            onDelete = ForeignKey.CASCADE))
+public class AnalysisDetail {
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "analysis_id")
+    public String analysisId;
+
+    @ColumnInfo(name = "common_name")
+    public String commonName;
+
+    @ColumnInfo(name = "scientific_name")
+    public String scientificName;
+
+    public String confidence;       // "high", "medium", "low"
+
+    @ColumnInfo(name = "identification_notes")
+    public String identificationNotes;
+
+    @ColumnInfo(name = "has_care_plan")
+    public boolean hasCarePlan;
+
+    @ColumnInfo(name = "watering_frequency")
+    public String wateringFrequency;
+
+    @ColumnInfo(name = "watering_amount")
+    public String wateringAmount;
+
+    @ColumnInfo(name = "watering_notes")
+    public String wateringNotes;
+
+    @ColumnInfo(name = "light_ideal")
+    public String lightIdeal;
+
+    @ColumnInfo(name = "light_current")
+    public String lightCurrent;
+
+    @ColumnInfo(name = "light_adjustment")
+    public String lightAdjustment;
+
+    @ColumnInfo(name = "fertilizer_type")
+    public String fertilizerType;
+
+    @ColumnInfo(name = "fertilizer_frequency")
+    public String fertilizerFrequency;
+
+    @ColumnInfo(name = "fertilizer_next_application")
+    public String fertilizerNextApplication;
+
+    @ColumnInfo(name = "pruning_needed")
+    public boolean pruningNeeded;
+
+    @ColumnInfo(name = "pruning_instructions")
+    public String pruningInstructions;
+
+    @ColumnInfo(name = "pruning_when")
+    public String pruningWhen;
+
+    @ColumnInfo(name = "repotting_needed")
+    public boolean repottingNeeded;
+
+    @ColumnInfo(name = "repotting_signs")
+    public String repottingSigns;
+
+    @ColumnInfo(name = "repotting_pot_size")
+    public String repottingPotSize;
+
+    @ColumnInfo(name = "seasonal_notes")
+    public String seasonalNotes;
+
+    @ColumnInfo(name = "fun_fact")
+    public String funFact;
+
+    public AnalysisDetail() {
+        this.analysisId = "";
+    }
+}
@@ -0,0 +1,39 @@
+package com.leafiq.app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * A health issue reported by an analysis. Position keeps the AI's ordering.
+ */
+@Entity(tableName = "analysis_issues",
+        primaryKeys = {"analysis_id", "position"},
+        foreignKeys = @ForeignKey(
+            entity = Analysis.class,
+            parentColumns = "id",
+            childColumns = "analysis_id",
+            onDelete = ForeignKey.CASCADE),
+        indices = {@Index("name")})
+public class AnalysisIssue {
+    @NonNull
+    @ColumnInfo(name = "analysis_id")
+    public String analysisId;
+
+    public int position;
+
+    public String name;
+
+    public String severity;         // "low", "medium", "high"
+
+    public String description;
+
+    @ColumnInfo(name = "affected_area")
+    public String affectedArea;
+
+    public AnalysisIssue() {
+        this.analysisId = "";
+    }
+}
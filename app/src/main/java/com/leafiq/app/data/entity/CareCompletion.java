@@ -13,7 +13,7 @@ import androidx.room.PrimaryKey;
             parentColumns = "id",
             childColumns = "schedule_id",
             onDelete = ForeignKey.CASCADE),
-        indices = {@Index("schedule_id")})
+        indices = {@Index(value = {"schedule_id", "completed_at"}), @Index("completed_at")})
 public class CareCompletion {
     @PrimaryKey
     @NonNull
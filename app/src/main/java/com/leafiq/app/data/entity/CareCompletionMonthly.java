@@ -0,0 +1,46 @@
+package com.leafiq.app.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+/**
+ * Monthly roll-up of compacted care completions: how many completions a plant had in a
+ * month for one care type and source. Detail rows older than the history horizon are
+ * folded into these and deleted, so care_completions only holds recent history.
+ * The primary key leads with plant_id, which also serves the foreign key and the
+ * per-plant history in month order.
+ */
+@Entity(tableName = "care_completion_monthly",
+        primaryKeys = {"plant_id", "month", "care_type", "source"},
+        foreignKeys = @ForeignKey(
+            entity = Plant.class,
+            parentColumns = "id",
+            childColumns = "plant_id",
+            onDelete = ForeignKey.CASCADE))
+public class CareCompletionMonthly {
+    @NonNull
+    @ColumnInfo(name = "plant_id")
+    public String plantId;
+
+    @NonNull
+    public String month;        // "yyyy-MM" in local time
+
+    @NonNull
+    @ColumnInfo(name = "care_type")
+    public String careType;     // "water", "fertilize", "repot"
+
+    @NonNull
+    public String source;       // "notification_action", "in_app", "snooze"
+
+    @ColumnInfo(name = "completion_count")
+    public int completionCount;
+
+    public CareCompletionMonthly() {
+        this.plantId = "";
+        this.month = "";
+        this.careType = "";
+        this.source = "";
+    }
+}
@@ -4,20 +4,27 @@ import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+/**
+ * AI-recommended care for a plant: one row per plant and care type, holding the latest
+ * recommendation. The unique (plant_id, type) index also serves plant_id lookups and the
+ * foreign key.
+ */
 @Entity(tableName = "care_items",
         foreignKeys = @ForeignKey(
             entity = Plant.class,
             parentColumns = "id",
             childColumns = "plant_id",
-            onDelete = ForeignKey.CASCADE))
+            onDelete = ForeignKey.CASCADE),
+        indices = {@Index(value = {"plant_id", "type"}, unique = true), @Index("next_due")})
 public class CareItem {
     @PrimaryKey
     @NonNull
     public String id;
 
-    @ColumnInfo(name = "plant_id", index = true)
+    @ColumnInfo(name = "plant_id")
     public String plantId;
 
     public String type;     // "water", "fertilize", "prune", "repot"
@@ -13,7 +13,7 @@ import androidx.room.PrimaryKey;
             parentColumns = "id",
             childColumns = "plant_id",
             onDelete = ForeignKey.CASCADE),
-        indices = {@Index("plant_id")})
+        indices = {@Index("plant_id"), @Index(value = {"is_enabled", "next_due"})})
 public class CareSchedule {
     @PrimaryKey
     @NonNull
@@ -0,0 +1,41 @@
+package com.leafiq.app.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+/**
+ * Slim projection of the analyses table for list screens (history, timeline, plant detail).
+ * <p>
+ * Carries everything a list row shows but not raw_response, the multi-KB AI JSON, so
+ * cursor windows and list memory stay small on large libraries. Load the full
+ * {@link com.leafiq.app.data.entity.Analysis} only on the detail screen.
+ * <p>
+ * This is NOT an @Entity - it's a query result class.
+ */
+public class AnalysisSummary {
+
+    @NonNull
+    public String id;
+
+    @ColumnInfo(name = "plant_id")
+    public String plantId;
+
+    @ColumnInfo(name = "photo_path")
+    public String photoPath;
+
+    @ColumnInfo(name = "health_score")
+    public int healthScore;
+
+    public String summary;
+
+    @ColumnInfo(name = "created_at")
+    public long createdAt;
+
+    @ColumnInfo(name = "parse_status")
+    public String parseStatus;
+
+    public AnalysisSummary() {
+        this.id = "";
+        this.parseStatus = "OK";
+    }
+}
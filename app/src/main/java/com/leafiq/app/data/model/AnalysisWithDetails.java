@@ -0,0 +1,223 @@
+package com.leafiq.app.data.model;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import com.leafiq.app.data.entity.AnalysisAction;
+import com.leafiq.app.data.entity.AnalysisDetail;
+import com.leafiq.app.data.entity.AnalysisIssue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Normalised analysis: the analysis_details row with its issues and immediate actions.
+ * <p>
+ * Built from a parsed result once at write time ({@link #fromResult}) and turned back into a
+ * {@link PlantAnalysisResult} for rendering ({@link #toResult}), so render paths read columns
+ * instead of re-parsing raw_response. Health score and summary stay on the analyses row.
+ * <p>
+ * This is NOT an @Entity - it's a @Relation query result class.
+ */
+public class AnalysisWithDetails {
+
+    @Embedded
+    public AnalysisDetail detail;
+
+    @Relation(parentColumn = "analysis_id", entityColumn = "analysis_id")
+    public List<AnalysisIssue> issues;
+
+    @Relation(parentColumn = "analysis_id", entityColumn = "analysis_id")
+    public List<AnalysisAction> actions;
+
+    public AnalysisWithDetails() {
+        this.detail = new AnalysisDetail();
+        this.issues = new ArrayList<>();
+        this.actions = new ArrayList<>();
+    }
+
+    /**
+     * Normalises a parsed result into rows for one analysis.
+     *
+     * @param analysisId Owning analysis ID
+     * @param result Parsed result, or null when the response could not be parsed
+     *               (an empty detail row is still produced so the analysis isn't rescanned)
+     */
+    public static AnalysisWithDetails fromResult(String analysisId, PlantAnalysisResult result) {
+        AnalysisWithDetails normalized = new AnalysisWithDetails();
+        AnalysisDetail detail = normalized.detail;
+        detail.analysisId = analysisId;
+        if (result == null) {
+            return normalized;
+        }
+
+        if (result.identification != null) {
+            detail.commonName = result.identification.commonName;
+            detail.scientificName = result.identification.scientificName;
+            detail.confidence = result.identification.confidence;
+            detail.identificationNotes = result.identification.notes;
+        }
+
+        PlantAnalysisResult.CarePlan carePlan = result.carePlan;
+        if (carePlan != null) {
+            detail.hasCarePlan = true;
+            if (carePlan.watering != null) {
+                detail.wateringFrequency = carePlan.watering.frequency;
+                detail.wateringAmount = carePlan.watering.amount;
+                detail.wateringNotes = carePlan.watering.notes;
+            }
+            if (carePlan.light != null) {
+                detail.lightIdeal = carePlan.light.ideal;
+                detail.lightCurrent = carePlan.light.current;
+                detail.lightAdjustment = carePlan.light.adjustment;
+            }
+            if (carePlan.fertilizer != null) {
+                detail.fertilizerType = carePlan.fertilizer.type;
+                detail.fertilizerFrequency = carePlan.fertilizer.frequency;
+                detail.fertilizerNextApplication = carePlan.fertilizer.nextApplication;
+            }
+            if (carePlan.pruning != null) {
+                detail.pruningNeeded = carePlan.pruning.needed;
+                detail.pruningInstructions = carePlan.pruning.instructions;
+                detail.pruningWhen = carePlan.pruning.when;
+            }
+            if (carePlan.repotting != null) {
+                detail.repottingNeeded = carePlan.repotting.needed;
+                detail.repottingSigns = carePlan.repotting.signs;
+                detail.repottingPotSize = carePlan.repotting.recommendedPotSize;
+            }
+            detail.seasonalNotes = carePlan.seasonal;
+        }
+        detail.funFact = result.funFact;
+
+        if (result.healthAssessment != null && result.healthAssessment.issues != null) {
+            int position = 0;
+            for (PlantAnalysisResult.HealthAssessment.Issue source : result.healthAssessment.issues) {
+                AnalysisIssue issue = new AnalysisIssue();
+                issue.analysisId = analysisId;
+                issue.position = position++;
+                issue.name = source.name;
+                issue.severity = source.severity;
+                issue.description = source.description;
+                issue.affectedArea = source.affectedArea;
+                normalized.issues.add(issue);
+            }
+        }
+
+        if (result.immediateActions != null) {
+            int position = 0;
+            for (PlantAnalysisResult.ImmediateAction source : result.immediateActions) {
+                AnalysisAction action = new AnalysisAction();
+                action.analysisId = analysisId;
+                action.position = position++;
+                action.action = source.action;
+                action.priority = source.priority;
+                action.detail = source.detail;
+                normalized.actions.add(action);
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * Rebuilds the parsed result from the stored columns. rawResponse is not populated,
+     * and healthAssessment carries only the issues (score and summary live on the analysis).
+     */
+    public PlantAnalysisResult toResult() {
+        PlantAnalysisResult result = new PlantAnalysisResult();
+
+        if (detail.commonName != null || detail.scientificName != null || detail.confidence != null) {
+            result.identification = new PlantAnalysisResult.Identification();
+            result.identification.commonName = detail.commonName;
+            result.identification.scientificName = detail.scientificName;
+            result.identification.confidence = detail.confidence;
+            result.identification.notes = detail.identificationNotes;
+        }
+
+        if (issues != null && !issues.isEmpty()) {
+            result.healthAssessment = new PlantAnalysisResult.HealthAssessment();
+            result.healthAssessment.issues = new ArrayList<>();
+            for (AnalysisIssue source : sortedByPosition(issues, issue -> issue.position)) {
+                PlantAnalysisResult.HealthAssessment.Issue issue =
+                        new PlantAnalysisResult.HealthAssessment.Issue();
+                issue.name = source.name;
+                issue.severity = source.severity;
+                issue.description = source.description;
+                issue.affectedArea = source.affectedArea;
+                result.healthAssessment.issues.add(issue);
+            }
+        }
+
+        result.immediateActions = new ArrayList<>();
+        if (actions != null) {
+            for (AnalysisAction source : sortedByPosition(actions, action -> action.position)) {
+                PlantAnalysisResult.ImmediateAction action = new PlantAnalysisResult.ImmediateAction();
+                action.action = source.action;
+                action.priority = source.priority;
+                action.detail = source.detail;
+                result.immediateActions.add(action);
+            }
+        }
+
+        if (detail.hasCarePlan) {
+            result.carePlan = buildCarePlan();
+        }
+        result.funFact = detail.funFact;
+        return result;
+    }
+
+    private PlantAnalysisResult.CarePlan buildCarePlan() {
+        PlantAnalysisResult.CarePlan carePlan = new PlantAnalysisResult.CarePlan();
+        if (anyNonNull(detail.wateringFrequency, detail.wateringAmount, detail.wateringNotes)) {
+            carePlan.watering = new PlantAnalysisResult.CarePlan.Watering();
+            carePlan.watering.frequency = detail.wateringFrequency;
+            carePlan.watering.amount = detail.wateringAmount;
+            carePlan.watering.notes = detail.wateringNotes;
+        }
+        if (anyNonNull(detail.lightIdeal, detail.lightCurrent, detail.lightAdjustment)) {
+            carePlan.light = new PlantAnalysisResult.CarePlan.Light();
+            carePlan.light.ideal = detail.lightIdeal;
+            carePlan.light.current = detail.lightCurrent;
+            carePlan.light.adjustment = detail.lightAdjustment;
+        }
+        if (anyNonNull(detail.fertilizerType, detail.fertilizerFrequency,
+                detail.fertilizerNextApplication)) {
+            carePlan.fertilizer = new PlantAnalysisResult.CarePlan.Fertilizer();
+            carePlan.fertilizer.type = detail.fertilizerType;
+            carePlan.fertilizer.frequency = detail.fertilizerFrequency;
+            carePlan.fertilizer.nextApplication = detail.fertilizerNextApplication;
+        }
+        if (detail.pruningNeeded || anyNonNull(detail.pruningInstructions, detail.pruningWhen)) {
+            carePlan.pruning = new PlantAnalysisResult.CarePlan.Pruning();
+            carePlan.pruning.needed = detail.pruningNeeded;
+            carePlan.pruning.instructions = detail.pruningInstructions;
+            carePlan.pruning.when = detail.pruningWhen;
+        }
+        if (detail.repottingNeeded || anyNonNull(detail.repottingSigns, detail.repottingPotSize)) {
+            carePlan.repotting = new PlantAnalysisResult.CarePlan.Repotting();
+            carePlan.repotting.needed = detail.repottingNeeded;
+            carePlan.repotting.signs = detail.repottingSigns;
+            carePlan.repotting.recommendedPotSize = detail.repottingPotSize;
+        }
+        carePlan.seasonal = detail.seasonalNotes;
+        return carePlan;
+    }
+
+    // @Relation lists come back in rowid order, which isn't guaranteed to match position
+    private static <T> List<T> sortedByPosition(List<T> rows, ToIntFunction<T> positionOf) {
+        List<T> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingInt(positionOf));
+        return sorted;
+    }
+
+    private static boolean anyNonNull(String... values) {
+        for (String value : values) {
+            if (value != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
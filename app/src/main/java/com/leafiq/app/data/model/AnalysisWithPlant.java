@@ -3,22 +3,21 @@ package com.leafiq.app.data.model;
 import androidx.room.ColumnInfo;
 import androidx.room.Embedded;
 
-import com.leafiq.app.data.entity.Analysis;
-
 /**
- * POJO for JOIN query result combining Analysis with Plant metadata.
+ * POJO for JOIN query result combining an analysis summary with Plant metadata.
  * Used by timeline, history, and growth tracking screens to display analysis data
- * with plant context (name, thumbnail, nickname).
+ * with plant context (name, thumbnail, nickname). Excludes raw_response; see
+ * {@link AnalysisSummary}.
  * <p>
  * This is NOT an @Entity - it's a query result class for JOIN operations.
  */
 public class AnalysisWithPlant {
 
     /**
-     * Analysis entity fields (no prefix needed - column names don't collide with plant fields).
+     * Analysis summary fields (no prefix needed - column names don't collide with plant fields).
      */
     @Embedded
-    public Analysis analysis;
+    public AnalysisSummary analysis;
 
     /**
      * Plant common name from JOIN.
@@ -51,6 +50,6 @@ public class AnalysisWithPlant {
     public int plantLatestHealthScore;
 
     public AnalysisWithPlant() {
-        this.analysis = new Analysis();
+        this.analysis = new AnalysisSummary();
     }
 }
@@ -0,0 +1,21 @@
+package com.leafiq.app.data.model;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * POJO for the grouped query counting analyses per provider, output mode and parse_status.
+ * Used to compare parse failure rates with and without structured output.
+ */
+public class ParseStatusCount {
+
+    /** Provider display name; null for analyses saved before it was recorded */
+    public String provider;
+
+    @ColumnInfo(name = "structured_output")
+    public boolean structuredOutput;
+
+    @ColumnInfo(name = "parse_status")
+    public String parseStatus;
+
+    public int count;
+}
@@ -10,6 +10,10 @@ public class PlantAnalysisResult {
     public CarePlan carePlan;
     public String funFact;
 
+    // Set by the provider that produced the result; not part of the AI response
+    public String provider;
+    public boolean structuredOutput;
+
     public static class Identification {
         public String commonName;
         public String scientificName;
@@ -0,0 +1,16 @@
+package com.leafiq.app.data.model;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * POJO for the grouped query returning each schedule's latest completion time.
+ * Schedules that were never completed have no row.
+ */
+public class ScheduleLastCompletion {
+
+    @ColumnInfo(name = "schedule_id")
+    public String scheduleId;
+
+    @ColumnInfo(name = "last_completed_at")
+    public long lastCompletedAt;
+}
@@ -0,0 +1,36 @@
+package com.leafiq.app.data.model;
+
+import com.leafiq.app.data.entity.CareSchedule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of reconciling a plant's care schedules against fresh AI care items:
+ * the schedules to write and the user-customized schedules the UI should ask about.
+ */
+public class ScheduleReconciliation {
+
+    /**
+     * Computes the reconciliation from the plant's current state. Called inside the
+     * database transaction, so it must not do I/O of its own.
+     */
+    public interface Planner {
+        /**
+         * @param existing The plant's current schedules
+         * @param lastCompletedAt Latest completion time per schedule ID (absent = never completed)
+         */
+        ScheduleReconciliation plan(List<CareSchedule> existing, Map<String, Long> lastCompletedAt);
+    }
+
+    /**
+     * New and AI-updated schedules, written as one upsert batch.
+     */
+    public final List<CareSchedule> upserts = new ArrayList<>();
+
+    /**
+     * User-customized schedules whose AI frequency changed (not written).
+     */
+    public final List<CareSchedule> needsPrompt = new ArrayList<>();
+}
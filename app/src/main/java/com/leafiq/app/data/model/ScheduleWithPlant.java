@@ -0,0 +1,44 @@
+package com.leafiq.app.data.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+
+import com.leafiq.app.data.entity.CareSchedule;
+
+/**
+ * POJO for JOIN query result combining a care schedule with the plant columns the
+ * care agenda displays (name, nickname, thumbnail). Lets Care Overview load its task
+ * list in one query instead of looking up each schedule's plant separately.
+ * <p>
+ * This is NOT an @Entity - it's a query result class for JOIN operations.
+ */
+public class ScheduleWithPlant {
+
+    /**
+     * Schedule fields (no prefix needed - plant columns below are aliased).
+     */
+    @Embedded
+    public CareSchedule schedule;
+
+    /**
+     * Plant common name from JOIN.
+     */
+    @ColumnInfo(name = "plant_common_name")
+    public String plantCommonName;
+
+    /**
+     * Plant nickname from JOIN (user-assigned).
+     */
+    @ColumnInfo(name = "plant_nickname")
+    public String plantNickname;
+
+    /**
+     * Plant thumbnail path from JOIN.
+     */
+    @ColumnInfo(name = "plant_thumbnail_path")
+    public String plantThumbnailPath;
+
+    public ScheduleWithPlant() {
+        this.schedule = new CareSchedule();
+    }
+}
@@ -1,20 +1,35 @@
 package com.leafiq.app.data.repository;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
 import com.leafiq.app.data.db.AnalysisDao;
+import com.leafiq.app.data.db.AnalysisDetailDao;
 import com.leafiq.app.data.db.CareCompletionDao;
 import com.leafiq.app.data.db.CareItemDao;
 import com.leafiq.app.data.db.CareScheduleDao;
 import com.leafiq.app.data.db.PlantDao;
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.entity.CareCompletion;
+import com.leafiq.app.data.entity.CareCompletionMonthly;
 import com.leafiq.app.data.entity.CareItem;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.AnalysisSummary;
+import com.leafiq.app.data.model.AnalysisWithDetails;
 import com.leafiq.app.data.model.AnalysisWithPlant;
 import com.leafiq.app.data.model.CareCompletionWithPlantInfo;
-
+import com.leafiq.app.data.model.PlantAnalysisResult;
+import com.leafiq.app.data.model.ScheduleReconciliation;
+import com.leafiq.app.data.model.ScheduleWithPlant;
+import com.leafiq.app.util.ParseScanHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.concurrent.Executor;
 
@@ -29,11 +44,15 @@ public class PlantRepository {
 
     private final PlantDao plantDao;
     private final AnalysisDao analysisDao;
+    private final AnalysisDetailDao analysisDetailDao;
     private final CareItemDao careItemDao;
     private final CareScheduleDao careScheduleDao;
     private final CareCompletionDao careCompletionDao;
     private final Executor ioExecutor;
 
+    /** Timeline rows per page; a page is a couple of screens of collapsed entries. */
+    static final int TIMELINE_PAGE_SIZE = 30;
+
     /**
      * Callback interface for asynchronous repository operations.
      *
@@ -49,16 +68,18 @@ public class PlantRepository {
      *
      * @param plantDao DAO for plant entities
      * @param analysisDao DAO for analysis entities
+     * @param analysisDetailDao DAO for normalised analysis details, issues and actions
      * @param careItemDao DAO for care item entities
      * @param careScheduleDao DAO for care schedule entities
      * @param careCompletionDao DAO for care completion entities
      * @param ioExecutor Executor for background database operations
      */
     public PlantRepository(PlantDao plantDao, AnalysisDao analysisDao,
-                          CareItemDao careItemDao, CareScheduleDao careScheduleDao,
+                          AnalysisDetailDao analysisDetailDao, CareItemDao careItemDao, CareScheduleDao careScheduleDao,
                           CareCompletionDao careCompletionDao, Executor ioExecutor) {
         this.plantDao = plantDao;
         this.analysisDao = analysisDao;
+        this.analysisDetailDao = analysisDetailDao;
         this.careItemDao = careItemDao;
         this.careScheduleDao = careScheduleDao;
         this.careCompletionDao = careCompletionDao;
@@ -93,7 +114,17 @@ public class PlantRepository {
     }
 
     /**
-     * Gets all care items for a plant.
+     * Gets analysis summaries (no raw_response) for a plant, ordered newest first.
+     * LiveData updates automatically when analyses change.
+     * <p>
+     * Used by list screens (plant detail, analysis history).
+     */
+    public LiveData<List<AnalysisSummary>> getAnalysisSummariesForPlant(String plantId) {
+        return analysisDao.getAnalysisSummariesForPlant(plantId);
+    }
+
+    /**
+     * Gets a plant's care items, one per care type.
      * LiveData updates automatically when care items change.
      */
     public LiveData<List<CareItem>> getCareItemsForPlant(String plantId) {
@@ -121,6 +152,23 @@ public class PlantRepository {
         return analysisDao.getAllAnalysesWithPlant();
     }
 
+    /**
+     * Gets analyses with plant metadata as a paged stream, newest first, limited to a
+     * health score range (inclusive). Only the pages around the visible window are kept
+     * in memory, so memory stays flat however long the history grows.
+     * <p>
+     * Used by timeline screen; the caller should cachedIn() its own scope.
+     *
+     * @param minScore Lowest health score to include
+     * @param maxScore Highest health score to include
+     */
+    public LiveData<PagingData<AnalysisWithPlant>> getAnalysesWithPlantPaged(int minScore, int maxScore) {
+        Pager<Integer, AnalysisWithPlant> pager = new Pager<>(
+                new PagingConfig(TIMELINE_PAGE_SIZE, TIMELINE_PAGE_SIZE, false, TIMELINE_PAGE_SIZE * 2),
+                () -> analysisDao.getAnalysesWithPlantPaged(minScore, maxScore));
+        return PagingLiveData.getLiveData(pager);
+    }
+
     /**
      * Gets analyses with plant metadata for a specific plant.
      * Returns JOIN query result ordered by creation time (newest first).
@@ -150,6 +198,17 @@ public class PlantRepository {
         return careScheduleDao.getEnabledSchedulesForPlant(plantId);
     }
 
+    /**
+     * Gets enabled care schedules due within a time window, joined with plant display info
+     * and sorted by due time. LiveData updates automatically when schedules or plants change.
+     *
+     * @param fromTimestamp Returns schedules where nextDue >= fromTimestamp
+     * @param toTimestamp Returns schedules where nextDue <= toTimestamp
+     */
+    public LiveData<List<ScheduleWithPlant>> getScheduleAgenda(long fromTimestamp, long toTimestamp) {
+        return careScheduleDao.getEnabledSchedulesWithPlantDueBetween(fromTimestamp, toTimestamp);
+    }
+
     /**
      * Gets recent care completions for a plant.
      * LiveData updates automatically when completions change.
@@ -219,6 +278,15 @@ public class PlantRepository {
         return analysisDao.getLatestForPlantSync(plantId);
     }
 
+    /**
+     * Synchronously gets the photo path of the latest analysis for a plant, without
+     * loading the rest of the row.
+     * MUST be called from background thread.
+     */
+    public String getLatestAnalysisPhotoPathSync(String plantId) {
+        return analysisDao.getLatestPhotoPathSync(plantId);
+    }
+
     /**
      * Synchronously gets an analysis by ID.
      * MUST be called from background thread.
@@ -227,6 +295,26 @@ public class PlantRepository {
         return analysisDao.getAnalysisById(analysisId);
     }
 
+    /**
+     * Synchronously gets the structured result of an analysis from its normalised rows.
+     * Analyses the launch backfill hasn't reached yet are parsed and normalised here, once.
+     * MUST be called from background thread.
+     *
+     * @return Result without rawResponse (health score/summary are on the Analysis),
+     *         or null if the analysis doesn't exist
+     */
+    public PlantAnalysisResult getStructuredAnalysisSync(String analysisId) {
+        AnalysisWithDetails details = analysisDetailDao.getAnalysisWithDetailsSync(analysisId);
+        if (details == null) {
+            Analysis analysis = analysisDao.getAnalysisById(analysisId);
+            if (analysis == null) {
+                return null;
+            }
+            details = ParseScanHelper.normalize(analysisDao, analysisDetailDao, analysis);
+        }
+        return details.toResult();
+    }
+
     /**
      * Synchronously gets care schedules for a plant.
      * MUST be called from background thread.
@@ -245,6 +333,111 @@ public class PlantRepository {
         return careScheduleDao.getDueSchedules(beforeTimestamp);
     }
 
+    /**
+     * Synchronously gets due care schedules joined with plant display info, soonest first.
+     * One query regardless of how many schedules are due.
+     * MUST be called from background thread.
+     *
+     * @param beforeTimestamp Returns schedules where nextDue <= beforeTimestamp
+     */
+    public List<ScheduleWithPlant> getDueSchedulesWithPlantSync(long beforeTimestamp) {
+        return careScheduleDao.getEnabledSchedulesWithPlantDueBetweenSync(Long.MIN_VALUE, beforeTimestamp);
+    }
+
+    /**
+     * Synchronously reconciles a plant's care schedules in a single transaction.
+     * MUST be called from background thread.
+     *
+     * @param plantId Plant whose schedules are reconciled
+     * @param planner Computes upserts and prompts from the current schedules and completions
+     * @return Reconciliation result; its upserts have been written
+     */
+    public ScheduleReconciliation reconcileSchedulesSync(String plantId, ScheduleReconciliation.Planner planner) {
+        return careScheduleDao.reconcileSchedules(plantId, planner);
+    }
+
+    /**
+     * Synchronously enables or disables all schedules of the given plants in one
+     * transaction. Enabling recomputes each nextDue from its latest completion in SQL.
+     * MUST be called from background thread.
+     *
+     * @param plantIds Plants whose schedules are updated
+     * @param enabled New enabled state
+     * @return Number of schedules updated
+     */
+    public int setRemindersEnabledForPlantsSync(List<String> plantIds, boolean enabled) {
+        return careScheduleDao.setSchedulesEnabledForPlants(plantIds, enabled, System.currentTimeMillis());
+    }
+
+    /**
+     * Synchronously enables or disables all schedules of the plants in a location.
+     * MUST be called from background thread.
+     *
+     * @param location Exact location name, as returned by getDistinctLocations
+     * @param enabled New enabled state
+     * @return Number of schedules updated
+     */
+    public int setRemindersEnabledForLocationSync(String location, boolean enabled) {
+        List<String> plantIds = plantDao.getPlantIdsByLocationSync(location);
+        if (plantIds.isEmpty()) {
+            return 0;
+        }
+        return setRemindersEnabledForPlantsSync(plantIds, enabled);
+    }
+
+    /**
+     * Synchronously sets a custom frequency and recomputes nextDue from the latest
+     * completion in one UPDATE. MUST be called from background thread.
+     *
+     * @return true if the schedule exists and was updated
+     */
+    public boolean updateScheduleFrequencySync(String scheduleId, int frequencyDays) {
+        return careScheduleDao.updateFrequency(scheduleId, frequencyDays, System.currentTimeMillis()) > 0;
+    }
+
+    /**
+     * Synchronously recomputes a schedule's nextDue from its latest remaining completion
+     * in one UPDATE. MUST be called from background thread.
+     *
+     * @return true if the schedule exists and was updated
+     */
+    public boolean recalculateNextDueSync(String scheduleId) {
+        return careScheduleDao.recalculateNextDue(scheduleId, System.currentTimeMillis()) > 0;
+    }
+
+    /**
+     * Synchronously rolls care completions older than the cutoff into monthly counts and
+     * deletes the detail rows, keeping each schedule's latest completion.
+     * MUST be called from background thread.
+     *
+     * @param cutoff Completions before this timestamp are compacted
+     * @return Number of completions compacted
+     */
+    public int compactCareHistorySync(long cutoff) {
+        return careCompletionDao.compactCompletionsBefore(cutoff);
+    }
+
+    /**
+     * Synchronously gets the earliest nextDue among enabled schedules.
+     * MUST be called from background thread.
+     *
+     * @return Earliest due timestamp, or null when no schedule is enabled
+     */
+    public Long getEarliestNextDueSync() {
+        return careScheduleDao.getEarliestNextDue();
+    }
+
+    /**
+     * Synchronously gets the earliest nextDue after a timestamp among enabled schedules.
+     * MUST be called from background thread.
+     *
+     * @param afterTimestamp Only schedules where nextDue > afterTimestamp are considered
+     * @return Earliest due timestamp, or null when nothing is due later
+     */
+    public Long getNextDueAfterSync(long afterTimestamp) {
+        return careScheduleDao.getNextDueAfter(afterTimestamp);
+    }
+
     /**
      * Synchronously gets a care schedule by ID.
      * MUST be called from background thread.
@@ -261,6 +454,18 @@ public class PlantRepository {
         return careScheduleDao.getAllEnabledSchedules();
     }
 
+    /**
+     * Synchronously gets enabled care schedules due within a time window, joined with plant
+     * display info and sorted by due time.
+     * MUST be called from background thread.
+     *
+     * @param fromTimestamp Returns schedules where nextDue >= fromTimestamp
+     * @param toTimestamp Returns schedules where nextDue <= toTimestamp
+     */
+    public List<ScheduleWithPlant> getScheduleAgendaSync(long fromTimestamp, long toTimestamp) {
+        return careScheduleDao.getEnabledSchedulesWithPlantDueBetweenSync(fromTimestamp, toTimestamp);
+    }
+
     /**
      * Synchronously gets the last completion for a schedule.
      * MUST be called from background thread.
@@ -314,6 +519,7 @@ public class PlantRepository {
         ioExecutor.execute(() -> {
             try {
                 analysisDao.insertAnalysis(analysis);
+                ParseScanHelper.normalize(analysisDao, analysisDetailDao, analysis);
                 callback.onSuccess(null);
             } catch (Exception e) {
                 callback.onError(e);
@@ -322,7 +528,8 @@ public class PlantRepository {
     }
 
     /**
-     * Inserts a care item into the database.
+     * Inserts a care item into the database, replacing the plant's existing item of the
+     * same type.
      * Executes on background thread, result delivered via callback.
      *
      * @param item Care item to insert
@@ -346,10 +553,11 @@ public class PlantRepository {
      *
      * @param plant Plant to insert
      * @param analysis Analysis to insert
+     * @param result Parsed result the analysis was built from (source of its normalised rows)
      * @param careItems List of care items to insert
      * @param callback Callback for success/error
      */
-    public void savePlantWithAnalysis(Plant plant, Analysis analysis,
+    public void savePlantWithAnalysis(Plant plant, Analysis analysis, PlantAnalysisResult result,
                                      List<CareItem> careItems,
                                      RepositoryCallback<Void> callback) {
         ioExecutor.execute(() -> {
@@ -357,10 +565,11 @@ public class PlantRepository {
                 // Insert plant first
                 plantDao.insertPlant(plant);
 
-                // Insert analysis (references plant)
+                // Insert analysis (references plant) and its normalised details
                 analysisDao.insertAnalysis(analysis);
+                ParseScanHelper.normalize(analysisDetailDao, analysis, result);
 
-                // Insert all care items (reference plant)
+                // Insert all care items (reference plant; one per care type)
                 for (CareItem item : careItems) {
                     careItemDao.insertCareItem(item);
                 }
@@ -380,8 +589,10 @@ public class PlantRepository {
      * This method is for re-analyzing existing plants. It:
      * - Reads the existing plant to preserve nickname, location, and createdAt
      * - Updates only AI-derived fields (commonName, scientificName, healthScore, thumbnail)
-     * - Inserts the new analysis and care items
-     * - Does NOT delete existing analyses or care items
+     * - Inserts the new analysis
+     * - Replaces the plant's care items of the types the new analysis recommends; items of
+     *   other types are kept
+     * - Does NOT delete existing analyses
      * <p>
      * Executes on background thread, result delivered via callback.
      *
@@ -393,13 +604,15 @@ public class PlantRepository {
      * @param mediumThumbnailPath New medium thumbnail path (if null, existing is preserved)
      * @param highResThumbnailPath New high-res thumbnail path (if null, existing is preserved)
      * @param analysis New Analysis to insert
-     * @param careItems New CareItems to insert
+     * @param result Parsed result the analysis was built from (source of its normalised rows)
+     * @param careItems New CareItems, replacing existing items of the same type
      * @param callback Callback for success/error
      */
     public void addAnalysisToExistingPlant(String plantId, String commonName, String scientificName,
                                           int healthScore, String thumbnailPath,
                                           String mediumThumbnailPath, String highResThumbnailPath,
-                                          Analysis analysis, List<CareItem> careItems,
+                                          Analysis analysis, PlantAnalysisResult result,
+                                          List<CareItem> careItems,
                                           RepositoryCallback<Void> callback) {
         ioExecutor.execute(() -> {
             try {
@@ -435,10 +648,11 @@ public class PlantRepository {
                 // Update plant (uses @Update, not @Insert REPLACE)
                 plantDao.updatePlant(existingPlant);
 
-                // Insert new analysis (adds to history)
+                // Insert new analysis (adds to history) and its normalised details
                 analysisDao.insertAnalysis(analysis);
+                ParseScanHelper.normalize(analysisDetailDao, analysis, result);
 
-                // Insert new care items
+                // Upsert care items: each replaces the plant's item of the same type
                 for (CareItem item : careItems) {
                     careItemDao.insertCareItem(item);
                 }
@@ -486,6 +700,26 @@ public class PlantRepository {
         });
     }
 
+    /**
+     * Updates only the health score of an analysis, leaving raw_response untouched.
+     * Executes on background thread, result delivered via callback.
+     *
+     * @param analysisId Analysis ID to update
+     * @param healthScore Corrected health score
+     * @param callback Callback for success/error
+     */
+    public void updateAnalysisHealthScore(String analysisId, int healthScore,
+                                          RepositoryCallback<Void> callback) {
+        ioExecutor.execute(() -> {
+            try {
+                analysisDao.updateHealthScore(analysisId, healthScore);
+                callback.onSuccess(null);
+            } catch (Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
     /**
      * Deletes an analysis from the database.
      * Executes on background thread, result delivered via callback.
@@ -627,7 +861,7 @@ public class PlantRepository {
     }
 
     /**
-     * Deletes a care schedule from the database.
+     * Deletes a care schedule with its completions and compacted monthly counts.
      * Executes on background thread, result delivered via callback.
      *
      * @param schedule Care schedule to delete
@@ -636,7 +870,7 @@ public class PlantRepository {
     public void deleteSchedule(CareSchedule schedule, RepositoryCallback<Void> callback) {
         ioExecutor.execute(() -> {
             try {
-                careScheduleDao.deleteSchedule(schedule);
+                careScheduleDao.deleteScheduleWithHistory(schedule);
                 callback.onSuccess(null);
             } catch (Exception e) {
                 callback.onError(e);
@@ -664,7 +898,8 @@ public class PlantRepository {
 
     /**
      * Marks a care task as complete.
-     * Creates a CareCompletion record, resets snooze count, and updates next due date.
+     * Creates a CareCompletion record, resets snooze count, and updates next due date
+     * in one transaction.
      * Executes on background thread, result delivered via callback.
      *
      * @param scheduleId Care schedule ID
@@ -674,26 +909,12 @@ public class PlantRepository {
     public void markCareComplete(String scheduleId, String source, RepositoryCallback<Void> callback) {
         ioExecutor.execute(() -> {
             try {
-                // Get the schedule
-                CareSchedule schedule = careScheduleDao.getScheduleById(scheduleId);
-                if (schedule == null) {
+                List<CareSchedule> completed = careScheduleDao.markSchedulesComplete(
+                        Collections.singletonList(scheduleId), source, System.currentTimeMillis());
+                if (completed.isEmpty()) {
                     callback.onError(new Exception("Schedule not found: " + scheduleId));
                     return;
                 }
-
-                // Create completion record
-                CareCompletion completion = new CareCompletion();
-                completion.id = java.util.UUID.randomUUID().toString();
-                completion.scheduleId = scheduleId;
-                completion.completedAt = System.currentTimeMillis();
-                completion.source = source;
-                careCompletionDao.insertCompletion(completion);
-
-                // Update schedule: reset snooze count and update next due
-                schedule.snoozeCount = 0;
-                schedule.nextDue = System.currentTimeMillis() + (schedule.frequencyDays * 24L * 60 * 60 * 1000);
-                careScheduleDao.updateSchedule(schedule);
-
                 callback.onSuccess(null);
             } catch (Exception e) {
                 callback.onError(e);
@@ -702,7 +923,34 @@ public class PlantRepository {
     }
 
     /**
-     * Deletes all care schedules for a plant.
+     * Marks several care tasks complete at once.
+     * One executor task and one transaction: completions are bulk-inserted, schedules
+     * bulk-updated, and LiveData observers recompute once rather than once per schedule.
+     * Unknown or duplicate IDs are ignored.
+     * Executes on background thread, result delivered via callback.
+     *
+     * @param scheduleIds Care schedule IDs
+     * @param source Completion source ("notification_action", "in_app")
+     * @param callback Receives the number of schedules completed
+     */
+    public void markCareCompleteBatch(List<String> scheduleIds, String source,
+                                      RepositoryCallback<Integer> callback) {
+        ioExecutor.execute(() -> {
+            try {
+                List<String> uniqueIds = new ArrayList<>(new LinkedHashSet<>(scheduleIds));
+                List<CareSchedule> completed = careScheduleDao.markSchedulesComplete(
+                        uniqueIds, source, System.currentTimeMillis());
+                android.util.Log.i("CareSystem", "Batch completed " + completed.size()
+                        + " of " + uniqueIds.size() + " schedules");
+                callback.onSuccess(completed.size());
+            } catch (Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Deletes all care schedules for a plant, with their completions and monthly counts.
      * Executes on background thread, result delivered via callback.
      *
      * @param plantId Plant ID
@@ -711,7 +959,7 @@ public class PlantRepository {
     public void deleteSchedulesForPlant(String plantId, RepositoryCallback<Void> callback) {
         ioExecutor.execute(() -> {
             try {
-                careScheduleDao.deleteSchedulesForPlant(plantId);
+                careScheduleDao.deleteSchedulesWithHistoryForPlant(plantId);
                 callback.onSuccess(null);
             } catch (Exception e) {
                 callback.onError(e);
@@ -729,6 +977,17 @@ public class PlantRepository {
         return careCompletionDao.getAllCompletionsForPlant(plantId);
     }
 
+    /**
+     * Gets the compacted monthly completion counts for a plant, newest month first.
+     * Together with getAllCompletionsForPlant this covers the plant's whole history.
+     * LiveData updates automatically when counts change.
+     *
+     * @param plantId Plant ID to get counts for
+     */
+    public LiveData<List<CareCompletionMonthly>> getMonthlyCompletionsForPlant(String plantId) {
+        return careCompletionDao.getMonthlyCompletionsForPlant(plantId);
+    }
+
     /**
      * Deletes a care completion from the database.
      * Executes on background thread, result delivered via callback.
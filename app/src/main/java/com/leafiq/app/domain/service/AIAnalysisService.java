@@ -2,6 +2,9 @@ package com.leafiq.app.domain.service;
 
 import com.leafiq.app.ai.AIProvider;
 import com.leafiq.app.ai.AIProviderException;
+import com.leafiq.app.ai.AnalysisPrompt;
+import com.leafiq.app.ai.ImagePayload;
+import com.leafiq.app.ai.PartialResultListener;
 import com.leafiq.app.ai.PromptBuilder;
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.model.PlantAnalysisResult;
@@ -36,7 +39,7 @@ public class AIAnalysisService {
      * Builds prompt with context and calls provider API.
      *
      * @param provider The AI provider to use (created by caller)
-     * @param base64Image Base64-encoded image string
+     * @param jpegBytes JPEG image bytes (base64-encoded by the provider while streaming the request)
      * @param knownPlantName Previously identified plant name (null if first analysis)
      * @param previousAnalyses List of previous analyses for this plant (null if first analysis)
      * @param location Plant location (null if not set) - used for location-aware care advice
@@ -45,20 +48,65 @@ public class AIAnalysisService {
      * @throws IOException if network/IO error occurs
      */
     public PlantAnalysisResult analyze(AIProvider provider,
-                                      String base64Image,
+                                      byte[] jpegBytes,
                                       String knownPlantName,
                                       List<Analysis> previousAnalyses,
                                       String location)
             throws AIProviderException, IOException {
         // Build prompt with plant context
-        String prompt = PromptBuilder.buildAnalysisPrompt(
+        AnalysisPrompt prompt = PromptBuilder.buildAnalysisPrompt(
                 knownPlantName,
                 previousAnalyses,
                 location
         );
 
         // Call AI provider
-        return provider.analyzePhoto(base64Image, prompt);
+        return provider.analyzePhoto(ImagePayload.ofBytes(jpegBytes), prompt);
+    }
+
+    /**
+     * Streaming variant of {@link #analyze(AIProvider, byte[], String, List, String)}.
+     * Partial results are reported to the listener as each section of the response arrives.
+     *
+     * @param listener Receives partial results on the calling thread
+     * @return Final PlantAnalysisResult (same as the non-streaming call)
+     * @throws AIProviderException if API call fails
+     * @throws IOException if network/IO error occurs
+     */
+    public PlantAnalysisResult analyze(AIProvider provider,
+                                      byte[] jpegBytes,
+                                      String knownPlantName,
+                                      List<Analysis> previousAnalyses,
+                                      String location,
+                                      PartialResultListener listener)
+            throws AIProviderException, IOException {
+        AnalysisPrompt prompt = PromptBuilder.buildAnalysisPrompt(
+                knownPlantName,
+                previousAnalyses,
+                location
+        );
+        return analyze(provider, jpegBytes, prompt, listener);
+    }
+
+    /**
+     * Analyzes a plant photo with a prompt the caller already built (e.g. to key a result
+     * cache on exactly the prompt that is sent). Partial results are reported to the listener
+     * as each section of the response arrives.
+     *
+     * @param provider The AI provider to use (created by caller)
+     * @param jpegBytes JPEG image bytes (base64-encoded by the provider while streaming the request)
+     * @param prompt Analysis or correction prompt from {@link PromptBuilder}
+     * @param listener Receives partial results on the calling thread
+     * @return PlantAnalysisResult containing identification, health assessment, and care plan
+     * @throws AIProviderException if API call fails
+     * @throws IOException if network/IO error occurs
+     */
+    public PlantAnalysisResult analyze(AIProvider provider,
+                                      byte[] jpegBytes,
+                                      AnalysisPrompt prompt,
+                                      PartialResultListener listener)
+            throws AIProviderException, IOException {
+        return provider.analyzePhotoStreaming(ImagePayload.ofBytes(jpegBytes), prompt, listener);
     }
 
     /**
@@ -66,7 +114,7 @@ public class AIAnalysisService {
      * Builds correction prompt with context and calls provider API.
      *
      * @param provider The AI provider to use (created by caller)
-     * @param base64Image Base64-encoded image string
+     * @param jpegBytes JPEG image bytes (base64-encoded by the provider while streaming the request)
      * @param correctedName User-corrected plant name (null if not corrected)
      * @param additionalContext Additional user-provided context (null if none)
      * @param previousAnalyses List of previous analyses for this plant (null if first analysis)
@@ -77,15 +125,38 @@ public class AIAnalysisService {
      */
     public PlantAnalysisResult analyzeWithCorrections(
             AIProvider provider,
-            String base64Image,
+            byte[] jpegBytes,
             String correctedName,
             String additionalContext,
             List<Analysis> previousAnalyses,
             String location)
             throws AIProviderException, IOException {
-        String prompt = PromptBuilder.buildCorrectionPrompt(
+        AnalysisPrompt prompt = PromptBuilder.buildCorrectionPrompt(
+                correctedName, additionalContext, previousAnalyses, location);
+        return provider.analyzePhoto(ImagePayload.ofBytes(jpegBytes), prompt);
+    }
+
+    /**
+     * Streaming variant of
+     * {@link #analyzeWithCorrections(AIProvider, byte[], String, String, List, String)}.
+     *
+     * @param listener Receives partial results on the calling thread
+     * @return Final PlantAnalysisResult (same as the non-streaming call)
+     * @throws AIProviderException if API call fails
+     * @throws IOException if network/IO error occurs
+     */
+    public PlantAnalysisResult analyzeWithCorrections(
+            AIProvider provider,
+            byte[] jpegBytes,
+            String correctedName,
+            String additionalContext,
+            List<Analysis> previousAnalyses,
+            String location,
+            PartialResultListener listener)
+            throws AIProviderException, IOException {
+        AnalysisPrompt prompt = PromptBuilder.buildCorrectionPrompt(
                 correctedName, additionalContext, previousAnalyses, location);
-        return provider.analyzePhoto(base64Image, prompt);
+        return analyze(provider, jpegBytes, prompt, listener);
     }
 
     /**
@@ -0,0 +1,231 @@
+package com.leafiq.app.domain.service;
+
+import android.util.Log;
+
+import com.leafiq.app.ai.StreamingResponseDecoder;
+import com.leafiq.app.data.db.AnalysisCacheDao;
+import com.leafiq.app.data.entity.AnalysisCacheEntry;
+import com.leafiq.app.data.model.PlantAnalysisResult;
+import com.leafiq.app.util.PerceptualHash;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Persistent cache of AI analysis results for near-duplicate photos.
+ * <p>
+ * Entries are keyed by the dHash of the prepared API image, a SHA-256 of the full prompt
+ * and the provider name. A lookup hits when an entry for the same prompt and provider was
+ * created within the time window and its image hash is within the Hamming distance limit,
+ * so re-shoots a few minutes apart and re-analyzing an unchanged photo skip the round trip.
+ * <p>
+ * Backed by Room so hits survive restarts; bounded to a fixed number of entries with
+ * least-recently-used eviction. All methods block and must run off the main thread.
+ * Cache failures are logged and treated as misses - they never fail an analysis.
+ */
+public class AnalysisResultCache {
+
+    private static final String TAG = "AnalysisResultCache";
+
+    public static final int DEFAULT_MAX_ENTRIES = 50;
+    public static final int DEFAULT_MAX_HAMMING_DISTANCE = 6;
+    public static final long DEFAULT_WINDOW_MS = 60 * 60 * 1000L;  // 1 hour
+
+    private final AnalysisCacheDao dao;
+    private final int maxEntries;
+    private final int maxHammingDistance;
+    private final long windowMs;
+    private final LongSupplier clock;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Hit/miss counters since process start plus the current persisted entry count.
+     */
+    public static class Stats {
+        public final long hits;
+        public final long misses;
+        public final int entries;
+
+        Stats(long hits, long misses, int entries) {
+            this.hits = hits;
+            this.misses = misses;
+            this.entries = entries;
+        }
+
+        /**
+         * @return Fraction of lookups that hit, 0 when there were no lookups
+         */
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", entries=" + entries
+                    + ", hitRate=" + String.format(Locale.US, "%.2f", getHitRate());
+        }
+    }
+
+    /**
+     * Creates a cache with default bounds (50 entries, distance 6 of 64 bits, 1 hour window).
+     */
+    public AnalysisResultCache(AnalysisCacheDao dao) {
+        this(dao, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_HAMMING_DISTANCE, DEFAULT_WINDOW_MS);
+    }
+
+    /**
+     * @param dao Room DAO for the analysis_cache table
+     * @param maxEntries Entries kept after eviction
+     * @param maxHammingDistance Largest dHash bit difference still treated as the same photo
+     * @param windowMs How long an entry stays eligible for hits after it was created
+     */
+    public AnalysisResultCache(AnalysisCacheDao dao, int maxEntries,
+                               int maxHammingDistance, long windowMs) {
+        this(dao, maxEntries, maxHammingDistance, windowMs, System::currentTimeMillis);
+    }
+
+    // Package-private constructor for testing with a fixed clock
+    AnalysisResultCache(AnalysisCacheDao dao, int maxEntries, int maxHammingDistance,
+                        long windowMs, LongSupplier clock) {
+        this.dao = dao;
+        this.maxEntries = maxEntries;
+        this.maxHammingDistance = maxHammingDistance;
+        this.windowMs = windowMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Looks up a cached result for a near-identical image.
+     *
+     * @param imageHash dHash of the prepared API image
+     * @param prompt Full prompt that would be sent
+     * @param provider Provider display name
+     * @return Cached result, or null on a miss
+     */
+    public PlantAnalysisResult lookup(long imageHash, String prompt, String provider) {
+        try {
+            long now = clock.getAsLong();
+            List<AnalysisCacheEntry> candidates =
+                    dao.getCandidates(provider, promptHash(prompt), now - windowMs);
+
+            AnalysisCacheEntry best = null;
+            int bestDistance = Integer.MAX_VALUE;
+            for (AnalysisCacheEntry entry : candidates) {
+                int distance = PerceptualHash.hammingDistance(imageHash, entry.imageHash);
+                if (distance <= maxHammingDistance && distance < bestDistance) {
+                    best = entry;
+                    bestDistance = distance;
+                }
+            }
+
+            if (best != null) {
+                PlantAnalysisResult result = decode(best);
+                if (result != null) {
+                    dao.recordHit(best.id, now);
+                    hits.incrementAndGet();
+                    Log.i(TAG, "Cache hit: distance=" + bestDistance + ", " + getCounters());
+                    return result;
+                }
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Cache lookup failed: " + e.getMessage());
+        }
+        misses.incrementAndGet();
+        Log.i(TAG, "Cache miss: " + getCounters());
+        return null;
+    }
+
+    /**
+     * Stores a fresh provider result, then drops expired entries and evicts down to the
+     * size bound. Results without rawResponse are not cacheable and are skipped.
+     *
+     * @param imageHash dHash of the prepared API image
+     * @param prompt Full prompt that was sent
+     * @param provider Provider display name
+     * @param result Result returned by the provider
+     */
+    public void put(long imageHash, String prompt, String provider, PlantAnalysisResult result) {
+        if (result == null || result.rawResponse == null) {
+            return;
+        }
+        try {
+            long now = clock.getAsLong();
+            AnalysisCacheEntry entry = new AnalysisCacheEntry();
+            entry.id = UUID.randomUUID().toString();
+            entry.imageHash = imageHash;
+            entry.promptHash = promptHash(prompt);
+            entry.provider = provider;
+            entry.resultJson = result.rawResponse;
+            entry.createdAt = now;
+            entry.lastAccessedAt = now;
+            dao.insert(entry);
+
+            dao.deleteCreatedBefore(now - windowMs);
+            dao.trimToSize(maxEntries);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Cache store failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets hit/miss statistics. Queries the entry count, so call off the main thread.
+     */
+    public Stats getStats() {
+        int entries;
+        try {
+            entries = dao.count();
+        } catch (RuntimeException e) {
+            entries = 0;
+        }
+        return new Stats(hits.get(), misses.get(), entries);
+    }
+
+    /**
+     * @return SHA-256 hex of the prompt text
+     */
+    static String promptHash(String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(
+                    (prompt != null ? prompt : "").getBytes(StandardCharsets.UTF_8));
+            StringBuilder hexString = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1) {
+                    hexString.append('0');
+                }
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is guaranteed on every Android/JVM runtime
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private PlantAnalysisResult decode(AnalysisCacheEntry entry) {
+        try {
+            return StreamingResponseDecoder.decodeAnalysisText(new StringReader(entry.resultJson));
+        } catch (IOException | RuntimeException e) {
+            // Corrupt entry - drop it so it can't keep shadowing fresh results
+            Log.w(TAG, "Dropping unreadable cache entry: " + e.getMessage());
+            dao.deleteById(entry.id);
+            return null;
+        }
+    }
+
+    private String getCounters() {
+        return "hits=" + hits.get() + ", misses=" + misses.get();
+    }
+}
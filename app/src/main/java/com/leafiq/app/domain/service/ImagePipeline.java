@@ -0,0 +1,266 @@
+package com.leafiq.app.domain.service;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.leafiq.app.util.ImageUtils;
+import com.leafiq.app.util.PerceptualHash;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Single-decode, multi-output image pipeline.
+ * <p>
+ * Decodes the source image once via {@link ImageUtils#decodeSampledBitmap}, sampled down
+ * to the largest size any requested output needs and EXIF-oriented, then derives every
+ * output (thumbnails and the API JPEG) from that one bitmap.
+ * This is the only path that decodes a source URI for thumbnails or upload.
+ * <p>
+ * Every run records per-stage timing and peak live bitmap memory in {@link Stats},
+ * which is logged under the "ImagePipeline" tag.
+ */
+public class ImagePipeline {
+
+    private static final String TAG = "ImagePipeline";
+
+    static final int THUMBNAIL_JPEG_QUALITY = 85;
+    static final int API_JPEG_QUALITY = 80;
+    static final int MAX_API_BYTES = 5 * 1024 * 1024;
+
+    /**
+     * Outputs the pipeline can produce from a single decode.
+     * Each output knows its longest-side size and, for thumbnails, its filename suffix.
+     */
+    public enum Output {
+        /** 256px plant card thumbnail */
+        THUMBNAIL(256, "_thumb"),
+        /** 300px library grid thumbnail */
+        MEDIUM_THUMBNAIL(300, "_medium"),
+        /** 800px plant detail thumbnail */
+        HIGH_RES_THUMBNAIL(800, "_high"),
+        /** 1024px JPEG bytes for AI provider upload (kept in memory, not written to disk) */
+        API_JPEG(1024, null);
+
+        public final int maxDimension;
+        final String fileSuffix;
+
+        Output(int maxDimension, String fileSuffix) {
+            this.maxDimension = maxDimension;
+            this.fileSuffix = fileSuffix;
+        }
+
+        boolean isThumbnail() {
+            return fileSuffix != null;
+        }
+    }
+
+    /** All three saved thumbnail sizes, as used by the save-analysis flow. */
+    public static final EnumSet<Output> THUMBNAILS =
+            EnumSet.of(Output.THUMBNAIL, Output.MEDIUM_THUMBNAIL, Output.HIGH_RES_THUMBNAIL);
+
+    private final Context context;
+
+    /**
+     * Creates an ImagePipeline with application context.
+     *
+     * @param context Application context (for ContentResolver and files dir access)
+     */
+    public ImagePipeline(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Runs the pipeline for the requested outputs.
+     *
+     * @param sourceUri URI of the source image
+     * @param plantId ID of the plant (used in thumbnail filenames; may be null if only API_JPEG requested)
+     * @param outputs Outputs to produce
+     * @return Result with thumbnail paths, API JPEG bytes (if requested), and stats
+     * @throws IOException if the image cannot be read, decoded, or written
+     */
+    public Result process(Uri sourceUri, String plantId, EnumSet<Output> outputs) throws IOException {
+        if (outputs == null || outputs.isEmpty()) {
+            throw new IllegalArgumentException("At least one output is required");
+        }
+
+        Stats stats = new Stats();
+        long start = SystemClock.elapsedRealtime();
+
+        // Stage 1: one sampled, EXIF-oriented decode at the largest size any output needs.
+        // Smaller outputs are scaled from this bitmap.
+        int targetDimension = largestDimension(outputs);
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+
+        long decodeStart = SystemClock.elapsedRealtime();
+        Bitmap base = ImageUtils.decodeSampledBitmap(context, sourceUri, targetDimension, bounds);
+        if (base == null) {
+            throw new IOException("Failed to decode image");
+        }
+        stats.record("decode", SystemClock.elapsedRealtime() - decodeStart);
+        stats.onAllocated(base.getAllocationByteCount());
+        stats.sourceWidth = bounds.outWidth;
+        stats.sourceHeight = bounds.outHeight;
+        stats.inSampleSize = bounds.inSampleSize;
+        stats.decodedWidth = base.getWidth();
+        stats.decodedHeight = base.getHeight();
+
+        // Stage 2: derive each output from the shared bitmap
+        Result result = new Result(stats);
+        try {
+            for (Output output : outputs) {
+                long stageStart = SystemClock.elapsedRealtime();
+                Bitmap scaled = ImageUtils.resizeBitmap(base, output.maxDimension);
+                if (scaled != base) {
+                    stats.onAllocated(scaled.getAllocationByteCount());
+                }
+                try {
+                    if (output.isThumbnail()) {
+                        result.paths.put(output, writeThumbnail(scaled, plantId, output));
+                    } else {
+                        result.apiJpeg = compressForApi(scaled);
+                        // Hash the exact pixels sent to the provider (used as analysis cache key)
+                        result.perceptualHash = PerceptualHash.dHash(scaled);
+                    }
+                } finally {
+                    if (scaled != base) {
+                        stats.onReleased(scaled.getAllocationByteCount());
+                        scaled.recycle();
+                    }
+                }
+                stats.record(output.name(), SystemClock.elapsedRealtime() - stageStart);
+            }
+        } finally {
+            stats.onReleased(base.getAllocationByteCount());
+            base.recycle();
+        }
+
+        stats.totalMs = SystemClock.elapsedRealtime() - start;
+        Log.i(TAG, stats.toString());
+        return result;
+    }
+
+    /**
+     * Returns the largest maxDimension among the requested outputs.
+     */
+    static int largestDimension(EnumSet<Output> outputs) {
+        int largest = 0;
+        for (Output output : outputs) {
+            largest = Math.max(largest, output.maxDimension);
+        }
+        return largest;
+    }
+
+    private String writeThumbnail(Bitmap bitmap, String plantId, Output output) throws IOException {
+        File dir = new File(context.getFilesDir(), "thumbnails");
+        if (!dir.exists()) dir.mkdirs();
+
+        File dest = new File(dir, plantId + output.fileSuffix + ".jpg");
+        try (FileOutputStream out = new FileOutputStream(dest)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, THUMBNAIL_JPEG_QUALITY, out);
+        }
+        return dest.getAbsolutePath();
+    }
+
+    private byte[] compressForApi(Bitmap bitmap) throws IOException {
+        // 1024px JPEG @ 80% quality: ~150-300KB compressed
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(512 * 1024);
+        bitmap.compress(Bitmap.CompressFormat.JPEG, API_JPEG_QUALITY, baos);
+
+        // Safety check: prevent OOM from unexpectedly large images
+        if (baos.size() > MAX_API_BYTES) {
+            throw new IOException("Image too large for API upload (" + (baos.size() / 1024) + " KB)");
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Outputs of a pipeline run.
+     */
+    public static class Result {
+        final Map<Output, String> paths = new EnumMap<>(Output.class);
+        byte[] apiJpeg;
+        long perceptualHash;
+        public final Stats stats;
+
+        Result(Stats stats) {
+            this.stats = stats;
+        }
+
+        /**
+         * @return Absolute path of the saved thumbnail, or null if that output wasn't requested
+         */
+        public String getPath(Output output) {
+            return paths.get(output);
+        }
+
+        /**
+         * @return JPEG bytes for API upload, or null if API_JPEG wasn't requested
+         */
+        public byte[] getApiJpeg() {
+            return apiJpeg;
+        }
+
+        /**
+         * @return dHash of the API image (see {@link PerceptualHash}), or 0 if API_JPEG wasn't requested
+         */
+        public long getPerceptualHash() {
+            return perceptualHash;
+        }
+    }
+
+    /**
+     * Per-run instrumentation: stage timings and peak live bitmap memory.
+     */
+    public static class Stats {
+        public int sourceWidth;
+        public int sourceHeight;
+        public int decodedWidth;
+        public int decodedHeight;
+        public int inSampleSize = 1;
+        public long totalMs;
+        public final Map<String, Long> stageMs = new LinkedHashMap<>();
+
+        private long liveBitmapBytes;
+        private long peakBitmapBytes;
+
+        void record(String stage, long elapsedMs) {
+            stageMs.put(stage, elapsedMs);
+        }
+
+        void onAllocated(long bytes) {
+            liveBitmapBytes += bytes;
+            peakBitmapBytes = Math.max(peakBitmapBytes, liveBitmapBytes);
+        }
+
+        void onReleased(long bytes) {
+            liveBitmapBytes = Math.max(0, liveBitmapBytes - bytes);
+        }
+
+        /**
+         * @return Highest total bytes held by live bitmaps at any point during the run
+         */
+        public long getPeakBitmapBytes() {
+            return peakBitmapBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "pipeline: source=%dx%d sample=%d decoded=%dx%d peakBitmap=%dKB total=%dms stages=%s",
+                    sourceWidth, sourceHeight, inSampleSize, decodedWidth, decodedHeight,
+                    peakBitmapBytes / 1024, totalMs, stageMs);
+        }
+    }
+}
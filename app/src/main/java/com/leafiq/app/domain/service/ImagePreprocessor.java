@@ -7,19 +7,24 @@ import com.leafiq.app.util.ImageUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.EnumSet;
 
 /**
  * Domain layer wrapper for image processing operations.
  * Delegates to ImageUtils while keeping domain layer decoupled from Android context details.
  * <p>
  * Use cases:
- * - Prepare images for AI API calls (base64 encoding)
+ * - Prepare images for AI API calls (JPEG bytes, base64-encoded while streaming)
  * - Save full-resolution photos to internal storage
  * - Create thumbnails for plant cards
+ * <p>
+ * Decoding goes through {@link ImagePipeline} so each call decodes the source once,
+ * sampled to the size it actually needs.
  */
 public class ImagePreprocessor {
 
     private final Context context;
+    private final ImagePipeline imagePipeline;
 
     /**
      * Creates an ImagePreprocessor with application context.
@@ -28,18 +33,22 @@ public class ImagePreprocessor {
      */
     public ImagePreprocessor(Context context) {
         this.context = context;
+        this.imagePipeline = new ImagePipeline(context);
     }
 
     /**
-     * Prepares an image for AI API consumption.
-     * Resizes to max 1024px, compresses to JPEG, and encodes to base64.
+     * Prepares an image for AI analysis: JPEG bytes for the API plus a perceptual hash of
+     * the same pixels, from one decode. The hash lets near-identical re-shoots hit the
+     * analysis cache.
      *
      * @param imageUri URI of the source image
-     * @return Base64-encoded JPEG string ready for API
+     * @return Prepared JPEG bytes and perceptual hash
      * @throws IOException if image cannot be read or processed
      */
-    public String prepareForApi(Uri imageUri) throws IOException {
-        return ImageUtils.prepareForApi(context, imageUri);
+    public PreparedImage prepareForAnalysis(Uri imageUri) throws IOException {
+        ImagePipeline.Result result =
+                imagePipeline.process(imageUri, null, EnumSet.of(ImagePipeline.Output.API_JPEG));
+        return new PreparedImage(result.getApiJpeg(), result.getPerceptualHash());
     }
 
     /**
@@ -56,30 +65,28 @@ public class ImagePreprocessor {
     }
 
     /**
-     * Creates a thumbnail for plant card display.
-     * Resizes to 256px and saves to thumbnails directory.
+     * Creates all three thumbnail sizes (256px, 300px, 800px) from a single decode.
      *
      * @param sourceUri URI of the source image
-     * @param plantId ID of the plant (used in filename)
-     * @return Absolute file path of saved thumbnail
-     * @throws IOException if thumbnail cannot be created
+     * @param plantId ID of the plant (used in filenames)
+     * @return Pipeline result; use {@link ImagePipeline.Result#getPath} per thumbnail size
+     * @throws IOException if the image cannot be decoded or a thumbnail cannot be written
      */
-    public String saveThumbnail(Uri sourceUri, String plantId) throws IOException {
-        return ImageUtils.saveThumbnail(context, sourceUri, plantId);
+    public ImagePipeline.Result saveThumbnails(Uri sourceUri, String plantId) throws IOException {
+        return imagePipeline.process(sourceUri, plantId, ImagePipeline.THUMBNAILS);
     }
 
     /**
-     * Create a medium-resolution thumbnail (300px) for library grid view.
+     * JPEG bytes ready for upload plus the perceptual hash of the image they encode.
      */
-    public String saveMediumThumbnail(Uri sourceUri, String plantId) throws IOException {
-        return ImageUtils.saveMediumThumbnail(context, sourceUri, plantId);
-    }
+    public static class PreparedImage {
+        public final byte[] jpegBytes;
+        public final long perceptualHash;
 
-    /**
-     * Create a high-resolution thumbnail (800px) for detail page.
-     */
-    public String saveHighResThumbnail(Uri sourceUri, String plantId) throws IOException {
-        return ImageUtils.saveHighResThumbnail(context, sourceUri, plantId);
+        public PreparedImage(byte[] jpegBytes, long perceptualHash) {
+            this.jpegBytes = jpegBytes;
+            this.perceptualHash = perceptualHash;
+        }
     }
 
     /**
@@ -0,0 +1,147 @@
+package com.leafiq.app.domain.usecase;
+
+import android.util.Log;
+
+import com.leafiq.app.ai.CallCanceller;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancellation handle for one analysis started by {@link AnalyzePlantUseCase}.
+ * <p>
+ * {@link #cancel()} stops the pipeline at the next stage boundary (a queued analysis never
+ * starts; preprocessing is not followed by the provider call) and cancels the in-flight
+ * OkHttp call through the handle's {@link CallCanceller}, which the use case binds to the
+ * worker thread. No callback is delivered after cancellation.
+ * <p>
+ * Every cancellation is logged with the work it saved; the running totals are available
+ * from the static getters.
+ */
+public class AnalysisHandle {
+
+    private static final String TAG = "AnalysisFlow";
+
+    /**
+     * Pipeline stage, in order.
+     */
+    public enum Stage {
+        QUEUED,             // Waiting for a network thread
+        PREPROCESSING,      // Decoding and compressing the photo
+        LOADING_CONTEXT,    // Reading plant context and the result cache
+        CALLING_PROVIDER,   // Request in flight
+        FINISHED            // Callback delivered (or about to be)
+    }
+
+    private static final AtomicLong cancelledCount = new AtomicLong();
+    private static final AtomicLong providerCallsAvoided = new AtomicLong();
+    private static final AtomicLong providerCallsAborted = new AtomicLong();
+    private static final AtomicLong uploadBytesAvoided = new AtomicLong();
+
+    private final CallCanceller callCanceller = new CallCanceller();
+    private final long createdAtNanos = System.nanoTime();
+
+    private Stage stage = Stage.QUEUED;
+    private boolean cancelled;
+    private long imageBytes;
+
+    /**
+     * Cancels the analysis. Safe to call from any thread, more than once, and after the
+     * analysis has finished (then it does nothing).
+     */
+    public void cancel() {
+        Stage cancelledAt;
+        long bytes;
+        synchronized (this) {
+            if (cancelled || stage == Stage.FINISHED) {
+                return;
+            }
+            cancelled = true;
+            cancelledAt = stage;
+            bytes = imageBytes;
+        }
+        callCanceller.cancel();
+        recordCancellation(cancelledAt, bytes);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    public synchronized Stage getStage() {
+        return stage;
+    }
+
+    /**
+     * Moves to the next stage unless the analysis was cancelled.
+     *
+     * @return false if cancelled; the caller must stop without delivering a callback
+     */
+    synchronized boolean advance(Stage next) {
+        if (cancelled) {
+            return false;
+        }
+        stage = next;
+        return true;
+    }
+
+    /**
+     * Records the size of the prepared image, counted as upload saved if cancelled before the call.
+     */
+    synchronized void setImageBytes(long bytes) {
+        imageBytes = bytes;
+    }
+
+    CallCanceller getCallCanceller() {
+        return callCanceller;
+    }
+
+    private void recordCancellation(Stage cancelledAt, long bytes) {
+        cancelledCount.incrementAndGet();
+        if (cancelledAt == Stage.CALLING_PROVIDER) {
+            providerCallsAborted.incrementAndGet();
+        } else {
+            providerCallsAvoided.incrementAndGet();
+            uploadBytesAvoided.addAndGet(bytes);
+        }
+        Log.i(TAG, String.format("analysis_cancelled: stage=%s elapsedMs=%d cancelled=%d "
+                        + "providerCallsAvoided=%d providerCallsAborted=%d uploadBytesAvoided=%d",
+                cancelledAt, (System.nanoTime() - createdAtNanos) / 1_000_000, cancelledCount.get(),
+                providerCallsAvoided.get(), providerCallsAborted.get(), uploadBytesAvoided.get()));
+    }
+
+    /**
+     * @return Analyses cancelled since process start
+     */
+    public static long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * @return Cancelled analyses that never reached the provider (no request, no quota used)
+     */
+    public static long getProviderCallsAvoided() {
+        return providerCallsAvoided.get();
+    }
+
+    /**
+     * @return Cancelled analyses whose in-flight provider call was aborted
+     */
+    public static long getProviderCallsAborted() {
+        return providerCallsAborted.get();
+    }
+
+    /**
+     * @return Prepared JPEG bytes that were never uploaded because of cancellation
+     */
+    public static long getUploadBytesAvoided() {
+        return uploadBytesAvoided.get();
+    }
+
+    // Visible for testing
+    static void resetStats() {
+        cancelledCount.set(0);
+        providerCallsAvoided.set(0);
+        providerCallsAborted.set(0);
+        uploadBytesAvoided.set(0);
+    }
+}
@@ -5,12 +5,16 @@ import android.net.Uri;
 
 import com.leafiq.app.ai.AIProvider;
 import com.leafiq.app.ai.AIProviderException;
+import com.leafiq.app.ai.AnalysisPrompt;
+import com.leafiq.app.ai.CallCanceller;
 import com.leafiq.app.ai.NetworkUtils;
+import com.leafiq.app.ai.PromptBuilder;
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.entity.Plant;
 import com.leafiq.app.data.model.PlantAnalysisResult;
 import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.domain.service.AIAnalysisService;
+import com.leafiq.app.domain.service.AnalysisResultCache;
 import com.leafiq.app.domain.service.ImagePreprocessor;
 import com.leafiq.app.util.FileCleanupUtils;
 
@@ -24,13 +28,17 @@ import java.util.concurrent.Executor;
  * <p>
  * Flow:
  * 1. Check if provider supports vision (fail early if text-only)
- * 2. Preprocess image (resize, compress, base64 encode)
+ * 2. Preprocess image (resize, compress to JPEG bytes, perceptual hash)
  * 3. Load existing plant context (if re-analyzing)
- * 4. Call AI analysis service with context
- * 5. Return result via callback
+ * 4. Build the prompt (analysis, or correction when the user disputed a result)
+ * 5. Return a cached result for a near-identical photo and the same prompt, if any
+ * 6. Otherwise call AI analysis service with that prompt, streaming partial results via
+ *    {@link Callback#onPartialResult} as each section of the response arrives
+ * 7. Return final result via callback
  * <p>
  * All operations run on background thread (networkExecutor).
- * Results delivered via Callback interface.
+ * Results delivered via Callback interface. execute() returns an {@link AnalysisHandle};
+ * cancelling it stops the pipeline between stages and aborts the in-flight provider call.
  */
 public class AnalyzePlantUseCase {
 
@@ -39,6 +47,7 @@ public class AnalyzePlantUseCase {
     private final AIAnalysisService aiAnalysisService;
     private final PlantRepository plantRepository;
     private final Executor networkExecutor;
+    private final AnalysisResultCache resultCache;
 
     /**
      * Callback interface for async result delivery.
@@ -51,6 +60,16 @@ public class AnalyzePlantUseCase {
          */
         void onSuccess(PlantAnalysisResult result);
 
+        /**
+         * Called while the response is still streaming, each time another section
+         * (identification, health assessment, care plan...) has been fully received.
+         * Always followed by exactly one onSuccess or onError.
+         *
+         * @param partial Result holding the sections received so far (rawResponse is null)
+         */
+        default void onPartialResult(PlantAnalysisResult partial) {
+        }
+
         /**
          * Called when an error occurs during analysis.
          *
@@ -80,11 +99,26 @@ public class AnalyzePlantUseCase {
                               AIAnalysisService aiAnalysisService,
                               PlantRepository plantRepository,
                               Executor networkExecutor) {
+        this(context, imagePreprocessor, aiAnalysisService, plantRepository, networkExecutor, null);
+    }
+
+    /**
+     * Creates an AnalyzePlantUseCase that reuses results for near-identical photos.
+     *
+     * @param resultCache Perceptual-hash result cache (null disables caching)
+     */
+    public AnalyzePlantUseCase(Context context,
+                              ImagePreprocessor imagePreprocessor,
+                              AIAnalysisService aiAnalysisService,
+                              PlantRepository plantRepository,
+                              Executor networkExecutor,
+                              AnalysisResultCache resultCache) {
         this.context = context;
         this.imagePreprocessor = imagePreprocessor;
         this.aiAnalysisService = aiAnalysisService;
         this.plantRepository = plantRepository;
         this.networkExecutor = networkExecutor;
+        this.resultCache = resultCache;
     }
 
     /**
@@ -95,24 +129,38 @@ public class AnalyzePlantUseCase {
      * @param plantId Plant ID if re-analyzing existing plant, null for new plant
      * @param provider AI provider to use (created by caller via AIProviderFactory)
      * @param callback Callback for result delivery
+     * @return Handle that cancels the analysis (no callback is delivered after cancel())
      */
-    public void execute(Uri imageUri, String plantId, AIProvider provider, Callback callback) {
+    public AnalysisHandle execute(Uri imageUri, String plantId, AIProvider provider, Callback callback) {
+        AnalysisHandle handle = new AnalysisHandle();
         networkExecutor.execute(() -> {
+            // Cancelled while still queued: skip the whole pipeline
+            if (!handle.advance(AnalysisHandle.Stage.PREPROCESSING)) {
+                return;
+            }
+
             // Pre-check network connectivity before starting analysis
             if (!NetworkUtils.isNetworkAvailable(context)) {
-                callback.onError("No internet connection. Please check your network.");
+                deliverError(handle, callback, "No internet connection. Please check your network.");
                 return;
             }
 
-            try {
+            // Calls made on this thread are registered with the handle so cancel() aborts them
+            try (CallCanceller.Binding ignored = handle.getCallCanceller().bind()) {
                 // 1. Check vision support (fail early)
                 if (!aiAnalysisService.supportsVision(provider)) {
-                    callback.onVisionNotSupported(provider.getDisplayName());
+                    if (handle.advance(AnalysisHandle.Stage.FINISHED)) {
+                        callback.onVisionNotSupported(provider.getDisplayName());
+                    }
                     return;
                 }
 
-                // 2. Preprocess image to base64
-                String base64Image = imagePreprocessor.prepareForApi(imageUri);
+                // 2. Preprocess image to JPEG bytes (base64 is streamed by the provider)
+                ImagePreprocessor.PreparedImage image = imagePreprocessor.prepareForAnalysis(imageUri);
+                handle.setImageBytes(image.jpegBytes.length);
+                if (!handle.advance(AnalysisHandle.Stage.LOADING_CONTEXT)) {
+                    return;
+                }
 
                 // 3. Load existing plant context (if re-analyzing)
                 String knownPlantName = null;
@@ -130,28 +178,22 @@ public class AnalyzePlantUseCase {
                     previousAnalyses = plantRepository.getRecentAnalysesSync(plantId);
                 }
 
-                // 4. Call AI analysis service
-                PlantAnalysisResult result = aiAnalysisService.analyze(
-                        provider,
-                        base64Image,
-                        knownPlantName,
-                        previousAnalyses,
-                        location
-                );
-
-                // 5. Success - deliver result
-                callback.onSuccess(result);
+                // 4-7. Build the prompt once; it is both sent and used as the cache key
+                AnalysisPrompt prompt = PromptBuilder.buildAnalysisPrompt(
+                        knownPlantName, previousAnalyses, location);
+                analyzeAndDeliver(handle, provider, image, prompt, callback);
 
             } catch (AIProviderException e) {
                 // Clean up any temp files created during this analysis attempt
                 cleanupTempFiles();
-                callback.onError(NetworkUtils.classifyException(e, e.getHttpStatusCode()));
+                deliverError(handle, callback, NetworkUtils.classifyException(e, e.getHttpStatusCode()));
             } catch (IOException e) {
                 // Clean up any temp files created during this analysis attempt
                 cleanupTempFiles();
-                callback.onError(NetworkUtils.classifyException(e, 0));
+                deliverError(handle, callback, NetworkUtils.classifyException(e, 0));
             }
         });
+        return handle;
     }
 
     /**
@@ -164,30 +206,44 @@ public class AnalyzePlantUseCase {
      * @param additionalContext Additional user-provided context (null if none)
      * @param provider AI provider to use (created by caller via AIProviderFactory)
      * @param callback Callback for result delivery
+     * @return Handle that cancels the analysis (no callback is delivered after cancel())
      */
-    public void executeWithCorrections(
+    public AnalysisHandle executeWithCorrections(
             Uri imageUri,
             String plantId,
             String correctedName,
             String additionalContext,
             AIProvider provider,
             Callback callback) {
+        AnalysisHandle handle = new AnalysisHandle();
         networkExecutor.execute(() -> {
+            // Cancelled while still queued: skip the whole pipeline
+            if (!handle.advance(AnalysisHandle.Stage.PREPROCESSING)) {
+                return;
+            }
+
             // Pre-check network connectivity before starting analysis
             if (!NetworkUtils.isNetworkAvailable(context)) {
-                callback.onError("No internet connection. Please check your network.");
+                deliverError(handle, callback, "No internet connection. Please check your network.");
                 return;
             }
 
-            try {
+            // Calls made on this thread are registered with the handle so cancel() aborts them
+            try (CallCanceller.Binding ignored = handle.getCallCanceller().bind()) {
                 // 1. Check vision support (fail early)
                 if (!aiAnalysisService.supportsVision(provider)) {
-                    callback.onVisionNotSupported(provider.getDisplayName());
+                    if (handle.advance(AnalysisHandle.Stage.FINISHED)) {
+                        callback.onVisionNotSupported(provider.getDisplayName());
+                    }
                     return;
                 }
 
-                // 2. Preprocess image to base64
-                String base64Image = imagePreprocessor.prepareForApi(imageUri);
+                // 2. Preprocess image to JPEG bytes (base64 is streamed by the provider)
+                ImagePreprocessor.PreparedImage image = imagePreprocessor.prepareForAnalysis(imageUri);
+                handle.setImageBytes(image.jpegBytes.length);
+                if (!handle.advance(AnalysisHandle.Stage.LOADING_CONTEXT)) {
+                    return;
+                }
 
                 // 3. Load existing plant context (if re-analyzing)
                 List<Analysis> previousAnalyses = null;
@@ -200,24 +256,126 @@ public class AnalyzePlantUseCase {
                     previousAnalyses = plantRepository.getRecentAnalysesSync(plantId);
                 }
 
-                // 4. Call AI analysis service with corrections
-                PlantAnalysisResult result = aiAnalysisService.analyzeWithCorrections(
-                        provider, base64Image, correctedName,
-                        additionalContext, previousAnalyses, location);
-
-                // 5. Success - deliver result
-                callback.onSuccess(result);
+                // 4-7. Same cache as execute(); the correction text is part of the prompt, so a
+                // correction never reuses the result it disputes
+                AnalysisPrompt prompt = PromptBuilder.buildCorrectionPrompt(
+                        correctedName, additionalContext, previousAnalyses, location);
+                analyzeAndDeliver(handle, provider, image, prompt, callback);
 
             } catch (AIProviderException e) {
                 // Clean up any temp files created during this analysis attempt
                 cleanupTempFiles();
-                callback.onError(NetworkUtils.classifyException(e, e.getHttpStatusCode()));
+                deliverError(handle, callback, NetworkUtils.classifyException(e, e.getHttpStatusCode()));
             } catch (IOException e) {
                 // Clean up any temp files created during this analysis attempt
                 cleanupTempFiles();
-                callback.onError(NetworkUtils.classifyException(e, 0));
+                deliverError(handle, callback, NetworkUtils.classifyException(e, 0));
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Executes a quick diagnosis: a health-only check of a photo with no plant context.
+     * Runs entirely on background thread (networkExecutor) and shares the analysis pipeline,
+     * so cancelling the returned handle stops it the same way.
+     *
+     * @param imageUri URI of the plant photo
+     * @param provider AI provider to use (created by caller via AIProviderFactory)
+     * @param callback Callback for result delivery
+     * @return Handle that cancels the diagnosis (no callback is delivered after cancel())
+     */
+    public AnalysisHandle executeQuickDiagnosis(Uri imageUri, AIProvider provider, Callback callback) {
+        AnalysisHandle handle = new AnalysisHandle();
+        networkExecutor.execute(() -> {
+            // Cancelled while still queued: skip the whole pipeline
+            if (!handle.advance(AnalysisHandle.Stage.PREPROCESSING)) {
+                return;
+            }
+
+            // Pre-check network connectivity before starting analysis
+            if (!NetworkUtils.isNetworkAvailable(context)) {
+                deliverError(handle, callback, "No internet connection. Please check your network.");
+                return;
+            }
+
+            // Calls made on this thread are registered with the handle so cancel() aborts them
+            try (CallCanceller.Binding ignored = handle.getCallCanceller().bind()) {
+                if (!aiAnalysisService.supportsVision(provider)) {
+                    if (handle.advance(AnalysisHandle.Stage.FINISHED)) {
+                        callback.onVisionNotSupported(provider.getDisplayName());
+                    }
+                    return;
+                }
+
+                ImagePreprocessor.PreparedImage image = imagePreprocessor.prepareForAnalysis(imageUri);
+                handle.setImageBytes(image.jpegBytes.length);
+                if (!handle.advance(AnalysisHandle.Stage.LOADING_CONTEXT)) {
+                    return;
+                }
+
+                // No plant context; the quick prompt is its own cache key
+                analyzeAndDeliver(handle, provider, image,
+                        PromptBuilder.buildQuickDiagnosisPrompt(), callback);
+
+            } catch (AIProviderException e) {
+                cleanupTempFiles();
+                deliverError(handle, callback, NetworkUtils.classifyException(e, e.getHttpStatusCode()));
+            } catch (IOException e) {
+                cleanupTempFiles();
+                deliverError(handle, callback, NetworkUtils.classifyException(e, 0));
             }
         });
+        return handle;
+    }
+
+    /**
+     * Returns the cached result for a near-identical photo analyzed with the same prompt and
+     * provider, otherwise calls the provider and caches its result. The cache key is the prompt
+     * that is actually sent, so the key and the request cannot drift apart.
+     */
+    private void analyzeAndDeliver(AnalysisHandle handle, AIProvider provider,
+                                   ImagePreprocessor.PreparedImage image, AnalysisPrompt prompt,
+                                   Callback callback) throws AIProviderException, IOException {
+        String promptText = prompt.getFullText();
+        if (resultCache != null) {
+            PlantAnalysisResult cached = resultCache.lookup(
+                    image.perceptualHash, promptText, provider.getDisplayName());
+            if (cached != null) {
+                if (handle.advance(AnalysisHandle.Stage.FINISHED)) {
+                    callback.onSuccess(cached);
+                }
+                return;
+            }
+        }
+        if (!handle.advance(AnalysisHandle.Stage.CALLING_PROVIDER)) {
+            return;
+        }
+
+        PlantAnalysisResult result = aiAnalysisService.analyze(
+                provider, image.jpegBytes, prompt, partial -> {
+                    if (!handle.isCancelled()) {
+                        callback.onPartialResult(partial);
+                    }
+                });
+
+        if (resultCache != null) {
+            resultCache.put(image.perceptualHash, promptText, provider.getDisplayName(), result);
+        }
+
+        if (handle.advance(AnalysisHandle.Stage.FINISHED)) {
+            callback.onSuccess(result);
+        }
+    }
+
+    /**
+     * Delivers an error unless the analysis was cancelled - a cancelled call fails with
+     * "Canceled", which nobody is waiting to see.
+     */
+    private static void deliverError(AnalysisHandle handle, Callback callback, String message) {
+        if (handle.advance(AnalysisHandle.Stage.FINISHED)) {
+            callback.onError(message);
+        }
     }
 
     /**
@@ -22,6 +22,7 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.leafiq.app.LeafIQApplication;
 import com.leafiq.app.R;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.model.PlantAnalysisResult;
@@ -29,12 +30,12 @@ import com.leafiq.app.databinding.ActivityAnalysisBinding;
 import com.leafiq.app.util.KeystoreHelper;
 import com.leafiq.app.util.PhotoQualityChecker;
 import com.leafiq.app.util.PhotoTipsManager;
+import com.leafiq.app.util.PriorityExecutor;
 import com.bumptech.glide.Glide;
 import com.google.android.material.snackbar.Snackbar;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 /**
  * UI-only Activity for plant analysis screen.
@@ -69,7 +70,7 @@ public class AnalysisActivity extends AppCompatActivity {
 
     private KeystoreHelper keystoreHelper;
     private AnalysisViewModel viewModel;
-    private ExecutorService executor; // For image copy only
+    private Executor executor; // For image copy and quality check only
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -85,8 +86,10 @@ public class AnalysisActivity extends AppCompatActivity {
                 new AnalysisViewModelFactory(getApplication()))
                 .get(AnalysisViewModel.class);
 
-        // Initialize executor for image copy (UI-layer file I/O)
-        executor = Executors.newSingleThreadExecutor();
+        // Shared IO pool for image copy (UI-layer file I/O); the user is waiting on it, so it
+        // runs ahead of background work. Copy and quality check are sequenced via the UI thread.
+        executor = ((LeafIQApplication) getApplication()).getAppExecutors().io()
+                .withPriority(PriorityExecutor.Priority.USER_VISIBLE);
 
         // Observe UI state from ViewModel
         viewModel.getUiState().observe(this, this::onUiStateChanged);
@@ -785,9 +788,6 @@ public class AnalysisActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
         binding = null; // Prevent memory leaks
-        if (executor != null) {
-            executor.shutdown();
-        }
         // Cleanup temporary image file
         if (localImageUri != null && localImageUri.getPath() != null) {
             java.io.File tempFile = new java.io.File(localImageUri.getPath());
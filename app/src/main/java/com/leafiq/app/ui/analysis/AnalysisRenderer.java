@@ -32,7 +32,12 @@ public class AnalysisRenderer {
                 // Initial state, nothing to show
                 break;
             case LOADING:
-                renderLoading(binding);
+                renderLoadingMessage(binding, state.getLoadingMessage());
+                if (state.hasPartialResult()) {
+                    renderPartialResults(binding, state.getResult());
+                } else {
+                    renderLoading(binding);
+                }
                 break;
             case SUCCESS:
                 binding.photoTipsContainer.setVisibility(View.GONE);
@@ -54,6 +59,17 @@ public class AnalysisRenderer {
         binding.errorContainer.setVisibility(View.GONE);
     }
 
+    /**
+     * Shows the custom progress message (slow-analysis warning, retry attempt) or the default.
+     */
+    private static void renderLoadingMessage(ActivityAnalysisBinding binding, String message) {
+        if (message != null) {
+            binding.loadingMessage.setText(message);
+        } else {
+            binding.loadingMessage.setText(R.string.analyzing);
+        }
+    }
+
     /**
      * Renders error state.
      */
@@ -64,6 +80,20 @@ public class AnalysisRenderer {
         binding.errorMessage.setText(errorMessage);
     }
 
+    /**
+     * Renders the sections streamed in so far while the rest of the analysis is still loading.
+     * The progress indicator stays visible; save/correct stay hidden until the result is complete.
+     */
+    private static void renderPartialResults(ActivityAnalysisBinding binding, PlantAnalysisResult result) {
+        binding.loadingContainer.setVisibility(View.VISIBLE);
+        binding.resultsContainer.setVisibility(View.VISIBLE);
+        binding.errorContainer.setVisibility(View.GONE);
+        binding.btnCorrect.setVisibility(View.GONE);
+        binding.btnSave.setVisibility(View.GONE);
+
+        renderSections(binding, result);
+    }
+
     /**
      * Renders success state with analysis results.
      */
@@ -72,7 +102,16 @@ public class AnalysisRenderer {
         binding.loadingContainer.setVisibility(View.GONE);
         binding.errorContainer.setVisibility(View.GONE);
         binding.btnCorrect.setVisibility(View.VISIBLE);
+        binding.btnSave.setVisibility(View.VISIBLE);
 
+        renderSections(binding, result);
+    }
+
+    /**
+     * Renders every section present in the result. Safe to call repeatedly as more
+     * sections arrive (containers are cleared before re-filling).
+     */
+    private static void renderSections(ActivityAnalysisBinding binding, PlantAnalysisResult result) {
         Context context = binding.getRoot().getContext();
 
         // Render identification section
@@ -8,7 +8,7 @@ import com.leafiq.app.data.model.PlantAnalysisResult;
  * <p>
  * States:
  * - IDLE: Initial state, no analysis in progress
- * - LOADING: Analysis in progress, show loading UI
+ * - LOADING: Analysis in progress, show loading UI (optionally with partial streamed results)
  * - SUCCESS: Analysis complete, show results
  * - ERROR: Analysis failed, show error message
  * <p>
@@ -36,6 +36,9 @@ public class AnalysisUiState {
     private final boolean qualityOverridden;
     private final String quickDiagnosisDisclaimer;
     private final String reanalyzedDate;
+    private final int attempt;
+    private final int maxAttempts;
+    private final String providerBreakerState;
 
     /**
      * Private constructor - use factory methods instead.
@@ -50,6 +53,27 @@ public class AnalysisUiState {
                            boolean qualityOverridden,
                            String quickDiagnosisDisclaimer,
                            String reanalyzedDate) {
+        this(state, result, errorMessage, visionUnsupportedProvider, loadingMessage, fallbackMessage,
+                showReanalyzeButton, qualityOverridden, quickDiagnosisDisclaimer, reanalyzedDate,
+                1, 1, null);
+    }
+
+    /**
+     * Private constructor carrying retry progress - use factory methods instead.
+     */
+    private AnalysisUiState(State state,
+                           PlantAnalysisResult result,
+                           String errorMessage,
+                           String visionUnsupportedProvider,
+                           String loadingMessage,
+                           String fallbackMessage,
+                           boolean showReanalyzeButton,
+                           boolean qualityOverridden,
+                           String quickDiagnosisDisclaimer,
+                           String reanalyzedDate,
+                           int attempt,
+                           int maxAttempts,
+                           String providerBreakerState) {
         this.state = state;
         this.result = result;
         this.errorMessage = errorMessage;
@@ -60,6 +84,9 @@ public class AnalysisUiState {
         this.qualityOverridden = qualityOverridden;
         this.quickDiagnosisDisclaimer = quickDiagnosisDisclaimer;
         this.reanalyzedDate = reanalyzedDate;
+        this.attempt = attempt;
+        this.maxAttempts = maxAttempts;
+        this.providerBreakerState = providerBreakerState;
     }
 
     // ==================== Factory Methods ====================
@@ -90,6 +117,42 @@ public class AnalysisUiState {
         return new AnalysisUiState(State.LOADING, null, null, null, message, null, false, false, null, null);
     }
 
+    /**
+     * Creates a LOADING state carrying a partial result from a streaming analysis.
+     * Sections received so far are rendered while the rest is still arriving.
+     *
+     * @param partial Result holding the sections completed so far
+     */
+    public static AnalysisUiState partial(PlantAnalysisResult partial) {
+        return new AnalysisUiState(State.LOADING, partial, null, null, null, null, false, false, null, null);
+    }
+
+    /**
+     * Creates a LOADING state with a custom progress message, keeping any partial result.
+     *
+     * @param partial Result holding the sections completed so far (may be null)
+     * @param message Progress message to display
+     */
+    public static AnalysisUiState partialWithMessage(PlantAnalysisResult partial, String message) {
+        return new AnalysisUiState(State.LOADING, partial, null, null, message, null, false, false, null, null);
+    }
+
+    /**
+     * Creates a LOADING state while a transient provider failure (429/5xx) is being retried.
+     * Keeps any partial result and shows the attempt count in the progress message.
+     *
+     * @param partial Result holding the sections completed so far (may be null)
+     * @param attempt Attempt about to be made (2 = first retry)
+     * @param maxAttempts Total attempts allowed
+     * @param breakerState Provider circuit breaker state (CLOSED, OPEN, HALF_OPEN)
+     */
+    public static AnalysisUiState retrying(PlantAnalysisResult partial, int attempt, int maxAttempts,
+                                           String breakerState) {
+        String message = "Service is busy, retrying (attempt " + attempt + " of " + maxAttempts + ")...";
+        return new AnalysisUiState(State.LOADING, partial, null, null, message, null, false, false, null, null,
+                attempt, maxAttempts, breakerState);
+    }
+
     /**
      * Creates a SUCCESS state with analysis result.
      *
@@ -161,7 +224,8 @@ public class AnalysisUiState {
     }
 
     /**
-     * Gets the analysis result (only non-null when state is SUCCESS).
+     * Gets the analysis result. Non-null when state is SUCCESS, and when state is LOADING
+     * with partial streamed results.
      */
     public PlantAnalysisResult getResult() {
         return result;
@@ -181,6 +245,27 @@ public class AnalysisUiState {
         return visionUnsupportedProvider;
     }
 
+    /**
+     * Gets the provider attempt in progress (1 unless a transient failure is being retried).
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * Gets the total provider attempts allowed for the current analysis.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Gets the provider's circuit breaker state while retrying, null otherwise.
+     */
+    public String getProviderBreakerState() {
+        return providerBreakerState;
+    }
+
     // ==================== Convenience Methods ====================
 
     /**
@@ -190,6 +275,20 @@ public class AnalysisUiState {
         return state == State.LOADING;
     }
 
+    /**
+     * Checks if analysis is still loading but some sections have already streamed in.
+     */
+    public boolean hasPartialResult() {
+        return state == State.LOADING && result != null;
+    }
+
+    /**
+     * Checks if a transient provider failure is currently being retried.
+     */
+    public boolean isRetrying() {
+        return state == State.LOADING && attempt > 1;
+    }
+
     /**
      * Checks if analysis completed successfully.
      */
@@ -4,6 +4,7 @@ import android.app.Application;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.lifecycle.AndroidViewModel;
@@ -13,6 +14,8 @@ import androidx.lifecycle.MutableLiveData;
 import com.leafiq.app.LeafIQApplication;
 import com.leafiq.app.ai.AIProvider;
 import com.leafiq.app.ai.AIProviderFactory;
+import com.leafiq.app.ai.HedgedAIProvider;
+import com.leafiq.app.ai.ResilientAIProvider;
 import com.leafiq.app.care.CareScheduleManager;
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.entity.CareItem;
@@ -20,13 +23,18 @@ import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
 import com.leafiq.app.data.model.PlantAnalysisResult;
 import com.leafiq.app.data.repository.PlantRepository;
+import com.leafiq.app.domain.service.ImagePipeline;
 import com.leafiq.app.domain.service.ImagePreprocessor;
+import com.leafiq.app.domain.usecase.AnalysisHandle;
 import com.leafiq.app.domain.usecase.AnalyzePlantUseCase;
 import com.leafiq.app.util.KeystoreHelper;
+import com.leafiq.app.util.PriorityExecutor;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.regex.Matcher;
@@ -42,7 +50,7 @@ import okhttp3.OkHttpClient;
  * - Expose LiveData<AnalysisUiState> for UI observation
  * - Delegate analysis to AnalyzePlantUseCase
  * - Delegate saving to PlantRepository
- * - Handle AI provider creation via AIProviderFactory
+ * - Handle AI provider creation via AIProviderFactory (wrapped in ResilientAIProvider)
  * <p>
  * UI logic (rendering, views) stays in AnalysisActivity.
  */
@@ -61,6 +69,13 @@ public class AnalysisViewModel extends AndroidViewModel {
     private Handler warningHandler;
     private Runnable warningRunnable;
 
+    // In-flight analysis, cancelled when a new one starts or the screen goes away
+    private AnalysisHandle currentAnalysis;
+
+    // Streaming metrics: time from analysis start to first partial (first useful content)
+    private volatile long analysisStartMs;
+    private volatile boolean firstPartialReceived;
+
     private boolean isQuickDiagnosis = false;
     private boolean qualityOverridden = false;
 
@@ -142,7 +157,8 @@ public class AnalysisViewModel extends AndroidViewModel {
         warningRunnable = () -> {
             AnalysisUiState current = uiState.getValue();
             if (current != null && current.isLoading()) {
-                uiState.setValue(AnalysisUiState.loadingWithMessage(
+                // Keep any sections already streamed in on screen
+                uiState.setValue(AnalysisUiState.partialWithMessage(current.getResult(),
                     "Analysis is taking longer than usual..."));
             }
         };
@@ -160,6 +176,87 @@ public class AnalysisViewModel extends AndroidViewModel {
         }
     }
 
+    /**
+     * Cancels the in-flight analysis, if any: stops preprocessing between stages and aborts
+     * the provider call, so no battery, bandwidth or API quota is spent on a discarded result.
+     */
+    private void cancelCurrentAnalysis() {
+        if (currentAnalysis != null) {
+            currentAnalysis.cancel();
+            currentAnalysis = null;
+        }
+    }
+
+    /**
+     * Resets streaming metrics at the start of an analysis.
+     */
+    private void startStreamingMetrics() {
+        analysisStartMs = SystemClock.elapsedRealtime();
+        firstPartialReceived = false;
+    }
+
+    /**
+     * Publishes a partial streamed result and logs time-to-first-content once per analysis.
+     * Called on the network thread.
+     */
+    private void postPartialResult(PlantAnalysisResult partial) {
+        if (!firstPartialReceived) {
+            firstPartialReceived = true;
+            Log.i("AnalysisFlow", String.format("analysis_first_content: elapsedMs=%d",
+                    SystemClock.elapsedRealtime() - analysisStartMs));
+        }
+        uiState.postValue(AnalysisUiState.partial(partial));
+    }
+
+    /**
+     * Logs total streamed analysis time on completion.
+     */
+    private void logAnalysisComplete() {
+        Log.i("AnalysisFlow", String.format("analysis_complete: elapsedMs=%d streamed=%b",
+                SystemClock.elapsedRealtime() - analysisStartMs, firstPartialReceived));
+    }
+
+    /**
+     * Creates the configured AI provider wrapped in the resilience layer.
+     * Retries of transient failures (429/5xx) are surfaced as a retrying LOADING state that
+     * keeps any sections already streamed in.
+     * <p>
+     * With hedging enabled and keys for more than one provider, returns a HedgedAIProvider
+     * instead: it fails over between providers rather than retrying one.
+     */
+    private AIProvider createProvider() {
+        String providerName = keystoreHelper.getProvider();
+        String apiKey = keystoreHelper.getApiKey();
+        LeafIQApplication app = getApplication();
+        OkHttpClient client = app.getHttpClient();
+        boolean structuredOutput = keystoreHelper.isStructuredOutputEnabled();
+
+        if (keystoreHelper.isHedgingEnabled()) {
+            Map<String, String> apiKeys = new LinkedHashMap<>();
+            apiKeys.put(providerName, apiKey);
+            for (String name : new String[]{KeystoreHelper.PROVIDER_GEMINI,
+                    KeystoreHelper.PROVIDER_CLAUDE, KeystoreHelper.PROVIDER_OPENAI}) {
+                if (!apiKeys.containsKey(name)) {
+                    apiKeys.put(name, keystoreHelper.getApiKeyForProvider(name));
+                }
+            }
+            AIProvider hedged = AIProviderFactory.createHedged(providerName, apiKeys, client,
+                    app.getProviderLatencyStats(),
+                    app.getAppExecutors().hedge().withPriority(PriorityExecutor.Priority.USER_VISIBLE),
+                    structuredOutput);
+            if (hedged instanceof HedgedAIProvider) {
+                return hedged;
+            }
+        }
+
+        AIProvider provider = AIProviderFactory.create(providerName, apiKey, client, structuredOutput);
+        return new ResilientAIProvider(provider, (nextAttempt, maxAttempts, delayMs, breakerState) -> {
+            AnalysisUiState current = uiState.getValue();
+            PlantAnalysisResult partial = current != null && current.isLoading() ? current.getResult() : null;
+            uiState.postValue(AnalysisUiState.retrying(partial, nextAttempt, maxAttempts, breakerState.name()));
+        });
+    }
+
     /**
      * Analyzes a plant image using AI.
      * Delegates to AnalyzePlantUseCase, updates UI state via LiveData.
@@ -175,25 +272,26 @@ public class AnalysisViewModel extends AndroidViewModel {
         // Set loading state
         uiState.setValue(AnalysisUiState.loading());
         startWarningTimer();
+        startStreamingMetrics();
 
-        // Get provider and API key
-        String providerName = keystoreHelper.getProvider();
-        String apiKey = keystoreHelper.getApiKey();
-
-        // Get shared HTTP client
-        OkHttpClient client = ((LeafIQApplication) getApplication()).getHttpClient();
-
-        // Create provider
-        AIProvider provider = AIProviderFactory.create(providerName, apiKey, client);
+        // Create provider (with retry and circuit breaker)
+        AIProvider provider = createProvider();
 
         // Delegate to use case
-        analyzePlantUseCase.execute(imageUri, plantId, provider, new AnalyzePlantUseCase.Callback() {
+        cancelCurrentAnalysis();
+        currentAnalysis = analyzePlantUseCase.execute(imageUri, plantId, provider, new AnalyzePlantUseCase.Callback() {
             @Override
             public void onSuccess(PlantAnalysisResult result) {
                 cancelWarningTimer();
+                logAnalysisComplete();
                 uiState.postValue(AnalysisUiState.success(result));
             }
 
+            @Override
+            public void onPartialResult(PlantAnalysisResult partial) {
+                postPartialResult(partial);
+            }
+
             @Override
             public void onError(String message) {
                 cancelWarningTimer();
@@ -232,26 +330,27 @@ public class AnalysisViewModel extends AndroidViewModel {
         // Set loading state
         uiState.setValue(AnalysisUiState.loading());
         startWarningTimer();
+        startStreamingMetrics();
 
-        // Get provider and API key
-        String providerName = keystoreHelper.getProvider();
-        String apiKey = keystoreHelper.getApiKey();
-
-        // Get shared HTTP client
-        OkHttpClient client = ((LeafIQApplication) getApplication()).getHttpClient();
-
-        // Create provider
-        AIProvider provider = AIProviderFactory.create(providerName, apiKey, client);
+        // Create provider (with retry and circuit breaker)
+        AIProvider provider = createProvider();
 
         // Delegate to use case with corrections
-        analyzePlantUseCase.executeWithCorrections(imageUri, plantId, correctedName, additionalContext, provider,
+        cancelCurrentAnalysis();
+        currentAnalysis = analyzePlantUseCase.executeWithCorrections(imageUri, plantId, correctedName, additionalContext, provider,
                 new AnalyzePlantUseCase.Callback() {
             @Override
             public void onSuccess(PlantAnalysisResult result) {
                 cancelWarningTimer();
+                logAnalysisComplete();
                 uiState.postValue(AnalysisUiState.success(result));
             }
 
+            @Override
+            public void onPartialResult(PlantAnalysisResult partial) {
+                postPartialResult(partial);
+            }
+
             @Override
             public void onError(String message) {
                 cancelWarningTimer();
@@ -303,15 +402,17 @@ public class AnalysisViewModel extends AndroidViewModel {
                 plantId = UUID.randomUUID().toString();
             }
 
-            // Save thumbnails (3 sizes) and photo
+            // Save thumbnails (3 sizes, single decode) and photo
             String thumbnailPath = null;
             String mediumThumbnailPath = null;
             String highResThumbnailPath = null;
             String photoPath = null;
             try {
-                thumbnailPath = imagePreprocessor.saveThumbnail(imageUri, plantId);
-                mediumThumbnailPath = imagePreprocessor.saveMediumThumbnail(imageUri, plantId);
-                highResThumbnailPath = imagePreprocessor.saveHighResThumbnail(imageUri, plantId);
+                // One decode produces all three thumbnail sizes
+                ImagePipeline.Result thumbnails = imagePreprocessor.saveThumbnails(imageUri, plantId);
+                thumbnailPath = thumbnails.getPath(ImagePipeline.Output.THUMBNAIL);
+                mediumThumbnailPath = thumbnails.getPath(ImagePipeline.Output.MEDIUM_THUMBNAIL);
+                highResThumbnailPath = thumbnails.getPath(ImagePipeline.Output.HIGH_RES_THUMBNAIL);
                 photoPath = imagePreprocessor.savePhoto(imageUri, plantId);
             } catch (IOException e) {
                 // If image save fails, continue without thumbnail/photo
@@ -328,6 +429,8 @@ public class AnalysisViewModel extends AndroidViewModel {
                     result.healthAssessment.summary : "";
             analysis.rawResponse = result.rawResponse;
             analysis.parseStatus = "OK";  // New analyses always start as OK since we just parsed successfully
+            analysis.provider = result.provider;
+            analysis.structuredOutput = result.structuredOutput;
             analysis.createdAt = now;
 
             // Create care items from care plan
@@ -352,7 +455,7 @@ public class AnalysisViewModel extends AndroidViewModel {
                 plant.createdAt = now;
                 plant.updatedAt = now;
 
-                plantRepository.savePlantWithAnalysis(plant, analysis, careItems,
+                plantRepository.savePlantWithAnalysis(plant, analysis, result, careItems,
                         new PlantRepository.RepositoryCallback<>() {
                             @Override
                             public void onSuccess(Void unused) {
@@ -380,7 +483,7 @@ public class AnalysisViewModel extends AndroidViewModel {
                 // EXISTING PLANT: Update plant and add new analysis
               plantRepository.addAnalysisToExistingPlant(finalPlantId, commonName, scientificName,
                         healthScore, thumbnailPath, mediumThumbnailPath, highResThumbnailPath,
-                        analysis, careItems,
+                        analysis, result, careItems,
                         new PlantRepository.RepositoryCallback<>() {
                             @Override
                             public void onSuccess(Void unused) {
@@ -734,5 +837,6 @@ public class AnalysisViewModel extends AndroidViewModel {
     protected void onCleared() {
         super.onCleared();
         cancelWarningTimer();
+        cancelCurrentAnalysis();
     }
 }
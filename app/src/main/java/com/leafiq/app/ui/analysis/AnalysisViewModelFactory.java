@@ -57,7 +57,8 @@ public class AnalysisViewModelFactory implements ViewModelProvider.Factory {
                     imagePreprocessor,
                     aiAnalysisService,
                     plantRepository,
-                    appExecutors.network()
+                    appExecutors.network(),
+                    app.getAnalysisResultCache()
             );
 
             // Create KeystoreHelper for API key management
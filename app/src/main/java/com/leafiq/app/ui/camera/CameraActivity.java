@@ -35,8 +35,6 @@ import com.google.common.util.concurrent.ListenableFuture;
 import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Camera activity for plant photo capture.
@@ -73,7 +71,6 @@ public class CameraActivity extends AppCompatActivity {
 
     private ImageCapture imageCapture;
     private Camera camera;
-    private ExecutorService cameraExecutor;
     private String plantId;
     private PhotoTipsManager tipsManager;
     private int currentFlashMode = FLASH_MODE_OFF;
@@ -108,7 +105,6 @@ public class CameraActivity extends AppCompatActivity {
         flashButton = findViewById(R.id.btn_flash);
         progress = findViewById(R.id.progress);
 
-        cameraExecutor = Executors.newSingleThreadExecutor();
         tipsManager = new PhotoTipsManager(this);
 
         captureButton.setOnClickListener(v -> takePhoto());
@@ -220,7 +216,7 @@ public class CameraActivity extends AppCompatActivity {
         ImageCapture.OutputFileOptions outputOptions =
             new ImageCapture.OutputFileOptions.Builder(photoFile).build();
 
-        imageCapture.takePicture(outputOptions, cameraExecutor,
+        imageCapture.takePicture(outputOptions, ContextCompat.getMainExecutor(this),
             new ImageCapture.OnImageSavedCallback() {
                 @Override
                 public void onImageSaved(@NonNull ImageCapture.OutputFileResults results) {
@@ -280,12 +276,4 @@ public class CameraActivity extends AppCompatActivity {
         captureButton.setEnabled(!loading);
         galleryButton.setEnabled(!loading);
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (cameraExecutor != null) {
-            cameraExecutor.shutdown();
-        }
-    }
 }
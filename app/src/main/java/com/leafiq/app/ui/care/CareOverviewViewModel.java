@@ -9,9 +9,11 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 
 import com.leafiq.app.LeafIQApplication;
+import com.leafiq.app.care.CareScheduleManager;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
 import com.leafiq.app.data.model.CareCompletionWithPlantInfo;
+import com.leafiq.app.data.model.ScheduleWithPlant;
 import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.util.DateFormatter;
 
@@ -45,6 +47,19 @@ public class CareOverviewViewModel extends AndroidViewModel {
             this.schedule = schedule;
             this.plant = plant;
         }
+
+        /**
+         * Builds an item from an agenda JOIN row. The plant carries only the columns the
+         * care list displays (id, names, thumbnail).
+         */
+        public CareTaskItem(ScheduleWithPlant row) {
+            this.schedule = row.schedule;
+            this.plant = new Plant();
+            this.plant.id = row.schedule.plantId;
+            this.plant.commonName = row.plantCommonName;
+            this.plant.nickname = row.plantNickname;
+            this.plant.thumbnailPath = row.plantThumbnailPath;
+        }
     }
 
     /**
@@ -113,7 +128,7 @@ public class CareOverviewViewModel extends AndroidViewModel {
      * @param callback Callback for success/error
      */
     public void markComplete(String scheduleId, PlantRepository.RepositoryCallback<Void> callback) {
-        repository.markCareComplete(scheduleId, "in_app", callback);
+        repository.markCareComplete(scheduleId, "in_app", rearmAlarmOnSuccess(callback));
     }
 
     /**
@@ -154,7 +169,7 @@ public class CareOverviewViewModel extends AndroidViewModel {
                 schedule.nextDue = newNextDue;
                 schedule.snoozeCount++;
 
-                repository.updateSchedule(schedule, callback);
+                repository.updateSchedule(schedule, rearmAlarmOnSuccess(callback));
             } catch (Exception e) {
                 callback.onError(e);
             }
@@ -162,69 +177,74 @@ public class CareOverviewViewModel extends AndroidViewModel {
     }
 
     /**
-     * Initializes LiveData by observing all plants and filtering schedules by date ranges.
+     * Wraps a callback so a successful change re-arms the reminder alarm: the schedule's
+     * nextDue moved, so the next care event (and with it the alarm time) may have changed.
      */
-    private void initializeLiveData() {
-        // Observe all plants (when plants change, schedules might have changed)
-        LiveData<List<Plant>> allPlantsSource = repository.getAllPlants();
+    private PlantRepository.RepositoryCallback<Void> rearmAlarmOnSuccess(
+            PlantRepository.RepositoryCallback<Void> callback) {
+        return new PlantRepository.RepositoryCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                CareScheduleManager scheduleManager =
+                        ((LeafIQApplication) getApplication()).getCareScheduleManager();
+                ioExecutor.execute(scheduleManager::scheduleNextAlarm);
+                callback.onSuccess(result);
+            }
 
-        // Add source to mediator - when plants change, refresh tasks
-        todayTasks.addSource(allPlantsSource, plants -> refreshTasks());
-        upcomingTasks.addSource(allPlantsSource, plants -> refreshTasks());
-        recentCompletions.addSource(allPlantsSource, plants -> refreshRecentCompletions());
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        };
     }
 
     /**
-     * Refreshes task lists by querying schedules and loading plants on background thread.
+     * Initializes LiveData by observing the care agenda: enabled schedules due up to the end
+     * of the 7th day from now, joined with their plants and sorted by the database. Any change
+     * to care_schedules or plants re-emits it, which also covers completions (marking a task
+     * done moves its next_due).
      */
-    private void refreshTasks() {
-        ioExecutor.execute(() -> {
-            try {
-                // Calculate time ranges
-                Calendar endOfToday = Calendar.getInstance();
-                endOfToday.set(Calendar.HOUR_OF_DAY, 23);
-                endOfToday.set(Calendar.MINUTE, 59);
-                endOfToday.set(Calendar.SECOND, 59);
-                endOfToday.set(Calendar.MILLISECOND, 999);
-
-                Calendar sevenDaysFromNow = Calendar.getInstance();
-                sevenDaysFromNow.add(Calendar.DAY_OF_MONTH, 7);
-                sevenDaysFromNow.set(Calendar.HOUR_OF_DAY, 23);
-                sevenDaysFromNow.set(Calendar.MINUTE, 59);
-                sevenDaysFromNow.set(Calendar.SECOND, 59);
-                sevenDaysFromNow.set(Calendar.MILLISECOND, 999);
-
-                long endOfTodayTimestamp = endOfToday.getTimeInMillis();
-                long sevenDaysTimestamp = sevenDaysFromNow.getTimeInMillis();
-
-                // Get all enabled schedules
-                List<CareSchedule> allSchedules = repository.getAllEnabledSchedulesSync();
-
-                // Filter into today and upcoming
-                List<CareTaskItem> todayList = new ArrayList<>();
-                List<CareTaskItem> upcomingList = new ArrayList<>();
-
-                for (CareSchedule schedule : allSchedules) {
-                    Plant plant = repository.getPlantByIdSync(schedule.plantId);
-                    if (plant == null) continue;
-
-                    CareTaskItem item = new CareTaskItem(schedule, plant);
-
-                    if (schedule.nextDue <= endOfTodayTimestamp) {
-                        todayList.add(item);
-                    } else if (schedule.nextDue <= sevenDaysTimestamp) {
-                        upcomingList.add(item);
-                    }
-                }
-
-                // Post results to main thread
-                todayTasks.postValue(todayList);
-                upcomingTasks.postValue(upcomingList);
+    private void initializeLiveData() {
+        LiveData<List<ScheduleWithPlant>> agendaSource =
+                repository.getScheduleAgenda(Long.MIN_VALUE, getEndOfDay(7));
+
+        todayTasks.addSource(agendaSource, rows ->
+                todayTasks.setValue(filterByDueDay(rows, getEndOfDay(0), true)));
+        upcomingTasks.addSource(agendaSource, rows ->
+                upcomingTasks.setValue(filterByDueDay(rows, getEndOfDay(0), false)));
+        recentCompletions.addSource(agendaSource, rows -> refreshRecentCompletions());
+    }
 
-            } catch (Exception e) {
-                android.util.Log.e("CareOverviewViewModel", "Error refreshing tasks", e);
+    /**
+     * Picks today's (nextDue <= endOfToday, including overdue) or upcoming (nextDue later)
+     * tasks from agenda rows. Rows arrive sorted and bounded to the 7-day window, so this is
+     * a single pass with no further lookups; order is preserved.
+     */
+    static List<CareTaskItem> filterByDueDay(List<ScheduleWithPlant> rows, long endOfToday,
+                                             boolean dueToday) {
+        List<CareTaskItem> items = new ArrayList<>();
+        if (rows == null) {
+            return items;
+        }
+        for (ScheduleWithPlant row : rows) {
+            if ((row.schedule.nextDue <= endOfToday) == dueToday) {
+                items.add(new CareTaskItem(row));
             }
-        });
+        }
+        return items;
+    }
+
+    /**
+     * @return 23:59:59.999 local time, daysFromToday days from today
+     */
+    private static long getEndOfDay(int daysFromToday) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, daysFromToday);
+        calendar.set(Calendar.HOUR_OF_DAY, 23);
+        calendar.set(Calendar.MINUTE, 59);
+        calendar.set(Calendar.SECOND, 59);
+        calendar.set(Calendar.MILLISECOND, 999);
+        return calendar.getTimeInMillis();
     }
 
     /**
@@ -15,7 +15,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.leafiq.app.R;
-import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.model.AnalysisSummary;
 import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.ui.timeline.AnalysisDetailActivity;
 import com.leafiq.app.util.WindowInsetsHelper;
@@ -118,7 +118,7 @@ public class AnalysisHistoryActivity extends AppCompatActivity {
             @Override
             public void onSwiped(RecyclerView.ViewHolder viewHolder, int direction) {
                 int position = viewHolder.getAdapterPosition();
-                Analysis analysis = adapter.getSwipeablePosition(position);
+                AnalysisSummary analysis = adapter.getSwipeablePosition(position);
 
                 // If it's a header, restore and return
                 if (analysis == null) {
@@ -141,7 +141,7 @@ public class AnalysisHistoryActivity extends AppCompatActivity {
      * @param analysis Analysis to delete
      * @param position Adapter position for restoring if cancelled
      */
-    private void showDeleteConfirmation(Analysis analysis, int position) {
+    private void showDeleteConfirmation(AnalysisSummary analysis, int position) {
         AlertDialog dialog = new AlertDialog.Builder(this)
                 .setTitle("Delete this analysis?")
                 .setMessage("This action cannot be undone.")
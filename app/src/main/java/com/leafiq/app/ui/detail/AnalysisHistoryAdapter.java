@@ -14,20 +14,20 @@ import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.leafiq.app.R;
-import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.model.AnalysisSummary;
 import com.leafiq.app.util.HealthUtils;
 import com.bumptech.glide.Glide;
 
 import java.io.File;
 import java.util.concurrent.TimeUnit;
 
-public class AnalysisHistoryAdapter extends ListAdapter<Analysis, AnalysisHistoryAdapter.AnalysisViewHolder> {
+public class AnalysisHistoryAdapter extends ListAdapter<AnalysisSummary, AnalysisHistoryAdapter.AnalysisViewHolder> {
 
     /**
      * Click listener for analysis history entries.
      */
     public interface OnAnalysisClickListener {
-        void onAnalysisClick(Analysis analysis);
+        void onAnalysisClick(AnalysisSummary analysis);
     }
 
     private final OnAnalysisClickListener clickListener;
@@ -37,15 +37,15 @@ public class AnalysisHistoryAdapter extends ListAdapter<Analysis, AnalysisHistor
         this.clickListener = clickListener;
     }
 
-    private static final DiffUtil.ItemCallback<Analysis> DIFF_CALLBACK =
-        new DiffUtil.ItemCallback<Analysis>() {
+    private static final DiffUtil.ItemCallback<AnalysisSummary> DIFF_CALLBACK =
+        new DiffUtil.ItemCallback<AnalysisSummary>() {
             @Override
-            public boolean areItemsTheSame(@NonNull Analysis oldItem, @NonNull Analysis newItem) {
+            public boolean areItemsTheSame(@NonNull AnalysisSummary oldItem, @NonNull AnalysisSummary newItem) {
                 return oldItem.id.equals(newItem.id);
             }
 
             @Override
-            public boolean areContentsTheSame(@NonNull Analysis oldItem, @NonNull Analysis newItem) {
+            public boolean areContentsTheSame(@NonNull AnalysisSummary oldItem, @NonNull AnalysisSummary newItem) {
                 return oldItem.healthScore == newItem.healthScore
                     && oldItem.createdAt == newItem.createdAt;
             }
@@ -61,7 +61,7 @@ public class AnalysisHistoryAdapter extends ListAdapter<Analysis, AnalysisHistor
 
     @Override
     public void onBindViewHolder(@NonNull AnalysisViewHolder holder, int position) {
-        Analysis analysis = getItem(position);
+        AnalysisSummary analysis = getItem(position);
         holder.bind(analysis);
         holder.itemView.setOnClickListener(v -> {
             if (clickListener != null) {
@@ -84,7 +84,7 @@ public class AnalysisHistoryAdapter extends ListAdapter<Analysis, AnalysisHistor
             summary = itemView.findViewById(R.id.analysis_summary);
         }
 
-        void bind(Analysis analysis) {
+        void bind(AnalysisSummary analysis) {
             // Load thumbnail
             if (analysis.photoPath != null && !analysis.photoPath.isEmpty()) {
                 Glide.with(itemView.getContext())
@@ -15,7 +15,7 @@ import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.leafiq.app.R;
-import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.model.AnalysisSummary;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -24,29 +24,29 @@ import java.util.concurrent.TimeUnit;
  * Inline adapter for analysis history on plant detail page.
  * Displays compact analysis entries with health trend arrows and PARTIAL/FAILED dimming.
  */
-public class AnalysisHistoryInlineAdapter extends ListAdapter<Analysis, AnalysisHistoryInlineAdapter.ViewHolder> {
+public class AnalysisHistoryInlineAdapter extends ListAdapter<AnalysisSummary, AnalysisHistoryInlineAdapter.ViewHolder> {
 
     public interface OnAnalysisClickListener {
-        void onAnalysisClick(Analysis analysis);
+        void onAnalysisClick(AnalysisSummary analysis);
     }
 
     private final OnAnalysisClickListener clickListener;
-    private List<Analysis> fullAnalysisList;
+    private List<AnalysisSummary> fullAnalysisList;
 
     public AnalysisHistoryInlineAdapter(OnAnalysisClickListener clickListener) {
         super(DIFF_CALLBACK);
         this.clickListener = clickListener;
     }
 
-    private static final DiffUtil.ItemCallback<Analysis> DIFF_CALLBACK =
-        new DiffUtil.ItemCallback<Analysis>() {
+    private static final DiffUtil.ItemCallback<AnalysisSummary> DIFF_CALLBACK =
+        new DiffUtil.ItemCallback<AnalysisSummary>() {
             @Override
-            public boolean areItemsTheSame(@NonNull Analysis oldItem, @NonNull Analysis newItem) {
+            public boolean areItemsTheSame(@NonNull AnalysisSummary oldItem, @NonNull AnalysisSummary newItem) {
                 return oldItem.id.equals(newItem.id);
             }
 
             @Override
-            public boolean areContentsTheSame(@NonNull Analysis oldItem, @NonNull Analysis newItem) {
+            public boolean areContentsTheSame(@NonNull AnalysisSummary oldItem, @NonNull AnalysisSummary newItem) {
                 return oldItem.healthScore == newItem.healthScore
                     && oldItem.createdAt == newItem.createdAt
                     && oldItem.parseStatus.equals(newItem.parseStatus);
@@ -57,7 +57,7 @@ public class AnalysisHistoryInlineAdapter extends ListAdapter<Analysis, Analysis
      * Set the full analysis list for trend computation.
      * Adapter will compare each item with the next item in this list.
      */
-    public void setFullAnalysisList(List<Analysis> fullList) {
+    public void setFullAnalysisList(List<AnalysisSummary> fullList) {
         this.fullAnalysisList = fullList;
     }
 
@@ -71,14 +71,14 @@ public class AnalysisHistoryInlineAdapter extends ListAdapter<Analysis, Analysis
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Analysis analysis = getItem(position);
+        AnalysisSummary analysis = getItem(position);
 
         // Compute trend based on position in FULL list (not just displayed 3)
         int trendDirection = 0; // 0=none, 1=up, -1=down
         if (fullAnalysisList != null && fullAnalysisList.size() > 0) {
             int fullListIndex = fullAnalysisList.indexOf(analysis);
             if (fullListIndex >= 0 && fullListIndex < fullAnalysisList.size() - 1) {
-                Analysis previous = fullAnalysisList.get(fullListIndex + 1);
+                AnalysisSummary previous = fullAnalysisList.get(fullListIndex + 1);
                 if (analysis.healthScore > previous.healthScore) {
                     trendDirection = 1;
                 } else if (analysis.healthScore < previous.healthScore) {
@@ -109,7 +109,7 @@ public class AnalysisHistoryInlineAdapter extends ListAdapter<Analysis, Analysis
             trendArrow = itemView.findViewById(R.id.health_trend_arrow);
         }
 
-        void bind(Analysis analysis, int trendDirection) {
+        void bind(AnalysisSummary analysis, int trendDirection) {
             // Health score circle
             healthScoreCircle.setText(String.valueOf(analysis.healthScore));
             int colorRes = getHealthColorRes(analysis.healthScore);
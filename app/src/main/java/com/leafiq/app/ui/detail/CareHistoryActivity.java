@@ -16,6 +16,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.leafiq.app.R;
 import com.leafiq.app.data.entity.CareCompletion;
+import com.leafiq.app.data.entity.CareCompletionMonthly;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.util.WindowInsetsHelper;
@@ -26,7 +27,8 @@ import java.util.Map;
 
 /**
  * Full-screen care history list for a plant.
- * Shows all care completions chronologically with month grouping and swipe-to-delete.
+ * Shows recent care completions chronologically with month grouping and swipe-to-delete,
+ * followed by monthly counts for compacted older history.
  */
 public class CareHistoryActivity extends AppCompatActivity {
 
@@ -39,6 +41,7 @@ public class CareHistoryActivity extends AppCompatActivity {
     private TextView emptyState;
 
     private List<CareCompletion> completions;
+    private List<CareCompletionMonthly> monthlyCounts;
     private List<CareSchedule> schedules;
 
     @Override
@@ -88,6 +91,13 @@ public class CareHistoryActivity extends AppCompatActivity {
             updateEmptyState();
         });
 
+        // Observe monthly counts of compacted history
+        viewModel.getMonthlyCompletionsForPlant(plantId).observe(this, monthlyList -> {
+            this.monthlyCounts = monthlyList;
+            updateAdapter();
+            updateEmptyState();
+        });
+
         // Observe schedules
         viewModel.getSchedulesForPlant(plantId).observe(this, scheduleList -> {
             this.schedules = scheduleList;
@@ -96,20 +106,21 @@ public class CareHistoryActivity extends AppCompatActivity {
     }
 
     private void updateAdapter() {
-        if (completions != null && schedules != null) {
+        if (completions != null && monthlyCounts != null && schedules != null) {
             // Build schedule map: scheduleId -> CareSchedule
             Map<String, CareSchedule> scheduleMap = new HashMap<>();
             for (CareSchedule schedule : schedules) {
                 scheduleMap.put(schedule.id, schedule);
             }
 
-            // Update adapter with completions and schedule map
-            adapter.setData(completions, scheduleMap);
+            // Update adapter with completions, monthly counts and schedule map
+            adapter.setData(completions, scheduleMap, monthlyCounts);
         }
     }
 
     private void updateEmptyState() {
-        if (completions != null && completions.isEmpty()) {
+        if (completions != null && completions.isEmpty()
+                && monthlyCounts != null && monthlyCounts.isEmpty()) {
             emptyState.setVisibility(View.VISIBLE);
             recyclerView.setVisibility(View.GONE);
         } else {
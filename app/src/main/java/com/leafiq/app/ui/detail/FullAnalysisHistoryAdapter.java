@@ -12,7 +12,7 @@ import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.leafiq.app.R;
-import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.model.AnalysisSummary;
 import com.leafiq.app.util.HealthUtils;
 
 import java.text.SimpleDateFormat;
@@ -40,7 +40,7 @@ public class FullAnalysisHistoryAdapter extends RecyclerView.Adapter<RecyclerVie
      * Click listener for analysis history entries.
      */
     public interface OnAnalysisClickListener {
-        void onAnalysisClick(Analysis analysis);
+        void onAnalysisClick(AnalysisSummary analysis);
     }
 
     /**
@@ -50,7 +50,7 @@ public class FullAnalysisHistoryAdapter extends RecyclerView.Adapter<RecyclerVie
     static class HistoryItem {
         int type;
         String monthLabel;      // for TYPE_HEADER
-        Analysis analysis;      // for TYPE_ITEM
+        AnalysisSummary analysis;      // for TYPE_ITEM
         int trendDirection;     // -1=down, 0=same, 1=up, -2=no previous
     }
 
@@ -69,7 +69,7 @@ public class FullAnalysisHistoryAdapter extends RecyclerView.Adapter<RecyclerVie
      *
      * @param analyses List of analyses sorted by createdAt DESC (newest first)
      */
-    public void setAnalyses(List<Analysis> analyses) {
+    public void setAnalyses(List<AnalysisSummary> analyses) {
         items.clear();
 
         if (analyses != null && !analyses.isEmpty()) {
@@ -86,7 +86,7 @@ public class FullAnalysisHistoryAdapter extends RecyclerView.Adapter<RecyclerVie
      * @param analyses List of analyses sorted by createdAt DESC (newest first)
      * @return List of HistoryItem objects with headers and trend arrows
      */
-    static List<HistoryItem> buildHistoryItems(List<Analysis> analyses) {
+    static List<HistoryItem> buildHistoryItems(List<AnalysisSummary> analyses) {
         List<HistoryItem> result = new ArrayList<>();
 
         if (analyses == null || analyses.isEmpty()) {
@@ -97,7 +97,7 @@ public class FullAnalysisHistoryAdapter extends RecyclerView.Adapter<RecyclerVie
         String currentMonth = null;
 
         for (int i = 0; i < analyses.size(); i++) {
-            Analysis analysis = analyses.get(i);
+            AnalysisSummary analysis = analyses.get(i);
 
             // Check if we need a new month header
             String month = monthFormat.format(new Date(analysis.createdAt));
@@ -116,7 +116,7 @@ public class FullAnalysisHistoryAdapter extends RecyclerView.Adapter<RecyclerVie
 
             // Compute trend direction by comparing with next (older) analysis
             if (i + 1 < analyses.size()) {
-                Analysis olderAnalysis = analyses.get(i + 1);
+                AnalysisSummary olderAnalysis = analyses.get(i + 1);
                 int currentScore = analysis.healthScore;
                 int olderScore = olderAnalysis.healthScore;
 
@@ -142,7 +142,7 @@ public class FullAnalysisHistoryAdapter extends RecyclerView.Adapter<RecyclerVie
      * Get the Analysis at the given adapter position (for swipe-to-delete).
      * Returns null if position is a header.
      */
-    public Analysis getSwipeablePosition(int adapterPosition) {
+    public AnalysisSummary getSwipeablePosition(int adapterPosition) {
         if (adapterPosition < 0 || adapterPosition >= items.size()) {
             return null;
         }
@@ -228,7 +228,7 @@ public class FullAnalysisHistoryAdapter extends RecyclerView.Adapter<RecyclerVie
             context = itemView.getContext();
         }
 
-        void bind(Analysis analysis, int trendDirection) {
+        void bind(AnalysisSummary analysis, int trendDirection) {
             // Health score with colored background
             healthScoreCircle.setText(String.valueOf(analysis.healthScore));
             int colorRes = HealthUtils.getHealthColorRes(analysis.healthScore);
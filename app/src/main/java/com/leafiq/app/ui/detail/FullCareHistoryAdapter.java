@@ -12,25 +12,33 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.leafiq.app.R;
 import com.leafiq.app.data.entity.CareCompletion;
+import com.leafiq.app.data.entity.CareCompletionMonthly;
 import com.leafiq.app.data.entity.CareSchedule;
 
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeSet;
 
 /**
  * RecyclerView adapter for full-screen care history with month grouping.
- * Displays TYPE_HEADER for month labels and TYPE_ITEM for care completion entries.
+ * Displays TYPE_HEADER for month labels, TYPE_ITEM for care completion entries and
+ * TYPE_SUMMARY for monthly counts of compacted (older) completions.
  *
  * <p><b>Supports:</b></p>
  * <ul>
  *   <li>Month grouping with headers</li>
  *   <li>Care type emojis (water, fertilize, repot)</li>
  *   <li>Status computation (On time/Late based on estimated due dates)</li>
+ *   <li>Compacted months shown as one count per care type, merged under the same month
+ *       headers as any detail entries kept from that month</li>
  *   <li>No click listener (informational only per user decision)</li>
  * </ul>
  *
@@ -53,18 +61,20 @@ public class FullCareHistoryAdapter extends RecyclerView.Adapter<RecyclerView.Vi
 
     static final int TYPE_HEADER = 0;
     static final int TYPE_ITEM = 1;
+    static final int TYPE_SUMMARY = 2;
 
     /**
      * Wrapper item for RecyclerView display.
-     * Contains either a month header or a care completion item.
+     * Contains a month header, a care completion item or a monthly count.
      */
     static class HistoryItem {
         int type;
         String monthLabel;          // for TYPE_HEADER
         CareCompletion completion;  // for TYPE_ITEM
-        String careType;            // resolved from schedule
+        String careType;            // resolved from schedule (TYPE_ITEM) or roll-up (TYPE_SUMMARY)
         String statusLabel;         // "On time" or "Late"
         int statusColor;            // color resource ID
+        int summaryCount;           // for TYPE_SUMMARY
     }
 
     private final List<HistoryItem> items = new ArrayList<>();
@@ -77,14 +87,12 @@ public class FullCareHistoryAdapter extends RecyclerView.Adapter<RecyclerView.Vi
      *
      * @param completions List of completions sorted by completedAt DESC (newest first)
      * @param scheduleMap Map of scheduleId -> CareSchedule for status computation
+     * @param monthlyCounts Compacted monthly counts sorted by month DESC
      */
-    public void setData(List<CareCompletion> completions, Map<String, CareSchedule> scheduleMap) {
+    public void setData(List<CareCompletion> completions, Map<String, CareSchedule> scheduleMap,
+                        List<CareCompletionMonthly> monthlyCounts) {
         items.clear();
-
-        if (completions != null && !completions.isEmpty()) {
-            items.addAll(buildHistoryItems(completions, scheduleMap));
-        }
-
+        items.addAll(buildHistoryItems(completions, scheduleMap, monthlyCounts));
         notifyDataSetChanged();
     }
 
@@ -97,6 +105,102 @@ public class FullCareHistoryAdapter extends RecyclerView.Adapter<RecyclerView.Vi
      * @return List of HistoryItem objects with headers and status labels
      */
     static List<HistoryItem> buildHistoryItems(List<CareCompletion> completions, Map<String, CareSchedule> scheduleMap) {
+        return buildHistoryItems(completions, scheduleMap, Collections.emptyList());
+    }
+
+    /**
+     * Package-private method to build history items from recent care completions and the
+     * monthly counts of compacted ones. Months are merged newest first: each month gets one
+     * header, followed by its completion entries, then its counts per care type (sources
+     * summed).
+     *
+     * @param completions List of completions sorted by completedAt DESC (newest first)
+     * @param scheduleMap Map of scheduleId -> CareSchedule for status computation
+     * @param monthlyCounts Compacted monthly counts sorted by month DESC
+     * @return List of HistoryItem objects with headers, status labels and counts
+     */
+    static List<HistoryItem> buildHistoryItems(List<CareCompletion> completions,
+                                               Map<String, CareSchedule> scheduleMap,
+                                               List<CareCompletionMonthly> monthlyCounts) {
+        List<HistoryItem> completionItems = buildCompletionItems(completions, scheduleMap);
+        if (monthlyCounts == null || monthlyCounts.isEmpty()) {
+            return completionItems;
+        }
+
+        // Detail entries by "yyyy-MM" month key, in their original order
+        SimpleDateFormat monthKeyFormat = new SimpleDateFormat("yyyy-MM", Locale.US);
+        Map<String, List<HistoryItem>> completionsByMonth = new HashMap<>();
+        for (HistoryItem item : completionItems) {
+            if (item.type == TYPE_HEADER) {
+                continue;
+            }
+            String key = monthKeyFormat.format(new Date(item.completion.completedAt));
+            if (!completionsByMonth.containsKey(key)) {
+                completionsByMonth.put(key, new ArrayList<>());
+            }
+            completionsByMonth.get(key).add(item);
+        }
+
+        // Counts by month key, then care type; sources of the same care type are summed
+        Map<String, Map<String, Integer>> countsByMonth = new HashMap<>();
+        for (CareCompletionMonthly monthly : monthlyCounts) {
+            Map<String, Integer> counts = countsByMonth.get(monthly.month);
+            if (counts == null) {
+                counts = new LinkedHashMap<>();
+                countsByMonth.put(monthly.month, counts);
+            }
+            Integer previous = counts.get(monthly.careType);
+            counts.put(monthly.careType, (previous != null ? previous : 0) + monthly.completionCount);
+        }
+
+        TreeSet<String> monthKeys = new TreeSet<>(Collections.reverseOrder());
+        monthKeys.addAll(completionsByMonth.keySet());
+        monthKeys.addAll(countsByMonth.keySet());
+
+        SimpleDateFormat monthFormat = new SimpleDateFormat("MMMM yyyy", Locale.getDefault());
+        List<HistoryItem> result = new ArrayList<>();
+        for (String key : monthKeys) {
+            HistoryItem header = new HistoryItem();
+            header.type = TYPE_HEADER;
+            header.monthLabel = formatMonthKey(key, monthKeyFormat, monthFormat);
+            result.add(header);
+
+            List<HistoryItem> monthCompletions = completionsByMonth.get(key);
+            if (monthCompletions != null) {
+                result.addAll(monthCompletions);
+            }
+
+            Map<String, Integer> counts = countsByMonth.get(key);
+            if (counts != null) {
+                for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                    HistoryItem summary = new HistoryItem();
+                    summary.type = TYPE_SUMMARY;
+                    summary.careType = entry.getKey();
+                    summary.summaryCount = entry.getValue();
+                    result.add(summary);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Formats a "yyyy-MM" month key as a header label, or returns the key if it doesn't parse.
+     */
+    private static String formatMonthKey(String key, SimpleDateFormat monthKeyFormat,
+                                         SimpleDateFormat monthFormat) {
+        try {
+            return monthFormat.format(monthKeyFormat.parse(key));
+        } catch (ParseException e) {
+            return key;
+        }
+    }
+
+    /**
+     * Builds month headers and completion items with status labels.
+     */
+    private static List<HistoryItem> buildCompletionItems(List<CareCompletion> completions,
+                                                          Map<String, CareSchedule> scheduleMap) {
         List<HistoryItem> result = new ArrayList<>();
 
         if (completions == null || completions.isEmpty()) {
@@ -178,7 +282,7 @@ public class FullCareHistoryAdapter extends RecyclerView.Adapter<RecyclerView.Vi
 
     /**
      * Get the CareCompletion at the given adapter position (for swipe-to-delete).
-     * Returns null if position is a header.
+     * Returns null if position is a header or a monthly count.
      */
     public CareCompletion getCompletionAtPosition(int adapterPosition) {
         if (adapterPosition < 0 || adapterPosition >= items.size()) {
@@ -201,6 +305,7 @@ public class FullCareHistoryAdapter extends RecyclerView.Adapter<RecyclerView.Vi
                     .inflate(R.layout.item_month_header, parent, false);
             return new MonthHeaderViewHolder(view);
         } else {
+            // Monthly counts reuse the completion row layout
             View view = LayoutInflater.from(parent.getContext())
                     .inflate(R.layout.item_care_history_full, parent, false);
             return new CareItemViewHolder(view);
@@ -215,7 +320,11 @@ public class FullCareHistoryAdapter extends RecyclerView.Adapter<RecyclerView.Vi
             ((MonthHeaderViewHolder) holder).bind(item.monthLabel);
         } else if (holder instanceof CareItemViewHolder) {
             CareItemViewHolder itemHolder = (CareItemViewHolder) holder;
-            itemHolder.bind(item.completion, item.careType, item.statusLabel, item.statusColor);
+            if (item.type == TYPE_SUMMARY) {
+                itemHolder.bindSummary(item.careType, item.summaryCount);
+            } else {
+                itemHolder.bind(item.completion, item.careType, item.statusLabel, item.statusColor);
+            }
             // No click listener per user decision (tap does nothing)
         }
     }
@@ -272,10 +381,20 @@ public class FullCareHistoryAdapter extends RecyclerView.Adapter<RecyclerView.Vi
             careDate.setText(dateFormat.format(new Date(completion.completedAt)));
 
             // Set status badge
+            statusBadge.setVisibility(View.VISIBLE);
             statusBadge.setText(statusLabel);
             statusBadge.setTextColor(ContextCompat.getColor(context, statusColor));
         }
 
+        void bindSummary(String careType, int count) {
+            careTypeEmoji.setText(getCareTypeEmoji(careType));
+            careActionName.setText(getCareActionName(careType));
+
+            // Compacted completions have no individual dates or status
+            careDate.setText(count == 1 ? "Once" : count + " times");
+            statusBadge.setVisibility(View.GONE);
+        }
+
         private String getCareTypeEmoji(String careType) {
             switch (careType) {
                 case "water":
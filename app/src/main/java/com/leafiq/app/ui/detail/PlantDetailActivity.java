@@ -21,9 +21,9 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.leafiq.app.R;
-import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.AnalysisSummary;
 import com.leafiq.app.ui.analysis.AnalysisActivity;
 import com.leafiq.app.ui.camera.CameraActivity;
 import com.leafiq.app.ui.timeline.AnalysisDetailActivity;
@@ -102,11 +102,11 @@ public class PlantDetailActivity extends AppCompatActivity {
 
     private String plantId;
     private Plant currentPlant;
-    private Analysis latestAnalysis;
+    private AnalysisSummary latestAnalysis;
     private AnalysisHistoryInlineAdapter analysisInlineAdapter;
     private CareHistoryInlineAdapter careInlineAdapter;
     private List<CareSchedule> currentSchedules;
-    private List<Analysis> fullAnalysisList;
+    private List<AnalysisSummary> fullAnalysisList;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -396,13 +396,13 @@ public class PlantDetailActivity extends AppCompatActivity {
                 analysisInlineAdapter.setFullAnalysisList(analyses);
 
                 // Limit to 3 entries for inline display
-                List<Analysis> limitedAnalyses = analyses.size() > 3
+                List<AnalysisSummary> limitedAnalyses = analyses.size() > 3
                     ? analyses.subList(0, 3)
                     : analyses;
                 analysisInlineAdapter.submitList(limitedAnalyses);
 
                 // Show latest analysis summary
-                Analysis latest = analyses.get(0);
+                AnalysisSummary latest = analyses.get(0);
                 latestAnalysis = latest;
                 if (latest.summary != null && !latest.summary.isEmpty()) {
                     summaryCard.setVisibility(View.VISIBLE);
@@ -503,7 +503,7 @@ public class PlantDetailActivity extends AppCompatActivity {
      * @param analyses          List of analyses (reverse chronological - newest first)
      * @param latestHealthScore Latest health score for color determination
      */
-    private void updateSparkline(List<Analysis> analyses, int latestHealthScore) {
+    private void updateSparkline(List<AnalysisSummary> analyses, int latestHealthScore) {
         if (analyses == null || analyses.isEmpty()) {
             healthSparkline.setVisibility(View.GONE);
             sparklineHint.setVisibility(View.GONE);
@@ -520,7 +520,7 @@ public class PlantDetailActivity extends AppCompatActivity {
 
             // Extract health scores and reverse to chronological order (oldest first)
             List<Integer> healthScores = new ArrayList<>();
-            for (Analysis analysis : analyses) {
+            for (AnalysisSummary analysis : analyses) {
                 healthScores.add(analysis.healthScore);
             }
             Collections.reverse(healthScores);
@@ -765,8 +765,8 @@ public class PlantDetailActivity extends AppCompatActivity {
                     currentPlant.latestHealthScore = finalCorrectedHealth;
                     currentPlant.updatedAt = System.currentTimeMillis();
 
-                    // Update analysis
-                    viewModel.updateAnalysis(latestAnalysis, new com.leafiq.app.data.repository.PlantRepository.RepositoryCallback<Void>() {
+                    // Update analysis (health score only - the summary row has no raw_response)
+                    viewModel.updateAnalysisHealthScore(latestAnalysis.id, finalCorrectedHealth, new com.leafiq.app.data.repository.PlantRepository.RepositoryCallback<Void>() {
                         @Override
                         public void onSuccess(Void result) {
                             // Also update plant's latest health score
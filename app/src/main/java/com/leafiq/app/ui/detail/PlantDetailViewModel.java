@@ -8,32 +8,36 @@ import androidx.lifecycle.LiveData;
 
 import com.leafiq.app.LeafIQApplication;
 import com.leafiq.app.care.CareScheduleManager;
-import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.entity.CareCompletion;
+import com.leafiq.app.data.entity.CareCompletionMonthly;
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.AnalysisSummary;
 import com.leafiq.app.data.repository.PlantRepository;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class PlantDetailViewModel extends AndroidViewModel {
 
     private final PlantRepository repository;
     private final CareScheduleManager careScheduleManager;
+    private final Executor ioExecutor;
 
     public PlantDetailViewModel(@NonNull Application application) {
         super(application);
         LeafIQApplication app = (LeafIQApplication) application;
         repository = app.getPlantRepository();
         careScheduleManager = app.getCareScheduleManager();
+        ioExecutor = app.getAppExecutors().io();
     }
 
     public LiveData<Plant> getPlant(String plantId) {
         return repository.getPlantById(plantId);
     }
 
-    public LiveData<List<Analysis>> getAnalyses(String plantId) {
-        return repository.getAnalysesForPlant(plantId);
+    public LiveData<List<AnalysisSummary>> getAnalyses(String plantId) {
+        return repository.getAnalysisSummariesForPlant(plantId);
     }
 
     public void updatePlant(Plant plant, PlantRepository.RepositoryCallback<Void> callback) {
@@ -48,8 +52,9 @@ public class PlantDetailViewModel extends AndroidViewModel {
         repository.deletePlant(plant, callback);
     }
 
-    public void updateAnalysis(Analysis analysis, PlantRepository.RepositoryCallback<Void> callback) {
-        repository.updateAnalysis(analysis, callback);
+    public void updateAnalysisHealthScore(String analysisId, int healthScore,
+                                          PlantRepository.RepositoryCallback<Void> callback) {
+        repository.updateAnalysisHealthScore(analysisId, healthScore, callback);
     }
 
     public LiveData<List<CareSchedule>> getSchedulesForPlant(String plantId) {
@@ -62,40 +67,50 @@ public class PlantDetailViewModel extends AndroidViewModel {
 
     public void toggleReminders(String plantId, boolean enabled, PlantRepository.RepositoryCallback<Void> callback) {
         // Run on background thread
-        new Thread(() -> {
+        ioExecutor.execute(() -> {
             try {
                 careScheduleManager.toggleRemindersForPlant(plantId, enabled);
                 callback.onSuccess(null);
             } catch (Exception e) {
                 callback.onError(e);
             }
-        }).start();
+        });
+    }
+
+    /**
+     * Pauses or resumes reminders for every plant in a location.
+     *
+     * @param callback Receives the number of schedules updated
+     */
+    public void setRemindersEnabledForLocation(String location, boolean enabled,
+                                               PlantRepository.RepositoryCallback<Integer> callback) {
+        ioExecutor.execute(() -> {
+            try {
+                callback.onSuccess(careScheduleManager.setRemindersEnabledForLocation(location, enabled));
+            } catch (Exception e) {
+                callback.onError(e);
+            }
+        });
     }
 
     public void updateScheduleFrequency(String scheduleId, int newFrequencyDays, PlantRepository.RepositoryCallback<Void> callback) {
         // Run on background thread
-        new Thread(() -> {
+        ioExecutor.execute(() -> {
             try {
                 careScheduleManager.updateScheduleFrequency(scheduleId, newFrequencyDays);
                 callback.onSuccess(null);
             } catch (Exception e) {
                 callback.onError(e);
             }
-        }).start();
+        });
     }
 
     /**
      * Get the photo path from the most recent analysis for lazy thumbnail regeneration.
      */
     public void getLatestPhotoPath(String plantId, java.util.function.Consumer<String> callback) {
-        LeafIQApplication app = (LeafIQApplication) getApplication();
-        app.getAppExecutors().io().execute(() -> {
-            Analysis latest = repository.getLatestAnalysisSync(plantId);
-            if (latest != null && latest.photoPath != null) {
-                callback.accept(latest.photoPath);
-            } else {
-                callback.accept(null);
-            }
+        ioExecutor.execute(() -> {
+            callback.accept(repository.getLatestAnalysisPhotoPathSync(plantId));
         });
     }
 
@@ -119,20 +134,24 @@ public class PlantDetailViewModel extends AndroidViewModel {
         return repository.getAllCompletionsForPlant(plantId);
     }
 
+    public LiveData<List<CareCompletionMonthly>> getMonthlyCompletionsForPlant(String plantId) {
+        return repository.getMonthlyCompletionsForPlant(plantId);
+    }
+
     public void deleteCareCompletion(String completionId, String scheduleId, PlantRepository.RepositoryCallback<Void> callback) {
         // Delete the completion
         repository.deleteCareCompletion(completionId, new PlantRepository.RepositoryCallback<Void>() {
             @Override
             public void onSuccess(Void result) {
                 // After deletion, recalculate schedule's nextDue
-                new Thread(() -> {
+                ioExecutor.execute(() -> {
                     try {
                         careScheduleManager.recalculateNextDue(scheduleId);
                         callback.onSuccess(null);
                     } catch (Exception e) {
                         callback.onError(e);
                     }
-                }).start();
+                });
             }
 
             @Override
@@ -32,11 +32,14 @@ import com.leafiq.app.LeafIQApplication;
 import com.leafiq.app.R;
 import com.leafiq.app.ai.AIProvider;
 import com.leafiq.app.ai.AIProviderFactory;
-import com.leafiq.app.ai.PromptBuilder;
+import com.leafiq.app.ai.ResilientAIProvider;
 import com.leafiq.app.data.model.PlantAnalysisResult;
+import com.leafiq.app.domain.service.AIAnalysisService;
+import com.leafiq.app.domain.service.ImagePreprocessor;
+import com.leafiq.app.domain.usecase.AnalysisHandle;
+import com.leafiq.app.domain.usecase.AnalyzePlantUseCase;
 import com.leafiq.app.ui.camera.CameraActivity;
 import com.leafiq.app.util.HealthUtils;
-import com.leafiq.app.util.ImageUtils;
 import com.leafiq.app.util.KeystoreHelper;
 import com.leafiq.app.util.PhotoQualityChecker;
 
@@ -45,8 +48,6 @@ import java.text.SimpleDateFormat;
 
 import okhttp3.OkHttpClient;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class QuickDiagnosisActivity extends AppCompatActivity {
 
@@ -67,9 +68,11 @@ public class QuickDiagnosisActivity extends AppCompatActivity {
     private MaterialButton btnDismiss;
 
     private ImageCapture imageCapture;
-    private ExecutorService cameraExecutor;
     private Uri capturedImageUri;
 
+    // In-flight diagnosis; cancelled when the user backs out
+    private AnalysisHandle diagnosis;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -78,8 +81,6 @@ public class QuickDiagnosisActivity extends AppCompatActivity {
         initViews();
         setupButtons();
 
-        cameraExecutor = Executors.newSingleThreadExecutor();
-
         if (checkCameraPermission()) {
             startCamera();
         } else {
@@ -174,7 +175,7 @@ public class QuickDiagnosisActivity extends AppCompatActivity {
         ImageCapture.OutputFileOptions outputOptions =
                 new ImageCapture.OutputFileOptions.Builder(photoFile).build();
 
-        imageCapture.takePicture(outputOptions, cameraExecutor,
+        imageCapture.takePicture(outputOptions, ContextCompat.getMainExecutor(this),
                 new ImageCapture.OnImageSavedCallback() {
                     @Override
                     public void onImageSaved(@NonNull ImageCapture.OutputFileResults results) {
@@ -219,39 +220,47 @@ public class QuickDiagnosisActivity extends AppCompatActivity {
         fabCapture.setVisibility(View.GONE);
         loadingOverlay.setVisibility(View.VISIBLE);
 
-        // Run analysis on background thread
+        // Get AI provider
+        KeystoreHelper keystoreHelper = new KeystoreHelper(this);
         LeafIQApplication app = (LeafIQApplication) getApplication();
-        app.getAppExecutors().io().execute(() -> {
-            try {
-                // Convert image to base64
-                String imageBase64 = ImageUtils.prepareForApi(this, capturedImageUri);
-
-                // Get AI provider
-                KeystoreHelper keystoreHelper = new KeystoreHelper(this);
-                String providerName = keystoreHelper.getProvider();
-                String apiKey = keystoreHelper.getApiKey();
-                OkHttpClient client = ((LeafIQApplication) getApplication()).getHttpClient();
-                AIProvider provider = AIProviderFactory.create(providerName, apiKey, client);
-
-                // Build quick diagnosis prompt
-                String prompt = PromptBuilder.buildQuickDiagnosisPrompt();
-
-                // Call AI provider
-                PlantAnalysisResult result = provider.analyzePhoto(imageBase64, prompt);
+        OkHttpClient client = app.getHttpClient();
+        AIProvider provider = new ResilientAIProvider(
+                AIProviderFactory.create(keystoreHelper.getProvider(), keystoreHelper.getApiKey(), client,
+                        keystoreHelper.isStructuredOutputEnabled()), null);
+
+        // Runs on the network pool so the API call never holds an IO (database) thread
+        AnalyzePlantUseCase useCase = new AnalyzePlantUseCase(
+                getApplicationContext(),
+                new ImagePreprocessor(getApplicationContext()),
+                new AIAnalysisService(),
+                app.getPlantRepository(),
+                app.getAppExecutors().network(),
+                app.getAnalysisResultCache());
+        diagnosis = useCase.executeQuickDiagnosis(capturedImageUri, provider,
+                new AnalyzePlantUseCase.Callback() {
+                    @Override
+                    public void onSuccess(PlantAnalysisResult result) {
+                        runOnUiThread(() -> displayResults(result));
+                    }
 
-                // Display results on UI thread
-                runOnUiThread(() -> displayResults(result));
+                    @Override
+                    public void onError(String message) {
+                        Log.e(TAG, "Analysis failed: " + message);
+                        runOnUiThread(() -> showFailure("Analysis failed: " + message));
+                    }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Analysis failed", e);
-                runOnUiThread(() -> {
-                    loadingOverlay.setVisibility(View.GONE);
-                    Toast.makeText(this, "Analysis failed: " + e.getMessage(),
-                            Toast.LENGTH_LONG).show();
-                    finish();
+                    @Override
+                    public void onVisionNotSupported(String providerDisplayName) {
+                        runOnUiThread(() -> showFailure(
+                                getString(R.string.quick_diagnosis_provider_required)));
+                    }
                 });
-            }
-        });
+    }
+
+    private void showFailure(String message) {
+        loadingOverlay.setVisibility(View.GONE);
+        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+        finish();
     }
 
     private void displayResults(PlantAnalysisResult result) {
@@ -370,8 +379,9 @@ public class QuickDiagnosisActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (cameraExecutor != null) {
-            cameraExecutor.shutdown();
+        // Stop the diagnosis: abort the OkHttp call instead of letting it run to completion
+        if (diagnosis != null) {
+            diagnosis.cancel();
         }
     }
 }
@@ -14,7 +14,9 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
+import com.leafiq.app.LeafIQApplication;
 import com.leafiq.app.R;
+import com.leafiq.app.care.CareScheduleManager;
 import com.leafiq.app.util.KeystoreHelper;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.radiobutton.MaterialRadioButton;
@@ -36,6 +38,13 @@ public class SettingsFragment extends Fragment {
     private LinearLayout reminderTimeRow;
     private TextView reminderTimeValue;
     private SwitchMaterial pauseRemindersSwitch;
+    private SwitchMaterial quietHoursSwitch;
+    private LinearLayout quietHoursStartRow;
+    private TextView quietHoursStartValue;
+    private LinearLayout quietHoursEndRow;
+    private TextView quietHoursEndValue;
+    private SwitchMaterial hedgedAnalysisSwitch;
+    private SwitchMaterial structuredOutputSwitch;
     private KeystoreHelper keystoreHelper;
     private View encryptionErrorBanner;
 
@@ -64,6 +73,13 @@ public class SettingsFragment extends Fragment {
         reminderTimeRow = view.findViewById(R.id.reminder_time_row);
         reminderTimeValue = view.findViewById(R.id.reminder_time_value);
         pauseRemindersSwitch = view.findViewById(R.id.pause_reminders_switch);
+        quietHoursSwitch = view.findViewById(R.id.quiet_hours_switch);
+        quietHoursStartRow = view.findViewById(R.id.quiet_hours_start_row);
+        quietHoursStartValue = view.findViewById(R.id.quiet_hours_start_value);
+        quietHoursEndRow = view.findViewById(R.id.quiet_hours_end_row);
+        quietHoursEndValue = view.findViewById(R.id.quiet_hours_end_value);
+        hedgedAnalysisSwitch = view.findViewById(R.id.hedged_analysis_switch);
+        structuredOutputSwitch = view.findViewById(R.id.structured_output_switch);
 
         // Set current provider selection
         String currentProvider = keystoreHelper.getProvider();
@@ -78,6 +94,8 @@ public class SettingsFragment extends Fragment {
         updateInfoText();
         updateStatus();
         updateReminderSettings();
+        hedgedAnalysisSwitch.setChecked(keystoreHelper.isHedgingEnabled());
+        structuredOutputSwitch.setChecked(keystoreHelper.isStructuredOutputEnabled());
 
         // Check encryption health and show banner if unhealthy
         if (!keystoreHelper.isEncryptionHealthy()) {
@@ -98,13 +116,41 @@ public class SettingsFragment extends Fragment {
 
         saveButton.setOnClickListener(v -> saveSettings());
 
+        // Hedged multi-provider analysis
+        hedgedAnalysisSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+            keystoreHelper.setHedgingEnabled(isChecked));
+
+        // Native structured output (response schema) for analyses
+        structuredOutputSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+            keystoreHelper.setStructuredOutputEnabled(isChecked));
+
         // Reminder time picker
         reminderTimeRow.setOnClickListener(v -> showTimePicker());
 
         // Pause reminders switch
         pauseRemindersSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
             keystoreHelper.setRemindersPaused(isChecked);
+            rearmReminderAlarm();
         });
+
+        // Quiet hours switch and its start/end pickers
+        quietHoursSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            keystoreHelper.setQuietHoursEnabled(isChecked);
+            updateQuietHoursRows(isChecked);
+            rearmReminderAlarm();
+        });
+        quietHoursStartRow.setOnClickListener(v -> showQuietHoursPicker(true));
+        quietHoursEndRow.setOnClickListener(v -> showQuietHoursPicker(false));
+    }
+
+    /**
+     * Re-arms (or clears) the reminder alarm after a reminder setting changed.
+     * Reads the next due time from the database, so runs on the IO executor.
+     */
+    private void rearmReminderAlarm() {
+        LeafIQApplication app = (LeafIQApplication) requireContext().getApplicationContext();
+        CareScheduleManager scheduleManager = app.getCareScheduleManager();
+        app.getAppExecutors().io().execute(scheduleManager::scheduleNextAlarm);
     }
 
     private void updateReminderSettings() {
@@ -114,6 +160,43 @@ public class SettingsFragment extends Fragment {
 
         // Load pause state
         pauseRemindersSwitch.setChecked(keystoreHelper.areRemindersPaused());
+
+        // Load quiet hours
+        int[] quietStart = keystoreHelper.getQuietHoursStart();
+        int[] quietEnd = keystoreHelper.getQuietHoursEnd();
+        quietHoursStartValue.setText(formatTime(quietStart[0], quietStart[1]));
+        quietHoursEndValue.setText(formatTime(quietEnd[0], quietEnd[1]));
+        boolean quietHoursEnabled = keystoreHelper.areQuietHoursEnabled();
+        quietHoursSwitch.setChecked(quietHoursEnabled);
+        updateQuietHoursRows(quietHoursEnabled);
+    }
+
+    private void updateQuietHoursRows(boolean enabled) {
+        quietHoursStartRow.setEnabled(enabled);
+        quietHoursStartRow.setAlpha(enabled ? 1f : 0.5f);
+        quietHoursEndRow.setEnabled(enabled);
+        quietHoursEndRow.setAlpha(enabled ? 1f : 0.5f);
+    }
+
+    private void showQuietHoursPicker(boolean start) {
+        int[] currentTime = start ? keystoreHelper.getQuietHoursStart() : keystoreHelper.getQuietHoursEnd();
+        TimePickerDialog picker = new TimePickerDialog(
+            requireContext(),
+            (view, hourOfDay, minute) -> {
+                if (start) {
+                    keystoreHelper.saveQuietHoursStart(hourOfDay, minute);
+                    quietHoursStartValue.setText(formatTime(hourOfDay, minute));
+                } else {
+                    keystoreHelper.saveQuietHoursEnd(hourOfDay, minute);
+                    quietHoursEndValue.setText(formatTime(hourOfDay, minute));
+                }
+                rearmReminderAlarm();
+            },
+            currentTime[0],
+            currentTime[1],
+            false
+        );
+        picker.show();
     }
 
     private void showTimePicker() {
@@ -123,6 +206,7 @@ public class SettingsFragment extends Fragment {
             (view, hourOfDay, minute) -> {
                 keystoreHelper.savePreferredReminderTime(hourOfDay, minute);
                 reminderTimeValue.setText(formatTime(hourOfDay, minute));
+                rearmReminderAlarm();
             },
             currentTime[0],
             currentTime[1],
@@ -27,7 +27,7 @@ import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.util.AppExecutors;
 import com.leafiq.app.util.HealthUtils;
 import com.leafiq.app.util.JsonParser;
-import com.leafiq.app.util.RobustJsonParser;
+import com.leafiq.app.util.PriorityExecutor;
 import com.leafiq.app.util.WindowInsetsHelper;
 
 import java.io.File;
@@ -159,17 +159,16 @@ public class AnalysisDetailActivity extends AppCompatActivity {
      * Loads analysis and plant data on background thread.
      */
     private void loadData() {
-        executors.io().execute(() -> {
+        executors.io().execute(PriorityExecutor.Priority.USER_VISIBLE, () -> {
             try {
+                // Structured fields come from the normalised tables (loaded first: an
+                // analysis not yet backfilled gets its parse_status corrected here)
+                PlantAnalysisResult parsedResult = repository.getStructuredAnalysisSync(analysisId);
+
                 // Load analysis and plant from database
                 currentAnalysis = repository.getAnalysisByIdSync(analysisId);
                 currentPlant = repository.getPlantByIdSync(plantId);
-
-                // Parse raw response using RobustJsonParser
-                RobustJsonParser.ParseResult parseResult = RobustJsonParser.parse(
-                        currentAnalysis != null ? currentAnalysis.rawResponse : null);
-                PlantAnalysisResult parsedResult = parseResult.result;
-                String parseStatus = parseResult.parseStatus;
+                String parseStatus = currentAnalysis != null ? currentAnalysis.parseStatus : null;
 
                 // Post to main thread to update UI
                 runOnUiThread(() -> displayAnalysis(parsedResult, parseStatus));
@@ -13,6 +13,7 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.paging.PagingDataAdapter;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -23,28 +24,25 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.imageview.ShapeableImageView;
 import com.leafiq.app.R;
 import com.leafiq.app.data.model.AnalysisWithPlant;
-import com.leafiq.app.data.model.PlantAnalysisResult;
 import com.leafiq.app.util.DateFormatter;
 import com.leafiq.app.util.HealthUtils;
-import com.leafiq.app.util.JsonParser;
-import com.leafiq.app.util.RobustJsonParser;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Adapter for timeline RecyclerView with expandable entries and date headers.
+ * Paged adapter for timeline RecyclerView with expandable entries and date headers.
+ * Items arrive as PagingData (headers already inserted by the ViewModel).
  * Supports two view types:
  * - HEADER: Date section labels (Today, Yesterday, date)
  * - ENTRY: Expandable analysis entries with collapsed/expanded states
  */
-public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+public class TimelineAdapter
+        extends PagingDataAdapter<TimelineViewModel.TimelineItem, RecyclerView.ViewHolder> {
 
     private static final int VIEW_TYPE_HEADER = 0;
     private static final int VIEW_TYPE_ENTRY = 1;
 
-    private List<TimelineViewModel.TimelineItem> items = new ArrayList<>();
     private OnTimelineItemClickListener listener;
     private Context context;
 
@@ -54,16 +52,23 @@ public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
     public interface OnTimelineItemClickListener {
         void onItemClick(int position);
         void onViewFullAnalysis(AnalysisWithPlant data);
+        boolean isExpanded(String analysisId);
+
+        /**
+         * @return Care highlights for an expanded entry, or null while they are loading
+         */
+        List<String> getCareHighlights(String analysisId);
     }
 
     public TimelineAdapter(Context context, OnTimelineItemClickListener listener) {
+        super(DIFF_CALLBACK);
         this.context = context;
         this.listener = listener;
     }
 
     @Override
     public int getItemViewType(int position) {
-        TimelineViewModel.TimelineItem item = items.get(position);
+        TimelineViewModel.TimelineItem item = getItem(position);
         if (item instanceof TimelineViewModel.TimelineItem.Header) {
             return VIEW_TYPE_HEADER;
         } else {
@@ -86,7 +91,10 @@ public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        TimelineViewModel.TimelineItem item = items.get(position);
+        TimelineViewModel.TimelineItem item = getItem(position);
+        if (item == null) {
+            return;  // Placeholders are disabled, but getItem() is nullable
+        }
         if (holder instanceof HeaderViewHolder) {
             TimelineViewModel.TimelineItem.Header header = (TimelineViewModel.TimelineItem.Header) item;
             ((HeaderViewHolder) holder).bind(header.label);
@@ -96,19 +104,20 @@ public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
         }
     }
 
-    @Override
-    public int getItemCount() {
-        return items.size();
-    }
-
     /**
-     * Submit new list of timeline items with diff calculation.
+     * Rebind the loaded row for an analysis, if it is still in the loaded pages.
+     * Used when data loaded asynchronously for an entry (care highlights) arrives.
      */
-    public void submitList(List<TimelineViewModel.TimelineItem> newItems) {
-        DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new TimelineDiffCallback(items, newItems));
-        items.clear();
-        items.addAll(newItems);
-        diffResult.dispatchUpdatesTo(this);
+    public void notifyAnalysisChanged(String analysisId) {
+        List<TimelineViewModel.TimelineItem> loaded = snapshot().getItems();
+        for (int i = 0; i < loaded.size(); i++) {
+            TimelineViewModel.TimelineItem item = loaded.get(i);
+            if (item instanceof TimelineViewModel.TimelineItem.Entry
+                    && ((TimelineViewModel.TimelineItem.Entry) item).data.analysis.id.equals(analysisId)) {
+                notifyItemChanged(snapshot().getPlaceholdersBefore() + i);
+                return;
+            }
+        }
     }
 
     /**
@@ -173,6 +182,8 @@ public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
 
         public void bind(TimelineViewModel.TimelineItem.Entry entry, OnTimelineItemClickListener listener) {
             AnalysisWithPlant data = entry.data;
+            boolean isExpanded = entry.isExpanded
+                    || (listener != null && listener.isExpanded(data.analysis.id));
 
             // Check parse status for dimming
             String parseStatus = data.analysis.parseStatus;
@@ -186,10 +197,10 @@ public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
             }
 
             // Collapsed content
-            bindCollapsedContent(data, entry.isExpanded, isDegraded);
+            bindCollapsedContent(data, isExpanded, isDegraded);
 
             // Expanded content
-            if (entry.isExpanded) {
+            if (isExpanded) {
                 expandedContent.setVisibility(View.VISIBLE);
                 bindExpandedContent(data, isDegraded);
             } else {
@@ -295,14 +306,12 @@ public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
                 limitedDetailsLabel.setVisibility(View.GONE);
             }
 
-            // Care highlights - parse from rawResponse
-            bindCareHighlights(data);
+            // Care highlights - loaded on expansion by the ViewModel
+            bindCareHighlights(listener != null ? listener.getCareHighlights(data.analysis.id) : null);
         }
 
-        private void bindCareHighlights(AnalysisWithPlant data) {
-            List<String> highlights = extractCareHighlights(data);
-
-            if (highlights.isEmpty()) {
+        private void bindCareHighlights(List<String> highlights) {
+            if (highlights == null || highlights.isEmpty()) {
                 careHighlights.setVisibility(View.GONE);
             } else {
                 careHighlights.setVisibility(View.VISIBLE);
@@ -324,95 +333,17 @@ public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
                 }
             }
         }
-
-        /**
-         * Extract up to 2 critical care highlights from analysis.
-         * Priority: immediateActions > care plan adjustments.
-         * Uses RobustJsonParser for graceful handling of malformed JSON.
-         */
-        private List<String> extractCareHighlights(AnalysisWithPlant data) {
-            List<String> highlights = new ArrayList<>();
-
-            if (data.analysis.rawResponse == null || data.analysis.rawResponse.isEmpty()) {
-                return highlights;
-            }
-
-            // Use RobustJsonParser for layered fallback
-            RobustJsonParser.ParseResult parseResult = RobustJsonParser.parse(data.analysis.rawResponse);
-
-            // If parse FAILED or EMPTY, return empty highlights (no crash)
-            if ("FAILED".equals(parseResult.parseStatus) || "EMPTY".equals(parseResult.parseStatus)) {
-                return highlights;
-            }
-
-            // For OK or PARTIAL, extract whatever highlights are available
-            PlantAnalysisResult parsed = parseResult.result;
-            if (parsed == null) {
-                return highlights;
-            }
-
-            // Priority 1: Immediate actions (urgent or soon)
-            if (parsed.immediateActions != null) {
-                for (PlantAnalysisResult.ImmediateAction action : parsed.immediateActions) {
-                    if (highlights.size() >= 2) break;
-
-                    if ("urgent".equals(action.priority) || "soon".equals(action.priority)) {
-                        if (action.action != null && !action.action.isEmpty()) {
-                            highlights.add(action.action);
-                        }
-                    }
-                }
-            }
-
-            // Priority 2: Care plan adjustments (if not at max)
-            if (highlights.size() < 2 && parsed.carePlan != null) {
-                // Light adjustment
-                if (highlights.size() < 2 && parsed.carePlan.light != null
-                        && parsed.carePlan.light.adjustment != null
-                        && !parsed.carePlan.light.adjustment.isEmpty()) {
-                    highlights.add(parsed.carePlan.light.adjustment);
-                }
-
-                // Watering notes
-                if (highlights.size() < 2 && parsed.carePlan.watering != null
-                        && parsed.carePlan.watering.notes != null
-                        && !parsed.carePlan.watering.notes.isEmpty()) {
-                    highlights.add(parsed.carePlan.watering.notes);
-                }
-            }
-
-            return highlights;
-        }
     }
 
     /**
-     * DiffUtil callback for efficient list updates.
+     * DiffUtil callback for efficient page updates.
+     * Expansion toggles are rebound with notifyItemChanged, not diffed.
      */
-    static class TimelineDiffCallback extends DiffUtil.Callback {
-        private List<TimelineViewModel.TimelineItem> oldList;
-        private List<TimelineViewModel.TimelineItem> newList;
-
-        public TimelineDiffCallback(List<TimelineViewModel.TimelineItem> oldList,
-                                   List<TimelineViewModel.TimelineItem> newList) {
-            this.oldList = oldList;
-            this.newList = newList;
-        }
-
-        @Override
-        public int getOldListSize() {
-            return oldList.size();
-        }
-
-        @Override
-        public int getNewListSize() {
-            return newList.size();
-        }
-
+    static final DiffUtil.ItemCallback<TimelineViewModel.TimelineItem> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<TimelineViewModel.TimelineItem>() {
         @Override
-        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-            TimelineViewModel.TimelineItem oldItem = oldList.get(oldItemPosition);
-            TimelineViewModel.TimelineItem newItem = newList.get(newItemPosition);
-
+        public boolean areItemsTheSame(@NonNull TimelineViewModel.TimelineItem oldItem,
+                                       @NonNull TimelineViewModel.TimelineItem newItem) {
             // Both must be same type
             if (oldItem.getClass() != newItem.getClass()) {
                 return false;
@@ -436,10 +367,8 @@ public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
         }
 
         @Override
-        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-            TimelineViewModel.TimelineItem oldItem = oldList.get(oldItemPosition);
-            TimelineViewModel.TimelineItem newItem = newList.get(newItemPosition);
-
+        public boolean areContentsTheSame(@NonNull TimelineViewModel.TimelineItem oldItem,
+                                          @NonNull TimelineViewModel.TimelineItem newItem) {
             // Headers: contents same if label same (already checked in areItemsTheSame)
             if (oldItem instanceof TimelineViewModel.TimelineItem.Header) {
                 return true;
@@ -455,5 +384,5 @@ public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
 
             return false;
         }
-    }
+    };
 }
@@ -10,6 +10,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -22,9 +23,11 @@ import com.leafiq.app.util.WindowInsetsHelper;
 
 import java.util.List;
 
+import kotlin.Unit;
+
 /**
  * Fragment for the Timeline screen.
- * Displays all analyses across all plants with filtering and date grouping.
+ * Displays all analyses across all plants, paged, with filtering and date grouping.
  */
 public class TimelineFragment extends Fragment {
 
@@ -64,7 +67,28 @@ public class TimelineFragment extends Fragment {
         adapter = new TimelineAdapter(requireContext(), new TimelineAdapter.OnTimelineItemClickListener() {
             @Override
             public void onItemClick(int position) {
-                viewModel.toggleExpansion(position);
+                if (position == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                TimelineViewModel.TimelineItem item = adapter.peek(position);
+                if (item instanceof TimelineViewModel.TimelineItem.Entry) {
+                    String analysisId = ((TimelineViewModel.TimelineItem.Entry) item).data.analysis.id;
+                    if (viewModel.toggleExpansion(analysisId)) {
+                        viewModel.loadCareHighlights(analysisId,
+                                () -> adapter.notifyAnalysisChanged(analysisId));
+                    }
+                    adapter.notifyItemChanged(position);
+                }
+            }
+
+            @Override
+            public boolean isExpanded(String analysisId) {
+                return viewModel.isExpanded(analysisId);
+            }
+
+            @Override
+            public List<String> getCareHighlights(String analysisId) {
+                return viewModel.getCareHighlights(analysisId);
             }
 
             @Override
@@ -86,8 +110,13 @@ public class TimelineFragment extends Fragment {
             startActivity(new Intent(requireContext(), CameraActivity.class));
         });
 
-        // Observe timeline items for state management
-        viewModel.getTimelineItems().observe(getViewLifecycleOwner(), this::updateUiState);
+        // Observe paged timeline items; load states drive loading/empty/content
+        viewModel.getTimelineItems().observe(getViewLifecycleOwner(),
+                pagingData -> adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+        adapter.addLoadStateListener(loadStates -> {
+            updateUiState(loadStates.getRefresh());
+            return Unit.INSTANCE;
+        });
     }
 
     /**
@@ -119,15 +148,15 @@ public class TimelineFragment extends Fragment {
     }
 
     /**
-     * Update UI state based on timeline items.
+     * Update UI state based on the refresh load state and loaded item count.
      */
-    private void updateUiState(List<TimelineViewModel.TimelineItem> items) {
-        if (items == null) {
+    private void updateUiState(LoadState refresh) {
+        if (refresh instanceof LoadState.Loading && adapter.getItemCount() == 0) {
             // Loading state
             loadingState.setVisibility(View.VISIBLE);
             emptyState.setVisibility(View.GONE);
             recyclerView.setVisibility(View.GONE);
-        } else if (items.isEmpty()) {
+        } else if (refresh instanceof LoadState.NotLoading && adapter.getItemCount() == 0) {
             // Empty state
             loadingState.setVisibility(View.GONE);
             emptyState.setVisibility(View.VISIBLE);
@@ -137,8 +166,6 @@ public class TimelineFragment extends Fragment {
             loadingState.setVisibility(View.GONE);
             emptyState.setVisibility(View.GONE);
             recyclerView.setVisibility(View.VISIBLE);
-            // Update adapter with new items
-            adapter.submitList(items);
         }
     }
 }
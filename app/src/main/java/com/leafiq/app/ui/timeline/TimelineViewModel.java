@@ -5,35 +5,54 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
 
 import com.leafiq.app.LeafIQApplication;
 import com.leafiq.app.data.model.AnalysisWithPlant;
+import com.leafiq.app.data.model.PlantAnalysisResult;
 import com.leafiq.app.data.repository.PlantRepository;
-import com.leafiq.app.util.HealthUtils;
+import com.leafiq.app.util.PriorityExecutor;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * ViewModel for the Timeline screen.
- * Manages filtering and date grouping of all analyses across all plants.
+ * Pages all analyses across all plants from Room, with the health filter applied in SQL
+ * and date headers inserted between pages by the paging pipeline.
  */
 public class TimelineViewModel extends AndroidViewModel {
 
     /**
      * Health filter options for timeline display.
+     * Each maps to an inclusive health score range used in the DAO WHERE clause.
      */
     public enum HealthFilter {
-        ALL,
-        HEALTHY,
-        NEEDS_ATTENTION,
-        CRITICAL
+        ALL(Integer.MIN_VALUE, Integer.MAX_VALUE),
+        HEALTHY(7, Integer.MAX_VALUE),
+        NEEDS_ATTENTION(4, 6),
+        CRITICAL(Integer.MIN_VALUE, 3);
+
+        public final int minScore;
+        public final int maxScore;
+
+        HealthFilter(int minScore, int maxScore) {
+            this.minScore = minScore;
+            this.maxScore = maxScore;
+        }
     }
 
     /**
@@ -52,7 +71,8 @@ public class TimelineViewModel extends AndroidViewModel {
         }
 
         /**
-         * Analysis entry with expansion state.
+         * Analysis entry with its initial expansion state.
+         * Later toggles are tracked by the ViewModel, since paged items are immutable.
          */
         public static class Entry extends TimelineItem {
             public final AnalysisWithPlant data;
@@ -66,35 +86,37 @@ public class TimelineViewModel extends AndroidViewModel {
     }
 
     private final PlantRepository repository;
+    private final Executor transformExecutor;
+    private final Executor mainExecutor;
     private final MutableLiveData<HealthFilter> currentFilter;
-    private final MediatorLiveData<List<TimelineItem>> timelineItems;
+    private final LiveData<PagingData<TimelineItem>> timelineItems;
+    // Expanded entries by analysis ID; paged items are immutable snapshots
+    private final Set<String> expandedIds = new HashSet<>();
+    // Care highlights by analysis ID, loaded on first expansion (main thread only)
+    private final Map<String, List<String>> careHighlights = new HashMap<>();
 
     public TimelineViewModel(@NonNull Application application) {
         super(application);
-        this.repository = ((LeafIQApplication) application).getPlantRepository();
+        LeafIQApplication app = (LeafIQApplication) application;
+        this.repository = app.getPlantRepository();
+        this.transformExecutor = app.getAppExecutors().io()
+                .withPriority(PriorityExecutor.Priority.USER_VISIBLE);
+        this.mainExecutor = app.getAppExecutors().mainThread();
         this.currentFilter = new MutableLiveData<>(HealthFilter.ALL);
-        this.timelineItems = new MediatorLiveData<>();
 
-        // Combine raw data with filter to produce filtered + grouped list
-        LiveData<List<AnalysisWithPlant>> rawData = repository.getAllAnalysesWithPlant();
-
-        timelineItems.addSource(rawData, analyses -> {
-            timelineItems.setValue(
-                groupByDateWithFilter(analyses, currentFilter.getValue())
-            );
-        });
-
-        timelineItems.addSource(currentFilter, filter -> {
-            timelineItems.setValue(
-                groupByDateWithFilter(rawData.getValue(), filter)
-            );
-        });
+        // New pager per filter; Room invalidates the page source when data changes
+        this.timelineItems = Transformations.switchMap(currentFilter, filter ->
+                PagingLiveData.cachedIn(
+                        Transformations.map(
+                                repository.getAnalysesWithPlantPaged(filter.minScore, filter.maxScore),
+                                this::withDateHeaders),
+                        this));
     }
 
     /**
-     * Get the timeline items (headers + entries) as LiveData.
+     * Get the paged timeline items (headers + entries) as LiveData.
      */
-    public LiveData<List<TimelineItem>> getTimelineItems() {
+    public LiveData<PagingData<TimelineItem>> getTimelineItems() {
         return timelineItems;
     }
 
@@ -102,97 +124,151 @@ public class TimelineViewModel extends AndroidViewModel {
      * Set the health filter.
      */
     public void setFilter(HealthFilter filter) {
-        currentFilter.setValue(filter);
+        if (filter != currentFilter.getValue()) {
+            currentFilter.setValue(filter);
+        }
     }
 
     /**
-     * Toggle expansion state for an entry at the given position.
+     * Toggle expansion state for an analysis entry.
+     *
+     * @return New expansion state
      */
-    public void toggleExpansion(int position) {
-        List<TimelineItem> currentItems = timelineItems.getValue();
-        if (currentItems == null || position < 0 || position >= currentItems.size()) {
-            return;
+    public boolean toggleExpansion(String analysisId) {
+        if (!expandedIds.remove(analysisId)) {
+            expandedIds.add(analysisId);
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * Check whether an analysis entry is expanded.
+     */
+    public boolean isExpanded(String analysisId) {
+        return expandedIds.contains(analysisId);
+    }
+
+    /**
+     * Get care highlights for an expanded entry.
+     *
+     * @return Up to 2 highlights, or null if not loaded yet (see {@link #loadCareHighlights})
+     */
+    public List<String> getCareHighlights(String analysisId) {
+        return careHighlights.get(analysisId);
+    }
 
-        TimelineItem item = currentItems.get(position);
-        if (!(item instanceof TimelineItem.Entry)) {
+    /**
+     * Load care highlights for an entry from its normalised actions and care plan columns,
+     * once per analysis, off the main thread.
+     *
+     * @param onLoaded Run on the main thread once highlights are available
+     */
+    public void loadCareHighlights(String analysisId, Runnable onLoaded) {
+        if (careHighlights.containsKey(analysisId)) {
+            onLoaded.run();
             return;
         }
-
-        // Create new list with toggled expansion
-        List<TimelineItem> newItems = new ArrayList<>(currentItems);
-        TimelineItem.Entry entry = (TimelineItem.Entry) item;
-        newItems.set(position, new TimelineItem.Entry(entry.data, !entry.isExpanded));
-        timelineItems.setValue(newItems);
+        transformExecutor.execute(() -> {
+            List<String> highlights = extractCareHighlights(
+                    repository.getStructuredAnalysisSync(analysisId));
+            mainExecutor.execute(() -> {
+                careHighlights.put(analysisId, highlights);
+                onLoaded.run();
+            });
+        });
     }
 
     /**
-     * Filter and group analyses by date.
+     * Extract up to 2 critical care highlights from a structured analysis.
+     * Priority: immediateActions > care plan adjustments.
+     * Unparseable analyses have no actions or care plan and yield no highlights.
      */
-    private List<TimelineItem> groupByDateWithFilter(
-            List<AnalysisWithPlant> analyses,
-            HealthFilter filter
-    ) {
-        if (analyses == null) {
-            return new ArrayList<>();
+    static List<String> extractCareHighlights(PlantAnalysisResult parsed) {
+        List<String> highlights = new ArrayList<>();
+
+        if (parsed == null) {
+            return highlights;
         }
 
-        List<TimelineItem> items = new ArrayList<>();
-        String lastDateLabel = null;
+        // Priority 1: Immediate actions (urgent or soon)
+        if (parsed.immediateActions != null) {
+            for (PlantAnalysisResult.ImmediateAction action : parsed.immediateActions) {
+                if (highlights.size() >= 2) break;
 
-        for (AnalysisWithPlant analysis : analyses) {
-            // Apply health filter
-            if (!matchesFilter(analysis, filter)) {
-                continue;
+                if ("urgent".equals(action.priority) || "soon".equals(action.priority)) {
+                    if (action.action != null && !action.action.isEmpty()) {
+                        highlights.add(action.action);
+                    }
+                }
             }
+        }
 
-            // Get date label for this analysis
-            String dateLabel = getDateLabel(analysis.analysis.createdAt);
-
-            // Add header if date changed
-            if (!dateLabel.equals(lastDateLabel)) {
-                items.add(new TimelineItem.Header(dateLabel));
-                lastDateLabel = dateLabel;
+        // Priority 2: Care plan adjustments (if not at max)
+        if (highlights.size() < 2 && parsed.carePlan != null) {
+            // Light adjustment
+            if (highlights.size() < 2 && parsed.carePlan.light != null
+                    && parsed.carePlan.light.adjustment != null
+                    && !parsed.carePlan.light.adjustment.isEmpty()) {
+                highlights.add(parsed.carePlan.light.adjustment);
             }
 
-            // Add entry (not expanded by default)
-            items.add(new TimelineItem.Entry(analysis, false));
+            // Watering notes
+            if (highlights.size() < 2 && parsed.carePlan.watering != null
+                    && parsed.carePlan.watering.notes != null
+                    && !parsed.carePlan.watering.notes.isEmpty()) {
+                highlights.add(parsed.carePlan.watering.notes);
+            }
         }
 
-        return items;
+        return highlights;
     }
 
     /**
-     * Check if analysis matches the current filter.
+     * Wrap analyses as entries and insert a date header wherever the day changes.
+     * Runs on the transform executor, one page at a time.
      */
-    private boolean matchesFilter(AnalysisWithPlant analysis, HealthFilter filter) {
-        if (filter == HealthFilter.ALL) {
-            return true;
-        }
+    private PagingData<TimelineItem> withDateHeaders(PagingData<AnalysisWithPlant> analyses) {
+        PagingData<TimelineItem> entries = PagingDataTransforms.map(analyses, transformExecutor,
+                analysis -> new TimelineItem.Entry(analysis, false));
+        return PagingDataTransforms.insertSeparators(entries, transformExecutor,
+                (before, after) -> headerBetween(before, after, System.currentTimeMillis()));
+    }
 
-        int healthScore = analysis.analysis.healthScore;
-
-        switch (filter) {
-            case HEALTHY:
-                return healthScore >= 7;
-            case NEEDS_ATTENTION:
-                return healthScore >= 4 && healthScore < 7;
-            case CRITICAL:
-                return healthScore < 4;
-            default:
-                return true;
+    /**
+     * Date header to insert between two adjacent entries, if any.
+     * The first entry always gets a header; later ones only when the day label changes.
+     *
+     * @param before Entry above (null at the start of the list)
+     * @param after Entry below (null at the end of the list)
+     * @param now Current time, for Today/Yesterday labels
+     * @return Header for after's day, or null if no header belongs here
+     */
+    static TimelineItem headerBetween(TimelineItem before, TimelineItem after, long now) {
+        if (!(after instanceof TimelineItem.Entry)) {
+            return null;
+        }
+        String afterLabel = getDateLabel(((TimelineItem.Entry) after).data.analysis.createdAt, now);
+        if (before instanceof TimelineItem.Entry) {
+            String beforeLabel = getDateLabel(((TimelineItem.Entry) before).data.analysis.createdAt, now);
+            if (beforeLabel.equals(afterLabel)) {
+                return null;
+            }
         }
+        return new TimelineItem.Header(afterLabel);
     }
 
     /**
      * Get date label for grouping (Today, Yesterday, date).
      */
-    private String getDateLabel(long timestamp) {
+    static String getDateLabel(long timestamp, long now) {
         Calendar analysisDate = Calendar.getInstance();
         analysisDate.setTimeInMillis(timestamp);
 
         Calendar today = Calendar.getInstance();
+        today.setTimeInMillis(now);
         Calendar yesterday = Calendar.getInstance();
+        yesterday.setTimeInMillis(now);
         yesterday.add(Calendar.DAY_OF_YEAR, -1);
 
         if (isSameDay(analysisDate, today)) {
@@ -208,7 +284,7 @@ public class TimelineViewModel extends AndroidViewModel {
     /**
      * Check if two calendars represent the same day.
      */
-    private boolean isSameDay(Calendar cal1, Calendar cal2) {
+    private static boolean isSameDay(Calendar cal1, Calendar cal2) {
         return cal1.get(Calendar.YEAR) == cal2.get(Calendar.YEAR)
                 && cal1.get(Calendar.DAY_OF_YEAR) == cal2.get(Calendar.DAY_OF_YEAR);
     }
@@ -2,22 +2,57 @@ package com.leafiq.app.util;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Thread pool holder providing executors for different types of background work.
  * <p>
  * Usage:
- * - IO executor: Database operations (Room DAOs)
+ * - IO executor: Database operations (Room DAOs) and local file work
  * - Network executor: AI API calls, HTTP requests
+ * - Hedge executor: the provider calls of a hedged analysis (its caller waits on a network thread)
  * - Main thread executor: Posting results back to UI
+ * <p>
+ * The IO and network pools are bounded PriorityExecutors with named threads: submit reads
+ * the user is waiting on as USER_VISIBLE and cleanup/scans as BACKGROUND so they never
+ * delay each other. A saturated pool rejects BACKGROUND work and queues the rest; see
+ * PriorityExecutor.getStats() for queue depth, wait/run times and rejections.
  */
 public class AppExecutors {
 
-    private final Executor ioExecutor;
-    private final Executor networkExecutor;
+    private static final String TAG = "AppExecutors";
+
+    /**
+     * Waiting IO tasks before the pool logs a backlog (BACKGROUND is rejected at half).
+     */
+    static final int IO_QUEUE_CAPACITY = 128;
+
+    /**
+     * Concurrent network calls; an analysis makes one or two.
+     */
+    static final int NETWORK_POOL_SIZE = 4;
+
+    /**
+     * Waiting network tasks before the pool logs a backlog.
+     */
+    static final int NETWORK_QUEUE_CAPACITY = 16;
+
+    /**
+     * Concurrent hedge legs: at most two per analysis, and at most NETWORK_POOL_SIZE analyses
+     * wait on them, so every queued leg gets a thread.
+     */
+    static final int HEDGE_POOL_SIZE = 2 * NETWORK_POOL_SIZE;
+
+    /**
+     * Waiting hedge legs before the pool logs a backlog.
+     */
+    static final int HEDGE_QUEUE_CAPACITY = 8;
+
+    private final PriorityExecutor ioExecutor;
+    private final PriorityExecutor networkExecutor;
+    private final PriorityExecutor hedgeExecutor;
     private final Executor mainThreadExecutor;
 
     /**
@@ -25,36 +60,49 @@ public class AppExecutors {
      * Thread pool sizes are optimized for the device CPU count.
      */
     public AppExecutors() {
-        // Fixed thread pool for database operations
+        // Bounded pool for database operations
         // Size: 2-4 threads based on CPU count (conservative for sequential DB writes)
         int cpuCount = Runtime.getRuntime().availableProcessors();
         int ioPoolSize = Math.max(2, Math.min(cpuCount - 1, 4));
-        this.ioExecutor = Executors.newFixedThreadPool(ioPoolSize);
+        this.ioExecutor = new PriorityExecutor("leafiq-io", ioPoolSize, IO_QUEUE_CAPACITY);
 
-        // Cached thread pool for network requests
-        // Creates threads as needed, reuses idle threads
-        this.networkExecutor = Executors.newCachedThreadPool();
+        // Bounded pool for network requests (previously an unbounded cached pool)
+        this.networkExecutor = new PriorityExecutor("leafiq-network", NETWORK_POOL_SIZE,
+                NETWORK_QUEUE_CAPACITY);
+
+        // Separate pool for hedge legs: a leg queued behind the analyses waiting on it in the
+        // network pool would never start
+        this.hedgeExecutor = new PriorityExecutor("leafiq-hedge", HEDGE_POOL_SIZE,
+                HEDGE_QUEUE_CAPACITY);
 
         // Main thread executor for posting results to UI
         this.mainThreadExecutor = new MainThreadExecutor();
     }
 
     /**
-     * Executor for database operations (Room DAOs).
-     * Uses a fixed thread pool (2-4 threads).
+     * Executor for database operations (Room DAOs) and local file work.
+     * Bounded priority pool (2-4 threads); plain execute() runs at NORMAL priority.
      */
-    public Executor io() {
+    public PriorityExecutor io() {
         return ioExecutor;
     }
 
     /**
      * Executor for network operations (AI API calls).
-     * Uses a cached thread pool (creates threads as needed).
+     * Bounded priority pool (NETWORK_POOL_SIZE threads).
      */
-    public Executor network() {
+    public PriorityExecutor network() {
         return networkExecutor;
     }
 
+    /**
+     * Executor for the legs of a hedged analysis. Never submit to it from one of its own tasks.
+     * Bounded priority pool (HEDGE_POOL_SIZE threads).
+     */
+    public PriorityExecutor hedge() {
+        return hedgeExecutor;
+    }
+
     /**
      * Executor that posts tasks to the main UI thread.
      */
@@ -62,6 +110,15 @@ public class AppExecutors {
         return mainThreadExecutor;
     }
 
+    /**
+     * Logs the current metrics of the IO and network pools.
+     */
+    public void logStats() {
+        Log.i(TAG, ioExecutor.getStats().toString());
+        Log.i(TAG, networkExecutor.getStats().toString());
+        Log.i(TAG, hedgeExecutor.getStats().toString());
+    }
+
     /**
      * Executor implementation that runs tasks on the main thread via Handler.
      */
@@ -3,11 +3,12 @@ package com.leafiq.app.util;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
 import android.net.Uri;
-import android.util.Base64;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -15,41 +16,6 @@ import java.io.OutputStream;
 
 public class ImageUtils {
 
-    private static final int MAX_DIMENSION = 1024;
-    private static final int JPEG_QUALITY = 80;
-
-    /**
-     * Compress and resize a photo, return base64 string ready for API.
-     */
-    public static String prepareForApi(Context context, Uri imageUri) throws IOException {
-        Bitmap original = getBitmapFromUri(context, imageUri);
-        if (original == null) {
-            throw new IOException("Failed to decode image");
-        }
-
-        Bitmap resized = resizeBitmap(original, MAX_DIMENSION);
-
-        // Pre-size for 1024px JPEG: avoids repeated reallocation from 32-byte default
-        // 1024px JPEG @ 80% quality: ~150-300KB compressed
-        // Base64 expansion adds ~33%: ~200-400KB total
-        // 512KB initial capacity eliminates reallocations for most images
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(512 * 1024);
-        resized.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, baos);
-
-        if (original != resized) {
-            original.recycle();
-        }
-        resized.recycle();
-
-        // Safety check: prevent OOM from unexpectedly large images
-        if (baos.size() > 5 * 1024 * 1024) {
-            throw new IOException("Image too large for API upload (" + (baos.size() / 1024) + " KB)");
-        }
-
-        byte[] bytes = baos.toByteArray();
-        return Base64.encodeToString(bytes, Base64.NO_WRAP);
-    }
-
     /**
      * Save a photo to internal app storage, return the file path.
      */
@@ -78,54 +44,6 @@ public class ImageUtils {
         return dest.getAbsolutePath();
     }
 
-    /**
-     * Create a thumbnail for the plant card display.
-     */
-    public static String saveThumbnail(Context context, Uri sourceUri, String plantId)
-            throws IOException {
-        File dir = new File(context.getFilesDir(), "thumbnails");
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
-
-        Bitmap original = getBitmapFromUri(context, sourceUri);
-        if (original == null) {
-            throw new IOException("Failed to decode image");
-        }
-
-        Bitmap thumbnail = resizeBitmap(original, 256);
-
-        String filename = plantId + "_thumb.jpg";
-        File dest = new File(dir, filename);
-
-        try (FileOutputStream out = new FileOutputStream(dest)) {
-            thumbnail.compress(Bitmap.CompressFormat.JPEG, 85, out);
-        }
-
-        if (original != thumbnail) {
-            original.recycle();
-        }
-        thumbnail.recycle();
-
-        return dest.getAbsolutePath();
-    }
-
-    /**
-     * Create a medium-resolution thumbnail (300px) for library grid display.
-     */
-    public static String saveMediumThumbnail(Context context, Uri sourceUri, String plantId)
-            throws IOException {
-        return saveThumbnailAtSize(context, sourceUri, plantId, 300, "_medium");
-    }
-
-    /**
-     * Create a high-resolution thumbnail (800px) for plant detail page display.
-     */
-    public static String saveHighResThumbnail(Context context, Uri sourceUri, String plantId)
-            throws IOException {
-        return saveThumbnailAtSize(context, sourceUri, plantId, 800, "_high");
-    }
-
     /**
      * Generate a high-resolution thumbnail from an existing file path (for lazy migration).
      * Used when opening plant detail for plants that don't yet have a high-res thumbnail.
@@ -140,18 +58,15 @@ public class ImageUtils {
             File dir = new File(context.getFilesDir(), "thumbnails");
             if (!dir.exists()) dir.mkdirs();
 
-            Bitmap original = BitmapFactory.decodeFile(filePath);
-            if (original == null) return null;
+            Bitmap resized = decodeSampledBitmap(filePath, 800);
+            if (resized == null) return null;
 
-            Bitmap resized = resizeBitmap(original, 800);
             String filename = plantId + "_high.jpg";
             File dest = new File(dir, filename);
 
             try (FileOutputStream out = new FileOutputStream(dest)) {
                 resized.compress(Bitmap.CompressFormat.JPEG, 85, out);
             }
-
-            if (original != resized) original.recycle();
             resized.recycle();
 
             return dest.getAbsolutePath();
@@ -160,35 +75,158 @@ public class ImageUtils {
         }
     }
 
-    private static String saveThumbnailAtSize(Context context, Uri sourceUri,
-            String plantId, int size, String suffix) throws IOException {
-        File dir = new File(context.getFilesDir(), "thumbnails");
-        if (!dir.exists()) dir.mkdirs();
+    /**
+     * Opens a fresh stream over the image source. Decoding reads the source up to three
+     * times (bounds, EXIF, pixels), so callers supply a way to reopen it.
+     */
+    private interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Decodes an image at the size it will actually be used, upright.
+     * <p>
+     * Reads bounds first, decodes with the largest power-of-2 inSampleSize that stays at or
+     * above maxDimension, scales the rest of the way, then applies EXIF orientation.
+     * Peak heap is proportional to the output size rather than the sensor size.
+     *
+     * @param context Context for ContentResolver access
+     * @param uri Source image URI
+     * @param maxDimension Longest side of the returned bitmap
+     * @return Decoded bitmap with longest side at most maxDimension, or null if undecodable
+     * @throws IOException if the source cannot be read
+     */
+    public static Bitmap decodeSampledBitmap(Context context, Uri uri, int maxDimension)
+            throws IOException {
+        return decodeSampledBitmap(context, uri, maxDimension, null);
+    }
 
-        Bitmap original = getBitmapFromUri(context, sourceUri);
-        if (original == null) throw new IOException("Failed to decode image");
+    /**
+     * Same as {@link #decodeSampledBitmap(Context, Uri, int)}, additionally reporting the
+     * source dimensions (outWidth/outHeight) and chosen inSampleSize through outBounds.
+     *
+     * @param outBounds Receives source bounds and sample size; may be null
+     */
+    public static Bitmap decodeSampledBitmap(Context context, Uri uri, int maxDimension,
+            BitmapFactory.Options outBounds) throws IOException {
+        return decodeSampled(() -> context.getContentResolver().openInputStream(uri),
+                maxDimension, outBounds);
+    }
 
-        Bitmap resized = resizeBitmap(original, size);
-        String filename = plantId + suffix + ".jpg";
-        File dest = new File(dir, filename);
+    /**
+     * File-path variant of {@link #decodeSampledBitmap(Context, Uri, int)}.
+     */
+    public static Bitmap decodeSampledBitmap(String filePath, int maxDimension) throws IOException {
+        return decodeSampled(() -> new FileInputStream(filePath), maxDimension, null);
+    }
 
-        try (FileOutputStream out = new FileOutputStream(dest)) {
-            resized.compress(Bitmap.CompressFormat.JPEG, 85, out);
+    private static Bitmap decodeSampled(StreamOpener opener, int maxDimension,
+            BitmapFactory.Options outBounds) throws IOException {
+        BitmapFactory.Options bounds = outBounds != null ? outBounds : new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = opener.open()) {
+            if (in == null) return null;
+            BitmapFactory.decodeStream(in, null, bounds);
         }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null;
 
-        if (original != resized) original.recycle();
-        resized.recycle();
+        BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+        decodeOptions.inSampleSize = calculateInSampleSize(
+                bounds.outWidth, bounds.outHeight, maxDimension);
+        bounds.inSampleSize = decodeOptions.inSampleSize;
+        bounds.inJustDecodeBounds = false;
 
-        return dest.getAbsolutePath();
+        Bitmap sampled;
+        try (InputStream in = opener.open()) {
+            sampled = in != null ? BitmapFactory.decodeStream(in, null, decodeOptions) : null;
+        }
+        if (sampled == null) return null;
+
+        // Scale before rotating so the rotation copy is output-sized
+        Bitmap resized = resizeBitmap(sampled, maxDimension);
+        if (resized != sampled) sampled.recycle();
+
+        int orientation;
+        try (InputStream in = opener.open()) {
+            orientation = in != null ? readExifOrientation(in) : ExifInterface.ORIENTATION_NORMAL;
+        }
+        Bitmap oriented = applyExifOrientation(resized, orientation);
+        if (oriented != resized) resized.recycle();
+        return oriented;
+    }
+
+    private static int readExifOrientation(InputStream in) {
+        try {
+            return new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            // Missing or corrupt EXIF is common (PNG, screenshots) - treat as upright
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    /**
+     * Rotates/flips a bitmap according to an EXIF orientation tag.
+     * Returns the same instance for ORIENTATION_NORMAL/UNDEFINED.
+     */
+    static Bitmap applyExifOrientation(Bitmap bitmap, int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(270);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(270);
+                matrix.postScale(-1, 1);
+                break;
+            default:
+                return bitmap;
+        }
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
     }
 
-    private static Bitmap getBitmapFromUri(Context context, Uri uri) throws IOException {
-        try (InputStream input = context.getContentResolver().openInputStream(uri)) {
-            return BitmapFactory.decodeStream(input);
+    /**
+     * Calculates the largest power-of-2 inSampleSize that keeps the decoded image's
+     * longest side at or above maxDimension, so a later resize never upscales.
+     *
+     * @param width Source width in pixels (from a bounds-only decode)
+     * @param height Source height in pixels (from a bounds-only decode)
+     * @param maxDimension Longest side the caller will eventually resize to
+     * @return power-of-2 sample size (1 when the source is already small enough)
+     */
+    public static int calculateInSampleSize(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        int inSampleSize = 1;
+        if (maxDimension <= 0 || longest <= maxDimension) {
+            return inSampleSize;
+        }
+        while ((longest / (inSampleSize * 2)) >= maxDimension) {
+            inSampleSize *= 2;
         }
+        return inSampleSize;
     }
 
-    private static Bitmap resizeBitmap(Bitmap bitmap, int maxDimension) {
+    /**
+     * Scales a bitmap down so its longest side is at most maxDimension.
+     * Returns the same instance when no scaling is needed.
+     */
+    public static Bitmap resizeBitmap(Bitmap bitmap, int maxDimension) {
         int width = bitmap.getWidth();
         int height = bitmap.getHeight();
 
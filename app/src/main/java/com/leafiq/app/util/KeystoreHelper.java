@@ -20,8 +20,16 @@ public class KeystoreHelper {
     // Legacy key for migration
     private static final String KEY_API_KEY_LEGACY = "api_key";
     private static final String KEY_PROVIDER = "ai_provider";
+    private static final String KEY_HEDGING_ENABLED = "hedging_enabled";
+    private static final String KEY_STRUCTURED_OUTPUT_ENABLED = "structured_output_enabled";
     private static final String KEY_PREFERRED_REMINDER_TIME = "preferred_reminder_time";
     private static final String KEY_REMINDERS_PAUSED = "reminders_paused";
+    private static final String KEY_QUIET_HOURS_ENABLED = "quiet_hours_enabled";
+    private static final String KEY_QUIET_HOURS_START = "quiet_hours_start";
+    private static final String KEY_QUIET_HOURS_END = "quiet_hours_end";
+    private static final String KEY_CARE_HISTORY_HORIZON_MONTHS = "care_history_horizon_months";
+    private static final String KEY_CACHE_MATCH_DISTANCE = "cache_match_distance";
+    private static final String KEY_CACHE_WINDOW_MINUTES = "cache_window_minutes";
     private static final String KEY_NOTIFICATION_PERMISSION_REQUESTED = "notification_permission_requested";
     private static final String KEY_QUICK_DIAGNOSIS_TOOLTIP_SHOWN = "quick_diagnosis_tooltip_shown";
     private static final String KEY_NOTIFICATION_BANNER_DISMISSED = "notification_banner_dismissed";
@@ -154,6 +162,50 @@ public class KeystoreHelper {
         return apiKey != null && !apiKey.trim().isEmpty();
     }
 
+    /**
+     * Gets the stored API key for a specific provider (not just the selected one).
+     * Used to build the hedged multi-provider analysis.
+     */
+    public String getApiKeyForProvider(String provider) {
+        if (prefs == null) return null;
+        return prefs.getString(getKeyForProvider(provider), null);
+    }
+
+    /**
+     * Enables hedged analysis: every provider with a saved key races the selected one
+     * when it is slow and takes over when it fails.
+     */
+    public void setHedgingEnabled(boolean enabled) {
+        if (prefs == null) {
+            Log.w(TAG, "Cannot set hedging enabled: encryption unavailable");
+            return;
+        }
+        prefs.edit().putBoolean(KEY_HEDGING_ENABLED, enabled).apply();
+    }
+
+    public boolean isHedgingEnabled() {
+        if (prefs == null) return false;  // Default: single provider when encryption unavailable
+        return prefs.getBoolean(KEY_HEDGING_ENABLED, false);
+    }
+
+    /**
+     * Enables structured output: providers are sent the analysis schema natively instead of
+     * relying on the JSON template in the prompt. Kept as a setting so parse failure rates
+     * can be compared with it on and off.
+     */
+    public void setStructuredOutputEnabled(boolean enabled) {
+        if (prefs == null) {
+            Log.w(TAG, "Cannot set structured output enabled: encryption unavailable");
+            return;
+        }
+        prefs.edit().putBoolean(KEY_STRUCTURED_OUTPUT_ENABLED, enabled).apply();
+    }
+
+    public boolean isStructuredOutputEnabled() {
+        if (prefs == null) return true;  // Default: structured output on
+        return prefs.getBoolean(KEY_STRUCTURED_OUTPUT_ENABLED, true);
+    }
+
     // Reminder settings
     public void savePreferredReminderTime(int hourOfDay, int minute) {
         if (prefs == null) {
@@ -172,6 +224,102 @@ public class KeystoreHelper {
         return new int[]{hour, minute};
     }
 
+    /**
+     * Turns quiet hours on or off. While on, reminders go out when care is due, and those due
+     * between the quiet hours start and end are held until the end. While off, reminders go
+     * out at the preferred reminder time.
+     */
+    public void setQuietHoursEnabled(boolean enabled) {
+        if (prefs == null) {
+            Log.w(TAG, "Cannot set quiet hours state: encryption unavailable");
+            return;
+        }
+        prefs.edit().putBoolean(KEY_QUIET_HOURS_ENABLED, enabled).apply();
+    }
+
+    public boolean areQuietHoursEnabled() {
+        if (prefs == null) return false;  // Default: off when encryption unavailable
+        return prefs.getBoolean(KEY_QUIET_HOURS_ENABLED, false);
+    }
+
+    public void saveQuietHoursStart(int hourOfDay, int minute) {
+        if (prefs == null) {
+            Log.w(TAG, "Cannot save quiet hours start: encryption unavailable");
+            return;
+        }
+        prefs.edit().putInt(KEY_QUIET_HOURS_START, hourOfDay * 60 + minute).apply();
+    }
+
+    public int[] getQuietHoursStart() {
+        if (prefs == null) return new int[]{21, 0};  // Default 9:00 PM when encryption unavailable
+        int minutesSinceMidnight = prefs.getInt(KEY_QUIET_HOURS_START, 21 * 60); // Default 9:00 PM
+        return new int[]{minutesSinceMidnight / 60, minutesSinceMidnight % 60};
+    }
+
+    public void saveQuietHoursEnd(int hourOfDay, int minute) {
+        if (prefs == null) {
+            Log.w(TAG, "Cannot save quiet hours end: encryption unavailable");
+            return;
+        }
+        prefs.edit().putInt(KEY_QUIET_HOURS_END, hourOfDay * 60 + minute).apply();
+    }
+
+    public int[] getQuietHoursEnd() {
+        if (prefs == null) return new int[]{8, 0};  // Default 8:00 AM when encryption unavailable
+        int minutesSinceMidnight = prefs.getInt(KEY_QUIET_HOURS_END, 8 * 60); // Default 8:00 AM
+        return new int[]{minutesSinceMidnight / 60, minutesSinceMidnight % 60};
+    }
+
+    /**
+     * Saves how many full months of care history are kept as individual completions.
+     * Older completions are rolled up into monthly counts.
+     */
+    public void saveCareHistoryHorizonMonths(int months) {
+        if (prefs == null) {
+            Log.w(TAG, "Cannot save care history horizon: encryption unavailable");
+            return;
+        }
+        prefs.edit().putInt(KEY_CARE_HISTORY_HORIZON_MONTHS, months).apply();
+    }
+
+    public int getCareHistoryHorizonMonths() {
+        if (prefs == null) return 12;  // Default one year when encryption unavailable
+        return prefs.getInt(KEY_CARE_HISTORY_HORIZON_MONTHS, 12); // Default one year
+    }
+
+    /**
+     * Saves the largest perceptual-hash bit difference (0-64) at which a new photo reuses a
+     * cached analysis. 0 only reuses results for pixel-identical photos.
+     */
+    public void saveCacheMatchDistance(int bits) {
+        if (prefs == null) {
+            Log.w(TAG, "Cannot save cache match distance: encryption unavailable");
+            return;
+        }
+        prefs.edit().putInt(KEY_CACHE_MATCH_DISTANCE, Math.max(0, Math.min(64, bits))).apply();
+    }
+
+    public int getCacheMatchDistance() {
+        if (prefs == null) return 6;  // Default when encryption unavailable
+        return prefs.getInt(KEY_CACHE_MATCH_DISTANCE, 6); // Default 6 of 64 bits
+    }
+
+    /**
+     * Saves how long, in minutes, a cached analysis stays eligible for reuse.
+     */
+    public void saveCacheWindowMinutes(int minutes) {
+        if (prefs == null) {
+            Log.w(TAG, "Cannot save cache window: encryption unavailable");
+            return;
+        }
+        prefs.edit().putInt(KEY_CACHE_WINDOW_MINUTES, Math.max(0, minutes)).apply();
+    }
+
+    public int getCacheWindowMinutes() {
+        if (prefs == null) return 60;  // Default one hour when encryption unavailable
+        return prefs.getInt(KEY_CACHE_WINDOW_MINUTES, 60); // Default one hour
+    }
+
     public void setRemindersPaused(boolean paused) {
         if (prefs == null) {
             Log.w(TAG, "Cannot set reminders paused state: encryption unavailable");
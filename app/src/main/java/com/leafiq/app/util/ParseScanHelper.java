@@ -3,16 +3,26 @@ package com.leafiq.app.util;
 import android.util.Log;
 
 import com.leafiq.app.data.db.AnalysisDao;
+import com.leafiq.app.data.db.AnalysisDetailDao;
 import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.model.AnalysisWithDetails;
+import com.leafiq.app.data.model.ParseStatusCount;
+import com.leafiq.app.data.model.PlantAnalysisResult;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Helper for background parse scanning of analyses.
- * Incrementally scans existing analyses on app launch to populate parse_status.
+ * Helper for parsing stored analyses into their normalised tables.
+ * New analyses are normalised when saved, from the result already in memory; older analyses
+ * are backfilled one small batch per launch, populating parse_status and the
+ * analysis_details, analysis_issues and analysis_actions rows. An analysis opened before the
+ * backfill reaches it is normalised on first read (see PlantRepository#getStructuredAnalysisSync).
  * <p>
  * Per CONTEXT.md: "Lightweight, incremental scan (5-10 items per launch or when idle).
- * Cache result permanently."
+ * Cache result permanently." - 5 items per launch, and the stored rows are the
+ * permanent cache, so each analysis is parsed once in its lifetime.
  */
 public class ParseScanHelper {
 
@@ -20,30 +30,92 @@ public class ParseScanHelper {
     private static final int SCAN_BATCH_SIZE = 5;
 
     /**
-     * Scans up to SCAN_BATCH_SIZE analyses that still have parse_status='OK'
-     * (default from migration) and re-evaluates their rawResponse.
-     * Analyses that actually parse fine stay OK. Those that fail get PARTIAL/FAILED/EMPTY.
+     * Backfills up to SCAN_BATCH_SIZE analyses that have no normalised rows yet; the rest
+     * are picked up on later launches. Analyses whose rawResponse doesn't parse get
+     * PARTIAL/FAILED/EMPTY and an empty detail row so they aren't scanned again.
      * <p>
      * Must be called on a background thread.
      *
      * @param analysisDao DAO for analysis operations
+     * @param analysisDetailDao DAO for the normalised analysis tables
      */
-    public static void scanOnLaunch(AnalysisDao analysisDao) {
-        List<Analysis> toScan = analysisDao.getAnalysesNeedingScan(SCAN_BATCH_SIZE);
-        int updated = 0;
-
+    public static void scanOnLaunch(AnalysisDao analysisDao, AnalysisDetailDao analysisDetailDao) {
+        List<Analysis> toScan = analysisDetailDao.getAnalysesWithoutDetails(SCAN_BATCH_SIZE);
         for (Analysis analysis : toScan) {
-            RobustJsonParser.ParseResult result = RobustJsonParser.parse(analysis.rawResponse);
-
-            // Only update if status changed from OK
-            if (!"OK".equals(result.parseStatus)) {
-                analysisDao.updateParseStatus(analysis.id, result.parseStatus);
-                updated++;
-                Log.i(TAG, "parse_scan_updated: id=" + analysis.id +
-                    " status=" + result.parseStatus + " hash=" + result.contentHash);
+            normalize(analysisDao, analysisDetailDao, analysis);
+        }
+
+        Log.i(TAG, "parse_scan_complete: scanned=" + toScan.size());
+        logSavedParseStatus(analysisDao);
+    }
+
+    /**
+     * Logs the share of PARTIAL/FAILED/EMPTY analyses per provider and output mode. Only saved
+     * analyses are counted, and a response that failed to decode is never saved, so this
+     * understates failures: compare failure rates with structured output on and off from
+     * ParseOutcomeStats, which counts every response when it is decoded. Analyses saved before
+     * the provider was recorded (and cache hits) are reported as provider=unknown.
+     * <p>
+     * Must be called on a background thread.
+     */
+    public static void logSavedParseStatus(AnalysisDao analysisDao) {
+        // "provider=... mode=..." -> {total, failed}
+        Map<String, int[]> counts = new LinkedHashMap<>();
+        for (ParseStatusCount row : analysisDao.getParseStatusCounts()) {
+            String key = "provider=" + (row.provider != null ? row.provider : "unknown")
+                    + " mode=" + (row.structuredOutput ? "structured" : "prompt");
+            int[] totals = counts.computeIfAbsent(key, k -> new int[2]);
+            totals[0] += row.count;
+            if (!"OK".equals(row.parseStatus)) {
+                totals[1] += row.count;
             }
         }
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            int total = entry.getValue()[0];
+            int failed = entry.getValue()[1];
+            Log.i(TAG, String.format("saved_parse_status: %s total=%d failed=%d pct=%.1f",
+                    entry.getKey(), total, failed, total > 0 ? failed * 100.0 / total : 0));
+        }
+    }
+
+    /**
+     * Parses one analysis' rawResponse, corrects its parse_status if needed and writes its
+     * normalised rows. The analysis row must already be stored.
+     * <p>
+     * Must be called on a background thread.
+     *
+     * @return The normalised rows that were written
+     */
+    public static AnalysisWithDetails normalize(AnalysisDao analysisDao,
+                                                AnalysisDetailDao analysisDetailDao,
+                                                Analysis analysis) {
+        RobustJsonParser.ParseResult result = RobustJsonParser.parse(analysis.rawResponse);
+
+        if (!result.parseStatus.equals(analysis.parseStatus)) {
+            analysisDao.updateParseStatus(analysis.id, result.parseStatus);
+            analysis.parseStatus = result.parseStatus;
+            Log.i(TAG, "parse_scan_updated: id=" + analysis.id +
+                " status=" + result.parseStatus + " hash=" + result.contentHash);
+        }
 
-        Log.i(TAG, "parse_scan_complete: scanned=" + toScan.size() + " updated=" + updated);
+        AnalysisWithDetails details = AnalysisWithDetails.fromResult(analysis.id, result.result);
+        analysisDetailDao.replaceDetails(details);
+        return details;
+    }
+
+    /**
+     * Writes the normalised rows of a newly saved analysis from the result that was just
+     * parsed, so saving doesn't parse rawResponse a second time.
+     * <p>
+     * Must be called on a background thread.
+     *
+     * @return The normalised rows that were written
+     */
+    public static AnalysisWithDetails normalize(AnalysisDetailDao analysisDetailDao,
+                                                Analysis analysis,
+                                                PlantAnalysisResult result) {
+        AnalysisWithDetails details = AnalysisWithDetails.fromResult(analysis.id, result);
+        analysisDetailDao.replaceDetails(details);
+        return details;
     }
 }
@@ -0,0 +1,72 @@
+package com.leafiq.app.util;
+
+import android.graphics.Bitmap;
+
+/**
+ * 64-bit difference hash (dHash) for near-duplicate photo detection.
+ * <p>
+ * The image is shrunk to 9x8 grayscale and each bit records whether a pixel is brighter
+ * than its right-hand neighbour. Re-shoots of the same plant a few minutes apart land
+ * within a few bits of each other; different photos differ in roughly half the bits.
+ */
+public class PerceptualHash {
+
+    static final int HASH_WIDTH = 9;
+    static final int HASH_HEIGHT = 8;
+
+    private PerceptualHash() {
+        throw new AssertionError("Utility class - do not instantiate");
+    }
+
+    /**
+     * Computes the dHash of a bitmap. The source is not modified or recycled.
+     *
+     * @param bitmap Decoded image (already downsampled is fine and cheaper)
+     * @return 64-bit perceptual hash
+     */
+    public static long dHash(Bitmap bitmap) {
+        Bitmap small = Bitmap.createScaledBitmap(bitmap, HASH_WIDTH, HASH_HEIGHT, true);
+        int[] pixels = new int[HASH_WIDTH * HASH_HEIGHT];
+        small.getPixels(pixels, 0, HASH_WIDTH, 0, 0, HASH_WIDTH, HASH_HEIGHT);
+        if (small != bitmap) {
+            small.recycle();
+        }
+        return dHash(pixels);
+    }
+
+    /**
+     * Computes the dHash of 9x8 ARGB pixels in row-major order.
+     *
+     * @param argbPixels 72 ARGB pixels
+     * @return 64-bit perceptual hash
+     */
+    public static long dHash(int[] argbPixels) {
+        if (argbPixels.length != HASH_WIDTH * HASH_HEIGHT) {
+            throw new IllegalArgumentException("Expected " + (HASH_WIDTH * HASH_HEIGHT) + " pixels");
+        }
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                int left = luminance(argbPixels[y * HASH_WIDTH + x]);
+                int right = luminance(argbPixels[y * HASH_WIDTH + x + 1]);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return Number of differing bits between two hashes (0 = identical, 64 = inverted)
+     */
+    public static int hammingDistance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static int luminance(int argb) {
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        // ITU-R BT.601 weights, integer arithmetic
+        return (r * 299 + g * 587 + b * 114) / 1000;
+    }
+}
@@ -0,0 +1,265 @@
+package com.leafiq.app.util;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, priority-ordered thread pool with live metrics.
+ * <p>
+ * A fixed number of named threads take tasks from a priority queue: USER_VISIBLE before
+ * NORMAL before BACKGROUND, first-in-first-out within a priority. Only BACKGROUND work is
+ * bounded: once half of queueCapacity tasks are waiting, execute() throws
+ * RejectedExecutionException for it, so sweeps and scans can never pile up ahead of user
+ * work. USER_VISIBLE and NORMAL tasks are always accepted, because their callers (receivers
+ * holding goAsync(), repository callbacks) must not lose them; past queueCapacity they are
+ * logged as a backlog. Idle threads time out, so an idle pool holds no threads.
+ * <p>
+ * getStats() reports queue depth, wait and run times and rejections; tasks that waited
+ * longer than SLOW_WAIT_MS are logged.
+ */
+public class PriorityExecutor implements Executor {
+
+    public enum Priority {
+        USER_VISIBLE,   // Reads the user is waiting on
+        NORMAL,         // Default: writes and other request-driven work
+        BACKGROUND      // Cleanup, scans, compaction
+    }
+
+    private static final String TAG = "AppExecutors";
+
+    /**
+     * Queue wait above which a task is logged as delayed.
+     */
+    static final long SLOW_WAIT_MS = 1000;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final String name;
+    private final int queueCapacity;
+    private final int backgroundQueueLimit;
+    private final ThreadPoolExecutor pool;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    /**
+     * @param name Pool name, used for thread names ("name-1", "name-2", ...) and logs
+     * @param threads Maximum concurrently running tasks
+     * @param queueCapacity Waiting tasks above which the pool is logged as backlogged;
+     *                      BACKGROUND tasks are rejected at half of it
+     */
+    public PriorityExecutor(String name, int threads, int queueCapacity) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.backgroundQueueLimit = Math.max(1, queueCapacity / 2);
+        this.pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), new NamedThreadFactory(name));
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the task at NORMAL priority. Never rejected while the pool is running.
+     */
+    @Override
+    public void execute(@NonNull Runnable command) {
+        execute(Priority.NORMAL, command);
+    }
+
+    /**
+     * Runs the task at the given priority.
+     *
+     * @throws RejectedExecutionException if priority is BACKGROUND and its share of the queue
+     *                                    is full, or the pool has been shut down
+     */
+    public void execute(Priority priority, Runnable command) {
+        if (priority == Priority.BACKGROUND) {
+            if (!reserveQueueSlot(backgroundQueueLimit)) {
+                rejectedCount.incrementAndGet();
+                Log.w(TAG, name + " saturated, rejected " + priority + " task: " + getStats());
+                throw new RejectedExecutionException(name + " queue full for " + priority
+                        + " (" + backgroundQueueLimit + ")");
+            }
+        } else if (queued.incrementAndGet() > queueCapacity) {
+            Log.w(TAG, name + " backlogged, queued " + priority + " task: " + getStats());
+        }
+        try {
+            pool.execute(new Task(priority, sequence.getAndIncrement(), command));
+        } catch (RejectedExecutionException e) {
+            // Pool shut down: release the slot
+            queued.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Executor view that submits everything at one priority, for components that take a
+     * plain Executor.
+     */
+    public Executor withPriority(Priority priority) {
+        return command -> execute(priority, command);
+    }
+
+    /**
+     * @return Snapshot of the pool's current load and lifetime timings
+     */
+    public Stats getStats() {
+        long completed = completedCount.get();
+        return new Stats(name, queued.get(), running.get(), completed, rejectedCount.get(),
+                completed > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / completed) : 0,
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                completed > 0 ? TimeUnit.NANOSECONDS.toMillis(totalRunNanos.get() / completed) : 0,
+                TimeUnit.NANOSECONDS.toMillis(maxRunNanos.get()));
+    }
+
+    /**
+     * Stops accepting tasks; queued ones still run. For tests.
+     */
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    private boolean reserveQueueSlot(int limit) {
+        while (true) {
+            int current = queued.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+
+    /**
+     * Queued task ordered by priority, then submission order.
+     */
+    private final class Task implements Runnable, Comparable<Task> {
+        final Priority priority;
+        final long sequenceNumber;
+        final Runnable command;
+        final long enqueuedAt = System.nanoTime();
+
+        Task(Priority priority, long sequenceNumber, Runnable command) {
+            this.priority = priority;
+            this.sequenceNumber = sequenceNumber;
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            queued.decrementAndGet();
+            running.incrementAndGet();
+
+            long waitNanos = startedAt - enqueuedAt;
+            totalWaitNanos.addAndGet(waitNanos);
+            updateMax(maxWaitNanos, waitNanos);
+            if (TimeUnit.NANOSECONDS.toMillis(waitNanos) > SLOW_WAIT_MS) {
+                Log.w(TAG, name + " " + priority + " task waited "
+                        + TimeUnit.NANOSECONDS.toMillis(waitNanos) + " ms: " + getStats());
+            }
+
+            try {
+                command.run();
+            } finally {
+                long runNanos = System.nanoTime() - startedAt;
+                totalRunNanos.addAndGet(runNanos);
+                updateMax(maxRunNanos, runNanos);
+                running.decrementAndGet();
+                completedCount.incrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+
+    /**
+     * Point-in-time metrics of a pool. Times are in milliseconds.
+     */
+    public static class Stats {
+        public final String name;
+        public final int queueDepth;
+        public final int runningCount;
+        public final long completedCount;
+        public final long rejectedCount;
+        public final long averageWaitMs;
+        public final long maxWaitMs;
+        public final long averageRunMs;
+        public final long maxRunMs;
+
+        Stats(String name, int queueDepth, int runningCount, long completedCount, long rejectedCount,
+              long averageWaitMs, long maxWaitMs, long averageRunMs, long maxRunMs) {
+            this.name = name;
+            this.queueDepth = queueDepth;
+            this.runningCount = runningCount;
+            this.completedCount = completedCount;
+            this.rejectedCount = rejectedCount;
+            this.averageWaitMs = averageWaitMs;
+            this.maxWaitMs = maxWaitMs;
+            this.averageRunMs = averageRunMs;
+            this.maxRunMs = maxRunMs;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s: queued=%d running=%d completed=%d rejected=%d wait avg/max=%d/%d ms run avg/max=%d/%d ms",
+                    name, queueDepth, runningCount, completedCount, rejectedCount,
+                    averageWaitMs, maxWaitMs, averageRunMs, maxRunMs);
+        }
+    }
+
+    /**
+     * Names threads "name-1", "name-2", ... so they are identifiable in traces.
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.leafiq.app.ai;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import okhttp3.OkHttpClient;
 
 public class AIProviderFactoryTest {
@@ -18,54 +22,54 @@ public class AIProviderFactoryTest {
 
     @Test
     public void create_gemini_returnsGeminiProvider() {
-        AIProvider provider = AIProviderFactory.create("gemini", "test-key", client);
+        AIProvider provider = AIProviderFactory.create("gemini", "test-key", client, false);
         assertThat(provider).isInstanceOf(GeminiProvider.class);
     }
 
     @Test
     public void create_claude_returnsClaudeProvider() {
-        AIProvider provider = AIProviderFactory.create("claude", "test-key", client);
+        AIProvider provider = AIProviderFactory.create("claude", "test-key", client, false);
         assertThat(provider).isInstanceOf(ClaudeProvider.class);
     }
 
     @Test
     public void create_openai_returnsOpenAIProvider() {
-        AIProvider provider = AIProviderFactory.create("openai", "test-key", client);
+        AIProvider provider = AIProviderFactory.create("openai", "test-key", client, false);
         assertThat(provider).isInstanceOf(OpenAIProvider.class);
     }
 
     @Test
     public void create_caseInsensitive_returnsCorrectProvider() {
-        assertThat(AIProviderFactory.create("GEMINI", "key", client)).isInstanceOf(GeminiProvider.class);
-        assertThat(AIProviderFactory.create("Claude", "key", client)).isInstanceOf(ClaudeProvider.class);
-        assertThat(AIProviderFactory.create("OpenAI", "key", client)).isInstanceOf(OpenAIProvider.class);
+        assertThat(AIProviderFactory.create("GEMINI", "key", client, false)).isInstanceOf(GeminiProvider.class);
+        assertThat(AIProviderFactory.create("Claude", "key", client, false)).isInstanceOf(ClaudeProvider.class);
+        assertThat(AIProviderFactory.create("OpenAI", "key", client, false)).isInstanceOf(OpenAIProvider.class);
     }
 
     @Test
     public void create_providerIsConfigured_withValidKey() {
-        AIProvider provider = AIProviderFactory.create("claude", "sk-test-key", client);
+        AIProvider provider = AIProviderFactory.create("claude", "sk-test-key", client, false);
         assertThat(provider.isConfigured()).isTrue();
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void create_nullProviderName_throwsIllegalArgument() {
-        AIProviderFactory.create(null, "test-key", client);
+        AIProviderFactory.create(null, "test-key", client, false);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void create_nullApiKey_throwsIllegalArgument() {
-        AIProviderFactory.create("claude", null, client);
+        AIProviderFactory.create("claude", null, client, false);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void create_unknownProvider_throwsIllegalArgument() {
-        AIProviderFactory.create("unknown_provider", "test-key", client);
+        AIProviderFactory.create("unknown_provider", "test-key", client, false);
     }
 
     @Test
     public void create_unknownProvider_errorMessageContainsProviderName() {
         try {
-            AIProviderFactory.create("foobar", "test-key", client);
+            AIProviderFactory.create("foobar", "test-key", client, false);
         } catch (IllegalArgumentException e) {
             assertThat(e.getMessage()).contains("foobar");
             assertThat(e.getMessage()).contains("Supported");
@@ -74,6 +78,38 @@ public class AIProviderFactoryTest {
 
     @Test(expected = IllegalArgumentException.class)
     public void create_nullClient_throwsIllegalArgument() {
-        AIProviderFactory.create("gemini", "test-key", null);
+        AIProviderFactory.create("gemini", "test-key", null, false);
+    }
+
+    @Test
+    public void createHedged_singleKey_returnsPlainProvider() {
+        Map<String, String> keys = new LinkedHashMap<>();
+        keys.put("gemini", "key");
+        keys.put("claude", null);
+        keys.put("openai", "  ");
+
+        AIProvider provider = AIProviderFactory.createHedged("gemini", keys, client,
+                mock(ProviderLatencyStats.class), Runnable::run, false);
+
+        assertThat(provider).isInstanceOf(GeminiProvider.class);
+    }
+
+    @Test
+    public void createHedged_multipleKeys_primaryLeadsHedge() {
+        Map<String, String> keys = new LinkedHashMap<>();
+        keys.put("gemini", "key");
+        keys.put("claude", "key");
+
+        AIProvider provider = AIProviderFactory.createHedged("claude", keys, client,
+                mock(ProviderLatencyStats.class), Runnable::run, false);
+
+        assertThat(provider).isInstanceOf(HedgedAIProvider.class);
+        assertThat(provider.getDisplayName()).isEqualTo("Claude (Anthropic) (hedged)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createHedged_noKeys_throws() {
+        AIProviderFactory.createHedged("gemini", new LinkedHashMap<>(), client,
+                mock(ProviderLatencyStats.class), Runnable::run, false);
     }
 }
@@ -0,0 +1,99 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class AnalysisSchemaTest {
+
+    @Test
+    public void jsonSchema_topLevelFieldsFollowTemplateOrder() throws Exception {
+        JSONObject schema = AnalysisSchema.jsonSchema();
+
+        JSONArray required = schema.getJSONArray("required");
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < required.length(); i++) {
+            names.add(required.getString(i));
+        }
+        assertThat(names).containsExactly("identification", "healthAssessment",
+                "immediateActions", "carePlan", "funFact").inOrder();
+    }
+
+    @Test
+    public void jsonSchema_everyObjectIsStrict() throws Exception {
+        assertStrict(AnalysisSchema.jsonSchema());
+    }
+
+    @Test
+    public void jsonSchema_nullableFieldsAllowNull() throws Exception {
+        JSONObject light = AnalysisSchema.jsonSchema().getJSONObject("properties")
+                .getJSONObject("carePlan").getJSONObject("properties")
+                .getJSONObject("light").getJSONObject("properties");
+
+        JSONArray adjustmentType = light.getJSONObject("adjustment").getJSONArray("type");
+        assertThat(adjustmentType.getString(0)).isEqualTo("string");
+        assertThat(adjustmentType.getString(1)).isEqualTo("null");
+        assertThat(light.getJSONObject("ideal").getString("type")).isEqualTo("string");
+    }
+
+    @Test
+    public void geminiSchema_usesUpperCaseTypesAndPropertyOrdering() throws Exception {
+        JSONObject schema = AnalysisSchema.geminiSchema();
+
+        assertThat(schema.getString("type")).isEqualTo("OBJECT");
+        assertThat(schema.has("additionalProperties")).isFalse();
+        assertThat(schema.getJSONArray("propertyOrdering").getString(0)).isEqualTo("identification");
+
+        JSONObject repotting = schema.getJSONObject("properties").getJSONObject("carePlan")
+                .getJSONObject("properties").getJSONObject("repotting").getJSONObject("properties");
+        assertThat(repotting.getJSONObject("needed").getString("type")).isEqualTo("BOOLEAN");
+        assertThat(repotting.getJSONObject("recommendedPotSize").getBoolean("nullable")).isTrue();
+    }
+
+    @Test
+    public void geminiSchema_enumsMatchParserValues() throws Exception {
+        JSONObject confidence = AnalysisSchema.geminiSchema().getJSONObject("properties")
+                .getJSONObject("identification").getJSONObject("properties")
+                .getJSONObject("confidence");
+
+        JSONArray values = confidence.getJSONArray("enum");
+        assertThat(values.length()).isEqualTo(3);
+        assertThat(values.getString(0)).isEqualTo("high");
+    }
+
+    /** Strict mode: every object lists all its properties as required and allows no others. */
+    private static void assertStrict(JSONObject schema) throws Exception {
+        if (schema.has("items")) {
+            assertStrict(schema.getJSONObject("items"));
+        }
+        if (!schema.has("properties")) {
+            return;
+        }
+        assertThat(schema.getBoolean("additionalProperties")).isFalse();
+        JSONObject properties = schema.getJSONObject("properties");
+        List<String> required = new ArrayList<>();
+        JSONArray requiredArray = schema.getJSONArray("required");
+        for (int i = 0; i < requiredArray.length(); i++) {
+            required.add(requiredArray.getString(i));
+        }
+        assertThat(required).containsExactlyElementsIn(keys(properties));
+        for (String name : keys(properties)) {
+            assertStrict(properties.getJSONObject(name));
+        }
+    }
+
+    private static List<String> keys(JSONObject object) {
+        List<String> keys = new ArrayList<>();
+        Iterator<String> it = object.keys();
+        while (it.hasNext()) {
+            keys.add(it.next());
+        }
+        return keys;
+    }
+}
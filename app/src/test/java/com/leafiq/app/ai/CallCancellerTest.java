@@ -0,0 +1,100 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class CallCancellerTest {
+
+    private MockWebServer mockWebServer;
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        scheduler.shutdownNow();
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void wrap_cancelAbortsInFlightCall() {
+        mockWebServer.enqueue(new MockResponse().setBody("{}").setHeadersDelay(10, TimeUnit.SECONDS));
+        CallCanceller canceller = new CallCanceller();
+        OkHttpClient client = canceller.wrap(new OkHttpClient());
+
+        scheduler.schedule(canceller::cancel, 200, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        try (Response ignored = client.newCall(request()).execute()) {
+            fail("Expected the call to be cancelled");
+        } catch (IOException e) {
+            assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(5_000L);
+        }
+    }
+
+    @Test
+    public void cancelled_laterCallsFailBeforeBeingSent() {
+        CallCanceller canceller = new CallCanceller();
+        canceller.cancel();
+        OkHttpClient client = canceller.wrap(new OkHttpClient());
+
+        try (Response ignored = client.newCall(request()).execute()) {
+            fail("Expected the call to be cancelled");
+        } catch (IOException e) {
+            assertThat(mockWebServer.getRequestCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void bind_threadInterceptorRegistersCallsOnBoundThread() {
+        mockWebServer.enqueue(new MockResponse().setBody("{}").setHeadersDelay(10, TimeUnit.SECONDS));
+        OkHttpClient client = new OkHttpClient.Builder()
+            .addInterceptor(CallCanceller.threadInterceptor())
+            .build();
+        CallCanceller canceller = new CallCanceller();
+
+        scheduler.schedule(canceller::cancel, 200, TimeUnit.MILLISECONDS);
+        try (CallCanceller.Binding ignored = canceller.bind();
+             Response response = client.newCall(request()).execute()) {
+            fail("Expected the call to be cancelled");
+        } catch (IOException e) {
+            assertThat(canceller.isCancelled()).isTrue();
+        }
+        assertThat(CallCanceller.current()).isNull();
+    }
+
+    @Test
+    public void unbound_threadInterceptorLeavesCallAlone() throws IOException {
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+        OkHttpClient client = new OkHttpClient.Builder()
+            .addInterceptor(CallCanceller.threadInterceptor())
+            .build();
+
+        try (Response response = client.newCall(request()).execute()) {
+            assertThat(response.code()).isEqualTo(200);
+        }
+    }
+
+    private Request request() {
+        return new Request.Builder().url(mockWebServer.url("/")).build();
+    }
+}
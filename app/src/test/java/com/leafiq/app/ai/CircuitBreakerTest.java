@@ -0,0 +1,106 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    private long now;
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        now = 1_000_000L;
+        breaker = new CircuitBreaker(3, 30_000, () -> now);
+    }
+
+    @Test
+    public void closed_allowsCalls() {
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void failuresBelowThreshold_stayClosed() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void successResetsFailureCount() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void thresholdFailures_openAndFailFast() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getRemainingOpenMs()).isEqualTo(30_000);
+    }
+
+    @Test
+    public void afterCoolDown_allowsSingleTrial() {
+        openBreaker();
+        now += 30_000;
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    public void trialSuccess_closes() {
+        openBreaker();
+        now += 30_000;
+        breaker.tryAcquire();
+
+        breaker.recordSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void trialFailure_reopensForAnotherCoolDown() {
+        openBreaker();
+        now += 30_000;
+        breaker.tryAcquire();
+
+        breaker.recordFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        now += 29_999;
+        assertThat(breaker.tryAcquire()).isFalse();
+        now += 1;
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void forProvider_sharesBreakerPerName() {
+        CircuitBreaker.resetAll();
+        assertThat(CircuitBreaker.forProvider("Claude (Anthropic)"))
+            .isSameInstanceAs(CircuitBreaker.forProvider("Claude (Anthropic)"));
+        assertThat(CircuitBreaker.forProvider("Claude (Anthropic)"))
+            .isNotSameInstanceAs(CircuitBreaker.forProvider("Gemini (Google)"));
+        CircuitBreaker.resetAll();
+    }
+
+    private void openBreaker() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordFailure();
+    }
+}
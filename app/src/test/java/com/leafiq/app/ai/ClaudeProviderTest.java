@@ -4,20 +4,29 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.leafiq.app.data.model.PlantAnalysisResult;
 
+import org.json.JSONObject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Base64;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import okhttp3.mockwebserver.SocketPolicy;
 
 public class ClaudeProviderTest {
 
+    private static final ImagePayload IMAGE = ImagePayload.ofBase64("base64data");
+    private static final ImagePayload JPEG = ImagePayload.ofBytes(new byte[]{1, 2, 3});
+    private static final AnalysisPrompt PROMPT = AnalysisPrompt.of("analyze");
+
     private MockWebServer mockWebServer;
     private OkHttpClient client;
 
@@ -88,7 +97,7 @@ public class ClaudeProviderTest {
 
         ClaudeProvider provider = new ClaudeProvider("sk-test",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         // rawResponse should be the extracted plant JSON, not the API wrapper
         assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
@@ -105,7 +114,7 @@ public class ClaudeProviderTest {
 
         ClaudeProvider provider = new ClaudeProvider("sk-test",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         assertThat(result.identification.commonName).isEqualTo("Monstera");
         assertThat(result.identification.scientificName).isEqualTo("Monstera deliciosa");
@@ -124,7 +133,7 @@ public class ClaudeProviderTest {
 
         ClaudeProvider provider = new ClaudeProvider("sk-test",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
         assertThat(result.rawResponse).doesNotContain("```");
@@ -140,7 +149,7 @@ public class ClaudeProviderTest {
 
         ClaudeProvider provider = new ClaudeProvider("sk-test",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         // Should extract just the JSON between first { and last }
         assertThat(result.rawResponse).startsWith("{");
@@ -148,13 +157,33 @@ public class ClaudeProviderTest {
         assertThat(result.identification.commonName).isEqualTo("Monstera");
     }
 
+    @Test
+    public void analyzePhoto_jpegBytes_streamsBase64IntoRequest() throws Exception {
+        String apiResponse = "{\"content\":[{\"type\":\"text\",\"text\":"
+                + "\"" + PLANT_JSON.replace("\"", "\\\"") + "\""
+                + "}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0};
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhoto(ImagePayload.ofBytes(jpeg), PROMPT);
+
+        RecordedRequest request = mockWebServer.takeRequest();
+        JSONObject sent = new JSONObject(request.getBody().readUtf8());
+        String data = sent.getJSONArray("messages").getJSONObject(0)
+                .getJSONArray("content").getJSONObject(0)
+                .getJSONObject("source").getString("data");
+        assertThat(data).isEqualTo(Base64.getEncoder().encodeToString(jpeg));
+    }
+
     @Test(expected = AIProviderException.class)
     public void analyzePhoto_apiError_throwsException() throws Exception {
         mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody("Internal Server Error"));
 
         ClaudeProvider provider = new ClaudeProvider("sk-test",
                 mockWebServer.url("/").toString(), client);
-        provider.analyzePhoto("base64data", "analyze");
+        provider.analyzePhoto(IMAGE, PROMPT);
     }
 
     @Test
@@ -201,7 +230,7 @@ public class ClaudeProviderTest {
 
         AIProviderException exception = null;
         try {
-            provider.analyzePhoto("base64data", "analyze");
+            provider.analyzePhoto(IMAGE, PROMPT);
         } catch (AIProviderException e) {
             exception = e;
         }
@@ -219,7 +248,7 @@ public class ClaudeProviderTest {
 
         AIProviderException exception = null;
         try {
-            provider.analyzePhoto("base64data", "analyze");
+            provider.analyzePhoto(IMAGE, PROMPT);
         } catch (AIProviderException e) {
             exception = e;
         }
@@ -239,7 +268,7 @@ public class ClaudeProviderTest {
 
         AIProviderException exception = null;
         try {
-            provider.analyzePhoto("base64data", "analyze");
+            provider.analyzePhoto(IMAGE, PROMPT);
         } catch (AIProviderException e) {
             exception = e;
         }
@@ -247,4 +276,283 @@ public class ClaudeProviderTest {
         assertThat(exception).isNotNull();
         assertThat(exception.getHttpStatusCode()).isEqualTo(500);
     }
+
+    // ==================== Streaming (SSE) tests ====================
+
+    /** Splits the AI text into Claude content_block_delta events, as the streaming API sends it. */
+    private static String claudeSse(String aiText, int chunkSize) {
+        StringBuilder sse = new StringBuilder();
+        sse.append("event: message_start\ndata: {\"type\":\"message_start\",\"message\":{}}\n\n");
+        sse.append("event: content_block_start\ndata: {\"type\":\"content_block_start\",\"index\":0,"
+                + "\"content_block\":{\"type\":\"text\",\"text\":\"\"}}\n\n");
+        sse.append(": keep-alive\n\n");
+        for (int i = 0; i < aiText.length(); i += chunkSize) {
+            String chunk = aiText.substring(i, Math.min(aiText.length(), i + chunkSize));
+            sse.append("event: content_block_delta\ndata: {\"type\":\"content_block_delta\",\"index\":0,"
+                    + "\"delta\":{\"type\":\"text_delta\",\"text\":" + JSONObject.quote(chunk) + "}}\n\n");
+        }
+        sse.append("event: message_stop\ndata: {\"type\":\"message_stop\"}\n\n");
+        return sse.toString();
+    }
+
+    @Test
+    public void analyzePhotoStreaming_emitsPartialsInSectionOrder() throws Exception {
+        mockWebServer.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setChunkedBody(claudeSse(PLANT_JSON, 12), 64));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        List<PlantAnalysisResult> partials = new ArrayList<>();
+        PlantAnalysisResult result = provider.analyzePhotoStreaming(JPEG, PROMPT, partials::add);
+
+        assertThat(partials).isNotEmpty();
+        assertThat(partials.get(0).identification.commonName).isEqualTo("Monstera");
+        assertThat(partials.get(0).healthAssessment).isNull();
+        assertThat(partials.get(1).healthAssessment.score).isEqualTo(8);
+
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result.funFact).isEqualTo("Test fact");
+    }
+
+    @Test
+    public void analyzePhotoStreaming_requestsStream() throws Exception {
+        mockWebServer.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setChunkedBody(claudeSse(PLANT_JSON, 50), 128));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhotoStreaming(JPEG, PROMPT, partial -> { });
+
+        RecordedRequest request = mockWebServer.takeRequest();
+        JSONObject sent = new JSONObject(request.getBody().readUtf8());
+        assertThat(sent.getBoolean("stream")).isTrue();
+    }
+
+    @Test
+    public void analyzePhoto_nonStreaming_doesNotRequestStream() throws Exception {
+        String apiResponse = "{\"content\":[{\"type\":\"text\",\"text\":"
+                + JSONObject.quote(PLANT_JSON) + "}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhoto(IMAGE, PROMPT);
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        assertThat(sent.has("stream")).isFalse();
+    }
+
+    @Test
+    public void analyzePhotoStreaming_errorEvent_throwsException() throws Exception {
+        String sse = "event: message_start\ndata: {\"type\":\"message_start\",\"message\":{}}\n\n"
+                + "event: error\ndata: {\"type\":\"error\",\"error\":{\"type\":\"overloaded_error\","
+                + "\"message\":\"Overloaded\"}}\n\n";
+        mockWebServer.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setChunkedBody(sse, 32));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+
+        AIProviderException exception = null;
+        try {
+            provider.analyzePhotoStreaming(JPEG, PROMPT, partial -> { });
+        } catch (AIProviderException e) {
+            exception = e;
+        }
+        assertThat(exception).isNotNull();
+        assertThat(exception.getMessage()).contains("Overloaded");
+    }
+
+    // ==================== Prompt caching tests ====================
+
+    @Test
+    public void analyzePhoto_splitPrompt_sendsStaticPrefixAsCachedSystemBlock() throws Exception {
+        String apiResponse = "{\"content\":[{\"type\":\"text\",\"text\":"
+                + JSONObject.quote(PLANT_JSON) + "}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhoto(JPEG, new AnalysisPrompt("static rules", "plant context"));
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        JSONObject system = sent.getJSONArray("system").getJSONObject(0);
+        assertThat(system.getString("text")).isEqualTo("static rules");
+        assertThat(system.getJSONObject("cache_control").getString("type")).isEqualTo("ephemeral");
+        JSONObject textBlock = sent.getJSONArray("messages").getJSONObject(0)
+                .getJSONArray("content").getJSONObject(1);
+        assertThat(textBlock.getString("text")).isEqualTo("plant context");
+    }
+
+    @Test
+    public void analyzePhoto_plainPrompt_sendsNoSystemBlock() throws Exception {
+        String apiResponse = "{\"content\":[{\"type\":\"text\",\"text\":"
+                + JSONObject.quote(PLANT_JSON) + "}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhoto(IMAGE, PROMPT);
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        assertThat(sent.has("system")).isFalse();
+    }
+
+    @Test
+    public void analyzePhoto_recordsTokenUsageIncludingCacheReads() throws Exception {
+        TokenUsageStats.resetAll();
+        String apiResponse = "{\"content\":[{\"type\":\"text\",\"text\":"
+                + JSONObject.quote(PLANT_JSON) + "}],\"stop_reason\":\"end_turn\","
+                + "\"usage\":{\"input_tokens\":1600,\"cache_creation_input_tokens\":0,"
+                + "\"cache_read_input_tokens\":1200,\"output_tokens\":400}}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
+
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        TokenUsage usage = TokenUsageStats.getTotals("Claude (Anthropic)").getUsage();
+        assertThat(usage.getInputTokens()).isEqualTo(2800);
+        assertThat(usage.getCachedInputTokens()).isEqualTo(1200);
+        assertThat(usage.getOutputTokens()).isEqualTo(400);
+    }
+
+    @Test
+    public void analyzePhotoStreaming_recordsUsageFromStartAndDeltaEvents() throws Exception {
+        TokenUsageStats.resetAll();
+        String sse = claudeSse(PLANT_JSON, 50)
+                .replace("\"message\":{}", "\"message\":{\"usage\":{\"input_tokens\":300,"
+                        + "\"cache_creation_input_tokens\":1200,\"cache_read_input_tokens\":0,"
+                        + "\"output_tokens\":1}}")
+                .replace("event: message_stop", "event: message_delta\ndata: {\"type\":\"message_delta\","
+                        + "\"delta\":{},\"usage\":{\"output_tokens\":350}}\n\nevent: message_stop");
+        mockWebServer.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setChunkedBody(sse, 128));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhotoStreaming(JPEG, PROMPT, partial -> { });
+
+        TokenUsage usage = TokenUsageStats.getTotals("Claude (Anthropic)").getUsage();
+        assertThat(usage.getInputTokens()).isEqualTo(1500);
+        assertThat(usage.getCacheWriteTokens()).isEqualTo(1200);
+        assertThat(usage.getOutputTokens()).isEqualTo(350);
+    }
+
+    @Test
+    public void analyzePhoto_countsDecodedAndUndecodableResponses() throws Exception {
+        ParseOutcomeStats.resetAll();
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(
+                "{\"content\":[{\"type\":\"text\",\"text\":" + JSONObject.quote(PLANT_JSON) + "}]}"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(
+                "{\"content\":[{\"type\":\"text\",\"text\":\"Sorry, I can't tell.\"}]}"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody("Internal Server Error"));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhoto(IMAGE, PROMPT);
+        for (int i = 0; i < 2; i++) {
+            try {
+                provider.analyzePhoto(IMAGE, PROMPT);
+            } catch (AIProviderException expected) {
+                // Undecodable body, then an HTTP error
+            }
+        }
+
+        // The HTTP error never reached decoding, so it is not a parse outcome
+        ParseOutcomeStats.Counts counts = ParseOutcomeStats.getCounts("Claude (Anthropic)", false);
+        assertThat(counts.getDecoded()).isEqualTo(1);
+        assertThat(counts.getFailed()).isEqualTo(1);
+        assertThat(ParseOutcomeStats.getCounts("Claude (Anthropic)", true)).isNull();
+    }
+
+    // ==================== Structured output tests ====================
+
+    @Test
+    public void analyzePhoto_structured_forcesAnalysisToolAndDecodesItsInput() throws Exception {
+        String apiResponse = "{\"content\":[{\"type\":\"tool_use\",\"id\":\"toolu_1\","
+                + "\"name\":\"plant_analysis\",\"input\":" + PLANT_JSON + "}],"
+                + "\"stop_reason\":\"tool_use\",\"usage\":{\"input_tokens\":10,\"output_tokens\":5}}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client, true);
+        PlantAnalysisResult result = provider.analyzePhoto(JPEG,
+                new AnalysisPrompt("static rules", "plant context", true));
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        JSONObject tool = sent.getJSONArray("tools").getJSONObject(0);
+        assertThat(tool.getString("name")).isEqualTo(AnalysisSchema.NAME);
+        assertThat(tool.getJSONObject("input_schema").getBoolean("additionalProperties")).isFalse();
+        assertThat(sent.getJSONObject("tool_choice").getString("type")).isEqualTo("tool");
+        assertThat(sent.getJSONObject("tool_choice").getString("name")).isEqualTo(AnalysisSchema.NAME);
+
+        assertThat(result.identification.commonName).isEqualTo("Monstera");
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result.provider).isEqualTo("Claude (Anthropic)");
+        assertThat(result.structuredOutput).isTrue();
+    }
+
+    @Test
+    public void analyzePhoto_structuredProviderWithPlainPrompt_sendsNoTool() throws Exception {
+        String apiResponse = "{\"content\":[{\"type\":\"text\",\"text\":"
+                + JSONObject.quote("```json\n" + PLANT_JSON + "\n```") + "}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client, true);
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, AnalysisPrompt.of("quick check"));
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        assertThat(sent.has("tools")).isFalse();
+        assertThat(sent.has("tool_choice")).isFalse();
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result.structuredOutput).isFalse();
+    }
+
+    @Test
+    public void analyzePhotoStreaming_structured_assemblesInputJsonDeltas() throws Exception {
+        StringBuilder sse = new StringBuilder();
+        sse.append("event: message_start\ndata: {\"type\":\"message_start\",\"message\":{}}\n\n");
+        sse.append("event: content_block_start\ndata: {\"type\":\"content_block_start\",\"index\":0,"
+                + "\"content_block\":{\"type\":\"tool_use\",\"id\":\"toolu_1\","
+                + "\"name\":\"plant_analysis\",\"input\":{}}}\n\n");
+        for (int i = 0; i < PLANT_JSON.length(); i += 20) {
+            String chunk = PLANT_JSON.substring(i, Math.min(PLANT_JSON.length(), i + 20));
+            sse.append("event: content_block_delta\ndata: {\"type\":\"content_block_delta\",\"index\":0,"
+                    + "\"delta\":{\"type\":\"input_json_delta\",\"partial_json\":"
+                    + JSONObject.quote(chunk) + "}}\n\n");
+        }
+        sse.append("event: message_stop\ndata: {\"type\":\"message_stop\"}\n\n");
+        mockWebServer.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setChunkedBody(sse.toString(), 64));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client, true);
+        List<PlantAnalysisResult> partials = new ArrayList<>();
+        PlantAnalysisResult result = provider.analyzePhotoStreaming(JPEG,
+                new AnalysisPrompt("static rules", "plant context", true), partials::add);
+
+        assertThat(partials.get(0).identification.commonName).isEqualTo("Monstera");
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result.structuredOutput).isTrue();
+    }
+
+    @Test(expected = AIProviderException.class)
+    public void analyzePhoto_structuredTextReplyInsteadOfToolCall_fails() throws Exception {
+        // Without the forced tool call there is no schema-checked input to decode
+        String apiResponse = "{\"content\":[{\"type\":\"text\",\"text\":"
+                + JSONObject.quote("Here you go: " + PLANT_JSON) + "}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        ClaudeProvider provider = new ClaudeProvider("sk-test",
+                mockWebServer.url("/").toString(), client, true);
+        provider.analyzePhoto(JPEG, new AnalysisPrompt("static rules", "plant context", true));
+    }
 }
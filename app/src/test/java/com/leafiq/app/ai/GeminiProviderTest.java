@@ -4,20 +4,28 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.leafiq.app.data.model.PlantAnalysisResult;
 
+import org.json.JSONObject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import okhttp3.mockwebserver.SocketPolicy;
 
 public class GeminiProviderTest {
 
+    private static final ImagePayload IMAGE = ImagePayload.ofBase64("base64data");
+    private static final ImagePayload JPEG = ImagePayload.ofBytes(new byte[]{1, 2, 3});
+    private static final AnalysisPrompt PROMPT = AnalysisPrompt.of("analyze");
+
     private MockWebServer mockWebServer;
     private OkHttpClient client;
 
@@ -75,7 +83,7 @@ public class GeminiProviderTest {
 
         GeminiProvider provider = new GeminiProvider("test-key",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
         assertThat(result.rawResponse).doesNotContain("\"candidates\"");
@@ -92,7 +100,7 @@ public class GeminiProviderTest {
 
         GeminiProvider provider = new GeminiProvider("test-key",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         assertThat(result.identification.commonName).isEqualTo("Snake Plant");
         assertThat(result.identification.scientificName).isEqualTo("Sansevieria trifasciata");
@@ -110,7 +118,7 @@ public class GeminiProviderTest {
 
         GeminiProvider provider = new GeminiProvider("test-key",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
         assertThat(result.rawResponse).doesNotContain("```");
@@ -122,7 +130,7 @@ public class GeminiProviderTest {
 
         GeminiProvider provider = new GeminiProvider("test-key",
                 mockWebServer.url("/").toString(), client);
-        provider.analyzePhoto("base64data", "analyze");
+        provider.analyzePhoto(IMAGE, PROMPT);
     }
 
     // ==================== Network error tests (09-05) ====================
@@ -143,7 +151,7 @@ public class GeminiProviderTest {
 
         AIProviderException exception = null;
         try {
-            provider.analyzePhoto("base64data", "analyze");
+            provider.analyzePhoto(IMAGE, PROMPT);
         } catch (AIProviderException e) {
             exception = e;
         }
@@ -161,7 +169,7 @@ public class GeminiProviderTest {
 
         AIProviderException exception = null;
         try {
-            provider.analyzePhoto("base64data", "analyze");
+            provider.analyzePhoto(IMAGE, PROMPT);
         } catch (AIProviderException e) {
             exception = e;
         }
@@ -181,7 +189,7 @@ public class GeminiProviderTest {
 
         AIProviderException exception = null;
         try {
-            provider.analyzePhoto("base64data", "analyze");
+            provider.analyzePhoto(IMAGE, PROMPT);
         } catch (AIProviderException e) {
             exception = e;
         }
@@ -189,4 +197,110 @@ public class GeminiProviderTest {
         assertThat(exception).isNotNull();
         assertThat(exception.getHttpStatusCode()).isEqualTo(500);
     }
+
+    // ==================== Streaming (SSE) tests ====================
+
+    @Test
+    public void analyzePhotoStreaming_usesSseAndParsesChunks() throws Exception {
+        StringBuilder sse = new StringBuilder();
+        for (int i = 0; i < PLANT_JSON.length(); i += 40) {
+            String chunk = PLANT_JSON.substring(i, Math.min(PLANT_JSON.length(), i + 40));
+            sse.append("data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":")
+                .append(JSONObject.quote(chunk)).append("}],\"role\":\"model\"}}]}\r\n\r\n");
+        }
+        mockWebServer.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setChunkedBody(sse.toString(), 100));
+
+        GeminiProvider provider = new GeminiProvider("test-key",
+                mockWebServer.url("/").toString(), client);
+        List<PlantAnalysisResult> partials = new ArrayList<>();
+        PlantAnalysisResult result = provider.analyzePhotoStreaming(JPEG, PROMPT, partials::add);
+
+        assertThat(partials).isNotEmpty();
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+
+        RecordedRequest request = mockWebServer.takeRequest();
+        assertThat(request.getRequestUrl().queryParameter("alt")).isEqualTo("sse");
+    }
+
+    // ==================== Prompt caching tests ====================
+
+    @Test
+    public void analyzePhoto_splitPrompt_sendsStaticPrefixAsSystemInstruction() throws Exception {
+        String apiResponse = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+                + JSONObject.quote(PLANT_JSON) + "}]}}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        GeminiProvider provider = new GeminiProvider("test-key",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhoto(JPEG, new AnalysisPrompt("static rules", "plant context"));
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        assertThat(sent.getJSONObject("systemInstruction").getJSONArray("parts")
+                .getJSONObject(0).getString("text")).isEqualTo("static rules");
+        assertThat(sent.getJSONArray("contents").getJSONObject(0).getJSONArray("parts")
+                .getJSONObject(0).getString("text")).isEqualTo("plant context");
+    }
+
+    @Test
+    public void analyzePhoto_recordsUsageMetadata() throws Exception {
+        TokenUsageStats.resetAll();
+        String apiResponse = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+                + JSONObject.quote(PLANT_JSON) + "}]},\"finishReason\":\"STOP\"}],"
+                + "\"usageMetadata\":{\"promptTokenCount\":1500,\"cachedContentTokenCount\":1100,"
+                + "\"candidatesTokenCount\":280,\"totalTokenCount\":1780}}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        GeminiProvider provider = new GeminiProvider("test-key",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhoto(IMAGE, PROMPT);
+
+        TokenUsage usage = TokenUsageStats.getTotals("Gemini (Google)").getUsage();
+        assertThat(usage.getInputTokens()).isEqualTo(1500);
+        assertThat(usage.getCachedInputTokens()).isEqualTo(1100);
+        assertThat(usage.getOutputTokens()).isEqualTo(280);
+    }
+
+    // ==================== Structured output tests ====================
+
+    @Test
+    public void analyzePhoto_structured_sendsResponseSchema() throws Exception {
+        String apiResponse = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+                + JSONObject.quote(PLANT_JSON) + "}]}}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        GeminiProvider provider = new GeminiProvider("test-key",
+                mockWebServer.url("/").toString(), client, true);
+        PlantAnalysisResult result = provider.analyzePhoto(JPEG,
+                new AnalysisPrompt("static rules", "plant context", true));
+
+        JSONObject config = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8())
+                .getJSONObject("generationConfig");
+        assertThat(config.getString("responseMimeType")).isEqualTo("application/json");
+        JSONObject schema = config.getJSONObject("responseSchema");
+        assertThat(schema.getString("type")).isEqualTo("OBJECT");
+        assertThat(schema.getJSONArray("propertyOrdering").getString(0)).isEqualTo("identification");
+
+        assertThat(result.identification.commonName).isEqualTo("Snake Plant");
+        assertThat(result.provider).isEqualTo("Gemini (Google)");
+        assertThat(result.structuredOutput).isTrue();
+    }
+
+    @Test
+    public void analyzePhoto_structuredOff_sendsNoResponseSchema() throws Exception {
+        String apiResponse = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":"
+                + JSONObject.quote(PLANT_JSON) + "}]}}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        GeminiProvider provider = new GeminiProvider("test-key",
+                mockWebServer.url("/").toString(), client);
+        PlantAnalysisResult result = provider.analyzePhoto(JPEG,
+                new AnalysisPrompt("static rules", "plant context", true));
+
+        JSONObject config = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8())
+                .getJSONObject("generationConfig");
+        assertThat(config.has("responseSchema")).isFalse();
+        assertThat(result.structuredOutput).isFalse();
+    }
 }
@@ -0,0 +1,281 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Races a Claude primary against an OpenAI secondary, each on its own MockWebServer.
+ */
+public class HedgedAIProviderTest {
+
+    private static final ImagePayload IMAGE = ImagePayload.ofBase64("base64data");
+    private static final AnalysisPrompt PROMPT = AnalysisPrompt.of("analyze");
+
+    private static final String CLAUDE = "Claude (Anthropic)";
+    private static final String OPENAI = "ChatGPT (OpenAI)";
+
+    private MockWebServer claudeServer;
+    private MockWebServer openAiServer;
+    private OkHttpClient client;
+    private ExecutorService executor;
+    private ProviderLatencyStats stats;
+
+    @Before
+    public void setUp() throws IOException {
+        CircuitBreaker.resetAll();
+        claudeServer = new MockWebServer();
+        claudeServer.start();
+        openAiServer = new MockWebServer();
+        openAiServer.start();
+        client = new OkHttpClient();
+        executor = Executors.newCachedThreadPool();
+        stats = mock(ProviderLatencyStats.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        claudeServer.shutdown();
+        openAiServer.shutdown();
+        CircuitBreaker.resetAll();
+    }
+
+    private HedgedAIProvider hedged(long hedgeDelayMs) {
+        HedgedAIProvider.ProviderFactory claude = legClient ->
+                new ClaudeProvider("sk-test", claudeServer.url("/").toString(), legClient);
+        HedgedAIProvider.ProviderFactory openAi = legClient ->
+                new OpenAIProvider("sk-test", openAiServer.url("/").toString(), legClient);
+        return new HedgedAIProvider(Arrays.asList(claude, openAi), client, stats,
+                name -> hedgeDelayMs, executor);
+    }
+
+    @Test
+    public void fastPrimary_neverStartsHedge() throws Exception {
+        claudeServer.enqueue(new MockResponse().setBody(claudeResponse("Monstera")));
+
+        HedgedAIProvider provider = hedged(5_000);
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
+
+        assertThat(result.identification.commonName).isEqualTo("Monstera");
+        assertThat(provider.getLastWinner()).isEqualTo(CLAUDE);
+        assertThat(openAiServer.getRequestCount()).isEqualTo(0);
+        verify(stats).recordSuccess(
+                eq(CLAUDE), anyLong());
+    }
+
+    @Test
+    public void slowPrimary_hedgeWinsAndPrimaryIsCancelled() throws Exception {
+        claudeServer.enqueue(new MockResponse().setBody(claudeResponse("Monstera"))
+                .setHeadersDelay(10, TimeUnit.SECONDS));
+        openAiServer.enqueue(new MockResponse().setBody(openAiResponse("Fern")));
+
+        HedgedAIProvider provider = hedged(200);
+        long start = System.nanoTime();
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(result.identification.commonName).isEqualTo("Fern");
+        assertThat(provider.getLastWinner()).isEqualTo(OPENAI);
+        assertThat(elapsedMs).isLessThan(5_000L);
+        assertThat(claudeServer.getRequestCount()).isEqualTo(1);
+        assertThat(openAiServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void primaryHardFailure_failsOverWithoutWaitingForHedgeDelay() throws Exception {
+        claudeServer.enqueue(new MockResponse().setResponseCode(401));
+        openAiServer.enqueue(new MockResponse().setBody(openAiResponse("Fern")));
+
+        HedgedAIProvider provider = hedged(30_000);
+        long start = System.nanoTime();
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(result.identification.commonName).isEqualTo("Fern");
+        assertThat(elapsedMs).isLessThan(10_000L);
+    }
+
+    @Test
+    public void allProvidersFail_throwsLastError() throws Exception {
+        claudeServer.enqueue(new MockResponse().setResponseCode(500));
+        openAiServer.enqueue(new MockResponse().setResponseCode(503));
+
+        try {
+            hedged(30_000).analyzePhoto(IMAGE, PROMPT);
+            fail("Expected AIProviderException");
+        } catch (AIProviderException e) {
+            assertThat(e.getHttpStatusCode()).isEqualTo(503);
+        }
+    }
+
+    @Test
+    public void displayName_marksHedging() {
+        assertThat(hedged(1_000).getDisplayName()).isEqualTo(CLAUDE + " (hedged)");
+    }
+
+    @Test
+    public void streaming_otherLegWins_replacesLosingLegsPartial() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AIProvider slowStreamer = new StubProvider("Slow") {
+            @Override
+            public PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                             PartialResultListener listener)
+                    throws AIProviderException {
+                listener.onPartialResult(plant("Monstera"));
+                awaitQuietly(release);
+                return plant("Monstera");
+            }
+        };
+        AIProvider fastFinisher = new StubProvider("Fast") {
+            @Override
+            public PlantAnalysisResult analyzePhoto(ImagePayload image, AnalysisPrompt prompt) {
+                return plant("Fern");
+            }
+        };
+        List<PlantAnalysisResult> partials = new CopyOnWriteArrayList<>();
+
+        PlantAnalysisResult result;
+        try {
+            result = stubbed(100, slowStreamer, fastFinisher)
+                    .analyzePhotoStreaming(IMAGE, PROMPT, partials::add);
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(result.identification.commonName).isEqualTo("Fern");
+        assertThat(partials).hasSize(2);
+        assertThat(partials.get(0).identification.commonName).isEqualTo("Monstera");
+        PlantAnalysisResult last = partials.get(1);
+        assertThat(last.identification.commonName).isEqualTo("Fern");
+        assertThat(last.rawResponse).isNull();
+    }
+
+    @Test
+    public void streaming_owningLegFails_nextLegsPartialsTakeOver() throws Exception {
+        AIProvider failingStreamer = new StubProvider("Failing") {
+            @Override
+            public PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                             PartialResultListener listener)
+                    throws AIProviderException {
+                listener.onPartialResult(plant("Monstera"));
+                throw new AIProviderException("Stream dropped");
+            }
+        };
+        AIProvider streamer = new StubProvider("Streamer") {
+            @Override
+            public PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                             PartialResultListener listener) {
+                listener.onPartialResult(plant("Fern"));
+                return plant("Fern");
+            }
+        };
+        List<PlantAnalysisResult> partials = new CopyOnWriteArrayList<>();
+
+        PlantAnalysisResult result = stubbed(30_000, failingStreamer, streamer)
+                .analyzePhotoStreaming(IMAGE, PROMPT, partials::add);
+
+        assertThat(result.identification.commonName).isEqualTo("Fern");
+        assertThat(partials).hasSize(2);
+        assertThat(partials.get(0).identification.commonName).isEqualTo("Monstera");
+        assertThat(partials.get(1).identification.commonName).isEqualTo("Fern");
+    }
+
+    private HedgedAIProvider stubbed(long hedgeDelayMs, AIProvider... legs) {
+        List<HedgedAIProvider.ProviderFactory> factories = new ArrayList<>();
+        for (AIProvider leg : legs) {
+            factories.add(legClient -> leg);
+        }
+        return new HedgedAIProvider(factories, client, stats, name -> hedgeDelayMs, executor);
+    }
+
+    private static PlantAnalysisResult plant(String commonName) {
+        PlantAnalysisResult result = new PlantAnalysisResult();
+        result.identification = new PlantAnalysisResult.Identification();
+        result.identification.commonName = commonName;
+        result.rawResponse = "{}";
+        return result;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Provider that fails unless a test overrides the call it expects.
+     */
+    private abstract static class StubProvider implements AIProvider {
+        private final String name;
+
+        StubProvider(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public PlantAnalysisResult analyzePhoto(ImagePayload image, AnalysisPrompt prompt)
+                throws AIProviderException {
+            throw new AIProviderException("Not stubbed");
+        }
+
+        @Override
+        public boolean isConfigured() {
+            return true;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return name;
+        }
+
+        @Override
+        public boolean supportsVision() {
+            return true;
+        }
+    }
+
+    private static String plantJson(String commonName) {
+        return "{\"identification\":{\"commonName\":\"" + commonName + "\","
+                + "\"scientificName\":\"Test\",\"confidence\":\"high\",\"notes\":\"\"},"
+                + "\"healthAssessment\":{\"score\":8,\"summary\":\"Healthy\",\"issues\":[]},"
+                + "\"immediateActions\":[],\"carePlan\":{},\"funFact\":\"Test fact\"}";
+    }
+
+    private static String claudeResponse(String commonName) {
+        return "{\"content\":[{\"type\":\"text\",\"text\":"
+                + "\"" + plantJson(commonName).replace("\"", "\\\"") + "\""
+                + "}]}";
+    }
+
+    private static String openAiResponse(String commonName) {
+        return "{\"choices\":[{\"message\":{\"content\":"
+                + "\"" + plantJson(commonName).replace("\"", "\\\"") + "\""
+                + "}}]}";
+    }
+}
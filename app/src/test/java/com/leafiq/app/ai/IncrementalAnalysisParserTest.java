@@ -0,0 +1,114 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class IncrementalAnalysisParserTest {
+
+    private static final String PLANT_JSON = "{\"identification\":{\"commonName\":\"Monstera\","
+            + "\"scientificName\":\"Monstera deliciosa\",\"confidence\":\"high\",\"notes\":\"Split {leaves}, \\\"holes\\\"\"},"
+            + "\"healthAssessment\":{\"score\":8,\"summary\":\"Healthy\",\"issues\":[]},"
+            + "\"immediateActions\":[],"
+            + "\"carePlan\":{\"watering\":{\"frequency\":\"Weekly\",\"amount\":\"\",\"notes\":\"\"}},"
+            + "\"funFact\":\"Test fact\"}";
+
+    private static List<PlantAnalysisResult> feed(String text, int chunkSize, PlantAnalysisResult[] finalOut)
+            throws IOException {
+        List<PlantAnalysisResult> partials = new ArrayList<>();
+        IncrementalAnalysisParser parser = new IncrementalAnalysisParser(partials::add);
+        for (int i = 0; i < text.length(); i += chunkSize) {
+            parser.append(text.substring(i, Math.min(text.length(), i + chunkSize)));
+        }
+        finalOut[0] = parser.finish();
+        return partials;
+    }
+
+    @Test
+    public void append_emitsIdentificationBeforeHealthBeforeCarePlan() throws IOException {
+        PlantAnalysisResult[] result = new PlantAnalysisResult[1];
+        List<PlantAnalysisResult> partials = feed(PLANT_JSON, 7, result);
+
+        assertThat(partials).hasSize(5);
+
+        PlantAnalysisResult first = partials.get(0);
+        assertThat(first.identification.commonName).isEqualTo("Monstera");
+        assertThat(first.healthAssessment).isNull();
+        assertThat(first.carePlan).isNull();
+        assertThat(first.rawResponse).isNull();
+
+        PlantAnalysisResult second = partials.get(1);
+        assertThat(second.healthAssessment.score).isEqualTo(8);
+        assertThat(second.carePlan).isNull();
+
+        assertThat(partials.get(3).carePlan.watering.frequency).isEqualTo("Weekly");
+        assertThat(partials.get(4).funFact).isEqualTo("Test fact");
+    }
+
+    @Test
+    public void append_bracesAndQuotesInsideStrings_doNotSplitSections() throws IOException {
+        PlantAnalysisResult[] result = new PlantAnalysisResult[1];
+        List<PlantAnalysisResult> partials = feed(PLANT_JSON, 1, result);
+
+        assertThat(partials.get(0).identification.notes).isEqualTo("Split {leaves}, \"holes\"");
+    }
+
+    @Test
+    public void finish_returnsFullResultWithRawResponse() throws IOException {
+        PlantAnalysisResult[] result = new PlantAnalysisResult[1];
+        feed("```json\n" + PLANT_JSON + "\n```", 16, result);
+
+        assertThat(result[0].rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result[0].identification.scientificName).isEqualTo("Monstera deliciosa");
+        assertThat(result[0].funFact).isEqualTo("Test fact");
+    }
+
+    @Test
+    public void append_leadingProse_isIgnored() throws IOException {
+        PlantAnalysisResult[] result = new PlantAnalysisResult[1];
+        List<PlantAnalysisResult> partials = feed("Here is the analysis:\n" + PLANT_JSON, 10, result);
+
+        assertThat(partials.get(0).identification.commonName).isEqualTo("Monstera");
+    }
+
+    @Test
+    public void getCompletedSectionCount_tracksTopLevelMembers() {
+        IncrementalAnalysisParser parser = new IncrementalAnalysisParser(null);
+        parser.append("{\"identification\":{\"commonName\":\"A\"}");
+        assertThat(parser.getCompletedSectionCount()).isEqualTo(0);
+
+        parser.append(",\"funFact\":\"x\"");
+        assertThat(parser.getCompletedSectionCount()).isEqualTo(1);
+
+        parser.append("}");
+        assertThat(parser.getCompletedSectionCount()).isEqualTo(2);
+    }
+
+    @Test(expected = IOException.class)
+    public void finish_truncatedStream_throws() throws IOException {
+        IncrementalAnalysisParser parser = new IncrementalAnalysisParser(null);
+        parser.append(PLANT_JSON.substring(0, 80));
+        parser.finish();
+    }
+
+    @Test(expected = IOException.class)
+    public void finish_strict_rejectsFencedText() throws IOException {
+        IncrementalAnalysisParser parser = new IncrementalAnalysisParser(null, true);
+        parser.append("```json\n" + PLANT_JSON + "\n```");
+        parser.finish();
+    }
+
+    @Test
+    public void finish_strict_acceptsBareObject() throws IOException {
+        IncrementalAnalysisParser parser = new IncrementalAnalysisParser(null, true);
+        parser.append(PLANT_JSON);
+
+        assertThat(parser.finish().rawResponse).isEqualTo(PLANT_JSON);
+    }
+}
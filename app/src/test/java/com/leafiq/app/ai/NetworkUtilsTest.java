@@ -73,4 +73,64 @@ public class NetworkUtilsTest {
             new IOException("generic"), 0);
         assertThat(result).contains("Analysis failed");
     }
+
+    // ==================== Retry-After / retryability ====================
+
+    @Test
+    public void parseRetryAfterMs_deltaSeconds() {
+        assertThat(NetworkUtils.parseRetryAfterMs("120", 0)).isEqualTo(120_000L);
+    }
+
+    @Test
+    public void parseRetryAfterMs_httpDate() {
+        // Wed, 21 Oct 2015 07:28:00 GMT = 1445412480000
+        long now = 1445412480000L - 5000;
+        assertThat(NetworkUtils.parseRetryAfterMs("Wed, 21 Oct 2015 07:28:00 GMT", now))
+            .isEqualTo(5000L);
+    }
+
+    @Test
+    public void parseRetryAfterMs_pastDate_isZero() {
+        assertThat(NetworkUtils.parseRetryAfterMs("Wed, 21 Oct 2015 07:28:00 GMT", 1445412480000L + 1))
+            .isEqualTo(0L);
+    }
+
+    @Test
+    public void parseRetryAfterMs_missingOrGarbage_isMinusOne() {
+        assertThat(NetworkUtils.parseRetryAfterMs(null, 0)).isEqualTo(-1L);
+        assertThat(NetworkUtils.parseRetryAfterMs("soon", 0)).isEqualTo(-1L);
+        assertThat(NetworkUtils.parseRetryAfterMs("-5", 0)).isEqualTo(-1L);
+    }
+
+    @Test
+    public void isRetryable_transientStatuses() {
+        for (int code : new int[]{408, 429, 500, 502, 503, 504}) {
+            assertThat(NetworkUtils.isRetryable(new AIProviderException("err", null, code))).isTrue();
+        }
+    }
+
+    @Test
+    public void isRetryable_clientErrorsAndParseFailures_false() {
+        assertThat(NetworkUtils.isRetryable(new AIProviderException("err", null, 400))).isFalse();
+        assertThat(NetworkUtils.isRetryable(new AIProviderException("err", null, 401))).isFalse();
+        assertThat(NetworkUtils.isRetryable(
+            new AIProviderException("err", new IOException("bad json"), 0))).isFalse();
+    }
+
+    @Test
+    public void isRetryable_refusedConnection_true() {
+        assertThat(NetworkUtils.isRetryable(
+            new AIProviderException("err", new ConnectException("refused"), 0))).isTrue();
+    }
+
+    @Test
+    public void isRetryable_circuitOpen_false() {
+        assertThat(NetworkUtils.isRetryable(new CircuitBreakerOpenException("Claude", 1000))).isFalse();
+    }
+
+    @Test
+    public void classifyException_circuitOpen_returnsServiceProblemMessage() {
+        String result = NetworkUtils.classifyException(new CircuitBreakerOpenException("Claude", 1000), 503);
+        assertThat(result).contains("having problems");
+    }
 }
@@ -4,11 +4,14 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.leafiq.app.data.model.PlantAnalysisResult;
 
+import org.json.JSONObject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.OkHttpClient;
@@ -18,6 +21,10 @@ import okhttp3.mockwebserver.SocketPolicy;
 
 public class OpenAIProviderTest {
 
+    private static final ImagePayload IMAGE = ImagePayload.ofBase64("base64data");
+    private static final ImagePayload JPEG = ImagePayload.ofBytes(new byte[]{1, 2, 3});
+    private static final AnalysisPrompt PROMPT = AnalysisPrompt.of("analyze");
+
     private MockWebServer mockWebServer;
     private OkHttpClient client;
 
@@ -75,7 +82,7 @@ public class OpenAIProviderTest {
 
         OpenAIProvider provider = new OpenAIProvider("sk-test",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
         assertThat(result.rawResponse).doesNotContain("\"choices\"");
@@ -92,7 +99,7 @@ public class OpenAIProviderTest {
 
         OpenAIProvider provider = new OpenAIProvider("sk-test",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         assertThat(result.identification.commonName).isEqualTo("Pothos");
         assertThat(result.identification.scientificName).isEqualTo("Epipremnum aureum");
@@ -110,7 +117,7 @@ public class OpenAIProviderTest {
 
         OpenAIProvider provider = new OpenAIProvider("sk-test",
                 mockWebServer.url("/").toString(), client);
-        PlantAnalysisResult result = provider.analyzePhoto("base64data", "analyze");
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
 
         assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
         assertThat(result.rawResponse).doesNotContain("```");
@@ -122,7 +129,7 @@ public class OpenAIProviderTest {
 
         OpenAIProvider provider = new OpenAIProvider("sk-test",
                 mockWebServer.url("/").toString(), client);
-        provider.analyzePhoto("base64data", "analyze");
+        provider.analyzePhoto(IMAGE, PROMPT);
     }
 
     // ==================== Network error tests (09-05) ====================
@@ -143,7 +150,7 @@ public class OpenAIProviderTest {
 
         AIProviderException exception = null;
         try {
-            provider.analyzePhoto("base64data", "analyze");
+            provider.analyzePhoto(IMAGE, PROMPT);
         } catch (AIProviderException e) {
             exception = e;
         }
@@ -161,7 +168,7 @@ public class OpenAIProviderTest {
 
         AIProviderException exception = null;
         try {
-            provider.analyzePhoto("base64data", "analyze");
+            provider.analyzePhoto(IMAGE, PROMPT);
         } catch (AIProviderException e) {
             exception = e;
         }
@@ -181,7 +188,7 @@ public class OpenAIProviderTest {
 
         AIProviderException exception = null;
         try {
-            provider.analyzePhoto("base64data", "analyze");
+            provider.analyzePhoto(IMAGE, PROMPT);
         } catch (AIProviderException e) {
             exception = e;
         }
@@ -189,4 +196,150 @@ public class OpenAIProviderTest {
         assertThat(exception).isNotNull();
         assertThat(exception.getHttpStatusCode()).isEqualTo(500);
     }
+
+    // ==================== Streaming (SSE) tests ====================
+
+    @Test
+    public void analyzePhotoStreaming_parsesDeltasUntilDone() throws Exception {
+        StringBuilder sse = new StringBuilder();
+        sse.append("data: {\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"\"}}]}\n\n");
+        for (int i = 0; i < PLANT_JSON.length(); i += 9) {
+            String chunk = PLANT_JSON.substring(i, Math.min(PLANT_JSON.length(), i + 9));
+            sse.append("data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":")
+                .append(JSONObject.quote(chunk)).append("}}]}\n\n");
+        }
+        sse.append("data: {\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}\n\n");
+        sse.append("data: [DONE]\n\n");
+        mockWebServer.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setChunkedBody(sse.toString(), 50));
+
+        OpenAIProvider provider = new OpenAIProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        List<PlantAnalysisResult> partials = new ArrayList<>();
+        PlantAnalysisResult result = provider.analyzePhotoStreaming(JPEG, PROMPT, partials::add);
+
+        assertThat(partials.get(0).identification).isNotNull();
+        assertThat(partials.get(0).healthAssessment).isNull();
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        assertThat(sent.getBoolean("stream")).isTrue();
+    }
+
+    // ==================== Prompt caching tests ====================
+
+    @Test
+    public void analyzePhoto_splitPrompt_leadsWithSystemMessage() throws Exception {
+        String apiResponse = "{\"choices\":[{\"message\":{\"content\":"
+                + JSONObject.quote(PLANT_JSON) + "}}]}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        OpenAIProvider provider = new OpenAIProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhoto(JPEG, new AnalysisPrompt("static rules", "plant context"));
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        JSONObject system = sent.getJSONArray("messages").getJSONObject(0);
+        assertThat(system.getString("role")).isEqualTo("system");
+        assertThat(system.getString("content")).isEqualTo("static rules");
+        JSONObject user = sent.getJSONArray("messages").getJSONObject(1);
+        assertThat(user.getJSONArray("content").getJSONObject(0).getString("text"))
+                .isEqualTo("plant context");
+    }
+
+    @Test
+    public void analyzePhoto_recordsTokenUsageWithCachedTokens() throws Exception {
+        TokenUsageStats.resetAll();
+        String apiResponse = "{\"choices\":[{\"message\":{\"content\":"
+                + JSONObject.quote(PLANT_JSON) + "}}],\"usage\":{\"prompt_tokens\":2000,"
+                + "\"completion_tokens\":300,\"prompt_tokens_details\":{\"cached_tokens\":1024}}}";
+        mockWebServer.enqueue(new MockResponse().setBody(apiResponse).setResponseCode(200));
+
+        OpenAIProvider provider = new OpenAIProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhoto(IMAGE, PROMPT);
+
+        TokenUsage usage = TokenUsageStats.getTotals("ChatGPT (OpenAI)").getUsage();
+        assertThat(usage.getInputTokens()).isEqualTo(2000);
+        assertThat(usage.getCachedInputTokens()).isEqualTo(1024);
+        assertThat(usage.getOutputTokens()).isEqualTo(300);
+    }
+
+    @Test
+    public void analyzePhotoStreaming_requestsUsageAndRecordsFinalChunk() throws Exception {
+        TokenUsageStats.resetAll();
+        String sse = "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":"
+                + JSONObject.quote(PLANT_JSON) + "}}]}\n\n"
+                + "data: {\"choices\":[],\"usage\":{\"prompt_tokens\":1800,"
+                + "\"completion_tokens\":250,\"prompt_tokens_details\":{\"cached_tokens\":0}}}\n\n"
+                + "data: [DONE]\n\n";
+        mockWebServer.enqueue(new MockResponse()
+            .setHeader("Content-Type", "text/event-stream")
+            .setChunkedBody(sse, 64));
+
+        OpenAIProvider provider = new OpenAIProvider("sk-test",
+                mockWebServer.url("/").toString(), client);
+        provider.analyzePhotoStreaming(JPEG, PROMPT, partial -> { });
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        assertThat(sent.getJSONObject("stream_options").getBoolean("include_usage")).isTrue();
+        assertThat(TokenUsageStats.getTotals("ChatGPT (OpenAI)").getUsage().getOutputTokens())
+                .isEqualTo(250);
+    }
+
+    // ==================== Structured output tests ====================
+
+    private static String chatCompletion(String content) {
+        return "{\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":"
+                + JSONObject.quote(content) + ",\"refusal\":null},\"finish_reason\":\"stop\"}]}";
+    }
+
+    @Test
+    public void analyzePhoto_structured_sendsStrictJsonSchemaResponseFormat() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(chatCompletion(PLANT_JSON)).setResponseCode(200));
+
+        OpenAIProvider provider = new OpenAIProvider("sk-test",
+                mockWebServer.url("/").toString(), client, true);
+        PlantAnalysisResult result = provider.analyzePhoto(JPEG,
+                new AnalysisPrompt("static rules", "plant context", true));
+
+        JSONObject format = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8())
+                .getJSONObject("response_format");
+        assertThat(format.getString("type")).isEqualTo("json_schema");
+        JSONObject jsonSchema = format.getJSONObject("json_schema");
+        assertThat(jsonSchema.getString("name")).isEqualTo(AnalysisSchema.NAME);
+        assertThat(jsonSchema.getBoolean("strict")).isTrue();
+        assertThat(jsonSchema.getJSONObject("schema").getBoolean("additionalProperties")).isFalse();
+
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result.provider).isEqualTo("ChatGPT (OpenAI)");
+        assertThat(result.structuredOutput).isTrue();
+    }
+
+    @Test(expected = AIProviderException.class)
+    public void analyzePhoto_structured_rejectsFencedContent() throws Exception {
+        mockWebServer.enqueue(new MockResponse()
+                .setBody(chatCompletion("```json\n" + PLANT_JSON + "\n```")).setResponseCode(200));
+
+        OpenAIProvider provider = new OpenAIProvider("sk-test",
+                mockWebServer.url("/").toString(), client, true);
+        provider.analyzePhoto(JPEG, new AnalysisPrompt("static rules", "plant context", true));
+    }
+
+    @Test
+    public void analyzePhoto_promptOnly_stillSalvagesFencedContent() throws Exception {
+        mockWebServer.enqueue(new MockResponse()
+                .setBody(chatCompletion("```json\n" + PLANT_JSON + "\n```")).setResponseCode(200));
+
+        OpenAIProvider provider = new OpenAIProvider("sk-test",
+                mockWebServer.url("/").toString(), client, false);
+        PlantAnalysisResult result = provider.analyzePhoto(JPEG,
+                new AnalysisPrompt("static rules", "plant context", true));
+
+        JSONObject sent = new JSONObject(mockWebServer.takeRequest().getBody().readUtf8());
+        assertThat(sent.has("response_format")).isFalse();
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result.structuredOutput).isFalse();
+    }
 }
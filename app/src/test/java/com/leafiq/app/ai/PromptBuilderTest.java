@@ -16,7 +16,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildAnalysisPrompt_withNoContext_includesBasicInstructions() {
-        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, null);
+        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, null).getFullText();
 
         assertThat(prompt).contains("expert botanist");
         assertThat(prompt).contains("Analyze this plant photo");
@@ -26,7 +26,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildAnalysisPrompt_withKnownPlantName_includesName() {
-        String prompt = PromptBuilder.buildAnalysisPrompt("Monstera Deliciosa", null, null);
+        String prompt = PromptBuilder.buildAnalysisPrompt("Monstera Deliciosa", null, null).getFullText();
 
         assertThat(prompt).contains("previously identified as");
         assertThat(prompt).contains("Monstera Deliciosa");
@@ -35,7 +35,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildAnalysisPrompt_withLocation_includesLocation() {
-        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, "Living room, north-facing window");
+        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, "Living room, north-facing window").getFullText();
 
         assertThat(prompt).contains("Location:");
         assertThat(prompt).contains("Living room, north-facing window");
@@ -59,7 +59,7 @@ public class PromptBuilderTest {
         analysis2.summary = "Improved after watering";
         previousAnalyses.add(analysis2);
 
-        String prompt = PromptBuilder.buildAnalysisPrompt("Snake Plant", previousAnalyses, null);
+        String prompt = PromptBuilder.buildAnalysisPrompt("Snake Plant", previousAnalyses, null).getFullText();
 
         assertThat(prompt).contains("Previous analyses");
         assertThat(prompt).contains("Health 7/10");
@@ -71,7 +71,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildAnalysisPrompt_alwaysIncludesJsonTemplate() {
-        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, null);
+        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, null).getFullText();
 
         assertThat(prompt).contains("identification");
         assertThat(prompt).contains("commonName");
@@ -91,7 +91,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildAnalysisPrompt_instructsNoMarkdown() {
-        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, null);
+        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, null).getFullText();
 
         assertThat(prompt).contains("no markdown");
         assertThat(prompt).contains("no backticks");
@@ -100,7 +100,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildAnalysisPrompt_includesActionableAdvice() {
-        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, null);
+        String prompt = PromptBuilder.buildAnalysisPrompt(null, null, null).getFullText();
 
         assertThat(prompt).contains("specific and actionable");
         assertThat(prompt).contains("pot, soil, or surroundings");
@@ -110,7 +110,7 @@ public class PromptBuilderTest {
     public void buildAnalysisPrompt_withEmptyPreviousAnalyses_treatsAsNull() {
         List<Analysis> emptyList = new ArrayList<>();
 
-        String prompt = PromptBuilder.buildAnalysisPrompt(null, emptyList, null);
+        String prompt = PromptBuilder.buildAnalysisPrompt(null, emptyList, null).getFullText();
 
         assertThat(prompt).doesNotContain("Previous analyses");
         assertThat(prompt).doesNotContain("improvements or deterioration");
@@ -130,7 +130,7 @@ public class PromptBuilderTest {
             "Fiddle Leaf Fig",
             previousAnalyses,
             "Office desk"
-        );
+        ).getFullText();
 
         assertThat(prompt).contains("Fiddle Leaf Fig");
         assertThat(prompt).contains("Office desk");
@@ -150,7 +150,7 @@ public class PromptBuilderTest {
         analysis.summary = "Healthy";
         previousAnalyses.add(analysis);
 
-        String prompt = PromptBuilder.buildAnalysisPrompt("Test Plant", previousAnalyses, null);
+        String prompt = PromptBuilder.buildAnalysisPrompt("Test Plant", previousAnalyses, null).getFullText();
 
         // Compute expected date string in the local timezone (matches PromptBuilder logic)
         SimpleDateFormat sdf = new SimpleDateFormat("MMM d, yyyy", Locale.US);
@@ -172,7 +172,7 @@ public class PromptBuilderTest {
         analysis.summary = "Unknown timing";
         previousAnalyses.add(analysis);
 
-        String prompt = PromptBuilder.buildAnalysisPrompt("Test Plant", previousAnalyses, null);
+        String prompt = PromptBuilder.buildAnalysisPrompt("Test Plant", previousAnalyses, null).getFullText();
 
         assertThat(prompt).contains("Unknown date");
     }
@@ -181,7 +181,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildCorrectionPrompt_withNoContext_includesReAnalyzeInstructions() {
-        String prompt = PromptBuilder.buildCorrectionPrompt(null, null, null, null);
+        String prompt = PromptBuilder.buildCorrectionPrompt(null, null, null, null).getFullText();
 
         assertThat(prompt).contains("expert botanist");
         assertThat(prompt).contains("corrections to a previous analysis");
@@ -190,7 +190,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildCorrectionPrompt_withCorrectedName_includesUserConfirmation() {
-        String prompt = PromptBuilder.buildCorrectionPrompt("Monstera Deliciosa", null, null, null);
+        String prompt = PromptBuilder.buildCorrectionPrompt("Monstera Deliciosa", null, null, null).getFullText();
 
         assertThat(prompt).contains("user confirms this plant is");
         assertThat(prompt).contains("Monstera Deliciosa");
@@ -199,7 +199,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildCorrectionPrompt_withAdditionalContext_includesContext() {
-        String prompt = PromptBuilder.buildCorrectionPrompt(null, "Leaves turning yellow recently", null, null);
+        String prompt = PromptBuilder.buildCorrectionPrompt(null, "Leaves turning yellow recently", null, null).getFullText();
 
         assertThat(prompt).contains("Additional context from the user");
         assertThat(prompt).contains("Leaves turning yellow recently");
@@ -208,7 +208,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildCorrectionPrompt_withLocation_includesLocation() {
-        String prompt = PromptBuilder.buildCorrectionPrompt(null, null, null, "Kitchen windowsill");
+        String prompt = PromptBuilder.buildCorrectionPrompt(null, null, null, "Kitchen windowsill").getFullText();
 
         assertThat(prompt).contains("Location:");
         assertThat(prompt).contains("Kitchen windowsill");
@@ -225,7 +225,7 @@ public class PromptBuilderTest {
         analysis.summary = "Needs more water";
         previousAnalyses.add(analysis);
 
-        String prompt = PromptBuilder.buildCorrectionPrompt(null, null, previousAnalyses, null);
+        String prompt = PromptBuilder.buildCorrectionPrompt(null, null, previousAnalyses, null).getFullText();
 
         assertThat(prompt).contains("Previous analyses");
         assertThat(prompt).contains("Health 6/10");
@@ -234,7 +234,7 @@ public class PromptBuilderTest {
 
     @Test
     public void buildCorrectionPrompt_alwaysIncludesJsonTemplate() {
-        String prompt = PromptBuilder.buildCorrectionPrompt(null, null, null, null);
+        String prompt = PromptBuilder.buildCorrectionPrompt(null, null, null, null).getFullText();
 
         assertThat(prompt).contains("identification");
         assertThat(prompt).contains("commonName");
@@ -258,7 +258,7 @@ public class PromptBuilderTest {
             "It was recently repotted",
             previousAnalyses,
             "Bathroom"
-        );
+        ).getFullText();
 
         assertThat(prompt).contains("Peace Lily");
         assertThat(prompt).contains("It was recently repotted");
@@ -266,4 +266,54 @@ public class PromptBuilderTest {
         assertThat(prompt).contains("Health 7/10");
         assertThat(prompt).contains("Recovering well");
     }
+
+    // ==================== Static prefix / dynamic suffix split ====================
+
+    @Test
+    public void buildAnalysisPrompt_templateInStaticPrefix_contextInSuffix() {
+        AnalysisPrompt prompt = PromptBuilder.buildAnalysisPrompt("Monstera Deliciosa", null, "Hallway");
+
+        assertThat(prompt.getStaticPrefix()).contains("ONLY with valid JSON");
+        assertThat(prompt.getStaticPrefix()).contains("carePlan");
+        assertThat(prompt.getStaticPrefix()).doesNotContain("Monstera Deliciosa");
+        assertThat(prompt.getDynamicSuffix()).contains("Monstera Deliciosa");
+        assertThat(prompt.getDynamicSuffix()).contains("Hallway");
+        assertThat(prompt.getDynamicSuffix()).doesNotContain("carePlan");
+    }
+
+    @Test
+    public void staticPrefix_isIdenticalAcrossPlantsAndCorrections() {
+        List<Analysis> previousAnalyses = new ArrayList<>();
+        Analysis analysis = new Analysis();
+        analysis.createdAt = 1700000000000L;
+        analysis.healthScore = 4;
+        analysis.summary = "Drooping";
+        previousAnalyses.add(analysis);
+
+        String first = PromptBuilder.buildAnalysisPrompt(null, null, null).getStaticPrefix();
+        String second = PromptBuilder.buildAnalysisPrompt("Pothos", previousAnalyses, "Office")
+            .getStaticPrefix();
+        String correction = PromptBuilder.buildCorrectionPrompt("Pothos", "Moved last week", null, null)
+            .getStaticPrefix();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(correction).isEqualTo(first);
+    }
+
+    @Test
+    public void buildQuickDiagnosisPrompt_isAllStatic() {
+        AnalysisPrompt prompt = PromptBuilder.buildQuickDiagnosisPrompt();
+
+        assertThat(prompt.getStaticPrefix()).contains("healthAssessment");
+        assertThat(prompt.getDynamicSuffix()).isEmpty();
+        assertThat(prompt.getFullText()).isEqualTo(prompt.getStaticPrefix());
+    }
+
+    @Test
+    public void plainPrompt_hasNoStaticPrefix() {
+        AnalysisPrompt prompt = AnalysisPrompt.of("analyze");
+
+        assertThat(prompt.hasStaticPrefix()).isFalse();
+        assertThat(prompt.getFullText()).isEqualTo("analyze");
+    }
 }
@@ -0,0 +1,126 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.SharedPreferences;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class ProviderLatencyStatsTest {
+
+    private static final String CLAUDE = "Claude (Anthropic)";
+
+    private InMemoryPreferences prefs;
+    private ProviderLatencyStats stats;
+
+    @Before
+    public void setUp() {
+        prefs = new InMemoryPreferences();
+        stats = new ProviderLatencyStats(prefs);
+    }
+
+    @Test
+    public void noSamples_usesDefaultHedgeDelay() {
+        assertThat(stats.getPercentileMs(CLAUDE, 95)).isEqualTo(-1L);
+        assertThat(stats.getHedgeDelayMs(CLAUDE)).isEqualTo(ProviderLatencyStats.DEFAULT_HEDGE_DELAY_MS);
+    }
+
+    @Test
+    public void p95_isNearestRank() {
+        for (long latency = 1000; latency <= 20_000; latency += 1000) {
+            stats.recordSuccess(CLAUDE, latency);
+        }
+        // 20 samples: rank ceil(0.95 * 20) = 19
+        assertThat(stats.getPercentileMs(CLAUDE, 95)).isEqualTo(19_000L);
+        assertThat(stats.getHedgeDelayMs(CLAUDE)).isEqualTo(19_000L);
+    }
+
+    @Test
+    public void hedgeDelay_isClamped() {
+        for (int i = 0; i < ProviderLatencyStats.MIN_SAMPLES; i++) {
+            stats.recordSuccess(CLAUDE, 100);
+        }
+        assertThat(stats.getHedgeDelayMs(CLAUDE)).isEqualTo(ProviderLatencyStats.MIN_HEDGE_DELAY_MS);
+
+        for (int i = 0; i < ProviderLatencyStats.MAX_SAMPLES; i++) {
+            stats.recordSuccess(CLAUDE, 80_000);
+        }
+        assertThat(stats.getHedgeDelayMs(CLAUDE)).isEqualTo(ProviderLatencyStats.MAX_HEDGE_DELAY_MS);
+    }
+
+    @Test
+    public void window_keepsOnlyMostRecentSamples() {
+        for (int i = 0; i < ProviderLatencyStats.MAX_SAMPLES + 10; i++) {
+            stats.recordSuccess(CLAUDE, i);
+        }
+        assertThat(stats.getSampleCount(CLAUDE)).isEqualTo(ProviderLatencyStats.MAX_SAMPLES);
+        assertThat(stats.getPercentileMs(CLAUDE, 1)).isEqualTo(10L);
+    }
+
+    @Test
+    public void samples_persistAcrossInstances() {
+        for (int i = 0; i < ProviderLatencyStats.MIN_SAMPLES; i++) {
+            stats.recordSuccess(CLAUDE, 8000);
+        }
+
+        ProviderLatencyStats reloaded = new ProviderLatencyStats(prefs);
+
+        assertThat(reloaded.getSampleCount(CLAUDE)).isEqualTo(ProviderLatencyStats.MIN_SAMPLES);
+        assertThat(reloaded.getHedgeDelayMs(CLAUDE)).isEqualTo(8000L);
+    }
+
+    @Test
+    public void providers_areTrackedSeparately() {
+        stats.recordSuccess(CLAUDE, 5000);
+        assertThat(stats.getSampleCount("Gemini (Google)")).isEqualTo(0);
+    }
+
+    /**
+     * Minimal in-memory SharedPreferences: string values only.
+     */
+    private static class InMemoryPreferences implements SharedPreferences {
+        private final Map<String, Object> data = new HashMap<>();
+
+        @Override public String getString(String key, String defValue) {
+            Object value = data.get(key);
+            return value != null ? (String) value : defValue;
+        }
+        @Override public Editor edit() { return new InMemoryEditor(); }
+
+        // Unused methods - not needed for tests
+        @Override public Map<String, ?> getAll() { return new HashMap<>(data); }
+        @Override public int getInt(String key, int defValue) { return defValue; }
+        @Override public boolean contains(String key) { return data.containsKey(key); }
+        @Override public Set<String> getStringSet(String key, Set<String> defValues) { return defValues; }
+        @Override public long getLong(String key, long defValue) { return defValue; }
+        @Override public float getFloat(String key, float defValue) { return defValue; }
+        @Override public boolean getBoolean(String key, boolean defValue) { return defValue; }
+        @Override public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {}
+        @Override public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {}
+
+        private class InMemoryEditor implements Editor {
+            private final Map<String, Object> puts = new HashMap<>();
+
+            @Override public Editor putString(String key, String value) { puts.put(key, value); return this; }
+            @Override public boolean commit() {
+                data.putAll(puts);
+                return true;
+            }
+            @Override public void apply() { commit(); }
+
+            // Unused methods
+            @Override public Editor putStringSet(String key, Set<String> values) { return this; }
+            @Override public Editor putInt(String key, int value) { return this; }
+            @Override public Editor putLong(String key, long value) { return this; }
+            @Override public Editor putFloat(String key, float value) { return this; }
+            @Override public Editor putBoolean(String key, boolean value) { return this; }
+            @Override public Editor remove(String key) { return this; }
+            @Override public Editor clear() { return this; }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Scripts 429/5xx sequences on a MockWebServer behind a real ClaudeProvider.
+ */
+public class ResilientAIProviderTest {
+
+    private static final ImagePayload IMAGE = ImagePayload.ofBase64("base64data");
+    private static final ImagePayload JPEG = ImagePayload.ofBytes(new byte[]{1, 2, 3});
+    private static final AnalysisPrompt PROMPT = AnalysisPrompt.of("analyze");
+
+    private static final String PLANT_JSON = "{\"identification\":{\"commonName\":\"Monstera\","
+            + "\"scientificName\":\"Monstera deliciosa\",\"confidence\":\"high\",\"notes\":\"\"},"
+            + "\"healthAssessment\":{\"score\":8,\"summary\":\"Healthy\",\"issues\":[]},"
+            + "\"immediateActions\":[],\"carePlan\":{},\"funFact\":\"Test fact\"}";
+
+    private static final String API_RESPONSE = "{\"content\":[{\"type\":\"text\",\"text\":"
+            + "\"" + PLANT_JSON.replace("\"", "\\\"") + "\""
+            + "}]}";
+
+    private MockWebServer mockWebServer;
+    private ClaudeProvider claude;
+    private CircuitBreaker breaker;
+    private long now;
+    private List<Long> sleeps;
+    private List<Integer> retriedAttempts;
+
+    @Before
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        claude = new ClaudeProvider("sk-test", mockWebServer.url("/").toString(), new OkHttpClient());
+        now = 1_000_000L;
+        breaker = new CircuitBreaker(3, 30_000, () -> now);
+        sleeps = new ArrayList<>();
+        retriedAttempts = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    private ResilientAIProvider resilient(int maxAttempts) {
+        return new ResilientAIProvider(claude, breaker,
+                (nextAttempt, max, delayMs, state) -> retriedAttempts.add(nextAttempt),
+                maxAttempts, new Random(42), sleeps::add);
+    }
+
+    @Test
+    public void success_firstAttempt_noRetry() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(API_RESPONSE));
+
+        ResilientAIProvider provider = resilient(3);
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
+
+        assertThat(result.identification.commonName).isEqualTo("Monstera");
+        assertThat(provider.getLastAttemptCount()).isEqualTo(1);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+        assertThat(sleeps).isEmpty();
+    }
+
+    @Test
+    public void serverErrors_thenSuccess_retriesWithBackoff() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(502));
+        mockWebServer.enqueue(new MockResponse().setBody(API_RESPONSE));
+
+        ResilientAIProvider provider = resilient(3);
+        PlantAnalysisResult result = provider.analyzePhoto(IMAGE, PROMPT);
+
+        assertThat(result.identification.commonName).isEqualTo("Monstera");
+        assertThat(provider.getLastAttemptCount()).isEqualTo(3);
+        assertThat(retriedAttempts).containsExactly(2, 3).inOrder();
+        // Jittered backoff: first retry waits 500-1000 ms, second 1000-2000 ms
+        assertThat(sleeps.get(0)).isAtLeast(500L);
+        assertThat(sleeps.get(0)).isAtMost(1000L);
+        assertThat(sleeps.get(1)).isAtLeast(1000L);
+        assertThat(sleeps.get(1)).isAtMost(2000L);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void tooManyRequests_honoursRetryAfterSeconds() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "3"));
+        mockWebServer.enqueue(new MockResponse().setBody(API_RESPONSE));
+
+        resilient(3).analyzePhoto(IMAGE, PROMPT);
+
+        assertThat(sleeps).containsExactly(3000L);
+    }
+
+    @Test
+    public void retryAfterTooLong_failsWithoutWaiting() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "120"));
+
+        try {
+            resilient(3).analyzePhoto(IMAGE, PROMPT);
+            fail("Expected AIProviderException");
+        } catch (AIProviderException e) {
+            assertThat(e.getHttpStatusCode()).isEqualTo(429);
+            assertThat(e.getRetryAfterMs()).isEqualTo(120_000L);
+        }
+        assertThat(sleeps).isEmpty();
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void exhaustedAttempts_throwsLastError() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+        ResilientAIProvider provider = resilient(2);
+        try {
+            provider.analyzePhoto(IMAGE, PROMPT);
+            fail("Expected AIProviderException");
+        } catch (AIProviderException e) {
+            assertThat(e.getHttpStatusCode()).isEqualTo(500);
+        }
+        assertThat(provider.getLastAttemptCount()).isEqualTo(2);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void authError_isNotRetried() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(401));
+
+        try {
+            resilient(3).analyzePhoto(IMAGE, PROMPT);
+            fail("Expected AIProviderException");
+        } catch (AIProviderException e) {
+            assertThat(e.getHttpStatusCode()).isEqualTo(401);
+        }
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void repeatedFailures_openBreaker_thenFailFast() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        }
+
+        ResilientAIProvider provider = resilient(5);
+        try {
+            provider.analyzePhoto(IMAGE, PROMPT);
+            fail("Expected AIProviderException");
+        } catch (AIProviderException e) {
+            assertThat(e.getHttpStatusCode()).isEqualTo(503);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        try {
+            provider.analyzePhoto(IMAGE, PROMPT);
+            fail("Expected CircuitBreakerOpenException");
+        } catch (CircuitBreakerOpenException e) {
+            assertThat(e.getRetryAfterMs()).isEqualTo(30_000L);
+        }
+        // Fail-fast call never reached the server
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void halfOpenTrial_successClosesBreaker() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        now += 30_000;
+        mockWebServer.enqueue(new MockResponse().setBody(API_RESPONSE));
+
+        resilient(3).analyzePhoto(IMAGE, PROMPT);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void streaming_afterPartialDelivered_isNotRetried() throws Exception {
+        AIProvider halfStreamed = new AIProvider() {
+            @Override
+            public PlantAnalysisResult analyzePhoto(ImagePayload image, AnalysisPrompt prompt) {
+                throw new AssertionError("not used");
+            }
+
+            @Override
+            public PlantAnalysisResult analyzePhotoStreaming(ImagePayload image, AnalysisPrompt prompt,
+                                                             PartialResultListener listener)
+                    throws AIProviderException {
+                listener.onPartialResult(new PlantAnalysisResult());
+                throw new AIProviderException("API error: 503", null, 503);
+            }
+
+            @Override public boolean isConfigured() { return true; }
+            @Override public String getDisplayName() { return "Fake"; }
+            @Override public boolean supportsVision() { return true; }
+        };
+        List<PlantAnalysisResult> partials = new ArrayList<>();
+        ResilientAIProvider provider = new ResilientAIProvider(halfStreamed, breaker, null,
+                3, new Random(42), sleeps::add);
+
+        try {
+            provider.analyzePhotoStreaming(JPEG, PROMPT, partials::add);
+            fail("Expected AIProviderException");
+        } catch (AIProviderException e) {
+            assertThat(e.getHttpStatusCode()).isEqualTo(503);
+        }
+        assertThat(partials).hasSize(1);
+        assertThat(provider.getLastAttemptCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void backoff_isCappedAtMax() {
+        ResilientAIProvider provider = resilient(10);
+        for (int attempt = 2; attempt < 10; attempt++) {
+            assertThat(provider.backoffMs(attempt)).isAtMost(ResilientAIProvider.MAX_BACKOFF_MS);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Base64;
+
+import okio.Buffer;
+
+public class StreamingImageRequestBodyTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // 7 bytes: exercises base64 padding on the final quantum
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0x00, 0x10, 0x4A};
+
+    private static String envelope() throws Exception {
+        JSONObject source = new JSONObject();
+        source.put("type", "base64");
+        source.put("data", StreamingImageRequestBody.IMAGE_PLACEHOLDER);
+        JSONObject root = new JSONObject();
+        root.put("source", source);
+        root.put("prompt", "Analyze \"this\" plant");
+        return root.toString();
+    }
+
+    @Test
+    public void writeTo_bytes_producesValidJsonWithBase64Data() throws Exception {
+        StreamingImageRequestBody body = new StreamingImageRequestBody(
+                envelope(), "", ImagePayload.ofBytes(JPEG));
+
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        JSONObject json = new JSONObject(buffer.readUtf8());
+
+        assertThat(json.getJSONObject("source").getString("data"))
+                .isEqualTo(Base64.getEncoder().encodeToString(JPEG));
+        assertThat(json.getString("prompt")).isEqualTo("Analyze \"this\" plant");
+    }
+
+    @Test
+    public void contentLength_matchesWrittenBytes() throws Exception {
+        StreamingImageRequestBody body = new StreamingImageRequestBody(
+                envelope(), "data:image/jpeg;base64,", ImagePayload.ofBytes(JPEG));
+
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+
+        assertThat(body.contentLength()).isEqualTo(buffer.size());
+    }
+
+    @Test
+    public void writeTo_dataPrefix_isWrittenInsideString() throws Exception {
+        StreamingImageRequestBody body = new StreamingImageRequestBody(
+                envelope(), "data:image/jpeg;base64,", ImagePayload.ofBytes(JPEG));
+
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        JSONObject json = new JSONObject(buffer.readUtf8());
+
+        assertThat(json.getJSONObject("source").getString("data"))
+                .isEqualTo("data:image/jpeg;base64," + Base64.getEncoder().encodeToString(JPEG));
+    }
+
+    @Test
+    public void writeTo_file_matchesBytesPayload() throws Exception {
+        File file = tempFolder.newFile("photo.jpg");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(JPEG);
+        }
+
+        Buffer fromFile = new Buffer();
+        new StreamingImageRequestBody(envelope(), "", ImagePayload.ofFile(file)).writeTo(fromFile);
+        Buffer fromBytes = new Buffer();
+        new StreamingImageRequestBody(envelope(), "", ImagePayload.ofBytes(JPEG)).writeTo(fromBytes);
+
+        assertThat(fromFile.readUtf8()).isEqualTo(fromBytes.readUtf8());
+    }
+
+    @Test
+    public void writeTo_canBeWrittenTwice() throws Exception {
+        StreamingImageRequestBody body = new StreamingImageRequestBody(
+                envelope(), "", ImagePayload.ofBytes(JPEG));
+
+        Buffer first = new Buffer();
+        body.writeTo(first);
+        Buffer second = new Buffer();
+        body.writeTo(second);
+
+        assertThat(second.readUtf8()).isEqualTo(first.readUtf8());
+    }
+
+    @Test
+    public void constructor_missingPlaceholder_throws() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new StreamingImageRequestBody("{\"data\":\"x\"}", "", ImagePayload.ofBytes(JPEG)));
+    }
+}
@@ -0,0 +1,215 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+import com.leafiq.app.util.JsonParser;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import okio.Buffer;
+
+/**
+ * Compares the streaming decoder against the legacy body().string() + JSONObject +
+ * strip + JsonParser path on realistic 2-6 KB Claude responses.
+ * Asserts identical results; timings are printed for reference only (not asserted,
+ * since JVM timing on CI is noisy).
+ */
+public class StreamingResponseDecoderBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    @Test
+    public void streamingDecoder_matchesLegacyParse_forRealisticSizes() throws Exception {
+        for (int issues : new int[]{1, 4, 8}) {
+            byte[] body = buildClaudeResponse(issues).getBytes(StandardCharsets.UTF_8);
+            assertThat(body.length).isAtLeast(2 * 1024);
+            assertThat(body.length).isAtMost(6 * 1024);
+
+            PlantAnalysisResult legacy = legacyDecode(body);
+            PlantAnalysisResult streaming = streamingDecode(body);
+            assertEquivalent(streaming, legacy);
+        }
+    }
+
+    @Test
+    public void streamingDecoder_timing() throws Exception {
+        for (int issues : new int[]{1, 4, 8}) {
+            byte[] body = buildClaudeResponse(issues).getBytes(StandardCharsets.UTF_8);
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                legacyDecode(body);
+                streamingDecode(body);
+            }
+
+            long legacyStart = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                legacyDecode(body);
+            }
+            long legacyNanos = System.nanoTime() - legacyStart;
+
+            long streamingStart = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                streamingDecode(body);
+            }
+            long streamingNanos = System.nanoTime() - streamingStart;
+
+            System.out.println(String.format(Locale.US,
+                    "response %5d bytes: legacy %6.1f us/op, streaming %6.1f us/op",
+                    body.length,
+                    legacyNanos / 1000.0 / MEASURED_ITERATIONS,
+                    streamingNanos / 1000.0 / MEASURED_ITERATIONS));
+        }
+    }
+
+    // ==================== Decode paths ====================
+
+    private static PlantAnalysisResult streamingDecode(byte[] body) throws Exception {
+        return StreamingResponseDecoder.decode(
+                new Buffer().write(body), StreamingResponseDecoder.CLAUDE_TEXT_PATH);
+    }
+
+    /** The pre-streaming provider code path, kept verbatim for comparison. */
+    private static PlantAnalysisResult legacyDecode(byte[] body) throws Exception {
+        String responseBody = new Buffer().write(body).readUtf8();
+        JSONObject json = new JSONObject(responseBody);
+        JSONArray contentArray = json.getJSONArray("content");
+        String aiText = contentArray.getJSONObject(0).getString("text");
+
+        aiText = aiText.trim();
+        if (aiText.startsWith("```")) {
+            aiText = aiText.replaceAll("^```json?\\s*", "")
+                           .replaceAll("\\s*```$", "");
+        }
+
+        int start = aiText.indexOf('{');
+        int end = aiText.lastIndexOf('}');
+        if (start >= 0 && end > start) {
+            aiText = aiText.substring(start, end + 1);
+        }
+
+        PlantAnalysisResult result = JsonParser.parsePlantAnalysis(aiText);
+        result.rawResponse = aiText;
+        return result;
+    }
+
+    // ==================== Fixtures ====================
+
+    private static String buildClaudeResponse(int issueCount) throws Exception {
+        JSONObject analysis = new JSONObject();
+        analysis.put("identification", new JSONObject()
+                .put("commonName", "Fiddle Leaf Fig")
+                .put("scientificName", "Ficus lyrata")
+                .put("confidence", "high")
+                .put("notes", "Large violin-shaped leaves with prominent veins are characteristic."));
+
+        JSONArray issues = new JSONArray();
+        for (int i = 0; i < issueCount; i++) {
+            issues.put(new JSONObject()
+                    .put("name", "Issue " + i + ": edge browning")
+                    .put("severity", i % 2 == 0 ? "medium" : "low")
+                    .put("description", "Brown, crispy margins on several older leaves, consistent with "
+                            + "inconsistent watering or low humidity. Check soil moisture at 5cm depth.")
+                    .put("affectedArea", "Lower canopy, leaves " + i + " to " + (i + 3)));
+        }
+        analysis.put("healthAssessment", new JSONObject()
+                .put("score", 6)
+                .put("summary", "Generally healthy with minor stress signs on older foliage.")
+                .put("issues", issues));
+
+        JSONArray actions = new JSONArray();
+        for (int i = 0; i < Math.max(2, issueCount / 2); i++) {
+            actions.put(new JSONObject()
+                    .put("action", "Adjust watering step " + i)
+                    .put("priority", "soon")
+                    .put("detail", "Water thoroughly when the top 5cm of soil is dry; empty the saucer."));
+        }
+        analysis.put("immediateActions", actions);
+
+        analysis.put("carePlan", new JSONObject()
+                .put("watering", new JSONObject()
+                        .put("frequency", "Every 7-10 days")
+                        .put("amount", "Until water drains from the bottom")
+                        .put("notes", "Reduce in winter"))
+                .put("light", new JSONObject()
+                        .put("ideal", "Bright, indirect light")
+                        .put("current", "Slightly low")
+                        .put("adjustment", "Move within 1m of an east-facing window"))
+                .put("fertilizer", new JSONObject()
+                        .put("type", "Balanced liquid 3-1-2")
+                        .put("frequency", "Monthly in spring and summer")
+                        .put("nextApplication", "Next spring"))
+                .put("pruning", new JSONObject()
+                        .put("needed", false)
+                        .put("instructions", "Only remove damaged leaves")
+                        .put("when", "Spring"))
+                .put("repotting", new JSONObject()
+                        .put("needed", false)
+                        .put("signs", "Roots circling the pot or emerging from drainage holes")
+                        .put("recommendedPotSize", JSONObject.NULL))
+                .put("seasonal", "Avoid cold drafts and keep away from heating vents in winter."));
+        analysis.put("funFact", "Ficus lyrata is native to the lowland tropical rainforest of western Africa.");
+
+        String aiText = "```json\n" + analysis.toString(2) + "\n```";
+
+        JSONObject envelope = new JSONObject()
+                .put("id", "msg_01XFDUDYJgAACzvnptvVoYEL")
+                .put("type", "message")
+                .put("role", "assistant")
+                .put("model", "claude-sonnet-4-20250514")
+                .put("content", new JSONArray().put(new JSONObject()
+                        .put("type", "text")
+                        .put("text", aiText)))
+                .put("stop_reason", "end_turn")
+                .put("usage", new JSONObject()
+                        .put("input_tokens", 1634)
+                        .put("output_tokens", 812));
+        return envelope.toString();
+    }
+
+    private static void assertEquivalent(PlantAnalysisResult actual, PlantAnalysisResult expected) {
+        assertThat(actual.rawResponse).isEqualTo(expected.rawResponse);
+        assertThat(actual.funFact).isEqualTo(expected.funFact);
+
+        assertThat(actual.identification.commonName).isEqualTo(expected.identification.commonName);
+        assertThat(actual.identification.scientificName).isEqualTo(expected.identification.scientificName);
+        assertThat(actual.identification.confidence).isEqualTo(expected.identification.confidence);
+        assertThat(actual.identification.notes).isEqualTo(expected.identification.notes);
+
+        assertThat(actual.healthAssessment.score).isEqualTo(expected.healthAssessment.score);
+        assertThat(actual.healthAssessment.summary).isEqualTo(expected.healthAssessment.summary);
+        assertThat(actual.healthAssessment.issues).hasSize(expected.healthAssessment.issues.size());
+        for (int i = 0; i < expected.healthAssessment.issues.size(); i++) {
+            PlantAnalysisResult.HealthAssessment.Issue a = actual.healthAssessment.issues.get(i);
+            PlantAnalysisResult.HealthAssessment.Issue e = expected.healthAssessment.issues.get(i);
+            assertThat(a.name).isEqualTo(e.name);
+            assertThat(a.severity).isEqualTo(e.severity);
+            assertThat(a.description).isEqualTo(e.description);
+            assertThat(a.affectedArea).isEqualTo(e.affectedArea);
+        }
+
+        assertThat(actual.immediateActions).hasSize(expected.immediateActions.size());
+        for (int i = 0; i < expected.immediateActions.size(); i++) {
+            assertThat(actual.immediateActions.get(i).action).isEqualTo(expected.immediateActions.get(i).action);
+            assertThat(actual.immediateActions.get(i).priority).isEqualTo(expected.immediateActions.get(i).priority);
+            assertThat(actual.immediateActions.get(i).detail).isEqualTo(expected.immediateActions.get(i).detail);
+        }
+
+        PlantAnalysisResult.CarePlan a = actual.carePlan;
+        PlantAnalysisResult.CarePlan e = expected.carePlan;
+        assertThat(a.watering.frequency).isEqualTo(e.watering.frequency);
+        assertThat(a.watering.amount).isEqualTo(e.watering.amount);
+        assertThat(a.light.adjustment).isEqualTo(e.light.adjustment);
+        assertThat(a.fertilizer.nextApplication).isEqualTo(e.fertilizer.nextApplication);
+        assertThat(a.pruning.needed).isEqualTo(e.pruning.needed);
+        assertThat(a.repotting.signs).isEqualTo(e.repotting.signs);
+        assertThat(a.repotting.recommendedPotSize).isEqualTo(e.repotting.recommendedPotSize);
+        assertThat(a.seasonal).isEqualTo(e.seasonal);
+    }
+}
@@ -0,0 +1,187 @@
+package com.leafiq.app.ai;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import okio.Buffer;
+
+public class StreamingResponseDecoderTest {
+
+    private static final String PLANT_JSON = "{\"identification\":{\"commonName\":\"Monstera\","
+            + "\"scientificName\":\"Monstera deliciosa\",\"confidence\":\"high\",\"notes\":\"\"},"
+            + "\"healthAssessment\":{\"score\":8,\"summary\":\"Healthy\",\"issues\":["
+            + "{\"name\":\"Leaf spot\",\"severity\":\"medium\",\"description\":\"Brown \\\"rings\\\"\","
+            + "\"affectedArea\":\"Lower leaves\"}]},"
+            + "\"immediateActions\":[{\"action\":\"Trim\",\"priority\":\"soon\",\"detail\":\"Cut at base\"}],"
+            + "\"carePlan\":{\"watering\":{\"frequency\":\"Weekly\",\"amount\":\"250ml\",\"notes\":\"\"},"
+            + "\"light\":{\"ideal\":\"Bright indirect\",\"current\":\"Low\",\"adjustment\":null},"
+            + "\"pruning\":{\"needed\":true,\"instructions\":\"Remove yellow leaves\",\"when\":\"Spring\"},"
+            + "\"seasonal\":\"Less water in winter\"},"
+            + "\"funFact\":\"Leaves split with age \\u2014 fenestration\"}";
+
+    /** Escapes text as the value of a JSON string, as a provider envelope would. */
+    private static String quote(String text) {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private static String claudeEnvelope(String aiText) {
+        return "{\"id\":\"msg_1\",\"type\":\"message\",\"content\":[{\"type\":\"text\",\"text\":"
+                + quote(aiText) + "}],\"usage\":{\"input_tokens\":10,\"output_tokens\":20}}";
+    }
+
+    @Test
+    public void decode_claudeEnvelope_parsesAllSections() throws IOException {
+        PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(claudeEnvelope(PLANT_JSON)),
+                StreamingResponseDecoder.CLAUDE_TEXT_PATH);
+
+        assertThat(result.identification.commonName).isEqualTo("Monstera");
+        assertThat(result.healthAssessment.score).isEqualTo(8);
+        assertThat(result.healthAssessment.issues).hasSize(1);
+        assertThat(result.healthAssessment.issues.get(0).description).isEqualTo("Brown \"rings\"");
+        assertThat(result.immediateActions.get(0).priority).isEqualTo("soon");
+        assertThat(result.carePlan.watering.amount).isEqualTo("250ml");
+        assertThat(result.carePlan.light.adjustment).isNull();
+        assertThat(result.carePlan.pruning.needed).isTrue();
+        assertThat(result.carePlan.fertilizer).isNull();
+        assertThat(result.carePlan.seasonal).isEqualTo("Less water in winter");
+        assertThat(result.funFact).isEqualTo("Leaves split with age — fenestration");
+    }
+
+    @Test
+    public void decode_rawResponse_isExtractedJsonVerbatim() throws IOException {
+        PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(claudeEnvelope(PLANT_JSON)),
+                StreamingResponseDecoder.CLAUDE_TEXT_PATH);
+
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+    }
+
+    @Test
+    public void decode_markdownFences_areSkipped() throws IOException {
+        PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(claudeEnvelope("```json\n" + PLANT_JSON + "\n```")),
+                StreamingResponseDecoder.CLAUDE_TEXT_PATH);
+
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+    }
+
+    @Test
+    public void decode_surroundingProse_isSkipped() throws IOException {
+        PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(claudeEnvelope("Here you go:\n" + PLANT_JSON + "\nHope this helps {:}")),
+                StreamingResponseDecoder.CLAUDE_TEXT_PATH);
+
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result.identification.commonName).isEqualTo("Monstera");
+    }
+
+    @Test
+    public void decode_openAiEnvelope_skipsUnrelatedFields() throws IOException {
+        String body = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"created\":1700000000,"
+                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"refusal\":null,"
+                + "\"content\":" + quote(PLANT_JSON) + "},\"finish_reason\":\"stop\"}]}";
+
+        PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(body), StreamingResponseDecoder.OPENAI_TEXT_PATH);
+
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+    }
+
+    @Test
+    public void decode_geminiEnvelope_navigatesNestedArrays() throws IOException {
+        String body = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":" + quote(PLANT_JSON) + "}],"
+                + "\"role\":\"model\"},\"finishReason\":\"STOP\"}],\"usageMetadata\":{\"totalTokenCount\":5}}";
+
+        PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(body), StreamingResponseDecoder.GEMINI_TEXT_PATH);
+
+        assertThat(result.identification.scientificName).isEqualTo("Monstera deliciosa");
+    }
+
+    @Test
+    public void decodeAnalysisText_missingFields_useJsonParserDefaults() throws IOException {
+        PlantAnalysisResult result = StreamingResponseDecoder.decodeAnalysisText(
+                new StringReader("{\"identification\":{},\"healthAssessment\":{\"score\":\"7\"},"
+                        + "\"immediateActions\":[{}],\"carePlan\":{\"repotting\":{}}}"));
+
+        assertThat(result.identification.commonName).isEqualTo("Unknown");
+        assertThat(result.identification.confidence).isEqualTo("low");
+        assertThat(result.healthAssessment.score).isEqualTo(7);
+        assertThat(result.healthAssessment.issues).isEmpty();
+        assertThat(result.immediateActions.get(0).priority).isEqualTo("when_convenient");
+        assertThat(result.carePlan.repotting.recommendedPotSize).isNull();
+        assertThat(result.carePlan.seasonal).isEmpty();
+        assertThat(result.funFact).isEmpty();
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_missingTextPath_throws() throws IOException {
+        StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8("{\"content\":[]}"), StreamingResponseDecoder.CLAUDE_TEXT_PATH);
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_textWithoutJson_throws() throws IOException {
+        StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(claudeEnvelope("I can't identify this plant.")),
+                StreamingResponseDecoder.CLAUDE_TEXT_PATH);
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_truncatedJson_throws() throws IOException {
+        StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(claudeEnvelope(PLANT_JSON.substring(0, 120))),
+                StreamingResponseDecoder.CLAUDE_TEXT_PATH);
+    }
+
+    // ==================== Structured output ====================
+
+    @Test
+    public void decode_structuredToolInput_decodesObjectInEnvelope() throws IOException {
+        String body = "{\"id\":\"msg_1\",\"content\":[{\"type\":\"tool_use\",\"name\":\"plant_analysis\","
+                + "\"input\":" + PLANT_JSON + "}],\"usage\":{\"input_tokens\":10,\"output_tokens\":20}}";
+        long[] outputTokens = new long[1];
+
+        PlantAnalysisResult result = StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(body), StreamingResponseDecoder.CLAUDE_TOOL_INPUT_PATH, true,
+                StreamingResponseDecoder.USAGE_FIELD, usage -> outputTokens[0] = usage.getLong("output_tokens"));
+
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result.healthAssessment.issues.get(0).description).isEqualTo("Brown \"rings\"");
+        assertThat(outputTokens[0]).isEqualTo(20);
+    }
+
+    @Test
+    public void decodeStructuredText_singleObject_parses() throws IOException {
+        PlantAnalysisResult result = StreamingResponseDecoder.decodeStructuredText(
+                new StringReader("  " + PLANT_JSON + "\n"));
+
+        assertThat(result.rawResponse).isEqualTo(PLANT_JSON);
+        assertThat(result.identification.commonName).isEqualTo("Monstera");
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeStructuredText_leadingFence_throws() throws IOException {
+        StreamingResponseDecoder.decodeStructuredText(new StringReader("```json\n" + PLANT_JSON));
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeStructuredText_trailingContent_throws() throws IOException {
+        StreamingResponseDecoder.decodeStructuredText(new StringReader(PLANT_JSON + "\nHope this helps"));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_structuredTextWithProse_throws() throws IOException {
+        StreamingResponseDecoder.decode(
+                new Buffer().writeUtf8(claudeEnvelope("Here you go:\n" + PLANT_JSON)),
+                StreamingResponseDecoder.CLAUDE_TEXT_PATH, true,
+                StreamingResponseDecoder.USAGE_FIELD, usage -> { });
+    }
+}
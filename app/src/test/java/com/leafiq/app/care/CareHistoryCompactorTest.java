@@ -0,0 +1,62 @@
+package com.leafiq.app.care;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Unit tests for CareHistoryCompactor's horizon cutoff.
+ */
+public class CareHistoryCompactorTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Test
+    public void horizonCutoff_isStartOfMonthHorizonMonthsAgo() {
+        long now = utc(2026, Calendar.OCTOBER, 16, 14, 30);
+
+        assertThat(CareHistoryCompactor.horizonCutoff(now, 12, UTC))
+                .isEqualTo(utc(2025, Calendar.OCTOBER, 1, 0, 0));
+    }
+
+    @Test
+    public void horizonCutoff_crossesYearBoundary() {
+        long now = utc(2026, Calendar.FEBRUARY, 1, 0, 0);
+
+        assertThat(CareHistoryCompactor.horizonCutoff(now, 3, UTC))
+                .isEqualTo(utc(2025, Calendar.NOVEMBER, 1, 0, 0));
+    }
+
+    @Test
+    public void horizonCutoff_neverCompactsCurrentMonth() {
+        long now = utc(2026, Calendar.OCTOBER, 16, 14, 30);
+
+        assertThat(CareHistoryCompactor.horizonCutoff(now, 0, UTC))
+                .isEqualTo(utc(2026, Calendar.SEPTEMBER, 1, 0, 0));
+        assertThat(CareHistoryCompactor.horizonCutoff(now, -5, UTC))
+                .isEqualTo(utc(2026, Calendar.SEPTEMBER, 1, 0, 0));
+    }
+
+    @Test
+    public void horizonCutoff_usesLocalMonthStart() {
+        TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+        // 2026-10-01 02:00 UTC is still September 30 in New York
+        long now = utc(2026, Calendar.OCTOBER, 1, 2, 0);
+
+        Calendar expected = Calendar.getInstance(newYork);
+        expected.clear();
+        expected.set(2026, Calendar.AUGUST, 1);
+        assertThat(CareHistoryCompactor.horizonCutoff(now, 1, newYork))
+                .isEqualTo(expected.getTimeInMillis());
+    }
+
+    private static long utc(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance(UTC);
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
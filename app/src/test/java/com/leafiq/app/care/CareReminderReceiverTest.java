@@ -65,6 +65,28 @@ public class CareReminderReceiverTest {
                 .isEqualTo("com.leafiq.app.ACTION_MARK_ALL_DONE");
     }
 
+    // ==================== parseScheduleIds tests ====================
+
+    @Test
+    public void parseScheduleIds_trimsAndSkipsBlanks() {
+        assertThat(CareReminderReceiver.parseScheduleIds(" s1, s2,,s3 ,"))
+                .containsExactly("s1", "s2", "s3").inOrder();
+    }
+
+    // ==================== Broadcast budget tests ====================
+
+    @Test
+    public void formatBudgetUsage_reportsShareOfBudget() {
+        assertThat(CareReminderReceiver.formatBudgetUsage(420))
+                .isEqualTo("total 420 ms (4.2% of 10000 ms budget)");
+    }
+
+    @Test
+    public void formatBudgetUsage_overBudget_exceeds100Percent() {
+        assertThat(CareReminderReceiver.formatBudgetUsage(12_000))
+                .isEqualTo("total 12000 ms (120.0% of 10000 ms budget)");
+    }
+
     // ==================== Snooze calculation tests ====================
 
     @Test
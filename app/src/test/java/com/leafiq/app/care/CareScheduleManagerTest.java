@@ -13,20 +13,22 @@ import static org.mockito.Mockito.when;
 import android.app.AlarmManager;
 import android.content.Context;
 
-import com.leafiq.app.data.entity.CareCompletion;
 import com.leafiq.app.data.entity.CareItem;
 import com.leafiq.app.data.entity.CareSchedule;
+import com.leafiq.app.data.model.ScheduleReconciliation;
 import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.util.KeystoreHelper;
 
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.ArgumentCaptor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
 
 public class CareScheduleManagerTest {
 
@@ -34,6 +36,7 @@ public class CareScheduleManagerTest {
     private KeystoreHelper mockKeystoreHelper;
     private Context mockContext;
     private CareScheduleManager manager;
+    private ScheduleReconciliation lastReconciliation;
 
     @Before
     public void setUp() {
@@ -64,16 +67,13 @@ public class CareScheduleManagerTest {
     public void createSchedules_withNewWaterItem_createsNewSchedule() {
         String plantId = "plant-1";
         CareItem waterItem = createCareItem("water", 7, "1 cup");
-
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(new ArrayList<>());
+        stubReconcile(plantId, new ArrayList<>(), new HashMap<>());
 
         List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(plantId, Arrays.asList(waterItem));
 
         assertThat(needsPrompt).isEmpty();
-        // Verify insertSchedule was called
-        ArgumentCaptor<CareSchedule> captor = ArgumentCaptor.forClass(CareSchedule.class);
-        verify(mockRepository).insertSchedule(captor.capture(), any());
-        CareSchedule created = captor.getValue();
+        assertThat(lastReconciliation.upserts).hasSize(1);
+        CareSchedule created = lastReconciliation.upserts.get(0);
         assertThat(created.plantId).isEqualTo(plantId);
         assertThat(created.careType).isEqualTo("water");
         assertThat(created.frequencyDays).isEqualTo(7);
@@ -89,44 +89,40 @@ public class CareScheduleManagerTest {
         CareItem waterItem = createCareItem("water", 7, "1 cup");
         CareItem fertilizeItem = createCareItem("fertilize", 30, "NPK");
         CareItem repotItem = createCareItem("repot", 365, "Spring");
-
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(new ArrayList<>());
+        stubReconcile(plantId, new ArrayList<>(), new HashMap<>());
 
         List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(
                 plantId, Arrays.asList(waterItem, fertilizeItem, repotItem));
 
         assertThat(needsPrompt).isEmpty();
-        // Verify 3 inserts
-        verify(mockRepository, org.mockito.Mockito.times(3)).insertSchedule(any(), any());
+        // 3 schedules in one upsert batch
+        assertThat(lastReconciliation.upserts).hasSize(3);
     }
 
     @Test
     public void createSchedules_withPruneType_skipsIt() {
         String plantId = "plant-1";
         CareItem pruneItem = createCareItem("prune", 30, "Trim dead leaves");
-
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(new ArrayList<>());
+        stubReconcile(plantId, new ArrayList<>(), new HashMap<>());
 
         List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(
                 plantId, Arrays.asList(pruneItem));
 
         assertThat(needsPrompt).isEmpty();
-        verify(mockRepository, never()).insertSchedule(any(), any());
-        verify(mockRepository, never()).updateSchedule(any(), any());
+        assertThat(lastReconciliation.upserts).isEmpty();
     }
 
     @Test
     public void createSchedules_withUnknownType_skipsIt() {
         String plantId = "plant-1";
         CareItem unknownItem = createCareItem("mist", 1, "Daily misting");
-
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(new ArrayList<>());
+        stubReconcile(plantId, new ArrayList<>(), new HashMap<>());
 
         List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(
                 plantId, Arrays.asList(unknownItem));
 
         assertThat(needsPrompt).isEmpty();
-        verify(mockRepository, never()).insertSchedule(any(), any());
+        assertThat(lastReconciliation.upserts).isEmpty();
     }
 
     @Test
@@ -135,20 +131,16 @@ public class CareScheduleManagerTest {
         CareItem waterItem = createCareItem("water", 5, "New amount");
 
         CareSchedule existing = createExistingSchedule("s1", plantId, "water", 7, false);
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(Arrays.asList(existing));
-        when(mockRepository.getLastCompletionForScheduleSync("s1")).thenReturn(null);
+        stubReconcile(plantId, Arrays.asList(existing), new HashMap<>());
 
         List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(
                 plantId, Arrays.asList(waterItem));
 
         assertThat(needsPrompt).isEmpty();
-        // Verify update was called (not insert)
-        verify(mockRepository, never()).insertSchedule(any(), any());
-        ArgumentCaptor<CareSchedule> captor = ArgumentCaptor.forClass(CareSchedule.class);
-        verify(mockRepository).updateSchedule(captor.capture(), any());
-        CareSchedule updated = captor.getValue();
-        assertThat(updated.frequencyDays).isEqualTo(5);
-        assertThat(updated.notes).isEqualTo("New amount");
+        // Existing row is updated in place (same ID), not duplicated
+        assertThat(lastReconciliation.upserts).containsExactly(existing);
+        assertThat(existing.frequencyDays).isEqualTo(5);
+        assertThat(existing.notes).isEqualTo("New amount");
     }
 
     @Test
@@ -157,18 +149,13 @@ public class CareScheduleManagerTest {
         CareItem waterItem = createCareItem("water", 5, "notes");
 
         CareSchedule existing = createExistingSchedule("s1", plantId, "water", 7, false);
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(Arrays.asList(existing));
-
-        CareCompletion completion = new CareCompletion();
-        completion.id = "c1";
-        completion.completedAt = 1000000L;
-        when(mockRepository.getLastCompletionForScheduleSync("s1")).thenReturn(completion);
+        Map<String, Long> lastCompletedAt = new HashMap<>();
+        lastCompletedAt.put("s1", 1000000L);
+        stubReconcile(plantId, Arrays.asList(existing), lastCompletedAt);
 
         manager.createSchedulesFromCareItems(plantId, Arrays.asList(waterItem));
 
-        ArgumentCaptor<CareSchedule> captor = ArgumentCaptor.forClass(CareSchedule.class);
-        verify(mockRepository).updateSchedule(captor.capture(), any());
-        CareSchedule updated = captor.getValue();
+        CareSchedule updated = lastReconciliation.upserts.get(0);
         // nextDue = completedAt + (frequencyDays * MILLIS_PER_DAY)
         long expectedNextDue = 1000000L + (5 * 24 * 60 * 60 * 1000L);
         assertThat(updated.nextDue).isEqualTo(expectedNextDue);
@@ -180,14 +167,13 @@ public class CareScheduleManagerTest {
         CareItem waterItem = createCareItem("water", 7, "Same freq");
 
         CareSchedule existing = createExistingSchedule("s1", plantId, "water", 7, true);
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(Arrays.asList(existing));
+        stubReconcile(plantId, Arrays.asList(existing), new HashMap<>());
 
         List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(
                 plantId, Arrays.asList(waterItem));
 
         assertThat(needsPrompt).isEmpty();
-        verify(mockRepository, never()).insertSchedule(any(), any());
-        verify(mockRepository, never()).updateSchedule(any(), any());
+        assertThat(lastReconciliation.upserts).isEmpty();
     }
 
     @Test
@@ -197,7 +183,7 @@ public class CareScheduleManagerTest {
 
         CareSchedule existing = createExistingSchedule("s1", plantId, "water", 7, true);
         existing.notes = "Original notes";
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(Arrays.asList(existing));
+        stubReconcile(plantId, Arrays.asList(existing), new HashMap<>());
 
         List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(
                 plantId, Arrays.asList(waterItem));
@@ -205,9 +191,8 @@ public class CareScheduleManagerTest {
         assertThat(needsPrompt).hasSize(1);
         CareSchedule prompted = needsPrompt.get(0);
         assertThat(prompted.notes).isEqualTo("AI_RECOMMENDED:5|AI notes");
-        // Should NOT have called update or insert
-        verify(mockRepository, never()).insertSchedule(any(), any());
-        verify(mockRepository, never()).updateSchedule(any(), any());
+        // Should NOT have written anything
+        assertThat(lastReconciliation.upserts).isEmpty();
     }
 
     @Test
@@ -217,7 +202,7 @@ public class CareScheduleManagerTest {
 
         CareSchedule existing = createExistingSchedule("s1", plantId, "water", 7, true);
         existing.notes = "Original";
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(Arrays.asList(existing));
+        stubReconcile(plantId, Arrays.asList(existing), new HashMap<>());
 
         List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(
                 plantId, Arrays.asList(waterItem));
@@ -236,127 +221,139 @@ public class CareScheduleManagerTest {
                 createCareItem("mist", 1, "mist notes"),
                 createCareItem("repot", 365, "repot notes")
         );
-
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(new ArrayList<>());
+        stubReconcile(plantId, new ArrayList<>(), new HashMap<>());
 
         manager.createSchedulesFromCareItems(plantId, items);
 
-        // Should insert 3 schedules (water, fertilize, repot) and skip 2 (prune, mist)
-        verify(mockRepository, org.mockito.Mockito.times(3)).insertSchedule(any(), any());
+        // Should write 3 schedules (water, fertilize, repot) and skip 2 (prune, mist)
+        assertThat(lastReconciliation.upserts).hasSize(3);
+    }
+
+    @Test
+    public void createSchedules_duplicateType_createsOneSchedule() {
+        String plantId = "plant-1";
+        stubReconcile(plantId, new ArrayList<>(), new HashMap<>());
+
+        manager.createSchedulesFromCareItems(plantId, Arrays.asList(
+                createCareItem("water", 7, "first"),
+                createCareItem("water", 5, "second")));
+
+        assertThat(lastReconciliation.upserts).hasSize(1);
+        assertThat(lastReconciliation.upserts.get(0).frequencyDays).isEqualTo(5);
     }
 
     @Test
     public void createSchedules_emptyList_doesNothing() {
         String plantId = "plant-1";
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(new ArrayList<>());
+        stubReconcile(plantId, new ArrayList<>(), new HashMap<>());
 
         List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(
                 plantId, new ArrayList<>());
 
         assertThat(needsPrompt).isEmpty();
-        verify(mockRepository, never()).insertSchedule(any(), any());
-        verify(mockRepository, never()).updateSchedule(any(), any());
+        assertThat(lastReconciliation.upserts).isEmpty();
+    }
+
+    @Test
+    public void createSchedules_transactionFails_returnsEmptyAndStillSchedulesAlarm() {
+        String plantId = "plant-1";
+        when(mockRepository.reconcileSchedulesSync(eq(plantId), any()))
+                .thenThrow(new RuntimeException("DB error"));
+
+        List<CareSchedule> needsPrompt = manager.createSchedulesFromCareItems(
+                plantId, Arrays.asList(createCareItem("water", 7, "notes")));
+
+        assertThat(needsPrompt).isEmpty();
+        verify(manager).scheduleNextAlarm();
     }
 
     // ==================== toggleRemindersForPlant tests ====================
 
     @Test
-    public void toggleReminders_disable_updatesAllSchedules() {
+    public void toggleReminders_disable_updatesAllSchedulesInOneCall() {
         String plantId = "plant-1";
-        CareSchedule s1 = createExistingSchedule("s1", plantId, "water", 7, false);
-        CareSchedule s2 = createExistingSchedule("s2", plantId, "fertilize", 30, false);
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(Arrays.asList(s1, s2));
+        when(mockRepository.setRemindersEnabledForPlantsSync(Collections.singletonList(plantId), false))
+                .thenReturn(2);
 
         manager.toggleRemindersForPlant(plantId, false);
 
-        verify(mockRepository, org.mockito.Mockito.times(2)).updateSchedule(any(), any());
-        assertThat(s1.isEnabled).isFalse();
-        assertThat(s2.isEnabled).isFalse();
+        verify(mockRepository).setRemindersEnabledForPlantsSync(Collections.singletonList(plantId), false);
+        verify(mockRepository, never()).updateSchedule(any(), any());
+        verify(mockRepository, never()).getLastCompletionForScheduleSync(any());
     }
 
     @Test
-    public void toggleReminders_enable_recalculatesNextDue() {
+    public void toggleReminders_enable_recalculatesInSql() {
         String plantId = "plant-1";
-        CareSchedule s1 = createExistingSchedule("s1", plantId, "water", 7, false);
-        s1.isEnabled = false;
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(Arrays.asList(s1));
-        when(mockRepository.getLastCompletionForScheduleSync("s1")).thenReturn(null);
 
         manager.toggleRemindersForPlant(plantId, true);
 
-        assertThat(s1.isEnabled).isTrue();
-        // nextDue should be set to approximately now + 7 days
-        long sevenDaysMs = 7 * 24 * 60 * 60 * 1000L;
-        assertThat(s1.nextDue).isGreaterThan(System.currentTimeMillis() + sevenDaysMs - 5000);
-        verify(mockRepository).updateSchedule(any(), any());
+        // nextDue recomputation happens in the UPDATE, not per schedule in Java
+        verify(mockRepository).setRemindersEnabledForPlantsSync(Collections.singletonList(plantId), true);
+        verify(mockRepository, never()).getSchedulesByPlantIdSync(any());
+        verify(mockRepository, never()).getLastCompletionForScheduleSync(any());
     }
 
-    @Test
-    public void toggleReminders_enable_withCompletion_calculatesFromCompletion() {
-        String plantId = "plant-1";
-        CareSchedule s1 = createExistingSchedule("s1", plantId, "water", 7, false);
-        s1.isEnabled = false;
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(Arrays.asList(s1));
+    // ==================== setRemindersEnabledForLocation tests ====================
 
-        CareCompletion completion = new CareCompletion();
-        completion.id = "c1";
-        completion.completedAt = 2000000L;
-        when(mockRepository.getLastCompletionForScheduleSync("s1")).thenReturn(completion);
+    @Test
+    public void setRemindersEnabledForLocation_returnsUpdatedCount_andRearms() {
+        when(mockRepository.setRemindersEnabledForLocationSync("Balcony", false)).thenReturn(4);
 
-        manager.toggleRemindersForPlant(plantId, true);
+        int updated = manager.setRemindersEnabledForLocation("Balcony", false);
 
-        long expectedNextDue = 2000000L + (7 * 24 * 60 * 60 * 1000L);
-        assertThat(s1.nextDue).isEqualTo(expectedNextDue);
+        assertThat(updated).isEqualTo(4);
+        verify(manager).scheduleNextAlarm();
     }
 
     @Test
-    public void toggleReminders_emptySchedules_doesNotCrash() {
-        String plantId = "plant-1";
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(new ArrayList<>());
-
-        manager.toggleRemindersForPlant(plantId, true);
+    public void setRemindersEnabledForLocation_nothingUpdated_doesNotRearm() {
+        when(mockRepository.setRemindersEnabledForLocationSync("Attic", false)).thenReturn(0);
 
-        verify(mockRepository, never()).updateSchedule(any(), any());
+        assertThat(manager.setRemindersEnabledForLocation("Attic", false)).isEqualTo(0);
+        verify(manager, never()).scheduleNextAlarm();
     }
 
     // ==================== updateScheduleFrequency tests ====================
 
     @Test
-    public void updateFrequency_marksAsCustom() {
-        CareSchedule schedule = createExistingSchedule("s1", "p1", "water", 7, false);
-        when(mockRepository.getScheduleByIdSync("s1")).thenReturn(schedule);
-        when(mockRepository.getLastCompletionForScheduleSync("s1")).thenReturn(null);
+    public void updateFrequency_delegatesToSetBasedUpdate() {
+        when(mockRepository.updateScheduleFrequencySync("s1", 3)).thenReturn(true);
 
         manager.updateScheduleFrequency("s1", 3);
 
-        assertThat(schedule.frequencyDays).isEqualTo(3);
-        assertThat(schedule.isCustom).isTrue();
-        verify(mockRepository).updateSchedule(any(), any());
+        verify(mockRepository).updateScheduleFrequencySync("s1", 3);
+        verify(mockRepository, never()).updateSchedule(any(), any());
     }
 
     @Test
-    public void updateFrequency_recalculatesNextDueFromCompletion() {
-        CareSchedule schedule = createExistingSchedule("s1", "p1", "water", 7, false);
-        when(mockRepository.getScheduleByIdSync("s1")).thenReturn(schedule);
+    public void updateFrequency_scheduleNotFound_doesNothing() {
+        when(mockRepository.updateScheduleFrequencySync("nonexistent", 3)).thenReturn(false);
 
-        CareCompletion completion = new CareCompletion();
-        completion.id = "c1";
-        completion.completedAt = 5000000L;
-        when(mockRepository.getLastCompletionForScheduleSync("s1")).thenReturn(completion);
+        manager.updateScheduleFrequency("nonexistent", 3);
 
-        manager.updateScheduleFrequency("s1", 3);
+        verify(mockRepository, never()).updateSchedule(any(), any());
+        verify(manager, never()).scheduleNextAlarm();
+    }
 
-        long expectedNextDue = 5000000L + (3 * 24 * 60 * 60 * 1000L);
-        assertThat(schedule.nextDue).isEqualTo(expectedNextDue);
+    // ==================== recalculateNextDue tests ====================
+
+    @Test
+    public void recalculateNextDue_rearmsWhenUpdated() {
+        when(mockRepository.recalculateNextDueSync("s1")).thenReturn(true);
+
+        manager.recalculateNextDue("s1");
+
+        verify(manager).scheduleNextAlarm();
     }
 
     @Test
-    public void updateFrequency_scheduleNotFound_doesNothing() {
-        when(mockRepository.getScheduleByIdSync("nonexistent")).thenReturn(null);
+    public void recalculateNextDue_scheduleNotFound_doesNotRearm() {
+        when(mockRepository.recalculateNextDueSync("missing")).thenReturn(false);
 
-        manager.updateScheduleFrequency("nonexistent", 3);
+        manager.recalculateNextDue("missing");
 
-        verify(mockRepository, never()).updateSchedule(any(), any());
+        verify(manager, never()).scheduleNextAlarm();
     }
 
     // ==================== alarm scheduling interaction tests ====================
@@ -364,7 +361,7 @@ public class CareScheduleManagerTest {
     @Test
     public void createSchedules_callsScheduleNextAlarm() {
         String plantId = "plant-1";
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(new ArrayList<>());
+        stubReconcile(plantId, new ArrayList<>(), new HashMap<>());
 
         manager.createSchedulesFromCareItems(plantId, new ArrayList<>());
 
@@ -375,7 +372,6 @@ public class CareScheduleManagerTest {
     @Test
     public void toggleReminders_callsScheduleNextAlarm() {
         String plantId = "plant-1";
-        when(mockRepository.getSchedulesByPlantIdSync(plantId)).thenReturn(new ArrayList<>());
 
         manager.toggleRemindersForPlant(plantId, true);
 
@@ -384,9 +380,7 @@ public class CareScheduleManagerTest {
 
     @Test
     public void updateFrequency_callsScheduleNextAlarm() {
-        CareSchedule schedule = createExistingSchedule("s1", "p1", "water", 7, false);
-        when(mockRepository.getScheduleByIdSync("s1")).thenReturn(schedule);
-        when(mockRepository.getLastCompletionForScheduleSync("s1")).thenReturn(null);
+        when(mockRepository.updateScheduleFrequencySync("s1", 3)).thenReturn(true);
 
         manager.updateScheduleFrequency("s1", 3);
 
@@ -406,8 +400,156 @@ public class CareScheduleManagerTest {
         verify(freshManager, never()).scheduleNextAlarm();
     }
 
+    // ==================== next alarm time tests ====================
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long DAY = 24 * HOUR;
+    // 2023-11-14 00:00 UTC
+    private static final long MIDNIGHT = 1_699_920_000_000L;
+    private static final int NINE_AM = 9 * 60;
+    private static final int NINE_PM = 21 * 60;
+    private static final int SEVEN_AM = 7 * 60;
+    private static final int EIGHT_PM = 20 * 60;
+
+    @Test
+    public void computeNextAlarmTime_noSchedules_returnsNull() {
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                MIDNIGHT + 10 * HOUR, null, null, NINE_AM, NINE_PM, NINE_AM, UTC)).isNull();
+    }
+
+    @Test
+    public void computeNextAlarmTime_nothingOverdue_firesAtNextDue() {
+        long now = MIDNIGHT + 10 * HOUR;
+        long due = MIDNIGHT + 14 * HOUR + 30 * 60 * 1000L;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(now, due, due, NINE_AM, NINE_PM, NINE_AM, UTC))
+                .isEqualTo(due);
+    }
+
+    @Test
+    public void computeNextAlarmTime_snoozedSixHours_firesWhenSnoozeEnds() {
+        long now = MIDNIGHT + 10 * HOUR;
+        long snoozedUntil = now + 6 * HOUR;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                now, snoozedUntil, snoozedUntil, NINE_AM, NINE_PM, NINE_AM, UTC)).isEqualTo(snoozedUntil);
+    }
+
+    @Test
+    public void computeNextAlarmTime_overdue_remindsAtNextPreferredTime() {
+        long now = MIDNIGHT + 10 * HOUR;
+        long overdue = MIDNIGHT - HOUR;
+        long farFuture = MIDNIGHT + 5 * DAY;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                now, overdue, farFuture, NINE_AM, NINE_PM, NINE_AM, UTC)).isEqualTo(MIDNIGHT + DAY + 9 * HOUR);
+    }
+
+    @Test
+    public void computeNextAlarmTime_overdueOnly_remindsAtNextPreferredTime() {
+        long now = MIDNIGHT + 8 * HOUR;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                now, MIDNIGHT - DAY, null, NINE_AM, NINE_PM, NINE_AM, UTC)).isEqualTo(MIDNIGHT + 9 * HOUR);
+    }
+
+    @Test
+    public void computeNextAlarmTime_overdue_earlierUpcomingEventWins() {
+        long now = MIDNIGHT + 10 * HOUR;
+        long upcoming = MIDNIGHT + 15 * HOUR;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                now, MIDNIGHT + 8 * HOUR, upcoming, NINE_AM, NINE_PM, NINE_AM, UTC)).isEqualTo(upcoming);
+    }
+
+    @Test
+    public void computeNextAlarmTime_dueInQuietHours_movedToEndOfQuietHours() {
+        long now = MIDNIGHT + 10 * HOUR;
+        long lateEvening = MIDNIGHT + 23 * HOUR;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                now, lateEvening, lateEvening, NINE_AM, NINE_PM, SEVEN_AM, UTC))
+                .isEqualTo(MIDNIGHT + DAY + 7 * HOUR);
+    }
+
+    @Test
+    public void computeNextAlarmTime_quietHoursOff_nightEventMovedToPreferredTime() {
+        long now = MIDNIGHT + 10 * HOUR;
+        long night = MIDNIGHT + DAY + 3 * HOUR;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                now, night, night, NINE_AM, 0, 0, UTC)).isEqualTo(MIDNIGHT + DAY + 9 * HOUR);
+    }
+
+    @Test
+    public void computeNextAlarmTime_quietHoursOff_afternoonEventWaitsForNextPreferredTime() {
+        long now = MIDNIGHT + 10 * HOUR;
+        long afternoon = MIDNIGHT + 14 * HOUR;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                now, afternoon, afternoon, NINE_AM, 0, 0, UTC)).isEqualTo(MIDNIGHT + DAY + 9 * HOUR);
+    }
+
+    @Test
+    public void computeNextAlarmTime_quietHoursOff_eventAtPreferredTimeUnchanged() {
+        long now = MIDNIGHT + 8 * HOUR;
+        long due = MIDNIGHT + 9 * HOUR;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                now, due, due, NINE_AM, 0, 0, UTC)).isEqualTo(due);
+    }
+
+    @Test
+    public void computeNextAlarmTime_preferredTimeBeforeQuietHours_notClamped() {
+        // Quiet hours are independent of the preferred time: an 8 PM daily reminder stays at 8 PM
+        long now = MIDNIGHT + 10 * HOUR;
+
+        assertThat(CareScheduleManager.computeNextAlarmTime(
+                now, MIDNIGHT - DAY, null, EIGHT_PM, NINE_PM, SEVEN_AM, UTC))
+                .isEqualTo(MIDNIGHT + 20 * HOUR);
+    }
+
+    @Test
+    public void clampOutOfQuietHours_afterMidnight_movedToSameMorning() {
+        assertThat(CareScheduleManager.clampOutOfQuietHours(
+                MIDNIGHT + 3 * HOUR, NINE_PM, NINE_AM, UTC)).isEqualTo(MIDNIGHT + 9 * HOUR);
+    }
+
+    @Test
+    public void clampOutOfQuietHours_atQuietEnd_unchanged() {
+        assertThat(CareScheduleManager.clampOutOfQuietHours(
+                MIDNIGHT + 9 * HOUR, NINE_PM, NINE_AM, UTC)).isEqualTo(MIDNIGHT + 9 * HOUR);
+    }
+
+    @Test
+    public void clampOutOfQuietHours_windowWithinDay_movedToWindowEnd() {
+        assertThat(CareScheduleManager.clampOutOfQuietHours(
+                MIDNIGHT + 2 * HOUR, 60, 6 * 60, UTC)).isEqualTo(MIDNIGHT + 6 * HOUR);
+        assertThat(CareScheduleManager.clampOutOfQuietHours(
+                MIDNIGHT + 7 * HOUR, 60, 6 * 60, UTC)).isEqualTo(MIDNIGHT + 7 * HOUR);
+    }
+
+    @Test
+    public void clampOutOfQuietHours_emptyWindow_unchanged() {
+        assertThat(CareScheduleManager.clampOutOfQuietHours(
+                MIDNIGHT + 23 * HOUR, NINE_AM, NINE_AM, UTC)).isEqualTo(MIDNIGHT + 23 * HOUR);
+    }
+
     // ==================== Helper methods ====================
 
+    /**
+     * Makes the mocked repository run the manager's planner against the given state,
+     * as the real transaction would, and keeps the result in lastReconciliation.
+     */
+    private void stubReconcile(String plantId, List<CareSchedule> existing, Map<String, Long> lastCompletedAt) {
+        when(mockRepository.reconcileSchedulesSync(eq(plantId), any())).thenAnswer(invocation -> {
+            ScheduleReconciliation.Planner planner = invocation.getArgument(1);
+            lastReconciliation = planner.plan(existing, lastCompletedAt);
+            return lastReconciliation;
+        });
+    }
+
     private CareItem createCareItem(String type, int frequencyDays, String notes) {
         CareItem item = new CareItem();
         item.id = "ci-" + type;
@@ -1,6 +1,8 @@
 package com.leafiq.app.care;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,19 +12,29 @@ import static org.mockito.Mockito.times;
 import android.app.Notification;
 import android.app.NotificationManager;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.service.notification.StatusBarNotification;
 
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.ScheduleWithPlant;
 
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Unit tests for NotificationHelper utility methods.
- * Tests getCareEmoji, getCareVerb, getPlantDisplayName, and DueScheduleInfo.
+ * Tests getCareEmoji, getCareVerb, getPlantDisplayName, DueScheduleInfo and notification diffing.
  */
 public class NotificationHelperTest {
 
@@ -137,6 +149,25 @@ public class NotificationHelperTest {
         assertThat(info.plant.commonName).isEqualTo("Pothos");
     }
 
+    @Test
+    public void dueScheduleInfo_fromJoinRow_copiesPlantDisplayColumns() {
+        ScheduleWithPlant row = new ScheduleWithPlant();
+        row.schedule.id = "s1";
+        row.schedule.plantId = "p1";
+        row.schedule.careType = "water";
+        row.plantCommonName = "Pothos";
+        row.plantNickname = "Potty";
+        row.plantThumbnailPath = "/thumbs/p1.jpg";
+
+        NotificationHelper.DueScheduleInfo info = new NotificationHelper.DueScheduleInfo(row);
+
+        assertThat(info.schedule).isSameInstanceAs(row.schedule);
+        assertThat(info.plant.id).isEqualTo("p1");
+        assertThat(info.plant.commonName).isEqualTo("Pothos");
+        assertThat(info.plant.nickname).isEqualTo("Potty");
+        assertThat(info.plant.thumbnailPath).isEqualTo("/thumbs/p1.jpg");
+    }
+
     // ==================== Constants tests ====================
 
     @Test
@@ -159,6 +190,54 @@ public class NotificationHelperTest {
         assertThat(NotificationHelper.GROUP_KEY).isEqualTo("com.leafiq.app.CARE_REMINDERS");
     }
 
+    // ==================== diffNotifications tests ====================
+
+    @Test
+    public void diffNotifications_nothingPosted_postsAllVisible() {
+        List<NotificationHelper.DueScheduleInfo> visible = Arrays.asList(
+                dueInfo("s1", "water", "Pothos"), dueInfo("s2", "fertilize", "Fern"));
+
+        NotificationHelper.NotificationDiff diff =
+                NotificationHelper.diffNotifications(new HashMap<>(), visible);
+
+        assertThat(diff.toPost).containsExactlyElementsIn(visible).inOrder();
+        assertThat(diff.toCancel).isEmpty();
+        assertThat(diff.unchanged).isEqualTo(0);
+    }
+
+    @Test
+    public void diffNotifications_postsOnlyNewOrChanged_cancelsStale() {
+        NotificationHelper.DueScheduleInfo same = dueInfo("s1", "water", "Pothos");
+        NotificationHelper.DueScheduleInfo renamed = dueInfo("s2", "water", "Fern");
+        NotificationHelper.DueScheduleInfo added = dueInfo("s3", "repot", "Cactus");
+
+        Map<String, Integer> posted = new HashMap<>();
+        posted.put("s1", NotificationHelper.contentHash(same));
+        posted.put("s2", NotificationHelper.contentHash(dueInfo("s2", "water", "Old name")));
+        posted.put("gone", 42);
+
+        NotificationHelper.NotificationDiff diff = NotificationHelper.diffNotifications(
+                posted, Arrays.asList(same, renamed, added));
+
+        assertThat(diff.toPost).containsExactly(renamed, added).inOrder();
+        assertThat(diff.toCancel).containsExactly("gone");
+        assertThat(diff.unchanged).isEqualTo(1);
+    }
+
+    @Test
+    public void summaryHash_changesWithHiddenOverflowItems() {
+        List<NotificationHelper.DueScheduleInfo> due = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            due.add(dueInfo("s" + i, "water", "Plant " + i));
+        }
+        int sixDue = NotificationHelper.summaryHash(due);
+
+        due.add(dueInfo("s6", "water", "Plant 6"));
+
+        // Only the count and the mark-all-done IDs differ; the summary must still be re-posted
+        assertThat(NotificationHelper.summaryHash(due)).isNotEqualTo(sixDue);
+    }
+
     // ==================== dismissNotification tests ====================
 
     @Test
@@ -167,11 +246,9 @@ public class NotificationHelperTest {
         Context mockContext = mock(Context.class);
         NotificationManager mockNM = mock(NotificationManager.class);
 
-        // Setup context to return NotificationManager
+        // Setup context to return NotificationManager and the posted-notification record
         when(mockContext.getSystemService(Context.NOTIFICATION_SERVICE)).thenReturn(mockNM);
-
-        // Mock getActiveNotifications to return empty (no children remaining)
-        when(mockNM.getActiveNotifications()).thenReturn(new StatusBarNotification[0]);
+        stubStateStore(mockContext);
 
         String scheduleId = "test-schedule-123";
         int expectedNotificationId = scheduleId.hashCode();
@@ -183,6 +260,41 @@ public class NotificationHelperTest {
         verify(mockNM).cancel(expectedNotificationId);
     }
 
+    @Test
+    public void dismissNotifications_cancelsEachChildThenSummaryOnce() {
+        Context mockContext = mock(Context.class);
+        NotificationManager mockNM = mock(NotificationManager.class);
+        when(mockContext.getSystemService(Context.NOTIFICATION_SERVICE)).thenReturn(mockNM);
+        NotificationStateStore store = stubStateStore(mockContext);
+        store.update(postedHashes("s1", "s2", "s3"), Collections.emptyList(), 7);
+
+        NotificationHelper.dismissNotifications(mockContext, Arrays.asList("s1", "s2", "s3"));
+
+        verify(mockNM).cancel("s1".hashCode());
+        verify(mockNM).cancel("s2".hashCode());
+        verify(mockNM).cancel("s3".hashCode());
+        verify(mockNM, times(1)).cancel(NotificationHelper.SUMMARY_NOTIFICATION_ID);
+        verify(mockNM, never()).getActiveNotifications();
+        assertThat(store.getPostedChildCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void onNotificationDismissed_forgetsChild_withoutCancelling() {
+        Context mockContext = mock(Context.class);
+        NotificationManager mockNM = mock(NotificationManager.class);
+        when(mockContext.getSystemService(Context.NOTIFICATION_SERVICE)).thenReturn(mockNM);
+        NotificationStateStore store = stubStateStore(mockContext);
+        store.update(postedHashes("s1"), Collections.emptyList(), 7);
+
+        NotificationHelper.onNotificationDismissed(mockContext, "s1");
+
+        // Already gone on screen - only the record and the summary change
+        verify(mockNM, never()).cancel("s1".hashCode());
+        verify(mockNM).cancel(NotificationHelper.SUMMARY_NOTIFICATION_ID);
+        assertThat(store.getPostedChildren()).isEmpty();
+        assertThat(store.getSummaryHash()).isNull();
+    }
+
     // ==================== checkAndUpdateSummary tests ====================
 
     @Test
@@ -191,12 +303,9 @@ public class NotificationHelperTest {
         Context mockContext = mock(Context.class);
         NotificationManager mockNM = mock(NotificationManager.class);
 
-        // Mock getActiveNotifications returning only the summary (ID 9999)
-        StatusBarNotification summaryNotification = createMockNotification(
-                NotificationHelper.SUMMARY_NOTIFICATION_ID,
-                NotificationHelper.GROUP_KEY
-        );
-        when(mockNM.getActiveNotifications()).thenReturn(new StatusBarNotification[]{summaryNotification});
+        // Record holds only the summary, no children
+        NotificationStateStore store = stubStateStore(mockContext);
+        store.update(new HashMap<>(), Collections.emptyList(), 7);
 
         // Call checkAndUpdateSummary
         NotificationHelper.checkAndUpdateSummary(mockContext, mockNM);
@@ -211,17 +320,9 @@ public class NotificationHelperTest {
         Context mockContext = mock(Context.class);
         NotificationManager mockNM = mock(NotificationManager.class);
 
-        // Mock getActiveNotifications returning summary + 2 children
-        StatusBarNotification summaryNotification = createMockNotification(
-                NotificationHelper.SUMMARY_NOTIFICATION_ID,
-                NotificationHelper.GROUP_KEY
-        );
-        StatusBarNotification child1 = createMockNotification(100, NotificationHelper.GROUP_KEY);
-        StatusBarNotification child2 = createMockNotification(200, NotificationHelper.GROUP_KEY);
-
-        when(mockNM.getActiveNotifications()).thenReturn(
-                new StatusBarNotification[]{summaryNotification, child1, child2}
-        );
+        // Record holds summary + 2 children
+        NotificationStateStore store = stubStateStore(mockContext);
+        store.update(postedHashes("s1", "s2"), Collections.emptyList(), 7);
 
         // Note: We can't test the actual notification building in unit tests (requires Android framework)
         // But we can verify that cancel() is NOT called when children remain
@@ -237,16 +338,17 @@ public class NotificationHelperTest {
 
         // Verify summary was NOT cancelled (children remaining)
         verify(mockNM, never()).cancel(NotificationHelper.SUMMARY_NOTIFICATION_ID);
+        verify(mockNM, never()).getActiveNotifications();
     }
 
     @Test
-    public void checkAndUpdateSummary_emptyNotificationsDismissesSummary() {
+    public void checkAndUpdateSummary_emptyRecordDismissesSummary() {
         // Create mocks
         Context mockContext = mock(Context.class);
         NotificationManager mockNM = mock(NotificationManager.class);
 
-        // Mock getActiveNotifications returning empty array
-        when(mockNM.getActiveNotifications()).thenReturn(new StatusBarNotification[0]);
+        // Nothing recorded as posted
+        stubStateStore(mockContext);
 
         // Call checkAndUpdateSummary
         NotificationHelper.checkAndUpdateSummary(mockContext, mockNM);
@@ -265,6 +367,8 @@ public class NotificationHelperTest {
 
         // Setup context to return NotificationManager
         when(mockContext.getSystemService(Context.NOTIFICATION_SERVICE)).thenReturn(mockNM);
+        NotificationStateStore store = stubStateStore(mockContext);
+        store.update(postedHashes("s1", "s2"), Collections.emptyList(), 7);
 
         // Mock getActiveNotifications with 3 notifications in group
         StatusBarNotification summary = createMockNotification(9999, NotificationHelper.GROUP_KEY);
@@ -282,6 +386,35 @@ public class NotificationHelperTest {
         verify(mockNM).cancel(9999);
         verify(mockNM).cancel(100);
         verify(mockNM).cancel(200);
+        assertThat(store.getPostedChildCount()).isEqualTo(0);
+        assertThat(store.getSummaryHash()).isNull();
+    }
+
+    // ==================== NotificationStateStore tests ====================
+
+    @Test
+    public void stateStore_update_recordsPostedAndDropsCancelled() {
+        NotificationStateStore store = new NotificationStateStore(new InMemoryPreferences());
+        store.update(postedHashes("s1", "s2"), Collections.emptyList(), 7);
+
+        Map<String, Integer> posted = new HashMap<>();
+        posted.put("s3", 3);
+        store.update(posted, Collections.singletonList("s1"), 8);
+
+        assertThat(store.getPostedChildren().keySet()).containsExactly("s2", "s3");
+        assertThat(store.getPostedChildren().get("s3")).isEqualTo(3);
+        assertThat(store.getSummaryHash()).isEqualTo(8);
+    }
+
+    @Test
+    public void stateStore_removeChildren_dropsSummaryHash() {
+        NotificationStateStore store = new NotificationStateStore(new InMemoryPreferences());
+        store.update(postedHashes("s1", "s2"), Collections.emptyList(), 7);
+
+        store.removeChildren(Collections.singletonList("s1"));
+
+        assertThat(store.getPostedChildCount()).isEqualTo(1);
+        assertThat(store.getSummaryHash()).isNull();
     }
 
     // ==================== Reflection helpers ====================
@@ -317,4 +450,80 @@ public class NotificationHelperTest {
 
         return sbn;
     }
+
+    private NotificationHelper.DueScheduleInfo dueInfo(String scheduleId, String careType, String name) {
+        CareSchedule schedule = new CareSchedule();
+        schedule.id = scheduleId;
+        schedule.careType = careType;
+        Plant plant = new Plant();
+        plant.commonName = name;
+        return new NotificationHelper.DueScheduleInfo(schedule, plant);
+    }
+
+    private Map<String, Integer> postedHashes(String... scheduleIds) {
+        Map<String, Integer> posted = new HashMap<>();
+        for (String scheduleId : scheduleIds) {
+            posted.put(scheduleId, scheduleId.hashCode());
+        }
+        return posted;
+    }
+
+    /**
+     * Backs the context's SharedPreferences with an in-memory map and returns a store over it.
+     */
+    private NotificationStateStore stubStateStore(Context mockContext) {
+        InMemoryPreferences prefs = new InMemoryPreferences();
+        when(mockContext.getSharedPreferences(anyString(), anyInt())).thenReturn(prefs);
+        return new NotificationStateStore(prefs);
+    }
+
+    /**
+     * Minimal in-memory SharedPreferences: int values, remove, clear.
+     */
+    private static class InMemoryPreferences implements SharedPreferences {
+        private final Map<String, Object> data = new HashMap<>();
+
+        @Override public Map<String, ?> getAll() { return new HashMap<>(data); }
+        @Override public int getInt(String key, int defValue) {
+            Object value = data.get(key);
+            return value != null ? (Integer) value : defValue;
+        }
+        @Override public boolean contains(String key) { return data.containsKey(key); }
+        @Override public Editor edit() { return new InMemoryEditor(); }
+
+        // Unused methods - not needed for tests
+        @Override public String getString(String key, String defValue) { return defValue; }
+        @Override public Set<String> getStringSet(String key, Set<String> defValues) { return defValues; }
+        @Override public long getLong(String key, long defValue) { return defValue; }
+        @Override public float getFloat(String key, float defValue) { return defValue; }
+        @Override public boolean getBoolean(String key, boolean defValue) { return defValue; }
+        @Override public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {}
+        @Override public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {}
+
+        private class InMemoryEditor implements Editor {
+            private final Map<String, Object> puts = new HashMap<>();
+            private final Set<String> removals = new HashSet<>();
+            private boolean clearAll;
+
+            @Override public Editor putInt(String key, int value) { puts.put(key, value); return this; }
+            @Override public Editor remove(String key) { removals.add(key); return this; }
+            @Override public Editor clear() { clearAll = true; return this; }
+            @Override public boolean commit() {
+                if (clearAll) {
+                    data.clear();
+                }
+                data.keySet().removeAll(removals);
+                data.putAll(puts);
+                return true;
+            }
+            @Override public void apply() { commit(); }
+
+            // Unused methods - not needed for tests
+            @Override public Editor putString(String key, String value) { return this; }
+            @Override public Editor putStringSet(String key, Set<String> values) { return this; }
+            @Override public Editor putLong(String key, long value) { return this; }
+            @Override public Editor putFloat(String key, float value) { return this; }
+            @Override public Editor putBoolean(String key, boolean value) { return this; }
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package com.leafiq.app.data.model;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.leafiq.app.data.entity.AnalysisAction;
+import com.leafiq.app.util.JsonParser;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class AnalysisWithDetailsTest {
+
+    private static final String PLANT_JSON = "{\"identification\":{\"commonName\":\"Monstera\","
+            + "\"scientificName\":\"Monstera deliciosa\",\"confidence\":\"high\",\"notes\":\"\"},"
+            + "\"healthAssessment\":{\"score\":6,\"summary\":\"Some yellowing\",\"issues\":["
+            + "{\"name\":\"Overwatering\",\"severity\":\"medium\",\"description\":\"Soggy soil\",\"affectedArea\":\"roots\"},"
+            + "{\"name\":\"Sunburn\",\"severity\":\"low\",\"description\":\"Pale spots\",\"affectedArea\":\"leaves\"}]},"
+            + "\"immediateActions\":[{\"action\":\"Let soil dry\",\"priority\":\"urgent\",\"detail\":\"\"}],"
+            + "\"carePlan\":{\"watering\":{\"frequency\":\"Weekly\",\"amount\":\"200ml\",\"notes\":\"\"},"
+            + "\"light\":{\"ideal\":\"Bright indirect\",\"current\":\"\",\"adjustment\":\"\"},"
+            + "\"pruning\":{\"needed\":true,\"instructions\":\"Remove yellow leaves\",\"when\":\"Now\"},"
+            + "\"seasonal\":\"Less water in winter\"},"
+            + "\"funFact\":\"Holes resist wind\"}";
+
+    @Test
+    public void fromResult_thenToResult_roundTripsStructuredFields() throws JSONException {
+        PlantAnalysisResult original = JsonParser.parsePlantAnalysis(PLANT_JSON);
+
+        PlantAnalysisResult restored = AnalysisWithDetails.fromResult("a1", original).toResult();
+
+        assertThat(restored.rawResponse).isNull();
+        assertThat(restored.identification.commonName).isEqualTo("Monstera");
+        assertThat(restored.identification.scientificName).isEqualTo("Monstera deliciosa");
+        assertThat(restored.identification.confidence).isEqualTo("high");
+        assertThat(restored.healthAssessment.issues).hasSize(2);
+        assertThat(restored.healthAssessment.issues.get(1).name).isEqualTo("Sunburn");
+        assertThat(restored.healthAssessment.issues.get(0).affectedArea).isEqualTo("roots");
+        assertThat(restored.immediateActions).hasSize(1);
+        assertThat(restored.immediateActions.get(0).priority).isEqualTo("urgent");
+        assertThat(restored.carePlan.watering.amount).isEqualTo("200ml");
+        assertThat(restored.carePlan.light.ideal).isEqualTo("Bright indirect");
+        assertThat(restored.carePlan.fertilizer).isNull();
+        assertThat(restored.carePlan.pruning.needed).isTrue();
+        assertThat(restored.carePlan.pruning.instructions).isEqualTo("Remove yellow leaves");
+        assertThat(restored.carePlan.repotting).isNull();
+        assertThat(restored.carePlan.seasonal).isEqualTo("Less water in winter");
+        assertThat(restored.funFact).isEqualTo("Holes resist wind");
+    }
+
+    @Test
+    public void fromResult_assignsAnalysisIdAndPositions() throws JSONException {
+        AnalysisWithDetails details = AnalysisWithDetails.fromResult(
+                "a1", JsonParser.parsePlantAnalysis(PLANT_JSON));
+
+        assertThat(details.detail.analysisId).isEqualTo("a1");
+        assertThat(details.issues.get(0).analysisId).isEqualTo("a1");
+        assertThat(details.issues.get(0).position).isEqualTo(0);
+        assertThat(details.issues.get(1).position).isEqualTo(1);
+        assertThat(details.actions.get(0).analysisId).isEqualTo("a1");
+    }
+
+    @Test
+    public void fromResult_nullResult_producesEmptyDetailRow() {
+        AnalysisWithDetails details = AnalysisWithDetails.fromResult("a1", null);
+
+        assertThat(details.detail.analysisId).isEqualTo("a1");
+        assertThat(details.issues).isEmpty();
+        assertThat(details.actions).isEmpty();
+
+        PlantAnalysisResult restored = details.toResult();
+        assertThat(restored.identification).isNull();
+        assertThat(restored.healthAssessment).isNull();
+        assertThat(restored.carePlan).isNull();
+        assertThat(restored.immediateActions).isEmpty();
+    }
+
+    @Test
+    public void toResult_ordersRowsByPosition() {
+        AnalysisWithDetails details = AnalysisWithDetails.fromResult("a1", null);
+        details.actions = Arrays.asList(action(1, "Second"), action(0, "First"));
+
+        PlantAnalysisResult restored = details.toResult();
+
+        assertThat(restored.immediateActions.get(0).action).isEqualTo("First");
+        assertThat(restored.immediateActions.get(1).action).isEqualTo("Second");
+    }
+
+    private AnalysisAction action(int position, String text) {
+        AnalysisAction action = new AnalysisAction();
+        action.analysisId = "a1";
+        action.position = position;
+        action.action = text;
+        return action;
+    }
+}
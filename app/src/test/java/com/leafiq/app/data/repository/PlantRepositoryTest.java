@@ -2,6 +2,9 @@ package com.leafiq.app.data.repository;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -12,20 +15,28 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.leafiq.app.data.db.AnalysisDao;
+import com.leafiq.app.data.db.AnalysisDetailDao;
 import com.leafiq.app.data.db.CareCompletionDao;
 import com.leafiq.app.data.db.CareItemDao;
 import com.leafiq.app.data.db.CareScheduleDao;
 import com.leafiq.app.data.db.PlantDao;
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.entity.CareItem;
+import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.AnalysisSummary;
+import com.leafiq.app.data.model.AnalysisWithDetails;
 import com.leafiq.app.data.model.AnalysisWithPlant;
+import com.leafiq.app.data.model.PlantAnalysisResult;
+import com.leafiq.app.data.model.ScheduleWithPlant;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -34,6 +45,7 @@ public class PlantRepositoryTest {
 
     private PlantDao mockPlantDao;
     private AnalysisDao mockAnalysisDao;
+    private AnalysisDetailDao mockAnalysisDetailDao;
     private CareItemDao mockCareItemDao;
     private CareScheduleDao mockCareScheduleDao;
     private CareCompletionDao mockCareCompletionDao;
@@ -43,12 +55,13 @@ public class PlantRepositoryTest {
     public void setUp() {
         mockPlantDao = mock(PlantDao.class);
         mockAnalysisDao = mock(AnalysisDao.class);
+        mockAnalysisDetailDao = mock(AnalysisDetailDao.class);
         mockCareItemDao = mock(CareItemDao.class);
         mockCareScheduleDao = mock(CareScheduleDao.class);
         mockCareCompletionDao = mock(CareCompletionDao.class);
         // Synchronous executor for tests
-        repository = new PlantRepository(mockPlantDao, mockAnalysisDao, mockCareItemDao,
-                mockCareScheduleDao, mockCareCompletionDao, Runnable::run);
+        repository = new PlantRepository(mockPlantDao, mockAnalysisDao, mockAnalysisDetailDao,
+                mockCareItemDao, mockCareScheduleDao, mockCareCompletionDao, Runnable::run);
     }
 
     // ==================== deletePlant tests ====================
@@ -180,6 +193,19 @@ public class PlantRepositoryTest {
         assertThat(successCalled.get()).isTrue();
     }
 
+    @Test
+    public void updateAnalysisHealthScore_updatesOnlyScore_andCallbackSuccess() {
+        AtomicBoolean successCalled = new AtomicBoolean(false);
+        repository.updateAnalysisHealthScore("a1", 4, new PlantRepository.RepositoryCallback<Void>() {
+            @Override public void onSuccess(Void result) { successCalled.set(true); }
+            @Override public void onError(Exception e) {}
+        });
+
+        verify(mockAnalysisDao).updateHealthScore("a1", 4);
+        verify(mockAnalysisDao, never()).updateAnalysis(any());
+        assertThat(successCalled.get()).isTrue();
+    }
+
     // ==================== deleteAnalysis tests ====================
 
     @Test
@@ -325,6 +351,17 @@ public class PlantRepositoryTest {
         verify(mockAnalysisDao).getAnalysesWithPlantForPlant("p1");
     }
 
+    @Test
+    public void getAnalysisSummariesForPlant_delegatesToAnalysisDao() {
+        MutableLiveData<List<AnalysisSummary>> expected = new MutableLiveData<>();
+        when(mockAnalysisDao.getAnalysisSummariesForPlant("p1")).thenReturn(expected);
+
+        LiveData<List<AnalysisSummary>> result = repository.getAnalysisSummariesForPlant("p1");
+
+        assertThat(result).isSameInstanceAs(expected);
+        verify(mockAnalysisDao).getAnalysisSummariesForPlant("p1");
+    }
+
     // ==================== Sync read delegation tests ====================
 
     @Test
@@ -338,6 +375,18 @@ public class PlantRepositoryTest {
         verify(mockPlantDao).getPlantByIdSync("p1");
     }
 
+    @Test
+    public void getDueSchedulesWithPlantSync_queriesOpenEndedRangeUpToTimestamp() {
+        List<ScheduleWithPlant> expected = new ArrayList<>();
+        when(mockCareScheduleDao.getEnabledSchedulesWithPlantDueBetweenSync(Long.MIN_VALUE, 5000L))
+                .thenReturn(expected);
+
+        List<ScheduleWithPlant> result = repository.getDueSchedulesWithPlantSync(5000L);
+
+        assertThat(result).isSameInstanceAs(expected);
+        verify(mockCareScheduleDao).getEnabledSchedulesWithPlantDueBetweenSync(Long.MIN_VALUE, 5000L);
+    }
+
     @Test
     public void getRecentAnalysesSync_delegatesToAnalysisDao() {
         List<Analysis> expected = new ArrayList<>();
@@ -361,6 +410,39 @@ public class PlantRepositoryTest {
         verify(mockAnalysisDao).getAnalysisById("a1");
     }
 
+    @Test
+    public void getStructuredAnalysisSync_readsNormalisedRows_withoutParsing() {
+        AnalysisWithDetails stored = new AnalysisWithDetails();
+        stored.detail.analysisId = "a1";
+        stored.detail.commonName = "Monstera";
+        when(mockAnalysisDetailDao.getAnalysisWithDetailsSync("a1")).thenReturn(stored);
+
+        PlantAnalysisResult result = repository.getStructuredAnalysisSync("a1");
+
+        assertThat(result.identification.commonName).isEqualTo("Monstera");
+        verify(mockAnalysisDao, never()).getAnalysisById(any());
+        verify(mockAnalysisDetailDao, never()).replaceDetails(any());
+    }
+
+    @Test
+    public void getStructuredAnalysisSync_notBackfilledYet_normalisesOnce() {
+        Analysis analysis = new Analysis();
+        analysis.id = "a1";
+        analysis.rawResponse = "{\"identification\":{\"commonName\":\"Fern\"}}";
+        when(mockAnalysisDao.getAnalysisById("a1")).thenReturn(analysis);
+
+        PlantAnalysisResult result = repository.getStructuredAnalysisSync("a1");
+
+        assertThat(result.identification.commonName).isEqualTo("Fern");
+        verify(mockAnalysisDetailDao).replaceDetails(any());
+    }
+
+    @Test
+    public void getStructuredAnalysisSync_missingAnalysis_returnsNull() {
+        assertThat(repository.getStructuredAnalysisSync("missing")).isNull();
+        verify(mockAnalysisDetailDao, never()).replaceDetails(any());
+    }
+
     // ==================== Insert method tests ====================
 
     @Test
@@ -407,6 +489,39 @@ public class PlantRepositoryTest {
         assertThat(successCalled.get()).isTrue();
     }
 
+    @Test
+    public void insertAnalysis_writesNormalisedDetails() {
+        Analysis analysis = new Analysis();
+        analysis.id = "a1";
+        analysis.rawResponse = "{\"immediateActions\":[{\"action\":\"Water\",\"priority\":\"urgent\"}]}";
+
+        repository.insertAnalysis(analysis, new PlantRepository.RepositoryCallback<Void>() {
+            @Override public void onSuccess(Void result) {}
+            @Override public void onError(Exception e) {}
+        });
+
+        ArgumentCaptor<AnalysisWithDetails> captor = ArgumentCaptor.forClass(AnalysisWithDetails.class);
+        verify(mockAnalysisDetailDao).replaceDetails(captor.capture());
+        assertThat(captor.getValue().detail.analysisId).isEqualTo("a1");
+        assertThat(captor.getValue().actions).hasSize(1);
+        assertThat(captor.getValue().actions.get(0).action).isEqualTo("Water");
+    }
+
+    @Test
+    public void insertAnalysis_unparseableResponse_correctsParseStatus() {
+        Analysis analysis = new Analysis();
+        analysis.id = "a1";
+        analysis.rawResponse = "not json at all";
+
+        repository.insertAnalysis(analysis, new PlantRepository.RepositoryCallback<Void>() {
+            @Override public void onSuccess(Void result) {}
+            @Override public void onError(Exception e) {}
+        });
+
+        verify(mockAnalysisDao).updateParseStatus("a1", "FAILED");
+        verify(mockAnalysisDetailDao).replaceDetails(any());
+    }
+
     @Test
     public void insertCareItem_callsDaoInsert_andCallbackSuccess() {
         CareItem item = new CareItem();
@@ -437,7 +552,7 @@ public class PlantRepositoryTest {
         List<CareItem> careItems = Arrays.asList(care1, care2);
 
         AtomicBoolean successCalled = new AtomicBoolean(false);
-        repository.savePlantWithAnalysis(plant, analysis, careItems,
+        repository.savePlantWithAnalysis(plant, analysis, new PlantAnalysisResult(), careItems,
                 new PlantRepository.RepositoryCallback<Void>() {
             @Override public void onSuccess(Void result) { successCalled.set(true); }
             @Override public void onError(Exception e) {}
@@ -458,7 +573,7 @@ public class PlantRepositoryTest {
         doThrow(new RuntimeException("DB error")).when(mockPlantDao).insertPlant(any());
 
         AtomicReference<Exception> capturedError = new AtomicReference<>();
-        repository.savePlantWithAnalysis(plant, analysis, new ArrayList<>(),
+        repository.savePlantWithAnalysis(plant, analysis, new PlantAnalysisResult(), new ArrayList<>(),
                 new PlantRepository.RepositoryCallback<Void>() {
             @Override public void onSuccess(Void result) {}
             @Override public void onError(Exception e) { capturedError.set(e); }
@@ -475,7 +590,7 @@ public class PlantRepositoryTest {
         analysis.id = "a1";
 
         AtomicBoolean successCalled = new AtomicBoolean(false);
-        repository.savePlantWithAnalysis(plant, analysis, new ArrayList<>(),
+        repository.savePlantWithAnalysis(plant, analysis, new PlantAnalysisResult(), new ArrayList<>(),
                 new PlantRepository.RepositoryCallback<Void>() {
             @Override public void onSuccess(Void result) { successCalled.set(true); }
             @Override public void onError(Exception e) {}
@@ -487,6 +602,34 @@ public class PlantRepositoryTest {
         assertThat(successCalled.get()).isTrue();
     }
 
+    @Test
+    public void savePlantWithAnalysis_writesDetailsFromResultWithoutReparsing() {
+        Plant plant = createTestPlant("p1");
+        Analysis analysis = new Analysis();
+        analysis.id = "a1";
+        analysis.rawResponse = "not json at all";
+        analysis.parseStatus = "OK";
+        PlantAnalysisResult result = new PlantAnalysisResult();
+        PlantAnalysisResult.ImmediateAction action = new PlantAnalysisResult.ImmediateAction();
+        action.action = "Water";
+        action.priority = "urgent";
+        result.immediateActions = Collections.singletonList(action);
+
+        repository.savePlantWithAnalysis(plant, analysis, result, new ArrayList<>(),
+                new PlantRepository.RepositoryCallback<Void>() {
+            @Override public void onSuccess(Void unused) {}
+            @Override public void onError(Exception e) {}
+        });
+
+        ArgumentCaptor<AnalysisWithDetails> captor = ArgumentCaptor.forClass(AnalysisWithDetails.class);
+        verify(mockAnalysisDetailDao).replaceDetails(captor.capture());
+        assertThat(captor.getValue().detail.analysisId).isEqualTo("a1");
+        assertThat(captor.getValue().actions).hasSize(1);
+        assertThat(captor.getValue().actions.get(0).action).isEqualTo("Water");
+        // rawResponse is not parsed again, so its status is left alone
+        verify(mockAnalysisDao, never()).updateParseStatus(any(), any());
+    }
+
     // ==================== addAnalysisToExistingPlant tests (06-07 fix) ====================
 
     @Test
@@ -510,7 +653,7 @@ public class PlantRepositoryTest {
 
         AtomicBoolean successCalled = new AtomicBoolean(false);
         repository.addAnalysisToExistingPlant("p1", "New Name", "New Scientific", 9,
-                "/new/thumb.jpg", null, null, analysis, careItems,
+                "/new/thumb.jpg", null, null, analysis, new PlantAnalysisResult(), careItems,
                 new PlantRepository.RepositoryCallback<Void>() {
                     @Override public void onSuccess(Void result) { successCalled.set(true); }
                     @Override public void onError(Exception e) {}
@@ -538,7 +681,7 @@ public class PlantRepositoryTest {
         analysis.plantId = "p1";
 
         repository.addAnalysisToExistingPlant("p1", "Name", "Sci", 8,
-                "/thumb.jpg", null, null, analysis, new ArrayList<>(),
+                "/thumb.jpg", null, null, analysis, new PlantAnalysisResult(), new ArrayList<>(),
                 new PlantRepository.RepositoryCallback<Void>() {
                     @Override public void onSuccess(Void result) {}
                     @Override public void onError(Exception e) {}
@@ -564,7 +707,7 @@ public class PlantRepositoryTest {
         List<CareItem> careItems = Arrays.asList(care1, care2);
 
         repository.addAnalysisToExistingPlant("p1", "Name", "Sci", 7,
-                "/thumb.jpg", null, null, analysis, careItems,
+                "/thumb.jpg", null, null, analysis, new PlantAnalysisResult(), careItems,
                 new PlantRepository.RepositoryCallback<Void>() {
                     @Override public void onSuccess(Void result) {}
                     @Override public void onError(Exception e) {}
@@ -586,7 +729,7 @@ public class PlantRepositoryTest {
         analysis.plantId = "p1";
 
         repository.addAnalysisToExistingPlant("p1", "Name", "Sci", 7,
-                null, null, null, analysis, new ArrayList<>(),
+                null, null, null, analysis, new PlantAnalysisResult(), new ArrayList<>(),
                 new PlantRepository.RepositoryCallback<Void>() {
                     @Override public void onSuccess(Void result) {}
                     @Override public void onError(Exception e) {}
@@ -606,7 +749,7 @@ public class PlantRepositoryTest {
 
         AtomicReference<Exception> capturedError = new AtomicReference<>();
         repository.addAnalysisToExistingPlant("nonexistent", "Name", "Sci", 7,
-                "/thumb.jpg", null, null, analysis, new ArrayList<>(),
+                "/thumb.jpg", null, null, analysis, new PlantAnalysisResult(), new ArrayList<>(),
                 new PlantRepository.RepositoryCallback<Void>() {
                     @Override public void onSuccess(Void result) {}
                     @Override public void onError(Exception e) { capturedError.set(e); }
@@ -630,7 +773,7 @@ public class PlantRepositoryTest {
         analysis.plantId = "p1";
 
         repository.addAnalysisToExistingPlant("p1", "Name", "Sci", 7,
-                "/thumb.jpg", null, null, analysis, new ArrayList<>(),
+                "/thumb.jpg", null, null, analysis, new PlantAnalysisResult(), new ArrayList<>(),
                 new PlantRepository.RepositoryCallback<Void>() {
                     @Override public void onSuccess(Void result) {}
                     @Override public void onError(Exception e) {}
@@ -650,7 +793,7 @@ public class PlantRepositoryTest {
 
         AtomicBoolean successCalled = new AtomicBoolean(false);
         repository.addAnalysisToExistingPlant("p1", "Name", "Sci", 7,
-                "/thumb.jpg", null, null, analysis, new ArrayList<>(),
+                "/thumb.jpg", null, null, analysis, new PlantAnalysisResult(), new ArrayList<>(),
                 new PlantRepository.RepositoryCallback<Void>() {
                     @Override public void onSuccess(Void result) { successCalled.set(true); }
                     @Override public void onError(Exception e) {}
@@ -672,7 +815,7 @@ public class PlantRepositoryTest {
 
         AtomicReference<Exception> capturedError = new AtomicReference<>();
         repository.addAnalysisToExistingPlant("p1", "Name", "Sci", 7,
-                "/thumb.jpg", null, null, analysis, new ArrayList<>(),
+                "/thumb.jpg", null, null, analysis, new PlantAnalysisResult(), new ArrayList<>(),
                 new PlantRepository.RepositoryCallback<Void>() {
                     @Override public void onSuccess(Void result) {}
                     @Override public void onError(Exception e) { capturedError.set(e); }
@@ -682,6 +825,79 @@ public class PlantRepositoryTest {
         assertThat(capturedError.get().getMessage()).contains("DB error");
     }
 
+    // ==================== Care completion tests ====================
+
+    @Test
+    public void markCareCompleteBatch_dedupesIdsAndReportsCompletedCount() {
+        CareSchedule s1 = new CareSchedule();
+        s1.id = "s1";
+        when(mockCareScheduleDao.markSchedulesComplete(
+                eq(Arrays.asList("s1", "s2")), eq("notification_action"), anyLong()))
+                .thenReturn(Collections.singletonList(s1));
+
+        AtomicReference<Integer> completedCount = new AtomicReference<>();
+        repository.markCareCompleteBatch(Arrays.asList("s1", "s2", "s1"), "notification_action",
+                new PlantRepository.RepositoryCallback<Integer>() {
+                    @Override public void onSuccess(Integer result) { completedCount.set(result); }
+                    @Override public void onError(Exception e) {}
+                });
+
+        verify(mockCareScheduleDao).markSchedulesComplete(
+                eq(Arrays.asList("s1", "s2")), eq("notification_action"), anyLong());
+        assertThat(completedCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void markCareCompleteBatch_daoError_callsOnError() {
+        when(mockCareScheduleDao.markSchedulesComplete(any(), any(), anyLong()))
+                .thenThrow(new RuntimeException("DB error"));
+
+        AtomicReference<Exception> capturedError = new AtomicReference<>();
+        repository.markCareCompleteBatch(Arrays.asList("s1"), "in_app",
+                new PlantRepository.RepositoryCallback<Integer>() {
+                    @Override public void onSuccess(Integer result) {}
+                    @Override public void onError(Exception e) { capturedError.set(e); }
+                });
+
+        assertThat(capturedError.get()).isNotNull();
+        assertThat(capturedError.get().getMessage()).contains("DB error");
+    }
+
+    @Test
+    public void markCareComplete_unknownSchedule_callsOnError() {
+        when(mockCareScheduleDao.markSchedulesComplete(any(), any(), anyLong()))
+                .thenReturn(new ArrayList<>());
+
+        AtomicReference<Exception> capturedError = new AtomicReference<>();
+        repository.markCareComplete("missing", "in_app", new PlantRepository.RepositoryCallback<Void>() {
+            @Override public void onSuccess(Void result) {}
+            @Override public void onError(Exception e) { capturedError.set(e); }
+        });
+
+        assertThat(capturedError.get()).isNotNull();
+        assertThat(capturedError.get().getMessage()).contains("missing");
+    }
+
+    // ==================== Bulk reminder toggle tests ====================
+
+    @Test
+    public void setRemindersEnabledForLocationSync_togglesPlantsInLocation() {
+        List<String> plantIds = Arrays.asList("p1", "p2");
+        when(mockPlantDao.getPlantIdsByLocationSync("Balcony")).thenReturn(plantIds);
+        when(mockCareScheduleDao.setSchedulesEnabledForPlants(eq(plantIds), eq(false), anyLong()))
+                .thenReturn(5);
+
+        assertThat(repository.setRemindersEnabledForLocationSync("Balcony", false)).isEqualTo(5);
+    }
+
+    @Test
+    public void setRemindersEnabledForLocationSync_emptyLocation_skipsUpdate() {
+        when(mockPlantDao.getPlantIdsByLocationSync("Attic")).thenReturn(new ArrayList<>());
+
+        assertThat(repository.setRemindersEnabledForLocationSync("Attic", true)).isEqualTo(0);
+        verify(mockCareScheduleDao, never()).setSchedulesEnabledForPlants(any(), anyBoolean(), anyLong());
+    }
+
     // ==================== Helpers ====================
 
     private Plant createTestPlant(String id) {
@@ -1,13 +1,17 @@
 package com.leafiq.app.domain.service;
 
 import static com.google.common.truth.Truth.assertThat;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.leafiq.app.ai.AIProvider;
 import com.leafiq.app.ai.AIProviderException;
+import com.leafiq.app.ai.AnalysisPrompt;
+import com.leafiq.app.ai.ImagePayload;
+import com.leafiq.app.ai.PartialResultListener;
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.model.PlantAnalysisResult;
 
@@ -23,6 +27,8 @@ public class AIAnalysisServiceTest {
     private AIAnalysisService service;
     private AIProvider mockProvider;
 
+    private static final byte[] IMAGE_BYTES = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x00};
+
     @Before
     public void setUp() {
         service = new AIAnalysisService();
@@ -42,22 +48,48 @@ public class AIAnalysisServiceTest {
     }
 
     @Test
-    public void analyze_callsProviderWithBase64ImageAndPrompt() throws AIProviderException, IOException {
+    public void analyze_callsProviderWithJpegBytesAndPrompt() throws AIProviderException, IOException {
+        PlantAnalysisResult expectedResult = new PlantAnalysisResult();
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class))).thenReturn(expectedResult);
+
+        PlantAnalysisResult result = service.analyze(mockProvider, IMAGE_BYTES, null, null, null);
+
+        assertThat(result).isSameInstanceAs(expectedResult);
+        verify(mockProvider).analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class));
+    }
+
+    @Test
+    public void analyze_withListener_callsStreamingProvider() throws AIProviderException, IOException {
+        PlantAnalysisResult expectedResult = new PlantAnalysisResult();
+        PartialResultListener listener = partial -> { };
+        when(mockProvider.analyzePhotoStreaming(any(ImagePayload.class), any(AnalysisPrompt.class), eq(listener)))
+                .thenReturn(expectedResult);
+
+        PlantAnalysisResult result = service.analyze(mockProvider, IMAGE_BYTES, null, null, null, listener);
+
+        assertThat(result).isSameInstanceAs(expectedResult);
+        verify(mockProvider).analyzePhotoStreaming(any(ImagePayload.class), any(AnalysisPrompt.class), eq(listener));
+    }
+
+    @Test
+    public void analyze_withPrebuiltPrompt_sendsThatPrompt() throws AIProviderException, IOException {
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
-        when(mockProvider.analyzePhoto(anyString(), anyString())).thenReturn(expectedResult);
+        PartialResultListener listener = partial -> { };
+        AnalysisPrompt prompt = AnalysisPrompt.of("Analyze this plant");
+        when(mockProvider.analyzePhotoStreaming(any(ImagePayload.class), eq(prompt), eq(listener))).thenReturn(expectedResult);
 
-        PlantAnalysisResult result = service.analyze(mockProvider, "base64data", null, null, null);
+        PlantAnalysisResult result = service.analyze(mockProvider, IMAGE_BYTES, prompt, listener);
 
         assertThat(result).isSameInstanceAs(expectedResult);
-        verify(mockProvider).analyzePhoto(anyString(), anyString());
+        verify(mockProvider).analyzePhotoStreaming(any(ImagePayload.class), eq(prompt), eq(listener));
     }
 
     @Test
     public void analyze_withKnownPlantName_callsProvider() throws AIProviderException, IOException {
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
-        when(mockProvider.analyzePhoto(anyString(), anyString())).thenReturn(expectedResult);
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class))).thenReturn(expectedResult);
 
-        PlantAnalysisResult result = service.analyze(mockProvider, "base64data", "Rose", null, null);
+        PlantAnalysisResult result = service.analyze(mockProvider, IMAGE_BYTES, "Rose", null, null);
 
         assertThat(result).isSameInstanceAs(expectedResult);
     }
@@ -65,32 +97,32 @@ public class AIAnalysisServiceTest {
     @Test
     public void analyze_withPreviousAnalyses_callsProvider() throws AIProviderException, IOException {
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
-        when(mockProvider.analyzePhoto(anyString(), anyString())).thenReturn(expectedResult);
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class))).thenReturn(expectedResult);
 
         List<Analysis> previousAnalyses = new ArrayList<>();
         Analysis prev = new Analysis();
         prev.summary = "Previous analysis";
         previousAnalyses.add(prev);
 
-        PlantAnalysisResult result = service.analyze(mockProvider, "base64data", "Rose", previousAnalyses, null);
+        PlantAnalysisResult result = service.analyze(mockProvider, IMAGE_BYTES, "Rose", previousAnalyses, null);
 
         assertThat(result).isSameInstanceAs(expectedResult);
     }
 
     @Test(expected = AIProviderException.class)
     public void analyze_providerThrowsException_propagates() throws AIProviderException, IOException {
-        when(mockProvider.analyzePhoto(anyString(), anyString()))
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class)))
                 .thenThrow(new AIProviderException("API error"));
 
-        service.analyze(mockProvider, "base64data", null, null, null);
+        service.analyze(mockProvider, IMAGE_BYTES, null, null, null);
     }
 
     @Test
     public void analyze_withNullPlantNameAndNullAnalyses_succeeds() throws AIProviderException, IOException {
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
-        when(mockProvider.analyzePhoto(anyString(), anyString())).thenReturn(expectedResult);
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class))).thenReturn(expectedResult);
 
-        PlantAnalysisResult result = service.analyze(mockProvider, "base64data", null, null, null);
+        PlantAnalysisResult result = service.analyze(mockProvider, IMAGE_BYTES, null, null, null);
 
         assertThat(result).isNotNull();
     }
@@ -100,13 +132,13 @@ public class AIAnalysisServiceTest {
     @Test
     public void analyze_withLocation_callsProvider() throws AIProviderException, IOException {
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
-        when(mockProvider.analyzePhoto(anyString(), anyString())).thenReturn(expectedResult);
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class))).thenReturn(expectedResult);
 
         PlantAnalysisResult result = service.analyze(
-                mockProvider, "base64data", "Fern", null, "Living room");
+                mockProvider, IMAGE_BYTES, "Fern", null, "Living room");
 
         assertThat(result).isSameInstanceAs(expectedResult);
-        verify(mockProvider).analyzePhoto(anyString(), anyString());
+        verify(mockProvider).analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class));
     }
 
     // ==================== analyzeWithCorrections ====================
@@ -114,44 +146,44 @@ public class AIAnalysisServiceTest {
     @Test
     public void analyzeWithCorrections_callsProviderWithCorrectionPrompt() throws AIProviderException, IOException {
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
-        when(mockProvider.analyzePhoto(anyString(), anyString())).thenReturn(expectedResult);
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class))).thenReturn(expectedResult);
 
         service.analyzeWithCorrections(
-                mockProvider, "base64data", "Snake Plant", "More light needed", null, null);
+                mockProvider, IMAGE_BYTES, "Snake Plant", "More light needed", null, null);
 
-        verify(mockProvider).analyzePhoto(anyString(), anyString());
+        verify(mockProvider).analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class));
     }
 
     @Test
     public void analyzeWithCorrections_returnsProviderResult() throws AIProviderException, IOException {
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
         expectedResult.funFact = "Correction result";
-        when(mockProvider.analyzePhoto(anyString(), anyString())).thenReturn(expectedResult);
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class))).thenReturn(expectedResult);
 
         PlantAnalysisResult result = service.analyzeWithCorrections(
-                mockProvider, "base64data", "Snake Plant", null, null, null);
+                mockProvider, IMAGE_BYTES, "Snake Plant", null, null, null);
 
         assertThat(result).isSameInstanceAs(expectedResult);
     }
 
     @Test(expected = AIProviderException.class)
     public void analyzeWithCorrections_providerException_propagates() throws AIProviderException, IOException {
-        when(mockProvider.analyzePhoto(anyString(), anyString()))
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class)))
                 .thenThrow(new AIProviderException("Correction API error"));
 
         service.analyzeWithCorrections(
-                mockProvider, "base64data", "Rose", null, null, null);
+                mockProvider, IMAGE_BYTES, "Rose", null, null, null);
     }
 
     @Test
     public void analyzeWithCorrections_withNullParams_callsProvider() throws AIProviderException, IOException {
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
-        when(mockProvider.analyzePhoto(anyString(), anyString())).thenReturn(expectedResult);
+        when(mockProvider.analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class))).thenReturn(expectedResult);
 
         PlantAnalysisResult result = service.analyzeWithCorrections(
-                mockProvider, "base64data", null, null, null, null);
+                mockProvider, IMAGE_BYTES, null, null, null, null);
 
         assertThat(result).isNotNull();
-        verify(mockProvider).analyzePhoto(anyString(), anyString());
+        verify(mockProvider).analyzePhoto(any(ImagePayload.class), any(AnalysisPrompt.class));
     }
 }
@@ -0,0 +1,173 @@
+package com.leafiq.app.domain.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.leafiq.app.data.db.AnalysisCacheDao;
+import com.leafiq.app.data.entity.AnalysisCacheEntry;
+import com.leafiq.app.data.model.PlantAnalysisResult;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AnalysisResultCacheTest {
+
+    private static final String PROMPT = "Analyze this plant";
+    private static final String PROVIDER = "Claude";
+    private static final long NOW = 10_000_000L;
+    private static final long WINDOW_MS = 60_000L;
+    private static final String RESULT_JSON =
+            "{\"identification\":{\"commonName\":\"Monstera\"},\"healthAssessment\":{\"score\":8}}";
+
+    private AnalysisCacheDao mockDao;
+    private AnalysisResultCache cache;
+
+    @Before
+    public void setUp() {
+        mockDao = mock(AnalysisCacheDao.class);
+        cache = new AnalysisResultCache(mockDao, 3, 4, WINDOW_MS, () -> NOW);
+    }
+
+    private static AnalysisCacheEntry entry(String id, long imageHash, String json) {
+        AnalysisCacheEntry entry = new AnalysisCacheEntry();
+        entry.id = id;
+        entry.imageHash = imageHash;
+        entry.promptHash = AnalysisResultCache.promptHash(PROMPT);
+        entry.provider = PROVIDER;
+        entry.resultJson = json;
+        return entry;
+    }
+
+    private void givenCandidates(AnalysisCacheEntry... entries) {
+        when(mockDao.getCandidates(PROVIDER, AnalysisResultCache.promptHash(PROMPT), NOW - WINDOW_MS))
+                .thenReturn(Arrays.asList(entries));
+    }
+
+    // ==================== lookup ====================
+
+    @Test
+    public void lookup_nearDuplicateWithinDistance_returnsCachedResult() {
+        givenCandidates(entry("e1", 0b1111L, RESULT_JSON));
+
+        PlantAnalysisResult result = cache.lookup(0b0011L, PROMPT, PROVIDER);
+
+        assertThat(result).isNotNull();
+        assertThat(result.identification.commonName).isEqualTo("Monstera");
+        assertThat(result.healthAssessment.score).isEqualTo(8);
+        verify(mockDao).recordHit("e1", NOW);
+    }
+
+    @Test
+    public void lookup_beyondDistance_misses() {
+        givenCandidates(entry("e1", 0b11111L, RESULT_JSON));
+
+        assertThat(cache.lookup(0L, PROMPT, PROVIDER)).isNull();
+        verify(mockDao, never()).recordHit(anyString(), anyLong());
+    }
+
+    @Test
+    public void lookup_picksClosestCandidate() {
+        givenCandidates(
+                entry("far", 0b0111L, RESULT_JSON),
+                entry("near", 0b0001L, RESULT_JSON));
+
+        cache.lookup(0L, PROMPT, PROVIDER);
+
+        verify(mockDao).recordHit("near", NOW);
+    }
+
+    @Test
+    public void lookup_queriesOnlyEntriesInsideTimeWindow() {
+        when(mockDao.getCandidates(anyString(), anyString(), anyLong())).thenReturn(Collections.emptyList());
+
+        cache.lookup(0L, PROMPT, PROVIDER);
+
+        verify(mockDao).getCandidates(PROVIDER, AnalysisResultCache.promptHash(PROMPT), NOW - WINDOW_MS);
+    }
+
+    @Test
+    public void lookup_unreadableEntry_isDeletedAndMisses() {
+        givenCandidates(entry("bad", 0L, "not json"));
+
+        assertThat(cache.lookup(0L, PROMPT, PROVIDER)).isNull();
+        verify(mockDao).deleteById("bad");
+    }
+
+    @Test
+    public void lookup_daoFailure_missesWithoutThrowing() {
+        when(mockDao.getCandidates(anyString(), anyString(), anyLong()))
+                .thenThrow(new IllegalStateException("db closed"));
+
+        assertThat(cache.lookup(0L, PROMPT, PROVIDER)).isNull();
+        assertThat(cache.getStats().misses).isEqualTo(1);
+    }
+
+    // ==================== put ====================
+
+    @Test
+    public void put_insertsEntryThenExpiresAndTrims() {
+        PlantAnalysisResult result = new PlantAnalysisResult();
+        result.rawResponse = RESULT_JSON;
+
+        cache.put(42L, PROMPT, PROVIDER, result);
+
+        ArgumentCaptor<AnalysisCacheEntry> captor = ArgumentCaptor.forClass(AnalysisCacheEntry.class);
+        verify(mockDao).insert(captor.capture());
+        AnalysisCacheEntry stored = captor.getValue();
+        assertThat(stored.imageHash).isEqualTo(42L);
+        assertThat(stored.promptHash).isEqualTo(AnalysisResultCache.promptHash(PROMPT));
+        assertThat(stored.provider).isEqualTo(PROVIDER);
+        assertThat(stored.resultJson).isEqualTo(RESULT_JSON);
+        assertThat(stored.createdAt).isEqualTo(NOW);
+        assertThat(stored.lastAccessedAt).isEqualTo(NOW);
+        assertThat(stored.id).isNotEmpty();
+
+        verify(mockDao).deleteCreatedBefore(NOW - WINDOW_MS);
+        verify(mockDao).trimToSize(3);
+    }
+
+    @Test
+    public void put_withoutRawResponse_isSkipped() {
+        cache.put(42L, PROMPT, PROVIDER, new PlantAnalysisResult());
+
+        verify(mockDao, never()).insert(any());
+        verify(mockDao, never()).trimToSize(anyInt());
+    }
+
+    // ==================== stats / prompt hash ====================
+
+    @Test
+    public void getStats_countsHitsAndMisses() {
+        givenCandidates(entry("e1", 0L, RESULT_JSON));
+        when(mockDao.count()).thenReturn(1);
+
+        cache.lookup(0L, PROMPT, PROVIDER);
+        cache.lookup(-1L, PROMPT, PROVIDER);
+        cache.lookup(-1L, PROMPT, PROVIDER);
+
+        AnalysisResultCache.Stats stats = cache.getStats();
+        assertThat(stats.hits).isEqualTo(1);
+        assertThat(stats.misses).isEqualTo(2);
+        assertThat(stats.entries).isEqualTo(1);
+        assertThat(stats.getHitRate()).isWithin(0.001).of(1.0 / 3);
+    }
+
+    @Test
+    public void promptHash_isStableAndPromptSensitive() {
+        assertThat(AnalysisResultCache.promptHash(PROMPT)).hasLength(64);
+        assertThat(AnalysisResultCache.promptHash(PROMPT)).isEqualTo(AnalysisResultCache.promptHash(PROMPT));
+        assertThat(AnalysisResultCache.promptHash(PROMPT + " "))
+                .isNotEqualTo(AnalysisResultCache.promptHash(PROMPT));
+    }
+}
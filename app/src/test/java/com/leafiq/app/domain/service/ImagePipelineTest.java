@@ -0,0 +1,155 @@
+package com.leafiq.app.domain.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+
+/**
+ * Unit tests for ImagePipeline sizing, instrumentation and failure paths.
+ * Bitmap decode/scale paths need real Android graphics and are covered in androidTest.
+ */
+public class ImagePipelineTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void largestDimension_thumbnailsOnly_is800() {
+        assertThat(ImagePipeline.largestDimension(ImagePipeline.THUMBNAILS)).isEqualTo(800);
+    }
+
+    @Test
+    public void largestDimension_withApiJpeg_is1024() {
+        EnumSet<ImagePipeline.Output> outputs = EnumSet.copyOf(ImagePipeline.THUMBNAILS);
+        outputs.add(ImagePipeline.Output.API_JPEG);
+
+        assertThat(ImagePipeline.largestDimension(outputs)).isEqualTo(1024);
+    }
+
+    @Test
+    public void outputs_matchLegacyThumbnailSizes() {
+        assertThat(ImagePipeline.Output.THUMBNAIL.maxDimension).isEqualTo(256);
+        assertThat(ImagePipeline.Output.MEDIUM_THUMBNAIL.maxDimension).isEqualTo(300);
+        assertThat(ImagePipeline.Output.HIGH_RES_THUMBNAIL.maxDimension).isEqualTo(800);
+        assertThat(ImagePipeline.Output.API_JPEG.maxDimension).isEqualTo(1024);
+    }
+
+    @Test
+    public void thumbnails_excludesApiJpeg() {
+        assertThat(ImagePipeline.THUMBNAILS).doesNotContain(ImagePipeline.Output.API_JPEG);
+        assertThat(ImagePipeline.THUMBNAILS).hasSize(3);
+    }
+
+    @Test
+    public void stats_peakBitmapBytes_tracksHighWaterMark() {
+        ImagePipeline.Stats stats = new ImagePipeline.Stats();
+
+        stats.onAllocated(4_000_000);  // decoded
+        stats.onAllocated(1_000_000);  // scaled output
+        stats.onReleased(1_000_000);
+        stats.onAllocated(500_000);    // smaller output
+
+        assertThat(stats.getPeakBitmapBytes()).isEqualTo(5_000_000);
+    }
+
+    @Test
+    public void stats_toString_includesStages() {
+        ImagePipeline.Stats stats = new ImagePipeline.Stats();
+        stats.record("decode", 120);
+        stats.record("THUMBNAIL", 8);
+
+        assertThat(stats.toString()).contains("decode=120");
+        assertThat(stats.toString()).contains("THUMBNAIL=8");
+    }
+
+    @Test
+    public void process_emptyOutputs_throwsIllegalArgument() {
+        ImagePipeline pipeline = new ImagePipeline(mock(Context.class));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                pipeline.process(mock(Uri.class), "plant1", EnumSet.noneOf(ImagePipeline.Output.class)));
+    }
+
+    @Test
+    public void process_unreadableUri_throwsIOException() {
+        Context mockContext = mock(Context.class);
+        ContentResolver mockResolver = mock(ContentResolver.class);
+        when(mockContext.getContentResolver()).thenReturn(mockResolver);
+        ImagePipeline pipeline = new ImagePipeline(mockContext);
+
+        // openInputStream returns null by default
+        IOException exception = assertThrows(IOException.class, () ->
+                pipeline.process(mock(Uri.class), "plant1", ImagePipeline.THUMBNAILS));
+
+        assertThat(exception.getMessage()).contains("Failed to decode image");
+    }
+
+    @Test
+    public void process_nullContext_throwsNullPointer() {
+        ImagePipeline pipeline = new ImagePipeline(null);
+
+        assertThrows(NullPointerException.class, () ->
+                pipeline.process(mock(Uri.class), null, EnumSet.of(ImagePipeline.Output.API_JPEG)));
+    }
+
+    @Test
+    public void process_apiJpegFromUnreadableUri_throwsIOException() {
+        Context mockContext = mock(Context.class);
+        ContentResolver mockResolver = mock(ContentResolver.class);
+        when(mockContext.getContentResolver()).thenReturn(mockResolver);
+        ImagePipeline pipeline = new ImagePipeline(mockContext);
+
+        IOException exception = assertThrows(IOException.class, () ->
+                pipeline.process(mock(Uri.class), null, EnumSet.of(ImagePipeline.Output.API_JPEG)));
+
+        assertThat(exception.getMessage()).contains("Failed to decode image");
+    }
+
+    @Test
+    public void process_thumbnailsWithReadOnlyFilesDir_throwsIOException() throws IOException {
+        // Read-only files dir simulates disk full / permission denied
+        File readOnlyDir = tempFolder.newFolder("readonly-thumb");
+        readOnlyDir.setWritable(false);
+        Context mockContext = mock(Context.class);
+        when(mockContext.getFilesDir()).thenReturn(readOnlyDir);
+        when(mockContext.getContentResolver()).thenReturn(mock(ContentResolver.class));
+        ImagePipeline pipeline = new ImagePipeline(mockContext);
+
+        assertThrows(IOException.class, () ->
+                pipeline.process(mock(Uri.class), "test-plant", ImagePipeline.THUMBNAILS));
+
+        readOnlyDir.setWritable(true);
+    }
+
+    @Test
+    public void preprocessor_prepareForAnalysis_unreadableUri_throwsIOException() {
+        Context mockContext = mock(Context.class);
+        when(mockContext.getContentResolver()).thenReturn(mock(ContentResolver.class));
+        ImagePreprocessor preprocessor = new ImagePreprocessor(mockContext);
+
+        IOException exception = assertThrows(IOException.class, () ->
+                preprocessor.prepareForAnalysis(mock(Uri.class)));
+
+        assertThat(exception.getMessage()).contains("Failed to decode image");
+    }
+
+    @Test
+    public void apiJpeg_qualityAndSizeLimit() {
+        // 1024px JPEG @ 80% is ~150-300KB; the 5MB cap only trips on pathological inputs
+        assertThat(ImagePipeline.API_JPEG_QUALITY).isEqualTo(80);
+        assertThat(ImagePipeline.MAX_API_BYTES).isEqualTo(5 * 1024 * 1024);
+    }
+}
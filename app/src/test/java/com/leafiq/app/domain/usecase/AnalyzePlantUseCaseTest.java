@@ -2,9 +2,10 @@ package com.leafiq.app.domain.usecase;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -18,15 +19,20 @@ import android.net.Uri;
 
 import com.leafiq.app.ai.AIProvider;
 import com.leafiq.app.ai.AIProviderException;
+import com.leafiq.app.ai.AnalysisPrompt;
+import com.leafiq.app.ai.PartialResultListener;
+import com.leafiq.app.ai.PromptBuilder;
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.entity.Plant;
 import com.leafiq.app.data.model.PlantAnalysisResult;
 import com.leafiq.app.data.repository.PlantRepository;
 import com.leafiq.app.domain.service.AIAnalysisService;
+import com.leafiq.app.domain.service.AnalysisResultCache;
 import com.leafiq.app.domain.service.ImagePreprocessor;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -44,6 +50,10 @@ public class AnalyzePlantUseCaseTest {
     private AIProvider mockProvider;
     private Uri mockUri;
 
+    private static final byte[] IMAGE_BYTES = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x00};
+    private static final ImagePreprocessor.PreparedImage PREPARED_IMAGE =
+            new ImagePreprocessor.PreparedImage(IMAGE_BYTES, 0x0F0F0F0FL);
+
     // Synchronous executor for tests - runs immediately on calling thread
     private final Executor synchronousExecutor = Runnable::run;
 
@@ -105,17 +115,17 @@ public class AnalyzePlantUseCaseTest {
         AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
         useCase.execute(mockUri, null, mockProvider, callback);
 
-        verify(mockPreprocessor, never()).prepareForApi(any());
+        verify(mockPreprocessor, never()).prepareForAnalysis(any());
     }
 
     @Test
     public void execute_newPlant_callsOnSuccessWithResult() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
 
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
         expectedResult.funFact = "Test fact";
-        when(mockAnalysisService.analyze(eq(mockProvider), eq("base64data"), isNull(), isNull(), isNull()))
+        when(mockAnalysisService.analyze(eq(mockProvider), eq(IMAGE_BYTES), any(AnalysisPrompt.class), any()))
                 .thenReturn(expectedResult);
 
         AtomicReference<PlantAnalysisResult> capturedResult = new AtomicReference<>();
@@ -137,11 +147,50 @@ public class AnalyzePlantUseCaseTest {
         assertThat(capturedResult.get()).isSameInstanceAs(expectedResult);
     }
 
+    @Test
+    public void execute_streamingProvider_forwardsPartialResultsBeforeSuccess()
+            throws IOException, AIProviderException {
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+
+        PlantAnalysisResult partial = new PlantAnalysisResult();
+        PlantAnalysisResult finalResult = new PlantAnalysisResult();
+        when(mockAnalysisService.analyze(any(), any(byte[].class), any(AnalysisPrompt.class), any()))
+                .thenAnswer(invocation -> {
+                    PartialResultListener listener = invocation.getArgument(3);
+                    listener.onPartialResult(partial);
+                    return finalResult;
+                });
+
+        List<String> events = new ArrayList<>();
+        AnalyzePlantUseCase.Callback callback = new AnalyzePlantUseCase.Callback() {
+            @Override
+            public void onSuccess(PlantAnalysisResult result) {
+                events.add(result == finalResult ? "success" : "wrong-success");
+            }
+
+            @Override
+            public void onPartialResult(PlantAnalysisResult result) {
+                events.add(result == partial ? "partial" : "wrong-partial");
+            }
+
+            @Override
+            public void onError(String message) {}
+
+            @Override
+            public void onVisionNotSupported(String providerDisplayName) {}
+        };
+
+        useCase.execute(mockUri, null, mockProvider, callback);
+
+        assertThat(events).containsExactly("partial", "success").inOrder();
+    }
+
     @Test
     public void execute_newPlant_doesNotQueryRepository() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
-        when(mockAnalysisService.analyze(any(), anyString(), isNull(), isNull(), isNull()))
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+        when(mockAnalysisService.analyze(any(), any(byte[].class), any(AnalysisPrompt.class), any()))
                 .thenReturn(new PlantAnalysisResult());
 
         AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
@@ -154,7 +203,7 @@ public class AnalyzePlantUseCaseTest {
     @Test
     public void execute_existingPlant_loadsContextFromRepository() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
 
         Plant existingPlant = new Plant();
         existingPlant.commonName = "Rose";
@@ -164,7 +213,7 @@ public class AnalyzePlantUseCaseTest {
         List<Analysis> previousAnalyses = new ArrayList<>();
         when(mockRepository.getRecentAnalysesSync("plant-123")).thenReturn(previousAnalyses);
 
-        when(mockAnalysisService.analyze(eq(mockProvider), eq("base64data"), eq("Rose"), eq(previousAnalyses), isNull()))
+        when(mockAnalysisService.analyze(eq(mockProvider), eq(IMAGE_BYTES), promptWith("previously identified as: Rose"), any()))
                 .thenReturn(new PlantAnalysisResult());
 
         AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
@@ -172,28 +221,28 @@ public class AnalyzePlantUseCaseTest {
 
         verify(mockRepository).getPlantByIdSync("plant-123");
         verify(mockRepository).getRecentAnalysesSync("plant-123");
-        verify(mockAnalysisService).analyze(eq(mockProvider), eq("base64data"), eq("Rose"), eq(previousAnalyses), isNull());
+        verify(mockAnalysisService).analyze(eq(mockProvider), eq(IMAGE_BYTES), promptWith("previously identified as: Rose"), any());
     }
 
     @Test
     public void execute_existingPlant_nullPlantRecord_passesNullName() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
         when(mockRepository.getPlantByIdSync("plant-456")).thenReturn(null);
         when(mockRepository.getRecentAnalysesSync("plant-456")).thenReturn(new ArrayList<>());
-        when(mockAnalysisService.analyze(any(), anyString(), isNull(), any(), isNull()))
+        when(mockAnalysisService.analyze(any(), any(byte[].class), any(AnalysisPrompt.class), any()))
                 .thenReturn(new PlantAnalysisResult());
 
         AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
         useCase.execute(mockUri, "plant-456", mockProvider, callback);
 
-        verify(mockAnalysisService).analyze(eq(mockProvider), eq("base64data"), isNull(), any(), isNull());
+        verify(mockAnalysisService).analyze(eq(mockProvider), eq(IMAGE_BYTES), promptWith("Identify this plant."), any());
     }
 
     @Test
     public void execute_ioException_callsOnError() throws IOException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenThrow(new IOException("File not found"));
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenThrow(new IOException("File not found"));
 
         AtomicReference<String> capturedError = new AtomicReference<>();
         AnalyzePlantUseCase.Callback callback = new AnalyzePlantUseCase.Callback() {
@@ -219,8 +268,8 @@ public class AnalyzePlantUseCaseTest {
     @Test
     public void execute_aiProviderException_callsOnError() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
-        when(mockAnalysisService.analyze(any(), anyString(), isNull(), isNull(), isNull()))
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+        when(mockAnalysisService.analyze(any(), any(byte[].class), any(AnalysisPrompt.class), any()))
                 .thenThrow(new AIProviderException("Rate limited", null, 429));
 
         AtomicReference<String> capturedError = new AtomicReference<>();
@@ -268,7 +317,7 @@ public class AnalyzePlantUseCaseTest {
     @Test
     public void execute_existingPlant_passesLocationToService() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
 
         Plant existingPlant = new Plant();
         existingPlant.commonName = "Fern";
@@ -277,14 +326,104 @@ public class AnalyzePlantUseCaseTest {
         when(mockRepository.getRecentAnalysesSync("plant-loc")).thenReturn(new ArrayList<>());
 
         when(mockAnalysisService.analyze(
-                eq(mockProvider), eq("base64data"), eq("Fern"), any(), eq("Bathroom shelf")))
+                eq(mockProvider), eq(IMAGE_BYTES), promptWith("Location: Bathroom shelf"), any()))
                 .thenReturn(new PlantAnalysisResult());
 
         AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
         useCase.execute(mockUri, "plant-loc", mockProvider, callback);
 
         verify(mockAnalysisService).analyze(
-                eq(mockProvider), eq("base64data"), eq("Fern"), any(), eq("Bathroom shelf"));
+                eq(mockProvider), eq(IMAGE_BYTES), promptWith("Location: Bathroom shelf"), any());
+    }
+
+    // ==================== execute with result cache ====================
+
+    @Test
+    public void execute_cacheHit_skipsProviderCall() throws IOException, AIProviderException {
+        AnalysisResultCache mockCache = mock(AnalysisResultCache.class);
+        AnalyzePlantUseCase cachingUseCase = new AnalyzePlantUseCase(mockContext, mockPreprocessor,
+                mockAnalysisService, mockRepository, synchronousExecutor, mockCache);
+
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+        when(mockProvider.getDisplayName()).thenReturn("Claude");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+        PlantAnalysisResult cached = new PlantAnalysisResult();
+        when(mockCache.lookup(eq(0x0F0F0F0FL), anyString(), eq("Claude"))).thenReturn(cached);
+
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+        cachingUseCase.execute(mockUri, null, mockProvider, callback);
+
+        verify(callback).onSuccess(cached);
+        verify(mockAnalysisService, never()).analyze(
+                any(), any(byte[].class), any(AnalysisPrompt.class), any());
+        verify(mockCache, never()).put(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    public void execute_cacheMiss_callsProviderAndStoresResult() throws IOException, AIProviderException {
+        AnalysisResultCache mockCache = mock(AnalysisResultCache.class);
+        AnalyzePlantUseCase cachingUseCase = new AnalyzePlantUseCase(mockContext, mockPreprocessor,
+                mockAnalysisService, mockRepository, synchronousExecutor, mockCache);
+
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+        when(mockProvider.getDisplayName()).thenReturn("Claude");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+        PlantAnalysisResult fresh = new PlantAnalysisResult();
+        when(mockAnalysisService.analyze(
+                eq(mockProvider), eq(IMAGE_BYTES), any(AnalysisPrompt.class), any()))
+                .thenReturn(fresh);
+
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+        cachingUseCase.execute(mockUri, null, mockProvider, callback);
+
+        verify(callback).onSuccess(fresh);
+        verify(mockCache).put(eq(0x0F0F0F0FL), anyString(), eq("Claude"), eq(fresh));
+    }
+
+    @Test
+    public void execute_cacheKey_isThePromptSentToTheProvider() throws IOException, AIProviderException {
+        AnalysisResultCache mockCache = mock(AnalysisResultCache.class);
+        AnalyzePlantUseCase cachingUseCase = new AnalyzePlantUseCase(mockContext, mockPreprocessor,
+                mockAnalysisService, mockRepository, synchronousExecutor, mockCache);
+
+        Plant existingPlant = new Plant();
+        existingPlant.commonName = "Fern";
+        existingPlant.location = "Bathroom shelf";
+        when(mockRepository.getPlantByIdSync("plant-key")).thenReturn(existingPlant);
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+        when(mockProvider.getDisplayName()).thenReturn("Claude");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+        when(mockAnalysisService.analyze(any(), any(byte[].class), any(AnalysisPrompt.class), any()))
+                .thenReturn(new PlantAnalysisResult());
+
+        cachingUseCase.execute(mockUri, "plant-key", mockProvider,
+                mock(AnalyzePlantUseCase.Callback.class));
+
+        ArgumentCaptor<AnalysisPrompt> sent = ArgumentCaptor.forClass(AnalysisPrompt.class);
+        verify(mockAnalysisService).analyze(eq(mockProvider), eq(IMAGE_BYTES), sent.capture(), any());
+        verify(mockCache).lookup(0x0F0F0F0FL, sent.getValue().getFullText(), "Claude");
+        verify(mockCache).put(eq(0x0F0F0F0FL), eq(sent.getValue().getFullText()), eq("Claude"), any());
+    }
+
+    @Test
+    public void executeWithCorrections_cacheHit_skipsProviderCall() throws IOException, AIProviderException {
+        AnalysisResultCache mockCache = mock(AnalysisResultCache.class);
+        AnalyzePlantUseCase cachingUseCase = new AnalyzePlantUseCase(mockContext, mockPreprocessor,
+                mockAnalysisService, mockRepository, synchronousExecutor, mockCache);
+
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+        when(mockProvider.getDisplayName()).thenReturn("Claude");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+        PlantAnalysisResult cached = new PlantAnalysisResult();
+        when(mockCache.lookup(eq(0x0F0F0F0FL), argThat(prompt -> prompt.contains("Aloe Vera")),
+                eq("Claude"))).thenReturn(cached);
+
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+        cachingUseCase.executeWithCorrections(mockUri, null, "Aloe Vera", null, mockProvider, callback);
+
+        verify(callback).onSuccess(cached);
+        verify(mockAnalysisService, never()).analyze(
+                any(), any(byte[].class), any(AnalysisPrompt.class), any());
     }
 
     // ==================== executeWithCorrections ====================
@@ -311,12 +450,11 @@ public class AnalyzePlantUseCaseTest {
     @Test
     public void executeWithCorrections_newPlant_callsOnSuccess() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
 
         PlantAnalysisResult expectedResult = new PlantAnalysisResult();
-        when(mockAnalysisService.analyzeWithCorrections(
-                eq(mockProvider), eq("base64data"), eq("Monstera"), eq("Yellow leaves"),
-                isNull(), isNull()))
+        when(mockAnalysisService.analyze(
+                eq(mockProvider), eq(IMAGE_BYTES), promptWith("Yellow leaves"), any()))
                 .thenReturn(expectedResult);
 
         AtomicReference<PlantAnalysisResult> capturedResult = new AtomicReference<>();
@@ -334,48 +472,44 @@ public class AnalyzePlantUseCaseTest {
     @Test
     public void executeWithCorrections_existingPlant_loadsLocationFromRepository() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
 
         Plant existingPlant = new Plant();
         existingPlant.location = "Office desk";
         when(mockRepository.getPlantByIdSync("plant-corr")).thenReturn(existingPlant);
         when(mockRepository.getRecentAnalysesSync("plant-corr")).thenReturn(new ArrayList<>());
 
-        when(mockAnalysisService.analyzeWithCorrections(
-                eq(mockProvider), eq("base64data"), eq("Cactus"), isNull(),
-                any(), eq("Office desk")))
+        when(mockAnalysisService.analyze(
+                eq(mockProvider), eq(IMAGE_BYTES), promptWith("Location: Office desk"), any()))
                 .thenReturn(new PlantAnalysisResult());
 
         AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
         useCase.executeWithCorrections(mockUri, "plant-corr", "Cactus", null, mockProvider, callback);
 
-        verify(mockAnalysisService).analyzeWithCorrections(
-                eq(mockProvider), eq("base64data"), eq("Cactus"), isNull(),
-                any(), eq("Office desk"));
+        verify(mockAnalysisService).analyze(
+                eq(mockProvider), eq(IMAGE_BYTES), promptWith("Location: Office desk"), any());
     }
 
     @Test
     public void executeWithCorrections_passesCorrectionsToService() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
 
-        when(mockAnalysisService.analyzeWithCorrections(
-                any(), anyString(), eq("Aloe Vera"), eq("Recently watered"),
-                isNull(), isNull()))
+        when(mockAnalysisService.analyze(
+                any(), any(byte[].class), promptWith("The user confirms this plant is: Aloe Vera"), any()))
                 .thenReturn(new PlantAnalysisResult());
 
         AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
         useCase.executeWithCorrections(mockUri, null, "Aloe Vera", "Recently watered", mockProvider, callback);
 
-        verify(mockAnalysisService).analyzeWithCorrections(
-                eq(mockProvider), eq("base64data"), eq("Aloe Vera"), eq("Recently watered"),
-                isNull(), isNull());
+        verify(mockAnalysisService).analyze(
+                eq(mockProvider), eq(IMAGE_BYTES), promptWith("Recently watered"), any());
     }
 
     @Test
     public void executeWithCorrections_ioException_callsOnError() throws IOException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenThrow(new IOException("Cannot read"));
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenThrow(new IOException("Cannot read"));
 
         AtomicReference<String> capturedError = new AtomicReference<>();
         AnalyzePlantUseCase.Callback callback = new AnalyzePlantUseCase.Callback() {
@@ -393,9 +527,9 @@ public class AnalyzePlantUseCaseTest {
     @Test
     public void executeWithCorrections_aiProviderException_callsOnError() throws IOException, AIProviderException {
         when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
-        when(mockPreprocessor.prepareForApi(mockUri)).thenReturn("base64data");
-        when(mockAnalysisService.analyzeWithCorrections(
-                any(), anyString(), any(), any(), any(), any()))
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+        when(mockAnalysisService.analyze(
+                any(), any(byte[].class), any(AnalysisPrompt.class), any()))
                 .thenThrow(new AIProviderException("Provider down", null, 503));
 
         AtomicReference<String> capturedError = new AtomicReference<>();
@@ -410,4 +544,210 @@ public class AnalyzePlantUseCaseTest {
         // Error now classified by NetworkUtils - 503 becomes "Service temporarily unavailable"
         assertThat(capturedError.get()).contains("Service temporarily unavailable");
     }
+
+    // ==================== Cancellation ====================
+
+    @Test
+    public void execute_cancelledWhileQueued_skipsPipelineAndCallbacks() throws IOException {
+        AnalysisHandle.resetStats();
+        List<Runnable> queued = new ArrayList<>();
+        AnalyzePlantUseCase deferredUseCase = new AnalyzePlantUseCase(
+                mockContext, mockPreprocessor, mockAnalysisService, mockRepository, queued::add);
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+
+        AnalysisHandle handle = deferredUseCase.execute(mockUri, null, mockProvider, callback);
+        handle.cancel();
+        queued.get(0).run();
+
+        verify(mockPreprocessor, never()).prepareForAnalysis(any());
+        verify(callback, never()).onSuccess(any());
+        verify(callback, never()).onError(any());
+        assertThat(AnalysisHandle.getProviderCallsAvoided()).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_cancelledDuringPreprocessing_neverCallsProvider()
+            throws IOException, AIProviderException {
+        AnalysisHandle.resetStats();
+        List<Runnable> queued = new ArrayList<>();
+        AnalyzePlantUseCase deferredUseCase = new AnalyzePlantUseCase(
+                mockContext, mockPreprocessor, mockAnalysisService, mockRepository, queued::add);
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+
+        AnalysisHandle handle = deferredUseCase.execute(mockUri, null, mockProvider, callback);
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenAnswer(invocation -> {
+            handle.cancel();
+            return PREPARED_IMAGE;
+        });
+        queued.get(0).run();
+
+        verify(mockAnalysisService, never()).analyze(any(), any(byte[].class), any(AnalysisPrompt.class), any());
+        verify(callback, never()).onSuccess(any());
+        assertThat(handle.isCancelled()).isTrue();
+        assertThat(AnalysisHandle.getCancelledCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_cancelledDuringProviderCall_suppressesError() throws IOException, AIProviderException {
+        AnalysisHandle.resetStats();
+        List<Runnable> queued = new ArrayList<>();
+        AnalyzePlantUseCase deferredUseCase = new AnalyzePlantUseCase(
+                mockContext, mockPreprocessor, mockAnalysisService, mockRepository, queued::add);
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+
+        AnalysisHandle handle = deferredUseCase.execute(mockUri, null, mockProvider, callback);
+        when(mockAnalysisService.analyze(any(), any(byte[].class), any(AnalysisPrompt.class), any()))
+                .thenAnswer(invocation -> {
+                    // Stage is CALLING_PROVIDER; cancel() aborts the call, which then fails
+                    assertThat(handle.getStage()).isEqualTo(AnalysisHandle.Stage.CALLING_PROVIDER);
+                    handle.cancel();
+                    throw new AIProviderException("Analysis failed: Canceled", new IOException("Canceled"), 0);
+                });
+        queued.get(0).run();
+
+        verify(callback, never()).onError(any());
+        verify(callback, never()).onSuccess(any());
+        assertThat(AnalysisHandle.getProviderCallsAborted()).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_cancelAfterFinish_isNoOp() throws IOException, AIProviderException {
+        AnalysisHandle.resetStats();
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+        when(mockAnalysisService.analyze(any(), any(byte[].class), any(AnalysisPrompt.class), any()))
+                .thenReturn(new PlantAnalysisResult());
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+
+        AnalysisHandle handle = useCase.execute(mockUri, null, mockProvider, callback);
+        handle.cancel();
+
+        verify(callback).onSuccess(any());
+        assertThat(handle.isCancelled()).isFalse();
+        assertThat(AnalysisHandle.getCancelledCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void executeWithCorrections_cancelledWhileQueued_skipsPipeline() throws IOException {
+        List<Runnable> queued = new ArrayList<>();
+        AnalyzePlantUseCase deferredUseCase = new AnalyzePlantUseCase(
+                mockContext, mockPreprocessor, mockAnalysisService, mockRepository, queued::add);
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+
+        deferredUseCase.executeWithCorrections(mockUri, null, "Rose", null, mockProvider, callback).cancel();
+        queued.get(0).run();
+
+        verify(mockPreprocessor, never()).prepareForAnalysis(any());
+        verify(callback, never()).onError(any());
+    }
+
+    @Test
+    public void execute_noNetwork_reportsErrorAndFinishesHandle() throws IOException {
+        when(mockContext.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(null);
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+
+        AnalysisHandle handle = useCase.execute(mockUri, null, mockProvider, callback);
+
+        verify(callback).onError("No internet connection. Please check your network.");
+        verify(mockPreprocessor, never()).prepareForAnalysis(any());
+        assertThat(handle.getStage()).isEqualTo(AnalysisHandle.Stage.FINISHED);
+    }
+
+    @Test
+    public void execute_cancelledDuringConnectivityCheck_suppressesNoNetworkError() {
+        List<Runnable> queued = new ArrayList<>();
+        AnalyzePlantUseCase deferredUseCase = new AnalyzePlantUseCase(
+                mockContext, mockPreprocessor, mockAnalysisService, mockRepository, queued::add);
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+
+        AnalysisHandle handle = deferredUseCase.execute(mockUri, null, mockProvider, callback);
+        when(mockContext.getSystemService(Context.CONNECTIVITY_SERVICE)).thenAnswer(invocation -> {
+            handle.cancel();
+            return null;
+        });
+        queued.get(0).run();
+
+        verify(callback, never()).onError(any());
+        assertThat(handle.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void executeWithCorrections_noNetwork_reportsErrorAndFinishesHandle() throws IOException {
+        when(mockContext.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(null);
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+
+        AnalysisHandle handle = useCase.executeWithCorrections(
+                mockUri, null, "Rose", null, mockProvider, callback);
+
+        verify(callback).onError("No internet connection. Please check your network.");
+        verify(mockPreprocessor, never()).prepareForAnalysis(any());
+        assertThat(handle.getStage()).isEqualTo(AnalysisHandle.Stage.FINISHED);
+    }
+
+    @Test
+    public void execute_visionNotSupported_finishesHandle() {
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(false);
+        when(mockProvider.getDisplayName()).thenReturn("Perplexity");
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+
+        AnalysisHandle handle = useCase.execute(mockUri, null, mockProvider, callback);
+
+        verify(callback).onVisionNotSupported("Perplexity");
+        assertThat(handle.getStage()).isEqualTo(AnalysisHandle.Stage.FINISHED);
+    }
+
+    // ==================== Quick diagnosis ====================
+
+    @Test
+    public void executeQuickDiagnosis_sendsQuickPromptWithoutPlantContext()
+            throws IOException, AIProviderException {
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+        PlantAnalysisResult expected = new PlantAnalysisResult();
+        when(mockAnalysisService.analyze(eq(mockProvider), eq(IMAGE_BYTES), any(AnalysisPrompt.class), any()))
+                .thenReturn(expected);
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+
+        AnalysisHandle handle = useCase.executeQuickDiagnosis(mockUri, mockProvider, callback);
+
+        ArgumentCaptor<AnalysisPrompt> prompt = ArgumentCaptor.forClass(AnalysisPrompt.class);
+        verify(mockAnalysisService).analyze(eq(mockProvider), eq(IMAGE_BYTES), prompt.capture(), any());
+        assertThat(prompt.getValue().getFullText())
+                .isEqualTo(PromptBuilder.buildQuickDiagnosisPrompt().getFullText());
+        verify(mockRepository, never()).getPlantByIdSync(anyString());
+        verify(callback).onSuccess(expected);
+        assertThat(handle.getStage()).isEqualTo(AnalysisHandle.Stage.FINISHED);
+    }
+
+    @Test
+    public void executeQuickDiagnosis_cancelledDuringProviderCall_suppressesError()
+            throws IOException, AIProviderException {
+        AnalysisHandle.resetStats();
+        List<Runnable> queued = new ArrayList<>();
+        AnalyzePlantUseCase deferredUseCase = new AnalyzePlantUseCase(
+                mockContext, mockPreprocessor, mockAnalysisService, mockRepository, queued::add);
+        AnalyzePlantUseCase.Callback callback = mock(AnalyzePlantUseCase.Callback.class);
+        when(mockAnalysisService.supportsVision(mockProvider)).thenReturn(true);
+        when(mockPreprocessor.prepareForAnalysis(mockUri)).thenReturn(PREPARED_IMAGE);
+
+        AnalysisHandle handle = deferredUseCase.executeQuickDiagnosis(mockUri, mockProvider, callback);
+        when(mockAnalysisService.analyze(any(), any(byte[].class), any(AnalysisPrompt.class), any()))
+                .thenAnswer(invocation -> {
+                    handle.cancel();
+                    throw new AIProviderException("Analysis failed: Canceled", new IOException("Canceled"), 0);
+                });
+        queued.get(0).run();
+
+        verify(callback, never()).onError(any());
+        verify(callback, never()).onSuccess(any());
+        assertThat(AnalysisHandle.getProviderCallsAborted()).isEqualTo(1);
+    }
+
+    /** Matches a prompt whose request-specific part contains the given text. */
+    private static AnalysisPrompt promptWith(String text) {
+        return argThat(prompt -> prompt.getDynamicSuffix().contains(text));
+    }
 }
@@ -40,6 +40,49 @@ public class AnalysisUiStateTest {
         assertThat(state.isLoading()).isTrue();
     }
 
+    @Test
+    public void partial_isLoadingWithResult() {
+        PlantAnalysisResult partial = new PlantAnalysisResult();
+        AnalysisUiState state = AnalysisUiState.partial(partial);
+        assertThat(state.isLoading()).isTrue();
+        assertThat(state.hasPartialResult()).isTrue();
+        assertThat(state.getResult()).isSameInstanceAs(partial);
+    }
+
+    @Test
+    public void loading_hasNoPartialResult() {
+        assertThat(AnalysisUiState.loading().hasPartialResult()).isFalse();
+    }
+
+    @Test
+    public void partialWithMessage_keepsResultAndMessage() {
+        PlantAnalysisResult partial = new PlantAnalysisResult();
+        AnalysisUiState state = AnalysisUiState.partialWithMessage(partial, "Taking longer");
+        assertThat(state.getResult()).isSameInstanceAs(partial);
+        assertThat(state.getLoadingMessage()).isEqualTo("Taking longer");
+    }
+
+    @Test
+    public void retrying_carriesAttemptAndBreakerState() {
+        PlantAnalysisResult partial = new PlantAnalysisResult();
+        AnalysisUiState state = AnalysisUiState.retrying(partial, 2, 3, "CLOSED");
+        assertThat(state.isLoading()).isTrue();
+        assertThat(state.isRetrying()).isTrue();
+        assertThat(state.getAttempt()).isEqualTo(2);
+        assertThat(state.getMaxAttempts()).isEqualTo(3);
+        assertThat(state.getProviderBreakerState()).isEqualTo("CLOSED");
+        assertThat(state.getResult()).isSameInstanceAs(partial);
+        assertThat(state.getLoadingMessage()).contains("attempt 2 of 3");
+    }
+
+    @Test
+    public void loading_isNotRetrying() {
+        AnalysisUiState state = AnalysisUiState.loading();
+        assertThat(state.isRetrying()).isFalse();
+        assertThat(state.getAttempt()).isEqualTo(1);
+        assertThat(state.getProviderBreakerState()).isNull();
+    }
+
     @Test
     public void success_hasSuccessState() {
         PlantAnalysisResult result = new PlantAnalysisResult();
@@ -5,10 +5,14 @@ import static org.mockito.Mockito.mock;
 
 import com.leafiq.app.data.entity.CareSchedule;
 import com.leafiq.app.data.entity.Plant;
+import com.leafiq.app.data.model.ScheduleWithPlant;
 
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Unit tests for CareOverviewViewModel POJOs and logic.
  * Tests CareTaskItem, CareCompletionItem construction and snooze time calculations.
@@ -30,6 +34,50 @@ public class CareOverviewViewModelTest {
         assertThat(item.plant.commonName).isEqualTo("Pothos");
     }
 
+    @Test
+    public void careTaskItem_fromAgendaRow_copiesPlantDisplayColumns() {
+        ScheduleWithPlant row = createRow("s1", "plant-1", 1000L);
+        row.plantNickname = "Monty";
+        row.plantThumbnailPath = "/thumbs/p1.jpg";
+
+        CareOverviewViewModel.CareTaskItem item = new CareOverviewViewModel.CareTaskItem(row);
+
+        assertThat(item.schedule).isSameInstanceAs(row.schedule);
+        assertThat(item.plant.id).isEqualTo("plant-1");
+        assertThat(item.plant.commonName).isEqualTo("Pothos");
+        assertThat(item.plant.nickname).isEqualTo("Monty");
+        assertThat(item.plant.thumbnailPath).isEqualTo("/thumbs/p1.jpg");
+    }
+
+    // ==================== Agenda split tests ====================
+
+    @Test
+    public void filterByDueDay_splitsAtEndOfToday_preservingOrder() {
+        long endOfToday = 10_000L;
+        List<ScheduleWithPlant> rows = Arrays.asList(
+                createRow("overdue", "p1", 1_000L),
+                createRow("exactlyEnd", "p1", endOfToday),
+                createRow("tomorrow", "p2", endOfToday + 1),
+                createRow("nextWeek", "p2", endOfToday + 5_000L));
+
+        List<CareOverviewViewModel.CareTaskItem> today =
+                CareOverviewViewModel.filterByDueDay(rows, endOfToday, true);
+        List<CareOverviewViewModel.CareTaskItem> upcoming =
+                CareOverviewViewModel.filterByDueDay(rows, endOfToday, false);
+
+        assertThat(today).hasSize(2);
+        assertThat(today.get(0).schedule.id).isEqualTo("overdue");
+        assertThat(today.get(1).schedule.id).isEqualTo("exactlyEnd");
+        assertThat(upcoming).hasSize(2);
+        assertThat(upcoming.get(0).schedule.id).isEqualTo("tomorrow");
+        assertThat(upcoming.get(1).schedule.id).isEqualTo("nextWeek");
+    }
+
+    @Test
+    public void filterByDueDay_nullRows_returnsEmptyList() {
+        assertThat(CareOverviewViewModel.filterByDueDay(null, 10_000L, true)).isEmpty();
+    }
+
     // ==================== CareCompletionItem tests ====================
 
     @Test
@@ -226,6 +274,14 @@ public class CareOverviewViewModelTest {
         return schedule;
     }
 
+    private ScheduleWithPlant createRow(String scheduleId, String plantId, long nextDue) {
+        ScheduleWithPlant row = new ScheduleWithPlant();
+        row.schedule = createSchedule(scheduleId, plantId, "water", 7);
+        row.schedule.nextDue = nextDue;
+        row.plantCommonName = "Pothos";
+        return row;
+    }
+
     private Plant createPlant(String id, String commonName, String nickname) {
         Plant plant = new Plant();
         plant.id = id;
@@ -1,6 +1,6 @@
 package com.leafiq.app.ui.detail;
 
-import com.leafiq.app.data.entity.Analysis;
+import com.leafiq.app.data.model.AnalysisSummary;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -21,10 +21,10 @@ import static org.junit.Assert.assertNotNull;
 public class FullAnalysisHistoryAdapterTest {
 
     /**
-     * Helper to create test Analysis objects.
+     * Helper to create test AnalysisSummary objects.
      */
-    private Analysis createAnalysis(String id, int healthScore, long createdAt, String parseStatus) {
-        Analysis a = new Analysis();
+    private AnalysisSummary createAnalysis(String id, int healthScore, long createdAt, String parseStatus) {
+        AnalysisSummary a = new AnalysisSummary();
         a.id = id;
         a.plantId = "test_plant";
         a.healthScore = healthScore;
@@ -55,7 +55,7 @@ public class FullAnalysisHistoryAdapterTest {
 
     @Test
     public void testSingleAnalysisProducesHeaderAndItem() {
-        List<Analysis> analyses = new ArrayList<>();
+        List<AnalysisSummary> analyses = new ArrayList<>();
         analyses.add(createAnalysis("a1", 7, getTimestamp(2026, Calendar.FEBRUARY, 10), "OK"));
 
         List<FullAnalysisHistoryAdapter.HistoryItem> items =
@@ -69,7 +69,7 @@ public class FullAnalysisHistoryAdapterTest {
 
     @Test
     public void testSameMonthGroupedUnderOneHeader() {
-        List<Analysis> analyses = new ArrayList<>();
+        List<AnalysisSummary> analyses = new ArrayList<>();
         analyses.add(createAnalysis("a1", 8, getTimestamp(2026, Calendar.FEBRUARY, 10), "OK"));
         analyses.add(createAnalysis("a2", 7, getTimestamp(2026, Calendar.FEBRUARY, 5), "OK"));
         analyses.add(createAnalysis("a3", 6, getTimestamp(2026, Calendar.FEBRUARY, 1), "OK"));
@@ -87,7 +87,7 @@ public class FullAnalysisHistoryAdapterTest {
 
     @Test
     public void testDifferentMonthsGetSeparateHeaders() {
-        List<Analysis> analyses = new ArrayList<>();
+        List<AnalysisSummary> analyses = new ArrayList<>();
         analyses.add(createAnalysis("a1", 8, getTimestamp(2026, Calendar.FEBRUARY, 10), "OK"));
         analyses.add(createAnalysis("a2", 7, getTimestamp(2026, Calendar.FEBRUARY, 5), "OK"));
         analyses.add(createAnalysis("a3", 6, getTimestamp(2026, Calendar.JANUARY, 25), "OK"));
@@ -108,7 +108,7 @@ public class FullAnalysisHistoryAdapterTest {
 
     @Test
     public void testMonthHeaderFormat() {
-        List<Analysis> analyses = new ArrayList<>();
+        List<AnalysisSummary> analyses = new ArrayList<>();
         analyses.add(createAnalysis("a1", 7, getTimestamp(2026, Calendar.FEBRUARY, 10), "OK"));
 
         List<FullAnalysisHistoryAdapter.HistoryItem> items =
@@ -125,7 +125,7 @@ public class FullAnalysisHistoryAdapterTest {
 
     @Test
     public void testTrendArrowUp() {
-        List<Analysis> analyses = new ArrayList<>();
+        List<AnalysisSummary> analyses = new ArrayList<>();
         // Newer analysis (index 0) has higher score than older (index 1)
         analyses.add(createAnalysis("a1", 8, getTimestamp(2026, Calendar.FEBRUARY, 10), "OK"));
         analyses.add(createAnalysis("a2", 6, getTimestamp(2026, Calendar.FEBRUARY, 5), "OK"));
@@ -141,7 +141,7 @@ public class FullAnalysisHistoryAdapterTest {
 
     @Test
     public void testTrendArrowDown() {
-        List<Analysis> analyses = new ArrayList<>();
+        List<AnalysisSummary> analyses = new ArrayList<>();
         // Newer analysis (index 0) has lower score than older (index 1)
         analyses.add(createAnalysis("a1", 5, getTimestamp(2026, Calendar.FEBRUARY, 10), "OK"));
         analyses.add(createAnalysis("a2", 8, getTimestamp(2026, Calendar.FEBRUARY, 5), "OK"));
@@ -157,7 +157,7 @@ public class FullAnalysisHistoryAdapterTest {
 
     @Test
     public void testTrendArrowSame() {
-        List<Analysis> analyses = new ArrayList<>();
+        List<AnalysisSummary> analyses = new ArrayList<>();
         // Newer analysis (index 0) has same score as older (index 1)
         analyses.add(createAnalysis("a1", 7, getTimestamp(2026, Calendar.FEBRUARY, 10), "OK"));
         analyses.add(createAnalysis("a2", 7, getTimestamp(2026, Calendar.FEBRUARY, 5), "OK"));
@@ -173,7 +173,7 @@ public class FullAnalysisHistoryAdapterTest {
 
     @Test
     public void testFirstAnalysisNoArrow() {
-        List<Analysis> analyses = new ArrayList<>();
+        List<AnalysisSummary> analyses = new ArrayList<>();
         // Only one analysis - should have no trend arrow
         analyses.add(createAnalysis("a1", 7, getTimestamp(2026, Calendar.FEBRUARY, 10), "OK"));
 
@@ -188,7 +188,7 @@ public class FullAnalysisHistoryAdapterTest {
 
     @Test
     public void testTrendDirectionOnlyComparesPreviousAnalysis() {
-        List<Analysis> analyses = new ArrayList<>();
+        List<AnalysisSummary> analyses = new ArrayList<>();
         // Three analyses to verify we only compare with immediate previous
         analyses.add(createAnalysis("a1", 8, getTimestamp(2026, Calendar.FEBRUARY, 10), "OK"));
         analyses.add(createAnalysis("a2", 6, getTimestamp(2026, Calendar.FEBRUARY, 5), "OK"));
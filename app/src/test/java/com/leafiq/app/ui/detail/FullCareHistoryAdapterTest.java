@@ -2,6 +2,7 @@ package com.leafiq.app.ui.detail;
 
 import com.leafiq.app.R;
 import com.leafiq.app.data.entity.CareCompletion;
+import com.leafiq.app.data.entity.CareCompletionMonthly;
 import com.leafiq.app.data.entity.CareSchedule;
 
 import org.junit.Test;
@@ -50,6 +51,19 @@ public class FullCareHistoryAdapterTest {
         return s;
     }
 
+    /**
+     * Helper to create test CareCompletionMonthly objects.
+     */
+    private CareCompletionMonthly createMonthly(String month, String careType, String source, int count) {
+        CareCompletionMonthly m = new CareCompletionMonthly();
+        m.plantId = "test_plant";
+        m.month = month;
+        m.careType = careType;
+        m.source = source;
+        m.completionCount = count;
+        return m;
+    }
+
     /**
      * Helper to get timestamp for a specific date.
      */
@@ -212,4 +226,76 @@ public class FullCareHistoryAdapterTest {
         assertEquals("Late", items.get(1).statusLabel);
         assertEquals(R.color.health_warning, items.get(1).statusColor);
     }
+
+    // ==================== Monthly Count Tests ====================
+
+    @Test
+    public void testMonthlyCountsFollowRecentCompletions() {
+        List<CareCompletion> completions = new ArrayList<>();
+        completions.add(createCompletion("c1", "s1", getTimestamp(2026, Calendar.FEBRUARY, 10), "done"));
+
+        Map<String, CareSchedule> scheduleMap = new HashMap<>();
+        scheduleMap.put("s1", createSchedule("s1", "water", 7));
+
+        List<CareCompletionMonthly> monthly = new ArrayList<>();
+        monthly.add(createMonthly("2025-11", "water", "in_app", 4));
+        monthly.add(createMonthly("2025-10", "water", "in_app", 3));
+
+        List<FullCareHistoryAdapter.HistoryItem> items =
+            FullCareHistoryAdapter.buildHistoryItems(completions, scheduleMap, monthly);
+
+        // header(Feb) + item + header(Nov) + summary + header(Oct) + summary = 6 total
+        assertEquals(6, items.size());
+        assertEquals(FullCareHistoryAdapter.TYPE_HEADER, items.get(0).type);
+        assertEquals("c1", items.get(1).completion.id);
+        assertEquals(FullCareHistoryAdapter.TYPE_HEADER, items.get(2).type);
+        assertEquals(FullCareHistoryAdapter.TYPE_SUMMARY, items.get(3).type);
+        assertEquals(4, items.get(3).summaryCount);
+        assertEquals(FullCareHistoryAdapter.TYPE_HEADER, items.get(4).type);
+        assertEquals(3, items.get(5).summaryCount);
+    }
+
+    @Test
+    public void testMonthlyCountsSumSourcesPerCareType() {
+        List<CareCompletionMonthly> monthly = new ArrayList<>();
+        monthly.add(createMonthly("2025-10", "water", "notification_action", 2));
+        monthly.add(createMonthly("2025-10", "water", "in_app", 3));
+        monthly.add(createMonthly("2025-10", "fertilize", "in_app", 1));
+
+        List<FullCareHistoryAdapter.HistoryItem> items =
+            FullCareHistoryAdapter.buildHistoryItems(new ArrayList<>(), new HashMap<>(), monthly);
+
+        // header(Oct) + water summary + fertilize summary = 3 total
+        assertEquals(3, items.size());
+        assertEquals("water", items.get(1).careType);
+        assertEquals(5, items.get(1).summaryCount);
+        assertEquals("fertilize", items.get(2).careType);
+        assertEquals(1, items.get(2).summaryCount);
+    }
+
+    @Test
+    public void testKeptCompletionSharesHeaderWithMonthlyCount() {
+        // A schedule's latest completion is never compacted, so it can sit in a rolled-up month
+        List<CareCompletion> completions = new ArrayList<>();
+        completions.add(createCompletion("c1", "s1", getTimestamp(2026, Calendar.FEBRUARY, 10), "done"));
+        completions.add(createCompletion("c2", "s2", getTimestamp(2025, Calendar.OCTOBER, 20), "done"));
+
+        Map<String, CareSchedule> scheduleMap = new HashMap<>();
+        scheduleMap.put("s1", createSchedule("s1", "water", 7));
+        scheduleMap.put("s2", createSchedule("s2", "repot", 365));
+
+        List<CareCompletionMonthly> monthly = new ArrayList<>();
+        monthly.add(createMonthly("2025-10", "water", "in_app", 3));
+
+        List<FullCareHistoryAdapter.HistoryItem> items =
+            FullCareHistoryAdapter.buildHistoryItems(completions, scheduleMap, monthly);
+
+        // header(Feb) + c1 + header(Oct) + c2 + water summary = 5 total
+        assertEquals(5, items.size());
+        assertEquals(FullCareHistoryAdapter.TYPE_HEADER, items.get(2).type);
+        assertEquals("c2", items.get(3).completion.id);
+        assertEquals(FullCareHistoryAdapter.TYPE_SUMMARY, items.get(4).type);
+        assertEquals(FullCareHistoryAdapter.TYPE_ITEM, items.get(1).type);
+        assertNotNull(items.get(2).monthLabel);
+    }
 }
@@ -4,10 +4,13 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.leafiq.app.data.entity.Analysis;
 import com.leafiq.app.data.model.AnalysisWithPlant;
+import com.leafiq.app.data.model.PlantAnalysisResult;
 import com.leafiq.app.ui.timeline.TimelineViewModel.TimelineItem;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class TimelineItemTest {
 
     // ==================== Header tests ====================
@@ -115,8 +118,93 @@ public class TimelineItemTest {
         assertThat(TimelineViewModel.HealthFilter.valueOf("CRITICAL")).isNotNull();
     }
 
+    @Test
+    public void healthFilter_scoreRanges_matchHealthBands() {
+        assertThat(TimelineViewModel.HealthFilter.HEALTHY.minScore).isEqualTo(7);
+        assertThat(TimelineViewModel.HealthFilter.NEEDS_ATTENTION.minScore).isEqualTo(4);
+        assertThat(TimelineViewModel.HealthFilter.NEEDS_ATTENTION.maxScore).isEqualTo(6);
+        assertThat(TimelineViewModel.HealthFilter.CRITICAL.maxScore).isEqualTo(3);
+        assertThat(TimelineViewModel.HealthFilter.ALL.minScore).isAtMost(0);
+        assertThat(TimelineViewModel.HealthFilter.ALL.maxScore).isAtLeast(10);
+    }
+
+    // ==================== Date header separator tests ====================
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long ONE_DAY_MS = 24 * 60 * 60 * 1000L;
+
+    @Test
+    public void headerBetween_firstEntry_getsHeader() {
+        TimelineItem header = TimelineViewModel.headerBetween(null, entryAt(NOW), NOW);
+
+        assertThat(header).isInstanceOf(TimelineItem.Header.class);
+        assertThat(((TimelineItem.Header) header).label).isEqualTo("Today");
+    }
+
+    @Test
+    public void headerBetween_sameDay_noHeader() {
+        assertThat(TimelineViewModel.headerBetween(entryAt(NOW), entryAt(NOW - 1000), NOW)).isNull();
+    }
+
+    @Test
+    public void headerBetween_dayChanges_insertsHeaderForLaterEntry() {
+        TimelineItem header = TimelineViewModel.headerBetween(
+                entryAt(NOW), entryAt(NOW - ONE_DAY_MS), NOW);
+
+        assertThat(((TimelineItem.Header) header).label).isEqualTo("Yesterday");
+    }
+
+    @Test
+    public void headerBetween_endOfList_noHeader() {
+        assertThat(TimelineViewModel.headerBetween(entryAt(NOW), null, NOW)).isNull();
+    }
+
+    // ==================== Care highlights ====================
+
+    @Test
+    public void extractCareHighlights_null_returnsEmptyList() {
+        assertThat(TimelineViewModel.extractCareHighlights(null)).isEmpty();
+    }
+
+    @Test
+    public void extractCareHighlights_urgentActions_cappedAtTwo() {
+        PlantAnalysisResult parsed = new PlantAnalysisResult();
+        parsed.immediateActions = Arrays.asList(
+                action("Water now", "urgent"),
+                action("Trim leaves", "when_convenient"),
+                action("Move to shade", "soon"),
+                action("Repot", "urgent"));
+
+        assertThat(TimelineViewModel.extractCareHighlights(parsed))
+                .containsExactly("Water now", "Move to shade").inOrder();
+    }
+
+    @Test
+    public void extractCareHighlights_noActions_fallsBackToCarePlan() {
+        PlantAnalysisResult parsed = new PlantAnalysisResult();
+        parsed.carePlan = new PlantAnalysisResult.CarePlan();
+        parsed.carePlan.light = new PlantAnalysisResult.CarePlan.Light();
+        parsed.carePlan.light.adjustment = "Move closer to the window";
+
+        assertThat(TimelineViewModel.extractCareHighlights(parsed))
+                .containsExactly("Move closer to the window");
+    }
+
     // ==================== Helpers ====================
 
+    private PlantAnalysisResult.ImmediateAction action(String text, String priority) {
+        PlantAnalysisResult.ImmediateAction action = new PlantAnalysisResult.ImmediateAction();
+        action.action = text;
+        action.priority = priority;
+        return action;
+    }
+
+    private TimelineItem entryAt(long createdAt) {
+        AnalysisWithPlant data = createTestAnalysisWithPlant("a" + createdAt, "p1", 8);
+        data.analysis.createdAt = createdAt;
+        return new TimelineItem.Entry(data, false);
+    }
+
     private AnalysisWithPlant createTestAnalysisWithPlant(String analysisId, String plantId, int healthScore) {
         AnalysisWithPlant awp = new AnalysisWithPlant();
         awp.analysis.id = analysisId;
@@ -115,4 +115,22 @@ public class KeystoreHelperEncryptionTest {
         KeystoreHelper helper = new KeystoreHelper(null, false);
         assertThat(helper.areRemindersPaused()).isFalse();
     }
+
+    @Test
+    public void getQuietHoursStart_whenUnhealthy_returnsDefault() {
+        KeystoreHelper helper = new KeystoreHelper(null, false);
+        assertThat(helper.getQuietHoursStart()).asList().containsExactly(21, 0).inOrder();
+    }
+
+    @Test
+    public void getQuietHoursEnd_whenUnhealthy_returnsDefault() {
+        KeystoreHelper helper = new KeystoreHelper(null, false);
+        assertThat(helper.getQuietHoursEnd()).asList().containsExactly(8, 0).inOrder();
+    }
+
+    @Test
+    public void areQuietHoursEnabled_whenUnhealthy_returnsFalse() {
+        KeystoreHelper helper = new KeystoreHelper(null, false);
+        assertThat(helper.areQuietHoursEnabled()).isFalse();
+    }
 }
@@ -0,0 +1,73 @@
+package com.leafiq.app.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for PerceptualHash dHash and Hamming distance on raw 9x8 pixel grids.
+ */
+public class PerceptualHashTest {
+
+    private static final int PIXELS = PerceptualHash.HASH_WIDTH * PerceptualHash.HASH_HEIGHT;
+
+    private static int gray(int level) {
+        return 0xFF000000 | (level << 16) | (level << 8) | level;
+    }
+
+    /** Brightness falls left to right: every pixel is brighter than its right neighbour. */
+    private static int[] descendingGradient(int offset) {
+        int[] pixels = new int[PIXELS];
+        for (int y = 0; y < PerceptualHash.HASH_HEIGHT; y++) {
+            for (int x = 0; x < PerceptualHash.HASH_WIDTH; x++) {
+                pixels[y * PerceptualHash.HASH_WIDTH + x] = gray(200 - x * 20 + offset);
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    public void dHash_descendingGradient_setsAllBits() {
+        assertThat(PerceptualHash.dHash(descendingGradient(0))).isEqualTo(-1L);
+    }
+
+    @Test
+    public void dHash_flatImage_isZero() {
+        int[] pixels = new int[PIXELS];
+        java.util.Arrays.fill(pixels, gray(128));
+
+        assertThat(PerceptualHash.dHash(pixels)).isEqualTo(0L);
+    }
+
+    @Test
+    public void dHash_uniformBrightnessShift_isUnchanged() {
+        // Re-shoot under slightly brighter light: relative gradients are the same
+        assertThat(PerceptualHash.dHash(descendingGradient(30)))
+                .isEqualTo(PerceptualHash.dHash(descendingGradient(0)));
+    }
+
+    @Test
+    public void dHash_singleLocalChange_flipsFewBits() {
+        int[] original = descendingGradient(0);
+        int[] touched = descendingGradient(0);
+        touched[4] = gray(255);  // one bright speck in the first row
+
+        int distance = PerceptualHash.hammingDistance(
+                PerceptualHash.dHash(original), PerceptualHash.dHash(touched));
+
+        assertThat(distance).isAtMost(2);
+        assertThat(distance).isGreaterThan(0);
+    }
+
+    @Test
+    public void hammingDistance_countsDifferingBits() {
+        assertThat(PerceptualHash.hammingDistance(0L, 0L)).isEqualTo(0);
+        assertThat(PerceptualHash.hammingDistance(0L, -1L)).isEqualTo(64);
+        assertThat(PerceptualHash.hammingDistance(0b1010L, 0b0110L)).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void dHash_wrongPixelCount_throws() {
+        PerceptualHash.dHash(new int[10]);
+    }
+}
@@ -0,0 +1,196 @@
+package com.leafiq.app.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for PriorityExecutor.
+ * A single-thread pool is held busy by a blocking task so that submitted tasks queue up,
+ * then released to observe run order, queue bounds and metrics.
+ */
+public class PriorityExecutorTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private PriorityExecutor executor;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        executor = new PriorityExecutor("test", 1, 4);
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+        executor.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Occupies the only worker thread until release is counted down.
+     */
+    private void blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void drain() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    }
+
+    // ==================== Ordering ====================
+
+    @Test
+    public void execute_runsHigherPriorityFirst() throws InterruptedException {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        blockWorker();
+
+        executor.execute(PriorityExecutor.Priority.BACKGROUND, () -> order.add("background"));
+        executor.execute(PriorityExecutor.Priority.NORMAL, () -> order.add("normal"));
+        executor.execute(PriorityExecutor.Priority.USER_VISIBLE, () -> order.add("user"));
+        drain();
+
+        assertThat(order).containsExactly("user", "normal", "background").inOrder();
+    }
+
+    @Test
+    public void execute_samePriority_runsInSubmissionOrder() throws InterruptedException {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        blockWorker();
+
+        for (int i = 0; i < 4; i++) {
+            int task = i;
+            executor.execute(PriorityExecutor.Priority.NORMAL, () -> order.add(task));
+        }
+        drain();
+
+        assertThat(order).containsExactly(0, 1, 2, 3).inOrder();
+    }
+
+    @Test
+    public void withPriority_submitsAtThatPriority() throws InterruptedException {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        blockWorker();
+
+        executor.execute(() -> order.add("normal"));
+        executor.withPriority(PriorityExecutor.Priority.USER_VISIBLE).execute(() -> order.add("user"));
+        drain();
+
+        assertThat(order).containsExactly("user", "normal").inOrder();
+    }
+
+    // ==================== Bounds ====================
+
+    @Test
+    public void execute_queueFull_stillAcceptsUserVisibleAndNormalWork() throws InterruptedException {
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        blockWorker();
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> { });
+        }
+
+        executor.execute(PriorityExecutor.Priority.USER_VISIBLE, () -> ran.add("user"));
+        executor.execute(PriorityExecutor.Priority.NORMAL, () -> ran.add("normal"));
+        assertThrows(RejectedExecutionException.class,
+                () -> executor.execute(PriorityExecutor.Priority.BACKGROUND, () -> { }));
+        assertThat(executor.getStats().queueDepth).isEqualTo(6);
+        assertThat(executor.getStats().rejectedCount).isEqualTo(1);
+
+        drain();
+        assertThat(ran).containsExactly("user", "normal").inOrder();
+    }
+
+    @Test
+    public void execute_backgroundRejectedAtHalfCapacity_userWorkStillAccepted() throws InterruptedException {
+        blockWorker();
+        executor.execute(PriorityExecutor.Priority.BACKGROUND, () -> { });
+        executor.execute(PriorityExecutor.Priority.BACKGROUND, () -> { });
+
+        assertThrows(RejectedExecutionException.class,
+                () -> executor.execute(PriorityExecutor.Priority.BACKGROUND, () -> { }));
+
+        executor.execute(PriorityExecutor.Priority.USER_VISIBLE, () -> { });
+        executor.execute(PriorityExecutor.Priority.NORMAL, () -> { });
+        assertThat(executor.getStats().queueDepth).isEqualTo(4);
+    }
+
+    @Test
+    public void execute_afterQueueDrains_acceptsAgain() throws InterruptedException {
+        blockWorker();
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> { });
+        }
+        release.countDown();
+
+        CountDownLatch ran = new CountDownLatch(1);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (executor.getStats().queueDepth > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        executor.execute(ran::countDown);
+
+        assertThat(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    }
+
+    // ==================== Metrics ====================
+
+    @Test
+    public void getStats_tracksCompletedWaitAndRun() throws InterruptedException {
+        blockWorker();
+        executor.execute(() -> { });
+        executor.execute(() -> { });
+        Thread.sleep(50);
+        drain();
+
+        PriorityExecutor.Stats stats = executor.getStats();
+        assertThat(stats.completedCount).isEqualTo(3);
+        assertThat(stats.queueDepth).isEqualTo(0);
+        assertThat(stats.runningCount).isEqualTo(0);
+        assertThat(stats.rejectedCount).isEqualTo(0);
+        // Queued tasks waited at least as long as the blocker ran
+        assertThat(stats.maxWaitMs).isAtLeast(50);
+        assertThat(stats.maxRunMs).isAtLeast(50);
+        assertThat(stats.toString()).startsWith("test:");
+    }
+
+    @Test
+    public void execute_usesNamedThreads() throws InterruptedException {
+        String[] threadName = new String[1];
+        executor.execute(() -> threadName[0] = Thread.currentThread().getName());
+        drain();
+
+        assertThat(threadName[0]).isEqualTo("test-1");
+    }
+
+    @Test
+    public void execute_afterShutdown_rejectsAndReleasesSlot() {
+        executor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertThat(executor.getStats().queueDepth).isEqualTo(0);
+        assertThat(executor.getStats().rejectedCount).isEqualTo(1);
+    }
+}